@@ -11,7 +11,11 @@ import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.swiften.javautilities.object.HPObjects;
 import org.swiften.javautilities.protocol.RetryProviderType;
+import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.android.adb.ADBHandler;
+import org.swiften.xtestkit.android.adb.ADBTransportType;
+import org.swiften.xtestkit.android.adb.EmulatorBootWatcher;
+import org.swiften.xtestkit.android.adb.SocketADBTransport;
 import org.swiften.xtestkit.android.capability.AndroidEngineCapability;
 import org.swiften.xtestkit.android.element.choice.AndroidChoiceSelectorType;
 import org.swiften.xtestkit.android.element.date.AndroidDateActionType;
@@ -33,7 +37,6 @@ import org.swiften.xtestkit.base.type.AppPackageProviderType;
 import org.swiften.xtestkit.mobile.Automation;
 import org.swiften.xtestkit.mobile.MobileEngine;
 import org.swiften.xtestkit.mobile.Platform;
-import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -70,13 +73,16 @@ public class AndroidEngine extends
     @NotNull private final ADBHandler ADB_HANDLER;
     @NotNull private final PlatformView PLATFORM_VIEW;
     @NotNull String appActivity;
+    @NotNull String emulatorSnapshot;
     @Nullable AndroidInstance androidInstance;
+    @Nullable private AndroidNavigationCheckpoint navigationCheckpoint;
 
     protected AndroidEngine() {
         super();
         ADB_HANDLER = new ADBHandler();
         PLATFORM_VIEW = new AndroidView();
         appActivity = "";
+        emulatorSnapshot = "";
     }
 
     //region DistinctiveType
@@ -95,6 +101,47 @@ public class AndroidEngine extends
     }
     //endregion
 
+    //region TestListenerType
+    /**
+     * Override this method to close persistent adb shell sessions, and to
+     * stop the emulators launched by {@link #adbHandler()}.
+     * @return {@link Flowable} instance.
+     * @see Engine#rxa_onAllTestsFinished()
+     * @see ADBHandler#closeShellSessions()
+     * @see #adbHandler()
+     * @see #stopEmulators()
+     */
+    @NotNull
+    @Override
+    public Flowable<Boolean> rxa_onAllTestsFinished() {
+        final AndroidEngine THIS = this;
+        final ADBHandler HANDLER = adbHandler();
+
+        return super.rxa_onAllTestsFinished()
+            .doFinally(HANDLER::closeShellSessions)
+            .doFinally(THIS::stopEmulators);
+    }
+
+    /**
+     * Log the recorded boot durations, then stop all emulators launched by
+     * {@link #adbHandler()}, so that their {@link Process} do not outlive
+     * the test run. This can be called more than once.
+     * @see EmulatorBootWatcher#bootSummary()
+     * @see EmulatorBootWatcher#stopEmulators()
+     * @see #adbHandler()
+     */
+    public void stopEmulators() {
+        EmulatorBootWatcher watcher = adbHandler().bootWatcher();
+        String summary = watcher.bootSummary();
+
+        if (!summary.isEmpty()) {
+            HPLog.println(summary);
+        }
+
+        watcher.stopEmulators();
+    }
+    //endregion
+
 //    //region TestListenerType
 //    @NotNull
 //    @Override
@@ -169,6 +216,18 @@ public class AndroidEngine extends
         return appActivity;
     }
 
+    /**
+     * Return {@link #emulatorSnapshot}. If this is not empty, the emulator
+     * quick boots from this snapshot when it exists, or saves it after a
+     * cold boot otherwise.
+     * @return {@link String} value.
+     * @see #emulatorSnapshot
+     */
+    @NotNull
+    public String emulatorSnapshot() {
+        return emulatorSnapshot;
+    }
+
     /**
      * Return {@link #androidInstance}.
      * @return {@link AndroidInstance} instance.
@@ -191,11 +250,8 @@ public class AndroidEngine extends
      * @return {@link Flowable} instance.
      * @see Engine#rxa_beforeClass(RetryProviderType)
      * @see ADBHandler#rxa_disableAnimations(DeviceUIDProviderType)
-     * @see ADBHandler#rxa_startEmulator(StartEmulatorParam)
      * @see ADBHandler#rxa_clearCache(AppPackageProviderType)
-     * @see ADBHandler#rxe_availablePort(RetryProviderType)
      * @see ADBHandler#rxe_appInstalled(AppPackageProviderType)
-     * @see AndroidInstance#setPort(int)
      * @see ClearCacheParam.Builder#withAppPackage(String)
      * @see ClearCacheParam.Builder#withDeviceUIDProvider(DeviceUIDProviderType)
      * @see ClearCacheParam.Builder#withRetryProvider(RetryProviderType)
@@ -204,8 +260,8 @@ public class AndroidEngine extends
      * @see #adbHandler()
      * @see #androidInstance()
      * @see #appPackage()
-     * @see #deviceName()
      * @see #testMode()
+     * @see #rxa_provisionEmulator(RetryProviderType)
      * @see #rxa_startDriver(RetryProviderType)
      */
     @NotNull
@@ -219,15 +275,7 @@ public class AndroidEngine extends
         TestMode testMode = testMode();
 
         if (testMode.isTestingOnSimulatedEnvironment()) {
-            source = handler.rxe_availablePort(PARAM)
-                .doOnNext(A::setPort)
-                .map(a -> StartEmulatorParam.builder()
-                    .withDeviceName(deviceName())
-                    .withAndroidInstance(A)
-                    .withRetries(100)
-                    .build())
-                .flatMap(handler::rxa_startEmulator)
-                .onErrorReturnItem(true);
+            source = rxa_provisionEmulator(PARAM).onErrorReturnItem(true);
         } else {
             /* Assuming the device is already started up */
             source = Flowable.just(true);
@@ -268,12 +316,12 @@ public class AndroidEngine extends
      * @see Engine#rxa_afterClass(RetryProviderType)
      * @see ADBHandler#rxa_stopEmulator(StopEmulatorParam)
      * @see AndroidInstance#port()
-     * @see NetworkHandler#markPortAvailable(int)
+     * @see ADBHandler#releasePort(int)
+     * @see EmulatorBootWatcher#isRunning(DeviceUIDProviderType)
      * @see HPObjects#nonNull(Object)
      * @see TestMode#isTestingOnSimulatedEnvironment()
      * @see #adbHandler()
      * @see #androidInstance()
-     * @see #networkHandler()
      * @see #testMode()
      * @see #rxa_resetApp()
      * @see #rxa_stopDriver()
@@ -283,8 +331,13 @@ public class AndroidEngine extends
     @SuppressWarnings("unchecked")
     public Flowable<Boolean> rxa_afterClass(@NotNull RetryProviderType param) {
         AndroidInstance androidInstance = androidInstance();
-        final NetworkHandler HANDLER = networkHandler();
+        final ADBHandler HANDLER = adbHandler();
         final int PORT = androidInstance.port();
+
+        /* A managed emulator stays up for later test classes, so its port
+         * lease must be kept. The boot watchers share their emulators, so
+         * this also holds for an emulator launched by another engine */
+        final boolean RUNNING = HANDLER.bootWatcher().isRunning(androidInstance);
         Flowable<Boolean> source;
         TestMode mode = testMode();
 
@@ -305,7 +358,11 @@ public class AndroidEngine extends
                 rxa_stopDriver(), source,
 
                 Completable
-                    .fromAction(() -> HANDLER.markPortAvailable(PORT))
+                    .fromAction(() -> {
+                        if (!RUNNING) {
+                            HANDLER.releasePort(PORT);
+                        }
+                    })
                     .<Boolean>toFlowable()
                     .defaultIfEmpty(true)
             )
@@ -314,6 +371,105 @@ public class AndroidEngine extends
     }
     //endregion
 
+    //region Emulator Provisioning
+    /**
+     * Start the emulator for {@link #androidInstance()}, unless one for
+     * {@link #deviceName()} that was launched earlier (e.g. by
+     * {@link org.swiften.xtestkit.kit.TestKit} before all tests, or by
+     * another {@link AndroidEngine} using the same AVD) is still running.
+     * In that case, its port is adopted instead of leasing a new one.
+     * @param param {@link RetryProviderType} instance.
+     * @return {@link Flowable} instance.
+     * @see AndroidInstance#setPort(int)
+     * @see EmulatorBootWatcher#runningPort(String)
+     * @see #androidInstance()
+     * @see #deviceName()
+     * @see #rxa_assignEmulatorPort(RetryProviderType)
+     * @see #rxa_bootEmulator()
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_provisionEmulator(@NotNull RetryProviderType param) {
+        final AndroidEngine THIS = this;
+        AndroidInstance instance = androidInstance();
+        Integer port = adbHandler().bootWatcher().runningPort(deviceName());
+
+        if (port != null) {
+            instance.setPort(port);
+            return Flowable.just(true);
+        }
+
+        return rxa_assignEmulatorPort(param).flatMap(a -> THIS.rxa_bootEmulator());
+    }
+
+    /**
+     * Lease an available emulator port and assign it to
+     * {@link #androidInstance()}. The lease is atomic, so this can be done
+     * in parallel across {@link AndroidEngine}.
+     * @param param {@link RetryProviderType} instance.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#rxe_availablePort(RetryProviderType)
+     * @see AndroidInstance#setPort(int)
+     * @see #adbHandler()
+     * @see #androidInstance()
+     */
+    @NotNull
+    public Flowable<Integer> rxa_assignEmulatorPort(@NotNull RetryProviderType param) {
+        AndroidInstance instance = androidInstance();
+        return adbHandler().rxe_availablePort(param).doOnNext(instance::setPort);
+    }
+
+    /**
+     * Boot the emulator on the port assigned by
+     * {@link #rxa_assignEmulatorPort(RetryProviderType)}. If
+     * {@link #emulatorSnapshot()} has been saved before, the emulator quick
+     * boots from it.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#rxa_startEmulator(StartEmulatorParam)
+     * @see ADBHandler#snapshotExists(String, String)
+     * @see #adbHandler()
+     * @see #androidInstance()
+     * @see #deviceName()
+     * @see #emulatorSnapshot()
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_bootEmulator() {
+        ADBHandler handler = adbHandler();
+        String deviceName = deviceName();
+        String snapshot = emulatorSnapshot();
+
+        StartEmulatorParam param = StartEmulatorParam.builder()
+            .withDeviceName(deviceName)
+            .withAndroidInstance(androidInstance())
+            .withRetries(100)
+            .withSnapshot(snapshot)
+            .withRestoreSnapshot(!snapshot.isEmpty() && handler.snapshotExists(deviceName, snapshot))
+            .build();
+
+        return handler.rxa_startEmulator(param);
+    }
+    //endregion
+
+    //region Navigation Checkpoints
+    /**
+     * Get the {@link AndroidNavigationCheckpoint} for
+     * {@link #androidInstance()}. Return this from
+     * {@link org.swiften.xtestkit.navigation.ScreenManagerType#navigationCheckpoint()}
+     * to restore emulator snapshots instead of replaying navigation. This
+     * only works with emulators.
+     * @return {@link AndroidNavigationCheckpoint} instance.
+     * @see #adbHandler()
+     * @see #androidInstance()
+     */
+    @NotNull
+    public synchronized AndroidNavigationCheckpoint navigationCheckpoint() {
+        if (navigationCheckpoint == null) {
+            navigationCheckpoint = new AndroidNavigationCheckpoint(adbHandler(), androidInstance());
+        }
+
+        return navigationCheckpoint;
+    }
+    //endregion
+
     //region Appium Setup
     /**
      * Override this method to provide default implementation.
@@ -410,6 +566,43 @@ public class AndroidEngine extends
             return this;
         }
 
+        /**
+         * Set {@link #emulatorSnapshot}.
+         * @param snapshot {@link String} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withEmulatorSnapshot(@NotNull String snapshot) {
+            ENGINE.emulatorSnapshot = snapshot;
+            return this;
+        }
+
+        /**
+         * Send adb shell commands over one persistent shell per device,
+         * instead of forking adb for each command.
+         * @param enabled {@link Boolean} value.
+         * @return {@link Builder} instance.
+         * @see ADBHandler#setPersistentShellEnabled(boolean)
+         */
+        @NotNull
+        public Builder withPersistentAdbShell(boolean enabled) {
+            ENGINE.ADB_HANDLER.setPersistentShellEnabled(enabled);
+            return this;
+        }
+
+        /**
+         * Set the {@link ADBTransportType} used by {@link ADBHandler}, e.g.
+         * {@link SocketADBTransport} to talk to the adb server directly.
+         * @param transport {@link ADBTransportType} instance.
+         * @return {@link Builder} instance.
+         * @see ADBHandler#setTransport(ADBTransportType)
+         */
+        @NotNull
+        public Builder withADBTransport(@NotNull ADBTransportType transport) {
+            ENGINE.ADB_HANDLER.setTransport(transport);
+            return this;
+        }
+
         /**
          * Set the {@link AndroidInstance#uid} value.
          * @param uid {@link String} value.
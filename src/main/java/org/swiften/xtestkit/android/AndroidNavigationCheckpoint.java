@@ -0,0 +1,170 @@
+package org.swiften.xtestkit.android;
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.xtestkit.android.adb.ADBHandler;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+import org.swiften.xtestkit.navigation.NavigationCheckpointType;
+import org.swiften.xtestkit.navigation.ScreenType;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Created by haipham on 4/8/17.
+ */
+
+/**
+ * Use this class to checkpoint navigation with emulator snapshots. Each
+ * {@link ScreenType} gets its own snapshot, which is saved the first time
+ * the screen is reached during a run and loaded in place afterwards.
+ * Snapshots saved by earlier runs are not trusted, since the app under test
+ * may have changed since.
+ */
+public class AndroidNavigationCheckpoint implements NavigationCheckpointType {
+    @NotNull private static final String PREFIX = "xtestkit_nav_";
+
+    /**
+     * The estimated time (in milliseconds) it takes to load a snapshot,
+     * used until a snapshot has been saved or loaded.
+     */
+    static final long DEFAULT_RESTORE_COST = 3000;
+
+    @NotNull private final ADBHandler HANDLER;
+    @NotNull private final DeviceUIDProviderType DEVICE;
+    @NotNull private final Set<String> SAVED;
+    @NotNull private final AtomicLong RESTORE_TIME;
+    @NotNull private final AtomicLong RESTORE_COUNT;
+    @NotNull private final AtomicLong SAVE_TIME;
+    @NotNull private final AtomicLong SAVE_COUNT;
+
+    public AndroidNavigationCheckpoint(@NotNull ADBHandler handler,
+                                       @NotNull DeviceUIDProviderType device) {
+        HANDLER = handler;
+        DEVICE = device;
+        SAVED = ConcurrentHashMap.newKeySet();
+        RESTORE_TIME = new AtomicLong();
+        RESTORE_COUNT = new AtomicLong();
+        SAVE_TIME = new AtomicLong();
+        SAVE_COUNT = new AtomicLong();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("Navigation checkpoints on %s", DEVICE.deviceUID());
+    }
+
+    /**
+     * Get the snapshot name for a {@link ScreenType}. The name includes
+     * {@link DeviceUIDProviderType#deviceUID()}, so that emulators that
+     * share an AVD do not load each other's snapshots.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link String} value.
+     * @see #DEVICE
+     */
+    @NotNull
+    public String snapshot(@NotNull ScreenType screen) {
+        String name = DEVICE.deviceUID() + "_" + screen.toString();
+        return PREFIX + name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link Boolean} value.
+     * @see NavigationCheckpointType#hasCheckpoint(ScreenType)
+     * @see #snapshot(ScreenType)
+     */
+    @Override
+    public boolean hasCheckpoint(@NotNull ScreenType screen) {
+        return SAVED.contains(snapshot(screen));
+    }
+
+    /**
+     * Override this method to provide default implementation. The time
+     * each save takes is recorded for {@link #restoreCost()}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#rxa_saveSnapshot(DeviceUIDProviderType, String)
+     * @see NavigationCheckpointType#rxa_saveCheckpoint(ScreenType)
+     * @see #snapshot(ScreenType)
+     */
+    @NotNull
+    @Override
+    public Flowable<Boolean> rxa_saveCheckpoint(@NotNull ScreenType screen) {
+        final String SNAPSHOT = snapshot(screen);
+
+        return Flowable.defer(() -> {
+            final long START = System.currentTimeMillis();
+
+            return HANDLER
+                .rxa_saveSnapshot(DEVICE, SNAPSHOT)
+                .doOnNext(a -> {
+                    SAVE_TIME.addAndGet(System.currentTimeMillis() - START);
+                    SAVE_COUNT.incrementAndGet();
+                    SAVED.add(SNAPSHOT);
+                });
+        });
+    }
+
+    /**
+     * Override this method to provide default implementation. The time
+     * each restore takes is recorded for {@link #restoreCost()}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#rxa_loadSnapshot(DeviceUIDProviderType, String)
+     * @see NavigationCheckpointType#rxa_restoreCheckpoint(ScreenType)
+     * @see #snapshot(ScreenType)
+     */
+    @NotNull
+    @Override
+    public Flowable<Boolean> rxa_restoreCheckpoint(@NotNull ScreenType screen) {
+        final AndroidNavigationCheckpoint THIS = this;
+        final String SNAPSHOT = snapshot(screen);
+
+        return Flowable.defer(() -> {
+            final long START = System.currentTimeMillis();
+
+            return HANDLER
+                .rxa_loadSnapshot(DEVICE, SNAPSHOT)
+                .doOnNext(a -> THIS.recordRestore(System.currentTimeMillis() - START))
+
+                /* A snapshot that cannot be loaded should not be tried again */
+                .doOnError(a -> SAVED.remove(SNAPSHOT));
+        });
+    }
+
+    /**
+     * Override this method to provide default implementation. This is the
+     * average restore time once a snapshot has been loaded. Before that,
+     * the average save time is used, since saving and loading a snapshot
+     * take about as long; failing that, {@link #DEFAULT_RESTORE_COST}.
+     * @return {@link Long} value.
+     * @see NavigationCheckpointType#restoreCost()
+     * @see #DEFAULT_RESTORE_COST
+     * @see #RESTORE_TIME
+     * @see #RESTORE_COUNT
+     * @see #SAVE_TIME
+     * @see #SAVE_COUNT
+     */
+    @Override
+    public long restoreCost() {
+        long restoreCount = RESTORE_COUNT.get();
+        long saveCount = SAVE_COUNT.get();
+
+        if (restoreCount > 0) {
+            return RESTORE_TIME.get() / restoreCount;
+        } else if (saveCount > 0) {
+            return SAVE_TIME.get() / saveCount;
+        } else {
+            return DEFAULT_RESTORE_COST;
+        }
+    }
+
+    private void recordRestore(long millis) {
+        RESTORE_TIME.addAndGet(millis);
+        RESTORE_COUNT.incrementAndGet();
+    }
+}
@@ -0,0 +1,128 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents one line of 'adb devices -l' (or 'host:devices-l') output.
+ */
+public final class ADBDevice implements DeviceUIDProviderType {
+    /**
+     * Parse the output of 'adb devices -l'. Lines that do not describe a
+     * device (e.g. the 'List of devices attached' header) are skipped.
+     * @param output {@link String} value.
+     * @return {@link List} of {@link ADBDevice}.
+     * @see #parse(String)
+     */
+    @NotNull
+    public static List<ADBDevice> parseAll(@NotNull String output) {
+        List<ADBDevice> devices = new ArrayList<>();
+
+        for (String line : output.split("\n")) {
+            ADBDevice device = parse(line);
+
+            if (device != null) {
+                devices.add(device);
+            }
+        }
+
+        return devices;
+    }
+
+    /**
+     * Parse a single line, e.g.
+     * 'emulator-5554 device product:sdk_phone model:Nexus_4 transport_id:1'.
+     * @param line {@link String} value.
+     * @return {@link ADBDevice} instance, or null if the line does not
+     * describe a device.
+     */
+    @Nullable
+    public static ADBDevice parse(@NotNull String line) {
+        String[] parts = line.trim().split("\\s+");
+
+        if (parts.length < 2 || line.startsWith("List of devices")) {
+            return null;
+        }
+
+        Map<String,String> properties = new HashMap<>();
+
+        for (int i = 2; i < parts.length; i++) {
+            String[] pair = parts[i].split(":", 2);
+
+            if (pair.length == 2) {
+                properties.put(pair[0], pair[1]);
+            }
+        }
+
+        return new ADBDevice(parts[0], parts[1], properties);
+    }
+
+    @NotNull private final String SERIAL;
+    @NotNull private final String STATE;
+    @NotNull private final Map<String,String> PROPERTIES;
+
+    ADBDevice(@NotNull String serial,
+              @NotNull String state,
+              @NotNull Map<String,String> properties) {
+        SERIAL = serial;
+        STATE = state;
+        PROPERTIES = Collections.unmodifiableMap(properties);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("%s (%s) %s", SERIAL, STATE, PROPERTIES);
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link String} value.
+     * @see DeviceUIDProviderType#deviceUID()
+     * @see #SERIAL
+     */
+    @NotNull
+    @Override
+    public String deviceUID() {
+        return SERIAL;
+    }
+
+    /**
+     * Get {@link #STATE}, e.g. 'device', 'offline' or 'unauthorized'.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public String state() {
+        return STATE;
+    }
+
+    /**
+     * Check whether the device is online and authorized.
+     * @return {@link Boolean} value.
+     * @see #state()
+     */
+    public boolean isOnline() {
+        return "device".equals(STATE);
+    }
+
+    /**
+     * Get a property such as 'model' or 'transport_id'.
+     * @param key {@link String} value.
+     * @return {@link String} value, or null if there is no such property.
+     */
+    @Nullable
+    public String property(@NotNull String key) {
+        return PROPERTIES.get(key);
+    }
+}
@@ -10,6 +10,12 @@ public interface ADBErrorType {
     String PROCESS_RUNNER_UNAVAILABLE = "Process runner not set";
     String NO_OUTPUT_EXPECTED = "No output expected";
     String NO_PORT_AVAILABLE = "No port available";
+    String SHELL_CLOSED = "Shell session closed unexpectedly";
+
+    @NotNull
+    default String adbProtocolError(@NotNull String received) {
+        return String.format("Unexpected adb response: %s", received);
+    }
 
     @NotNull
     default String appNotInstalled(@NotNull String app) {
@@ -21,6 +27,31 @@ public interface ADBErrorType {
         return String.format("Unable to change settings %s", setting);
     }
 
+    @NotNull
+    default String emulatorExited(@NotNull String avd) {
+        return String.format("Emulator %s exited before it finished booting", avd);
+    }
+
+    @NotNull
+    default String saveSnapshotFailed(@NotNull String snapshot) {
+        return String.format("Unable to save snapshot %s", snapshot);
+    }
+
+    @NotNull
+    default String loadSnapshotFailed(@NotNull String snapshot) {
+        return String.format("Unable to load snapshot %s", snapshot);
+    }
+
+    @NotNull
+    default String shellCommandFailed(@NotNull String command, int exitCode) {
+        return String.format("%s exited with code %d", command, exitCode);
+    }
+
+    @NotNull
+    default String shellTimedOut(@NotNull String command, long timeout) {
+        return String.format("%s did not finish within %dms", command, timeout);
+    }
+
     @NotNull
     default String unableToClearCache(@NotNull String app) {
         return String.format("Unable to clear cache for %s", app);
@@ -4,28 +4,38 @@ import org.swiften.javautilities.object.HPObjects;
 import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.javautilities.string.HPStrings;
+import org.swiften.javautilities.util.HPLog;
+import org.swiften.xtestkit.base.PortLeaseAllocator;
 import org.swiften.xtestkit.base.type.AppPackageProviderType;
 import org.swiften.xtestkit.android.param.ConnectionParam;
 import org.swiften.xtestkit.android.param.DeviceSettingParam;
+import org.swiften.xtestkit.android.param.DeviceSettingsBatch;
 import org.swiften.xtestkit.android.param.StartEmulatorParam;
 import org.swiften.xtestkit.android.param.StopEmulatorParam;
 import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
 import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
-import org.swiften.xtestkitcomponents.system.network.param.PortCheckParam;
-import org.swiften.xtestkitcomponents.system.network.type.PortProviderType;
 import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
 import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.number.HPNumbers;
 
+import java.io.File;
+import java.net.ConnectException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Created by haipham on 4/8/17.
@@ -67,10 +77,19 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
 
     @NotNull private final ProcessRunner PROCESS_RUNNER;
     @NotNull private final NetworkHandler NETWORK_HANDLER;
+    @NotNull private final Map<String,ADBShellSession> SHELL_SESSIONS;
+    @NotNull private final EmulatorBootWatcher BOOT_WATCHER;
+    @NotNull private PortLeaseAllocator portAllocator;
+    @Nullable private ADBTransportType transport;
+    @Nullable private ProcessADBTransport processTransport;
+    private boolean persistentShell;
 
     public ADBHandler() {
         PROCESS_RUNNER = new ProcessRunner();
         NETWORK_HANDLER = new NetworkHandler();
+        SHELL_SESSIONS = new ConcurrentHashMap<>();
+        BOOT_WATCHER = new EmulatorBootWatcher(this);
+        portAllocator = PortLeaseAllocator.emulatorPorts();
     }
 
     //region Getters
@@ -83,6 +102,15 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
         return PROCESS_RUNNER;
     }
 
+    /**
+     * Return {@link #BOOT_WATCHER}.
+     * @return {@link EmulatorBootWatcher} instance.
+     */
+    @NotNull
+    public EmulatorBootWatcher bootWatcher() {
+        return BOOT_WATCHER;
+    }
+
     /**
      * Get all available ports.
      * @return {@link Collection} of {@link Integer}.
@@ -101,6 +129,27 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
         return NETWORK_HANDLER;
     }
 
+    /**
+     * Return {@link #portAllocator}. By default, this is shared by all
+     * {@link ADBHandler}, so that concurrent engines never receive the same
+     * emulator port.
+     * @return {@link PortLeaseAllocator} instance.
+     * @see PortLeaseAllocator#emulatorPorts()
+     */
+    @NotNull
+    public PortLeaseAllocator portAllocator() {
+        return portAllocator;
+    }
+
+    /**
+     * Set {@link #portAllocator}.
+     * @param allocator {@link PortLeaseAllocator} instance.
+     * @see #portAllocator()
+     */
+    public void setPortAllocator(@NotNull PortLeaseAllocator allocator) {
+        portAllocator = allocator;
+    }
+
     /**
      * Check if a port is acceptable; i.e. lies within {@link #MIN_PORT} and
      * {@link #MAX_PORT} and is an even number.
@@ -110,6 +159,232 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     public boolean isAcceptablePort(int port) {
         return port >= MIN_PORT && port <= MAX_PORT && HPNumbers.isEven(port);
     }
+
+    /**
+     * Check whether shell commands are sent over a persistent
+     * {@link ADBShellSession} per device, instead of forking adb for each
+     * command.
+     * @return {@link Boolean} value.
+     * @see #persistentShell
+     */
+    public boolean persistentShellEnabled() {
+        return persistentShell;
+    }
+
+    /**
+     * Set {@link #persistentShell}.
+     * @param enabled {@link Boolean} value.
+     * @see #persistentShellEnabled()
+     */
+    public void setPersistentShellEnabled(boolean enabled) {
+        persistentShell = enabled;
+    }
+
+    /**
+     * Get {@link #transport}. If none is set, this is a
+     * {@link ProcessADBTransport} that forks adb for every request.
+     * @return {@link ADBTransportType} instance.
+     * @see #transport
+     * @see #processTransport()
+     */
+    @NotNull
+    public ADBTransportType transport() {
+        ADBTransportType transport = this.transport;
+        return transport != null ? transport : processTransport();
+    }
+
+    /**
+     * Set {@link #transport}, e.g. a {@link SocketADBTransport} to talk to
+     * the adb server directly. Set null to fork adb again.
+     * @param transport {@link ADBTransportType} instance.
+     * @see #transport()
+     */
+    public void setTransport(@Nullable ADBTransportType transport) {
+        this.transport = transport;
+    }
+    //endregion
+
+    //region Shell Sessions
+    /**
+     * Get the {@link ADBShellSession} for a device, starting a new one if
+     * there is none.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link ADBShellSession} instance.
+     * @see #cm_adbShell(DeviceUIDProviderType)
+     */
+    @NotNull
+    public ADBShellSession shellSession(@NotNull DeviceUIDProviderType param) {
+        final String LAUNCH = cm_adbShell(param);
+        return SHELL_SESSIONS.computeIfAbsent(param.deviceUID(), a -> new ADBShellSession(LAUNCH));
+    }
+
+    /**
+     * Close the {@link ADBShellSession} for a device, if there is one.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @see ADBShellSession#close()
+     */
+    public void closeShellSession(@NotNull DeviceUIDProviderType param) {
+        ADBShellSession session = SHELL_SESSIONS.remove(param.deviceUID());
+
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    /**
+     * Close all {@link ADBShellSession}.
+     * @see ADBShellSession#close()
+     */
+    public void closeShellSessions() {
+        List<ADBShellSession> sessions = new ArrayList<>(SHELL_SESSIONS.values());
+        SHELL_SESSIONS.clear();
+        sessions.forEach(ADBShellSession::close);
+    }
+
+    /**
+     * Execute an adb shell command built with
+     * {@link #cm_adbShell(DeviceUIDProviderType)}, through the transport
+     * or persistent session if either is enabled.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #rxa_shell(DeviceUIDProviderType, String)
+     */
+    @NotNull
+    public Flowable<String> rxa_executeShell(@NotNull DeviceUIDProviderType param,
+                                             @NotNull String command) {
+        return rxa_shell(param, command);
+    }
+
+    /**
+     * Execute an adb shell command built with
+     * {@link #cm_adbShell(DeviceUIDProviderType)}. The part after the shell
+     * prefix is sent:
+     *
+     * - Through {@link #transport} if it is set. Should the transport fail
+     * to reach the adb server, we fall back to forking adb. Other errors,
+     * such as a read timeout, are passed on, since the command may have
+     * already run on the device.
+     * - Over the device's {@link ADBShellSession} if {@link #persistentShell}
+     * is enabled.
+     *
+     * Otherwise, the whole command is run by {@link #processTransport()}.
+     * This method is private so that it is transparent to spies.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see ADBShellSession#rxa_execute(String)
+     * @see ADBTransportType#rxa_shell(DeviceUIDProviderType, String)
+     * @see ProcessADBTransport#rxa_execute(String)
+     * @see #processTransport()
+     * @see #shellSession(DeviceUIDProviderType)
+     * @see #withFallback(Flowable, Flowable)
+     */
+    @NotNull
+    private Flowable<String> rxa_shell(@NotNull DeviceUIDProviderType param,
+                                       @NotNull final String command) {
+        final ProcessADBTransport FALLBACK = processTransport();
+        ADBTransportType transport = this.transport;
+
+        if (transport != null || persistentShell) {
+            String prefix = cm_adbShell(param);
+
+            if (command.startsWith(prefix)) {
+                String shellCommand = command.substring(prefix.length()).trim();
+
+                if (transport != null) {
+                    return withFallback(
+                        transport.rxa_shell(param, shellCommand),
+                        Flowable.defer(() -> FALLBACK.rxa_execute(command)));
+                } else {
+                    return shellSession(param).rxa_execute(shellCommand);
+                }
+            }
+        }
+
+        return FALLBACK.rxa_execute(command);
+    }
+
+    /**
+     * Switch to a fallback request if a request through {@link #transport}
+     * cannot reach the adb server. Past connecting, the request may already
+     * have run on the device, so other errors are passed on instead.
+     * @param request {@link Flowable} instance.
+     * @param fallback {@link Flowable} instance.
+     * @param <T> Generics parameter.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    private <T> Flowable<T> withFallback(@NotNull Flowable<T> request,
+                                         @NotNull final Flowable<T> fallback) {
+        return request.onErrorResumeNext((Throwable e) -> {
+            if (e instanceof ConnectException) {
+                return fallback;
+            } else {
+                return Flowable.error(e);
+            }
+        });
+    }
+
+    /**
+     * Get {@link #processTransport}, the {@link ProcessADBTransport} used
+     * when no other {@link #transport} is set, and as the fallback for
+     * one. It is created on first use, so that copies of this handler
+     * (e.g. spies) fork adb with their own {@link #processRunner()}.
+     * @return {@link ProcessADBTransport} instance.
+     * @see #processTransport
+     */
+    @NotNull
+    private ProcessADBTransport processTransport() {
+        ProcessADBTransport transport = processTransport;
+
+        if (transport == null) {
+            transport = new ProcessADBTransport(this);
+            processTransport = transport;
+        }
+
+        return transport;
+    }
+    //endregion
+
+    //region Devices
+    /**
+     * Get all attached devices with 'host:devices-l' through
+     * {@link #transport()}, or by forking adb if the adb server cannot be
+     * reached.
+     * @return {@link Flowable} instance.
+     * @see ADBTransportType#rxe_devices()
+     * @see #processTransport()
+     * @see #transport()
+     * @see #withFallback(Flowable, Flowable)
+     */
+    @NotNull
+    public Flowable<List<ADBDevice>> rxe_devices() {
+        final ProcessADBTransport FALLBACK = processTransport();
+        return withFallback(transport().rxe_devices(), Flowable.defer(FALLBACK::rxe_devices));
+    }
+
+    /**
+     * Read a file from a device with the 'sync:' service through
+     * {@link #transport()}, or by forking adb if the adb server cannot be
+     * reached.
+     * @param PARAM {@link DeviceUIDProviderType} instance.
+     * @param PATH {@link String} value, the path on the device.
+     * @return {@link Flowable} instance.
+     * @see ADBTransportType#rxe_pull(DeviceUIDProviderType, String)
+     * @see #processTransport()
+     * @see #transport()
+     * @see #withFallback(Flowable, Flowable)
+     */
+    @NotNull
+    public Flowable<byte[]> rxe_pull(@NotNull final DeviceUIDProviderType PARAM,
+                                     @NotNull final String PATH) {
+        final ProcessADBTransport FALLBACK = processTransport();
+
+        return withFallback(
+            transport().rxe_pull(PARAM, PATH),
+            Flowable.defer(() -> FALLBACK.rxe_pull(PARAM, PATH)));
+    }
     //endregion
 
     //region ADB setup
@@ -141,84 +416,151 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
 
     //region Start Emulator
     /**
-     * Recursively find an available port and emit and error if none is found.
+     * Lease an available emulator port and emit an error if none is found.
+     * The lease is held by this {@link ADBHandler} until
+     * {@link #releasePort(int)} is called, or until it expires and nothing
+     * listens on the port anymore.
      * @param PARAM {@link RetryProviderType} instance.
      * @return {@link Flowable} instance.
-     * * @see #rxIsAcceptablePort(int)
-     * @see NetworkHandler#checkPortsUsed(Collection)
-     * @see NetworkHandler#rxa_checkPortAvailable(PortProviderType)
+     * @see PortLeaseAllocator#rxa_lease(Object, RetryProviderType)
+     * @see #portAllocator()
      */
     @NotNull
     public Flowable<Integer> rxe_availablePort(@NotNull final RetryProviderType PARAM) {
-        NetworkHandler networkHandler = networkHandler();
-        Collection<Integer> availablePorts = availablePorts();
+        return portAllocator().rxa_lease(this, PARAM);
+    }
 
-        if (networkHandler.checkPortsUsed(availablePorts)) {
-            return HPReactives.error(NO_PORT_AVAILABLE);
-        } else {
-            PortCheckParam param = PortCheckParam.builder()
-                .withPort(MIN_PORT)
-                .withMaxPort(MAX_PORT)
-                .withPortStep(2)
-                .withRetryProvider(PARAM)
-                .build();
-
-            return networkHandler.rxa_checkUntilPortAvailable(param);
-        }
+    /**
+     * Release an emulator port leased by
+     * {@link #rxe_availablePort(RetryProviderType)}.
+     * @param port {@link Integer} value.
+     * @return {@link Boolean} value, true if the port was leased by this
+     * {@link ADBHandler}.
+     * @see PortLeaseAllocator#release(int, Object)
+     * @see #portAllocator()
+     */
+    public boolean releasePort(int port) {
+        return portAllocator().release(port, this);
     }
 
     /**
-     * Start the emulator with the specified settings. Detect when bootanim is
-     * 'closed' and then emit value.
+     * Start the emulator with the specified settings, and emit a value once
+     * it has booted up completely. If {@link StartEmulatorParam#snapshot()}
+     * is set but not restored, it is saved after the cold boot, so that
+     * later runs can quick boot from it.
      * @param PARAM {@link StartEmulatorParam} instance.
      * @return {@link Flowable} instance.
+     * @see EmulatorBootPhase#isBooted()
+     * @see EmulatorBootWatcher#rxe_bootPhases(StartEmulatorParam)
      * @see HPBooleans#toTrue(Object)
-     * @see HPObjects#nonNull(Object)
-     * @see HPReactives#delayRetry(int, long)
-     * @see HPReactives#error()
      * @see HPReactives#timeout(long, Object)
-     * @see #cm_startEmulator(StartEmulatorParam)
-     * @see #cm_bootAnim(DeviceUIDProviderType)
+     * @see #bootWatcher()
      * @see #emulatorBootTimeout()
-     * @see #emulatorBootRetryDelay()
+     * @see #rxa_saveSnapshot(DeviceUIDProviderType, String)
      */
     @NotNull
     public Flowable<Boolean> rxa_startEmulator(@NotNull final StartEmulatorParam PARAM) {
-        final ProcessRunner RUNNER = processRunner();
-        int retries = PARAM.retries();
-        long delay = emulatorBootRetryDelay();
+        final ADBHandler THIS = this;
+        final String SNAPSHOT = PARAM.snapshot();
         long timeout = emulatorBootTimeout();
 
-        /* We need to start the emulator on a new Thread, or else it will
-         * block the rest of the operations */
-        final String START = cm_startEmulator(PARAM);
-        new Thread(() -> RUNNER.execute(START)).start();
-
-        return RUNNER
-            .rxa_execute(cm_bootAnim(PARAM))
-            .filter(HPObjects::nonNull)
-            .map(String::trim)
-
-            /* There are two errors that can be thrown here:
-             *
-             * When the emulator is first started: no devices/emulators found
-             * When the emulator is booting up: device unauthorized
-             *
-             * Afterwards, when the emulator has booted up fully, a value
-             * 'stopped' will be emitted */
-            .filter(a -> a.equals("stopped"))
-            .switchIfEmpty(HPReactives.error())
-            .compose(HPReactives.delayRetry(retries, delay))
+        return bootWatcher()
+            .rxe_bootPhases(PARAM)
+            .doOnNext(a -> HPLog.printft("%s: %s", PARAM.deviceName(), a))
+            .filter(EmulatorBootPhase::isBooted)
+            .flatMap(a -> {
+                if (SNAPSHOT.isEmpty() || PARAM.restoreSnapshot()) {
+                    return Flowable.just(true);
+                }
+
+                /* A failure to save only costs the next run a cold boot */
+                return THIS.rxa_saveSnapshot(PARAM, SNAPSHOT).onErrorReturnItem(true);
+            })
             .map(HPBooleans::toTrue)
 
-            /* timeout is used here in case processRunner() fails to poll
-             * for bootanim. The timeout will be a reasonable value so that,
-             * at the end of the interval, the emulator would have been
-             * started up anyway */
+            /* timeout is used here in case the boot watcher fails to poll
+             * for sys.boot_completed. The timeout will be a reasonable value
+             * so that, at the end of the interval, the emulator would have
+             * been started up anyway */
             .compose(HPReactives.timeout(timeout, true));
     }
     //endregion
 
+    //region Emulator Snapshots
+    /**
+     * Get the directory where AVDs are stored. This is ${ANDROID_AVD_HOME}
+     * if it is set, or ~/.android/avd otherwise.
+     * @return {@link File} instance.
+     */
+    @NotNull
+    public File avdHome() {
+        String avdHome = System.getenv("ANDROID_AVD_HOME");
+
+        if (HPStrings.isNotNullOrEmpty(avdHome)) {
+            return new File(avdHome);
+        }
+
+        return new File(System.getProperty("user.home"), ".android/avd");
+    }
+
+    /**
+     * Check whether a snapshot has been saved for an AVD.
+     * @param avd {@link String} value.
+     * @param snapshot {@link String} value.
+     * @return {@link Boolean} value.
+     * @see #avdHome()
+     */
+    public boolean snapshotExists(@NotNull String avd, @NotNull String snapshot) {
+        File avdDir = new File(avdHome(), String.format("%s.avd", avd));
+        return new File(new File(avdDir, "snapshots"), snapshot).isDirectory();
+    }
+
+    /**
+     * Save the current state of a running emulator as a snapshot.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param snapshot {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #cm_saveSnapshot(DeviceUIDProviderType, String)
+     * @see #saveSnapshotFailed(String)
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_saveSnapshot(@NotNull DeviceUIDProviderType param,
+                                              @NotNull String snapshot) {
+        String command = cm_saveSnapshot(param, snapshot);
+
+        return processRunner()
+            .rxa_execute(command)
+
+            /* The emulator console replies with 'OK' on success */
+            .filter(a -> a.contains("OK"))
+            .switchIfEmpty(HPReactives.error(saveSnapshotFailed(snapshot)))
+            .map(HPBooleans::toTrue);
+    }
+
+    /**
+     * Restore a running emulator to a snapshot saved with
+     * {@link #rxa_saveSnapshot(DeviceUIDProviderType, String)}. This does
+     * not require a reboot, so it is much faster than relaunching the app
+     * and navigating back to the same state.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param snapshot {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #cm_loadSnapshot(DeviceUIDProviderType, String)
+     * @see #loadSnapshotFailed(String)
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_loadSnapshot(@NotNull DeviceUIDProviderType param,
+                                              @NotNull String snapshot) {
+        String command = cm_loadSnapshot(param, snapshot);
+
+        return processRunner()
+            .rxa_execute(command)
+            .filter(a -> a.contains("OK"))
+            .switchIfEmpty(HPReactives.error(loadSnapshotFailed(snapshot)))
+            .map(HPBooleans::toTrue);
+    }
+    //endregion
+
     //region Stop Emulator
     /**
      * Shut down all emulators.
@@ -264,12 +606,10 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
         DeviceUIDProviderType &
         RetryProviderType>
     Flowable<Boolean> rxa_clearCache(@NotNull T param) {
-        ProcessRunner runner = processRunner();
         final String APP = param.appPackage();
         String command = cm_clearCache(param);
 
-        return runner
-            .rxa_execute(command)
+        return rxa_shell(param, command)
 
             /* Output from the above command may either be 'Success' or
              * 'Failed'. Failures may be due to the app's package name not
@@ -299,12 +639,10 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     @NotNull
     public <P extends AppPackageProviderType & DeviceUIDProviderType & RetryProviderType>
     Flowable<Boolean> rxe_appInstalled(@NotNull final P PARAM) {
-        ProcessRunner processRunner = processRunner();
         String listCommand = cm_listPackages(PARAM);
         final String PKG = PARAM.appPackage();
 
-        return processRunner
-            .rxa_execute(listCommand)
+        return rxa_shell(PARAM, listCommand)
             .filter(a -> a.contains(PKG))
             .retry(PARAM.retries())
             .map(HPBooleans::toTrue)
@@ -324,7 +662,7 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     public Flowable<Boolean> rxa_toggleInternet(@NotNull ConnectionParam param) {
         String command = cm_toggleInternet(param);
 
-        return processRunner().rxa_execute(command)
+        return rxa_shell(param, command)
             /* If successful, there should be no output */
             .filter(String::isEmpty)
             .map(HPBooleans::toTrue)
@@ -377,7 +715,7 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     public Flowable<Boolean> rxe_keyboardOpen(@NotNull DeviceUIDProviderType param) {
         String command = cm_checkKeyboardOpen(param);
 
-        return processRunner().rxa_execute(command)
+        return rxa_shell(param, command)
             .filter(HPStrings::isNotNullOrEmpty)
             .map(output -> {
                 String regex = "mHasSurface=(\\w+)";
@@ -409,10 +747,10 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
      */
     @NotNull
     public Flowable<Boolean> rxa_changeSettings(@NotNull final DeviceSettingParam PARAM) {
-        final ProcessRunner RUNNER = processRunner();
+        final ADBHandler THIS = this;
 
-        return RUNNER.rxa_execute(cm_putSettings(PARAM))
-            .flatMap(a -> RUNNER.rxa_execute(cm_getSettings(PARAM)))
+        return rxa_shell(PARAM, cm_putSettings(PARAM))
+            .flatMap(a -> THIS.rxa_shell(PARAM, cm_getSettings(PARAM)))
             .filter(a -> a.contains(PARAM.value()))
             .map(HPBooleans::toTrue)
             .onErrorResumeNext(Flowable.empty())
@@ -429,6 +767,52 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
              * proceed anyway */
             .timeout(emulatorSettingTimeout(), TimeUnit.MILLISECONDS);
     }
+
+    /**
+     * Change several emulator/device settings at once. All values are put
+     * with one shell invocation and verified with one 'settings list' per
+     * name space. Only the settings that fail verification are retried.
+     * @param BATCH {@link DeviceSettingsBatch} instance.
+     * @return {@link Flowable} instance.
+     * @see DeviceSettingsBatch#failedSettings(String)
+     * @see #cm_putSettingsBatch(DeviceSettingsBatch)
+     * @see #cm_listSettings(DeviceSettingsBatch)
+     * @see #changeSettingsFailed(String)
+     * @see #emulatorSettingTimeout()
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_applySettings(@NotNull final DeviceSettingsBatch BATCH) {
+        final ADBHandler THIS = this;
+        final AtomicReference<DeviceSettingsBatch> PENDING = new AtomicReference<>(BATCH);
+
+        return Flowable
+            .defer(() -> {
+                final DeviceSettingsBatch B = PENDING.get();
+
+                if (B.isEmpty()) {
+                    return Flowable.just(true);
+                }
+
+                return THIS.rxa_shell(B, THIS.cm_putSettingsBatch(B))
+                    .flatMap(a -> THIS.rxa_shell(B, THIS.cm_listSettings(B)))
+                    .map(B::failedSettings)
+                    .flatMap(a -> {
+                        if (a.isEmpty()) {
+                            return Flowable.just(true);
+                        }
+
+                        /* Only the failed settings are retried */
+                        DeviceSettingsBatch failed = DeviceSettingsBatch.from(a);
+                        PENDING.set(failed);
+                        return HPReactives.<Boolean>error(THIS.changeSettingsFailed(failed.keys()));
+                    });
+            })
+
+            /* Sometimes an adb error may be thrown if the currently active
+             * adb instance does not acknowledge the request */
+            .retry(BATCH.retries())
+            .timeout(emulatorSettingTimeout(), TimeUnit.MILLISECONDS);
+    }
     //endregion
 
     //region Disable Window Animation Scale
@@ -489,27 +873,41 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     //endregion
 
     //region Disable Emulator Animations
+    /**
+     * Get the settings that disable window, transition and animator
+     * animations.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link DeviceSettingsBatch} instance.
+     */
+    @NotNull
+    public DeviceSettingsBatch animationSettings(@NotNull final DeviceUIDProviderType param) {
+        return DeviceSettingsBatch.from(Stream
+            .of(
+                "window_animation_scale",
+                "transition_animation_scale",
+                "animator_duration_scale"
+            )
+            .map(a -> DeviceSettingParam.builder()
+                .withGlobalNameSpace()
+                .withKey(a)
+                .withValue("0")
+                .withDeviceUIDProtocol(param)
+                .build())
+            .collect(Collectors.toList()));
+    }
+
     /**
      * Disable emulator animations for UI test to prevent unexpected wait
      * times. Note that this is only applicable for rooted devices, and
      * emulators are rooted by default.
      * @param param {@link DeviceUIDProviderType} instance.
      * @return {@link Flowable} instance.
-     * @see #rxa_disableWindowAnimationScale(DeviceUIDProviderType)
-     * @see #rxa_disableTransitionAnimationScale(DeviceUIDProviderType)
-     * @see #rxa_disableAnimatorDurationScale(DeviceUIDProviderType)
+     * @see #animationSettings(DeviceUIDProviderType)
+     * @see #rxa_applySettings(DeviceSettingsBatch)
      */
     @NotNull
-    @SuppressWarnings("unchecked")
     public Flowable<Boolean> rxa_disableAnimations(@NotNull DeviceUIDProviderType param) {
-        return Flowable
-            .mergeArray(
-                rxa_disableWindowAnimationScale(param),
-                rxa_disableTransitionAnimationScale(param),
-                rxa_disableAnimatorDurationScale(param)
-            )
-            .all(HPBooleans::isTrue)
-            .toFlowable();
+        return rxa_applySettings(animationSettings(param));
     }
     //endregion
 
@@ -601,7 +999,45 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     public String cm_startEmulator(@NotNull StartEmulatorParam param) {
         String name = param.deviceName();
         int port = param.port();
-        return String.format("%1$s -port %2$d -avd %3$s", cm_emulator(), port, name);
+        String snapshot = param.snapshot();
+        String command = String.format("%1$s -port %2$d -avd %3$s", cm_emulator(), port, name);
+
+        if (snapshot.isEmpty()) {
+            return command;
+        } else if (param.restoreSnapshot()) {
+            /* Restore a known state, and discard whatever the tests do */
+            return String.format("%1$s -snapshot %2$s -no-snapshot-save", command, snapshot);
+        } else {
+            return String.format("%s -no-snapshot-load", command);
+        }
+    }
+
+    /**
+     * Command to save a running emulator's state as a snapshot.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param snapshot {@link String} value.
+     * @return {@link String} value.
+     * @see #cm_adb()
+     */
+    @NotNull
+    public String cm_saveSnapshot(@NotNull DeviceUIDProviderType param,
+                                  @NotNull String snapshot) {
+        return String.format("%1$s -s %2$s emu avd snapshot save %3$s",
+            cm_adb(), param.deviceUID(), snapshot);
+    }
+
+    /**
+     * Command to restore a running emulator's state from a snapshot.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param snapshot {@link String} value.
+     * @return {@link String} value.
+     * @see #cm_adb()
+     */
+    @NotNull
+    public String cm_loadSnapshot(@NotNull DeviceUIDProviderType param,
+                                  @NotNull String snapshot) {
+        return String.format("%1$s -s %2$s emu avd snapshot load %3$s",
+            cm_adb(), param.deviceUID(), snapshot);
     }
 
     /**
@@ -618,6 +1054,29 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
         return String.format("%s getprop init.svc.bootanim", cm_adbShell(param));
     }
 
+    /**
+     * Command to wait until a device/emulator is visible to adb.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link String} value.
+     * @see #cm_adb()
+     */
+    @NotNull
+    public String cm_waitForDevice(@NotNull DeviceUIDProviderType param) {
+        return String.format("%1$s -s %2$s wait-for-device", cm_adb(), param.deviceUID());
+    }
+
+    /**
+     * Command to check whether the system has finished booting. The value
+     * is '1' once it has.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link String} value.
+     * @see #cm_adbShell(DeviceUIDProviderType)
+     */
+    @NotNull
+    public String cm_bootCompleted(@NotNull DeviceUIDProviderType param) {
+        return String.format("%s getprop sys.boot_completed", cm_adbShell(param));
+    }
+
     /**
      * Command to shut down the emulator. Should not be used for actual
      * devices because this command will send a shutdown signal.
@@ -699,5 +1158,29 @@ public class ADBHandler implements ADBErrorType, ADBDelayType {
     public String cm_getSettings(@NotNull DeviceSettingParam param) {
         return String.format("%1$s settings %2$s", cm_adbShell(param), param.cm_get());
     }
+
+    /**
+     * Command to change several device settings at once.
+     * @param param {@link DeviceSettingsBatch} instance.
+     * @return {@link String} value.
+     * @see DeviceSettingsBatch#cm_putAll()
+     * @see #cm_adbShell(DeviceUIDProviderType)
+     */
+    @NotNull
+    public String cm_putSettingsBatch(@NotNull DeviceSettingsBatch param) {
+        return String.format("%1$s %2$s", cm_adbShell(param), param.cm_putAll());
+    }
+
+    /**
+     * Command to list device settings for all name spaces in a batch.
+     * @param param {@link DeviceSettingsBatch} instance.
+     * @return {@link String} value.
+     * @see DeviceSettingsBatch#cm_listAll()
+     * @see #cm_adbShell(DeviceUIDProviderType)
+     */
+    @NotNull
+    public String cm_listSettings(@NotNull DeviceSettingsBatch param) {
+        return String.format("%1$s %2$s", cm_adbShell(param), param.cm_listAll());
+    }
     //endregion
 }
@@ -0,0 +1,433 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.swiften.javautilities.util.HPLog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Use this class to keep one long-lived shell (e.g. 'adb -s X shell') open
+ * for a device, and multiplex commands over it instead of forking a new
+ * process for each command. Each command is framed with a unique sentinel
+ * line that carries its exit code, so that its output can be separated
+ * from that of the next command. If the shell dies or a command does not
+ * finish within {@link #timeout()}, the shell is killed and restarted for
+ * the next command. Commands are only sent again after the shell died if
+ * the caller opts in, since they may already have taken effect.
+ */
+public class ADBShellSession implements ADBErrorType {
+    /**
+     * Prefix of the line that terminates a command's output.
+     */
+    @NotNull public static final String SENTINEL = "__XTESTKIT_EXIT__";
+
+    /**
+     * The default time (in milliseconds) a command may take.
+     */
+    public static final long DEFAULT_TIMEOUT = 60000;
+
+    @NotNull private final String LAUNCH_COMMAND;
+    private final long TIMEOUT;
+    @NotNull private final AtomicInteger COMMANDS;
+    @NotNull private final AtomicInteger RECONNECTS;
+
+    @Nullable private Process process;
+    @Nullable private BufferedWriter stdin;
+    @Nullable private BlockingQueue<Optional<String>> stdout;
+
+    /**
+     * @param launchCommand {@link String} value. The command that starts the
+     *                      shell, e.g. {@link ADBHandler#cm_adbShell(org.swiften.xtestkit.android.type.DeviceUIDProviderType)}.
+     * @param timeout {@link Long} value. The time (in milliseconds) a
+     *                command may take before the shell is killed.
+     */
+    public ADBShellSession(@NotNull String launchCommand, long timeout) {
+        LAUNCH_COMMAND = launchCommand;
+        TIMEOUT = timeout;
+        COMMANDS = new AtomicInteger();
+        RECONNECTS = new AtomicInteger();
+    }
+
+    /**
+     * @param launchCommand {@link String} value. The command that starts the
+     *                      shell.
+     * @see #DEFAULT_TIMEOUT
+     */
+    public ADBShellSession(@NotNull String launchCommand) {
+        this(launchCommand, DEFAULT_TIMEOUT);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format(
+            "Shell session %s: commands %d, reconnects %d",
+            LAUNCH_COMMAND, commandCount(), reconnectCount());
+    }
+
+    //region Getters
+    /**
+     * Get {@link #LAUNCH_COMMAND}.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public String launchCommand() {
+        return LAUNCH_COMMAND;
+    }
+
+    /**
+     * Get {@link #TIMEOUT}.
+     * @return {@link Long} value, in milliseconds.
+     */
+    public long timeout() {
+        return TIMEOUT;
+    }
+
+    /**
+     * Get the number of commands executed so far.
+     * @return {@link Integer} value.
+     */
+    public int commandCount() {
+        return COMMANDS.get();
+    }
+
+    /**
+     * Get the number of times the shell had to be restarted after dying or
+     * timing out.
+     * @return {@link Integer} value.
+     */
+    public int reconnectCount() {
+        return RECONNECTS.get();
+    }
+
+    /**
+     * Check whether the shell process is currently alive.
+     * @return {@link Boolean} value.
+     */
+    public synchronized boolean isOpen() {
+        return process != null && process.isAlive();
+    }
+    //endregion
+
+    //region Execution
+    /**
+     * Execute a command and emit its output. Emit an error if the command
+     * exits with a non-zero code.
+     * @param COMMAND {@link String} value.
+     * @param RESEND {@link Boolean} value. If this is true, the command is
+     *               sent once more should the shell die while it runs.
+     * @return {@link Flowable} instance.
+     * @see #execute(String, boolean)
+     * @see #shellCommandFailed(String, int)
+     */
+    @NotNull
+    public Flowable<String> rxa_execute(@NotNull final String COMMAND,
+                                        final boolean RESEND) {
+        final ADBShellSession THIS = this;
+
+        return Flowable
+            .fromCallable(() -> THIS.execute(COMMAND, RESEND))
+            .flatMap(a -> {
+                if (a.exitCode() == 0) {
+                    return Flowable.just(a.output());
+                } else {
+                    String error = THIS.shellCommandFailed(COMMAND, a.exitCode());
+                    return Flowable.error(new Exception(error));
+                }
+            });
+    }
+
+    /**
+     * Execute a command and emit its output, without sending it again if
+     * the shell dies.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #rxa_execute(String, boolean)
+     */
+    @NotNull
+    public Flowable<String> rxa_execute(@NotNull String command) {
+        return rxa_execute(command, false);
+    }
+
+    /**
+     * Execute a command and wait for its output. If the shell is closed or
+     * dies while the command is running, it is killed so that the next
+     * command starts a new one. The command itself is only sent once more
+     * if resend is true; it is never sent again after a timeout, since it
+     * may still be running.
+     * @param command {@link String} value.
+     * @param resend {@link Boolean} value.
+     * @return {@link Result} instance.
+     * @throws IOException If the shell cannot be (re)started, dies or times
+     * out.
+     * @see #executeOnce(String)
+     */
+    @NotNull
+    public synchronized Result execute(@NotNull String command,
+                                       boolean resend) throws IOException {
+        try {
+            return executeOnce(command);
+        } catch (IOException e) {
+            HPLog.printft("Closing %s after: %s", LAUNCH_COMMAND, e.getMessage());
+            close();
+            RECONNECTS.incrementAndGet();
+
+            if (resend && !(e instanceof InterruptedIOException)) {
+                return executeOnce(command);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Execute a command and wait for its output, without sending it again
+     * if the shell dies.
+     * @param command {@link String} value.
+     * @return {@link Result} instance.
+     * @throws IOException If the shell cannot be started, dies or times out.
+     * @see #execute(String, boolean)
+     */
+    @NotNull
+    public Result execute(@NotNull String command) throws IOException {
+        return execute(command, false);
+    }
+
+    /**
+     * Write a framed command to the shell and read until its sentinel line.
+     * The command's stdin is detached so that it cannot consume the framing
+     * of the next command, and stderr is merged into stdout.
+     * @param command {@link String} value.
+     * @return {@link Result} instance.
+     * @throws IOException If the shell is closed before the sentinel.
+     * @see #open()
+     * @see #readLine(BlockingQueue, String, long)
+     */
+    @NotNull
+    private Result executeOnce(@NotNull String command) throws IOException {
+        open();
+        BufferedWriter writer = stdin;
+        BlockingQueue<Optional<String>> lines = stdout;
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        if (writer == null || lines == null) {
+            throw new IOException(SHELL_CLOSED);
+        }
+
+        String marker = String.format("%s%d ", SENTINEL, COMMANDS.incrementAndGet());
+        writer.write(String.format("{ %s ; } < /dev/null 2>&1", command));
+        writer.newLine();
+        writer.write(String.format("echo \"%s$?\"", marker));
+        writer.newLine();
+        writer.flush();
+
+        StringBuilder output = new StringBuilder();
+        String line;
+
+        while ((line = readLine(lines, command, deadline)) != null) {
+            int index = line.indexOf(marker);
+
+            if (index >= 0) {
+                /* Output that does not end with a newline is printed on
+                 * the same line as the sentinel */
+                if (index > 0) {
+                    appendLine(output, line.substring(0, index));
+                }
+
+                String code = line.substring(index + marker.length()).trim();
+                return new Result(output.toString(), parseExitCode(code));
+            }
+
+            appendLine(output, line);
+        }
+
+        throw new IOException(SHELL_CLOSED);
+    }
+
+    /**
+     * Wait for the next line from the shell, but not past a deadline, since
+     * a blocked read would hold the session lock, and thus stall every other
+     * command for the device, indefinitely.
+     * @param lines {@link BlockingQueue} of lines from the shell.
+     * @param command {@link String} value, the command being executed.
+     * @param deadline {@link Long} value, in milliseconds since the epoch.
+     * @return {@link String} value, or null if the shell has exited.
+     * @throws IOException If the deadline passes before a full line.
+     * @see #readLines(BufferedReader, BlockingQueue)
+     * @see #shellTimedOut(String, long)
+     */
+    @Nullable
+    private String readLine(@NotNull BlockingQueue<Optional<String>> lines,
+                            @NotNull String command,
+                            long deadline) throws IOException {
+        long remaining = Math.max(0, deadline - System.currentTimeMillis());
+        Optional<String> line;
+
+        try {
+            line = lines.poll(remaining, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+
+        if (line == null) {
+            throw new InterruptedIOException(shellTimedOut(command, TIMEOUT));
+        }
+
+        return line.orElse(null);
+    }
+
+    /**
+     * Block on the shell's output on a daemon thread, and hand every line
+     * to a {@link BlockingQueue}. An empty {@link Optional} is added once
+     * the shell's output ends, whether it exited or was killed by
+     * {@link #close()}.
+     * @param reader {@link BufferedReader} instance.
+     * @param lines {@link BlockingQueue} instance.
+     */
+    private void readLines(@NotNull final BufferedReader reader,
+                           @NotNull final BlockingQueue<Optional<String>> lines) {
+        Thread thread = new Thread(() -> {
+            try {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    lines.add(Optional.of(line));
+                }
+            } catch (IOException e) {
+                /* The shell was killed */
+            } finally {
+                lines.add(Optional.empty());
+            }
+        }, String.format("%s-reader", LAUNCH_COMMAND));
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Start the shell if it is not already running, along with a thread
+     * that reads its output. If the previous shell died between commands,
+     * this counts as a reconnect.
+     * @throws IOException If the shell cannot be started.
+     */
+    private void open() throws IOException {
+        if (isOpen()) {
+            return;
+        } else if (process != null) {
+            RECONNECTS.incrementAndGet();
+        }
+
+        close();
+        Process started = new ProcessBuilder(LAUNCH_COMMAND.split("\\s+"))
+            .redirectErrorStream(true)
+            .start();
+
+        process = started;
+
+        stdin = new BufferedWriter(new OutputStreamWriter(
+            started.getOutputStream(), StandardCharsets.UTF_8));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            started.getInputStream(), StandardCharsets.UTF_8));
+
+        BlockingQueue<Optional<String>> lines = new LinkedBlockingQueue<>();
+        readLines(reader, lines);
+        stdout = lines;
+    }
+
+    /**
+     * Stop the shell. The next command will start a new one.
+     */
+    public synchronized void close() {
+        Process current = process;
+        process = null;
+        stdin = null;
+        stdout = null;
+
+        if (current != null) {
+            current.destroy();
+        }
+    }
+
+    /**
+     * Append a line to the output, separating lines with a newline.
+     * @param output {@link StringBuilder} instance.
+     * @param line {@link String} value.
+     */
+    private void appendLine(@NotNull StringBuilder output, @NotNull String line) {
+        if (output.length() > 0) {
+            output.append("\n");
+        }
+
+        output.append(line);
+    }
+
+    /**
+     * Parse the exit code printed after the sentinel.
+     * @param code {@link String} value.
+     * @return {@link Integer} value, or -1 if it cannot be parsed.
+     */
+    private int parseExitCode(@NotNull String code) {
+        try {
+            return Integer.parseInt(code);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    //endregion
+
+    /**
+     * Output and exit code of a command executed with
+     * {@link #execute(String)}.
+     */
+    public static final class Result {
+        @NotNull private final String OUTPUT;
+        private final int EXIT_CODE;
+
+        Result(@NotNull String output, int exitCode) {
+            OUTPUT = output;
+            EXIT_CODE = exitCode;
+        }
+
+        @NotNull
+        @Override
+        public String toString() {
+            return String.format("Exit code %d: %s", EXIT_CODE, OUTPUT);
+        }
+
+        /**
+         * Get {@link #OUTPUT}, with stderr merged in.
+         * @return {@link String} value.
+         */
+        @NotNull
+        public String output() {
+            return OUTPUT;
+        }
+
+        /**
+         * Get {@link #EXIT_CODE}.
+         * @return {@link Integer} value.
+         */
+        public int exitCode() {
+            return EXIT_CODE;
+        }
+    }
+}
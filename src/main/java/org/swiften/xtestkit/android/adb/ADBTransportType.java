@@ -0,0 +1,73 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This interface provides methods to talk to the adb server, either by
+ * forking the adb binary ({@link ProcessADBTransport}) or directly over the
+ * adb host protocol ({@link SocketADBTransport}).
+ */
+public interface ADBTransportType {
+    /**
+     * Get all attached devices, similar to 'adb devices -l'.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    Flowable<List<ADBDevice>> rxe_devices();
+
+    /**
+     * Run a shell command on a device and emit its output as it is
+     * produced, line by line.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    Flowable<String> rxe_shellLines(@NotNull DeviceUIDProviderType param,
+                                    @NotNull String command);
+
+    /**
+     * Read a file from a device, similar to 'adb pull'.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param path {@link String} value, the path on the device.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    Flowable<byte[]> rxe_pull(@NotNull DeviceUIDProviderType param,
+                              @NotNull String path);
+
+    /**
+     * Run a shell command on a device and emit its entire output.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #rxe_shellLines(DeviceUIDProviderType, String)
+     */
+    @NotNull
+    default Flowable<String> rxa_shell(@NotNull DeviceUIDProviderType param,
+                                       @NotNull String command) {
+        return rxe_shellLines(param, command)
+            .toList()
+            .map(a -> String.join("\n", a))
+            .toFlowable();
+    }
+
+    /**
+     * Split shell output into lines.
+     * @param output {@link String} value.
+     * @return {@link List} of {@link String}.
+     */
+    @NotNull
+    default List<String> lines(@NotNull String output) {
+        return Arrays.asList(output.split("\r?\n"));
+    }
+}
@@ -0,0 +1,39 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+/**
+ * Phases emitted by {@link EmulatorBootWatcher} as an emulator boots up.
+ */
+public enum EmulatorBootPhase {
+    /**
+     * The emulator process has been started.
+     */
+    LAUNCHED,
+
+    /**
+     * adb can see the emulator, i.e. 'adb wait-for-device' has returned.
+     */
+    DEVICE_ONLINE,
+
+    /**
+     * The system has finished booting, i.e. sys.boot_completed is 1.
+     */
+    BOOT_COMPLETED;
+
+    /**
+     * Check if the emulator is fully booted.
+     * @return {@link Boolean} value.
+     */
+    public boolean isBooted() {
+        switch (this) {
+            case BOOT_COMPLETED:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+}
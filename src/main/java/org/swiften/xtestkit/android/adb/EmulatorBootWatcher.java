@@ -0,0 +1,335 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.swiften.javautilities.rx.HPReactives;
+import org.swiften.xtestkit.android.param.StartEmulatorParam;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Use this class to launch emulators and follow their boot progress. The
+ * emulator process is owned by this class rather than by a detached
+ * {@link Thread}, so that an early exit is reported as an error and the
+ * process can be stopped later. Boot durations are recorded per AVD.
+ * Every {@link org.swiften.xtestkit.android.AndroidEngine} has its own
+ * {@link ADBHandler}, and hence its own watcher, so launched emulators are
+ * kept in a registry shared by all watchers. This lets engines that use
+ * the same AVD find the emulator another engine launched.
+ */
+public class EmulatorBootWatcher implements ADBErrorType {
+    /**
+     * Emulators launched by any {@link EmulatorBootWatcher}, keyed by AVD
+     * name, since an AVD can only run once at a time.
+     */
+    @NotNull private static final Map<String,Emulator> EMULATORS = new ConcurrentHashMap<>();
+
+    @NotNull private final ADBHandler HANDLER;
+    @NotNull private final Collection<Emulator> LAUNCHED;
+    @NotNull private final Map<String,List<Long>> BOOT_DURATIONS;
+
+    public EmulatorBootWatcher(@NotNull ADBHandler handler) {
+        HANDLER = handler;
+        LAUNCHED = new CopyOnWriteArrayList<>();
+        BOOT_DURATIONS = new ConcurrentHashMap<>();
+    }
+
+    //region Boot
+    /**
+     * Launch an emulator and emit {@link EmulatorBootPhase} as it boots.
+     * The stream completes after {@link EmulatorBootPhase#BOOT_COMPLETED},
+     * and emits an error if the emulator process exits before that.
+     * @param PARAM {@link StartEmulatorParam} instance.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#cm_startEmulator(StartEmulatorParam)
+     * @see ADBHandler#cm_waitForDevice(DeviceUIDProviderType)
+     * @see #launch(String, File)
+     * @see #rxe_bootCompleted(StartEmulatorParam)
+     * @see #rxe_processExit(String, Process)
+     */
+    @NotNull
+    public Flowable<EmulatorBootPhase> rxe_bootPhases(@NotNull final StartEmulatorParam PARAM) {
+        final EmulatorBootWatcher THIS = this;
+        final String AVD = PARAM.deviceName();
+
+        return Flowable.defer(() -> {
+            final long START = System.currentTimeMillis();
+            String uid = PARAM.deviceUID();
+            File log = new File(System.getProperty("java.io.tmpdir"), String.format("%s.log", uid));
+            Process process = THIS.launch(HANDLER.cm_startEmulator(PARAM), log);
+            THIS.register(new Emulator(AVD, uid, PARAM.port(), process));
+
+            ProcessRunner runner = HANDLER.processRunner();
+
+            Flowable<EmulatorBootPhase> phases = Flowable.concatArray(
+                Flowable.just(EmulatorBootPhase.LAUNCHED),
+
+                runner.rxa_execute(HANDLER.cm_waitForDevice(PARAM))
+                    .map(a -> EmulatorBootPhase.DEVICE_ONLINE),
+
+                THIS.rxe_bootCompleted(PARAM)
+                    .map(a -> EmulatorBootPhase.BOOT_COMPLETED)
+                    .doOnNext(a -> THIS.recordBootDuration(AVD, System.currentTimeMillis() - START))
+            );
+
+            return phases
+                .mergeWith(THIS.rxe_processExit(AVD, process))
+                .takeUntil(EmulatorBootPhase::isBooted);
+        });
+    }
+
+    /**
+     * Poll sys.boot_completed until it is 1. This goes through
+     * {@link ADBHandler#rxa_executeShell(DeviceUIDProviderType, String)}, so
+     * a persistent shell session is used if it is enabled.
+     * @param param {@link StartEmulatorParam} instance.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#cm_bootCompleted(DeviceUIDProviderType)
+     * @see ADBHandler#emulatorBootRetryDelay()
+     * @see HPReactives#delayRetry(int, long)
+     */
+    @NotNull
+    public Flowable<Boolean> rxe_bootCompleted(@NotNull StartEmulatorParam param) {
+        return HANDLER
+            .rxa_executeShell(param, HANDLER.cm_bootCompleted(param))
+            .map(String::trim)
+
+            /* While the emulator is booting up, the property is empty and
+             * adb may report 'device offline' */
+            .filter(a -> a.equals("1"))
+            .switchIfEmpty(HPReactives.error())
+            .compose(HPReactives.delayRetry(param.retries(), HANDLER.emulatorBootRetryDelay()))
+            .map(a -> true);
+    }
+
+    /**
+     * Emit an error if the emulator process exits. The process is polled
+     * rather than waited for, so that cancelling the subscription does not
+     * interrupt a blocked thread.
+     * @param AVD {@link String} value.
+     * @param PROCESS {@link Process} instance.
+     * @return {@link Flowable} instance.
+     * @see #emulatorExited(String)
+     */
+    @NotNull
+    Flowable<EmulatorBootPhase> rxe_processExit(@NotNull final String AVD,
+                                                @NotNull final Process PROCESS) {
+        final EmulatorBootWatcher THIS = this;
+        long interval = HANDLER.emulatorBootRetryDelay();
+
+        return Flowable.interval(0, interval, TimeUnit.MILLISECONDS)
+            .filter(a -> !PROCESS.isAlive())
+            .take(1)
+            .flatMap(a -> HPReactives.<EmulatorBootPhase>error(THIS.emulatorExited(AVD)));
+    }
+
+    /**
+     * Start the emulator process, with its output written to a log file so
+     * that it never blocks on a full pipe. Override this method to provide
+     * a fake process for testing.
+     * @param command {@link String} value.
+     * @param log {@link File} instance.
+     * @return {@link Process} instance.
+     * @throws IOException If the process cannot be started.
+     */
+    @NotNull
+    public Process launch(@NotNull String command, @NotNull File log) throws IOException {
+        return new ProcessBuilder(command.split("\\s+"))
+            .redirectErrorStream(true)
+            .redirectOutput(log)
+            .start();
+    }
+    //endregion
+
+    //region Lifecycle
+    /**
+     * Add an emulator to {@link #EMULATORS}, replacing any earlier one
+     * for the same AVD.
+     * @param emulator {@link Emulator} instance.
+     */
+    void register(@NotNull Emulator emulator) {
+        EMULATORS.put(emulator.AVD, emulator);
+        LAUNCHED.add(emulator);
+    }
+
+    /**
+     * Get the emulator running a device UID, launched by any
+     * {@link EmulatorBootWatcher}.
+     * @param uid {@link String} value.
+     * @return {@link Emulator} instance, or null if there is none.
+     */
+    @Nullable
+    private Emulator emulator(@NotNull String uid) {
+        for (Emulator emulator : EMULATORS.values()) {
+            if (emulator.UID.equals(uid)) {
+                return emulator;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the process of an emulator launched by any
+     * {@link EmulatorBootWatcher}.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link Process} instance, or null if there is none.
+     */
+    @Nullable
+    public Process emulatorProcess(@NotNull DeviceUIDProviderType param) {
+        Emulator emulator = emulator(param.deviceUID());
+        return emulator != null ? emulator.PROCESS : null;
+    }
+
+    /**
+     * Check whether an emulator launched by any {@link EmulatorBootWatcher}
+     * is still running.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link Boolean} value.
+     * @see #emulatorProcess(DeviceUIDProviderType)
+     */
+    public boolean isRunning(@NotNull DeviceUIDProviderType param) {
+        Process process = emulatorProcess(param);
+        return process != null && process.isAlive();
+    }
+
+    /**
+     * Get the console port of the running emulator for an AVD, so that
+     * another engine using the same AVD can share it.
+     * @param avd {@link String} value.
+     * @return {@link Integer} value, or null if the AVD is not running.
+     */
+    @Nullable
+    public Integer runningPort(@NotNull String avd) {
+        Emulator emulator = EMULATORS.get(avd);
+
+        if (emulator != null && emulator.PROCESS.isAlive()) {
+            return emulator.PORT;
+        }
+
+        return null;
+    }
+
+    /**
+     * Stop an emulator launched by any {@link EmulatorBootWatcher}.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @return {@link Boolean} value, true if there was such an emulator.
+     */
+    public boolean stopEmulator(@NotNull DeviceUIDProviderType param) {
+        Emulator emulator = emulator(param.deviceUID());
+
+        if (emulator != null && EMULATORS.remove(emulator.AVD, emulator)) {
+            emulator.PROCESS.destroy();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Stop all emulators launched by this class.
+     * @see Process#destroy()
+     */
+    public void stopEmulators() {
+        List<Emulator> emulators = new ArrayList<>(LAUNCHED);
+        LAUNCHED.removeAll(emulators);
+
+        for (Emulator emulator : emulators) {
+            EMULATORS.remove(emulator.AVD, emulator);
+            emulator.PROCESS.destroy();
+        }
+    }
+    //endregion
+
+    //region Metrics
+    /**
+     * Record a boot duration for an AVD.
+     * @param avd {@link String} value.
+     * @param duration {@link Long} value, in milliseconds.
+     */
+    void recordBootDuration(@NotNull String avd, long duration) {
+        BOOT_DURATIONS.computeIfAbsent(avd, a -> new CopyOnWriteArrayList<>()).add(duration);
+    }
+
+    /**
+     * Get all recorded boot durations for an AVD.
+     * @param avd {@link String} value.
+     * @return {@link List} of {@link Long}, in milliseconds.
+     */
+    @NotNull
+    public List<Long> bootDurations(@NotNull String avd) {
+        List<Long> durations = BOOT_DURATIONS.get(avd);
+
+        if (durations == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(new ArrayList<>(durations));
+    }
+
+    /**
+     * Get the average boot duration for an AVD.
+     * @param avd {@link String} value.
+     * @return {@link Long} value, in milliseconds, or 0 if no boot was
+     * recorded.
+     * @see #bootDurations(String)
+     */
+    public long averageBootDuration(@NotNull String avd) {
+        return (long) bootDurations(avd).stream()
+            .mapToLong(Long::longValue)
+            .average()
+            .orElse(0);
+    }
+
+    /**
+     * Get a summary of the recorded boot durations, one line per AVD.
+     * @return {@link String} value, empty if no boot was recorded.
+     * @see #averageBootDuration(String)
+     * @see #bootDurations(String)
+     */
+    @NotNull
+    public String bootSummary() {
+        final EmulatorBootWatcher THIS = this;
+
+        return BOOT_DURATIONS.keySet().stream()
+            .sorted()
+            .map(a -> String.format("%s: %d boot(s), average %dms",
+                a, THIS.bootDurations(a).size(), THIS.averageBootDuration(a)))
+            .collect(Collectors.joining("\n"));
+    }
+    //endregion
+
+    /**
+     * An emulator launched by an {@link EmulatorBootWatcher}.
+     */
+    static final class Emulator {
+        @NotNull final String AVD;
+        @NotNull final String UID;
+        @NotNull final Process PROCESS;
+        final int PORT;
+
+        Emulator(@NotNull String avd, @NotNull String uid, int port, @NotNull Process process) {
+            AVD = avd;
+            UID = uid;
+            PORT = port;
+            PROCESS = process;
+        }
+    }
+}
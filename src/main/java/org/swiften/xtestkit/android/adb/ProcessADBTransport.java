@@ -0,0 +1,109 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * {@link ADBTransportType} implementation that forks the adb binary for
+ * each request. This is the default {@link ADBHandler#transport()}, and the
+ * fallback when the adb server cannot be reached with
+ * {@link SocketADBTransport}.
+ */
+public class ProcessADBTransport implements ADBTransportType {
+    @NotNull private final ADBHandler HANDLER;
+
+    public ProcessADBTransport(@NotNull ADBHandler handler) {
+        HANDLER = handler;
+    }
+
+    /**
+     * Run a full adb command, e.g. one built with
+     * {@link ADBHandler#cm_adbShell(DeviceUIDProviderType)}, and emit its
+     * entire output once the process exits.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#processRunner()
+     * @see ProcessRunner#rxa_execute(String)
+     */
+    @NotNull
+    public Flowable<String> rxa_execute(@NotNull String command) {
+        return HANDLER.processRunner().rxa_execute(command);
+    }
+
+    //region ADBTransportType
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Flowable} instance.
+     * @see ADBDevice#parseAll(String)
+     * @see ADBHandler#cm_adbDevices()
+     * @see #rxa_execute(String)
+     */
+    @NotNull
+    @Override
+    public Flowable<List<ADBDevice>> rxe_devices() {
+        final ProcessADBTransport THIS = this;
+
+        return Flowable
+            .defer(() -> THIS.rxa_execute(HANDLER.cm_adbDevices()))
+            .map(ADBDevice::parseAll);
+    }
+
+    /**
+     * Override this method to provide default implementation. The output
+     * is only available once the process exits.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param command {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#cm_adbShell(DeviceUIDProviderType)
+     * @see #rxa_execute(String)
+     */
+    @NotNull
+    @Override
+    public Flowable<String> rxe_shellLines(@NotNull final DeviceUIDProviderType param,
+                                           @NotNull final String command) {
+        final ProcessADBTransport THIS = this;
+
+        return Flowable
+            .defer(() -> {
+                String shell = HANDLER.cm_adbShell(param);
+                String full = String.format("%s %s", shell, command);
+                return THIS.rxa_execute(full);
+            })
+            .flatMapIterable(THIS::lines);
+    }
+
+    /**
+     * Override this method to provide default implementation. The file is
+     * pulled into a temporary file, which is deleted afterwards.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param path {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see ADBHandler#cm_adb()
+     * @see #rxa_execute(String)
+     */
+    @NotNull
+    @Override
+    public Flowable<byte[]> rxe_pull(@NotNull final DeviceUIDProviderType param,
+                                     @NotNull final String path) {
+        final ProcessADBTransport THIS = this;
+
+        return Flowable.using(
+            () -> File.createTempFile("xtestkit_pull", null),
+            a -> THIS
+                .rxa_execute(String.format("%1$s -s %2$s pull %3$s %4$s",
+                    HANDLER.cm_adb(), param.deviceUID(), path, a.getAbsolutePath()))
+                .map(b -> Files.readAllBytes(a.toPath())),
+            File::delete);
+    }
+    //endregion
+}
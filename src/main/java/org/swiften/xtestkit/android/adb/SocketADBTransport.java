@@ -0,0 +1,397 @@
+package org.swiften.xtestkit.android.adb;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * {@link ADBTransportType} implementation that talks the adb host protocol
+ * directly to the adb server, without forking the adb binary.
+ * Each request is a 4-digit hex length followed by the payload, and the
+ * server replies with 'OKAY' or 'FAIL' (followed by a hex-length message).
+ * Device services ('shell:', 'sync:') are requested after switching the
+ * connection to a device with 'host:transport:serial'.
+ */
+public class SocketADBTransport implements ADBTransportType, ADBErrorType {
+    /**
+     * Get {@link Builder} instance.
+     * @return {@link Builder} instance.
+     */
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final int DEFAULT_PORT = 5037;
+
+    /**
+     * Maximum payload size of a sync 'DATA' packet.
+     */
+    private static final int SYNC_MAX_DATA = 64 * 1024;
+
+    @NotNull private String host;
+    private int port;
+    private int timeout;
+
+    SocketADBTransport() {
+        host = "localhost";
+        port = DEFAULT_PORT;
+        timeout = 5000;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("adb server at %s:%d", host, port);
+    }
+
+    //region Getters
+    /**
+     * Get {@link #host}.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public String host() {
+        return host;
+    }
+
+    /**
+     * Get {@link #port}.
+     * @return {@link Integer} value.
+     */
+    public int port() {
+        return port;
+    }
+    //endregion
+
+    //region ADBTransportType
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Flowable} instance.
+     * @see ADBDevice#parseAll(String)
+     * @see #readHexLengthString(InputStream)
+     */
+    @NotNull
+    @Override
+    public Flowable<List<ADBDevice>> rxe_devices() {
+        final SocketADBTransport THIS = this;
+
+        return Flowable.fromCallable(() -> {
+            try (Socket socket = THIS.connect()) {
+                InputStream input = socket.getInputStream();
+                THIS.request(socket, "host:devices-l");
+                return ADBDevice.parseAll(THIS.readHexLengthString(input));
+            }
+        });
+    }
+
+    /**
+     * Override this method to provide default implementation. Lines are
+     * emitted as soon as the device prints them, and the connection is
+     * closed if the subscriber cancels.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param COMMAND {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #transport(Socket, DeviceUIDProviderType)
+     */
+    @NotNull
+    @Override
+    public Flowable<String> rxe_shellLines(@NotNull final DeviceUIDProviderType param,
+                                           @NotNull final String COMMAND) {
+        final SocketADBTransport THIS = this;
+
+        return Flowable.create(obs -> {
+            final Socket SOCKET = THIS.connect();
+            obs.setCancellable(SOCKET::close);
+
+            try {
+                THIS.transport(SOCKET, param);
+                THIS.request(SOCKET, String.format("shell:%s", COMMAND));
+
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    SOCKET.getInputStream(), StandardCharsets.UTF_8));
+
+                String line;
+
+                while ((line = reader.readLine()) != null && !obs.isCancelled()) {
+                    /* The legacy shell protocol uses a pty, which turns
+                     * line endings into \r\n */
+                    obs.onNext(line.endsWith("\r")
+                        ? line.substring(0, line.length() - 1)
+                        : line);
+                }
+
+                obs.onComplete();
+            } catch (IOException e) {
+                obs.tryOnError(e);
+            } finally {
+                SOCKET.close();
+            }
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    /**
+     * Override this method to provide default implementation. This uses
+     * the 'RECV' request of the sync service.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @param PATH {@link String} value.
+     * @return {@link Flowable} instance.
+     * @see #transport(Socket, DeviceUIDProviderType)
+     * @see #writeSyncPacket(OutputStream, String, byte[])
+     */
+    @NotNull
+    @Override
+    public Flowable<byte[]> rxe_pull(@NotNull final DeviceUIDProviderType param,
+                                     @NotNull final String PATH) {
+        final SocketADBTransport THIS = this;
+
+        return Flowable.fromCallable(() -> {
+            try (Socket socket = THIS.connect()) {
+                THIS.transport(socket, param);
+                THIS.request(socket, "sync:");
+
+                OutputStream output = socket.getOutputStream();
+                DataInputStream input = new DataInputStream(socket.getInputStream());
+                ByteArrayOutputStream file = new ByteArrayOutputStream();
+                THIS.writeSyncPacket(output, "RECV", PATH.getBytes(StandardCharsets.UTF_8));
+
+                while (true) {
+                    String id = THIS.readString(input, 4);
+                    int length = THIS.readLittleEndianInt(input);
+
+                    if (id.equals("DATA") && length <= SYNC_MAX_DATA) {
+                        byte[] chunk = new byte[length];
+                        input.readFully(chunk);
+                        file.write(chunk);
+                    } else if (id.equals("DONE")) {
+                        break;
+                    } else if (id.equals("FAIL")) {
+                        throw new IOException(THIS.readString(input, length));
+                    } else {
+                        throw new IOException(adbProtocolError(id));
+                    }
+                }
+
+                try {
+                    THIS.writeSyncPacket(output, "QUIT", new byte[0]);
+                } catch (IOException e) {
+                    /* The file is complete, so it does not matter whether
+                     * the server is still listening */
+                }
+
+                return file.toByteArray();
+            }
+        });
+    }
+    //endregion
+
+    //region Protocol
+    /**
+     * Open a connection to the adb server. {@link #timeout} bounds both
+     * the connection and every read, so that a server or device that
+     * stops responding fails the request instead of blocking forever.
+     * @return {@link Socket} instance.
+     * @throws ConnectException If the server cannot be reached. This is
+     * the only failure after which nothing has been sent yet, so callers
+     * may safely retry the request some other way.
+     * @see #timeout
+     */
+    @NotNull
+    Socket connect() throws IOException {
+        Socket socket = new Socket();
+
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeout);
+        } catch (IOException e) {
+            socket.close();
+
+            /* Connecting may also time out, which must not look like a
+             * read timeout to callers */
+            ConnectException error = new ConnectException(e.getMessage());
+            error.initCause(e);
+            throw error;
+        }
+
+        socket.setSoTimeout(timeout);
+        return socket;
+    }
+
+    /**
+     * Switch the connection to a device, so that device services can be
+     * requested.
+     * @param socket {@link Socket} instance.
+     * @param param {@link DeviceUIDProviderType} instance.
+     * @throws IOException If the device cannot be found.
+     * @see #request(Socket, String)
+     */
+    void transport(@NotNull Socket socket,
+                   @NotNull DeviceUIDProviderType param) throws IOException {
+        request(socket, String.format("host:transport:%s", param.deviceUID()));
+    }
+
+    /**
+     * Send a request and wait for 'OKAY'.
+     * @param socket {@link Socket} instance.
+     * @param request {@link String} value.
+     * @throws IOException If the server replies with 'FAIL'.
+     * @see #readStatus(InputStream)
+     */
+    void request(@NotNull Socket socket, @NotNull String request) throws IOException {
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        OutputStream output = socket.getOutputStream();
+        output.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        output.write(payload);
+        output.flush();
+        readStatus(socket.getInputStream());
+    }
+
+    /**
+     * Read 'OKAY', or throw the message that follows 'FAIL'.
+     * @param input {@link InputStream} instance.
+     * @throws IOException If the status is not 'OKAY'.
+     */
+    void readStatus(@NotNull InputStream input) throws IOException {
+        String status = readString(input, 4);
+
+        if (status.equals("FAIL")) {
+            throw new IOException(readHexLengthString(input));
+        } else if (!status.equals("OKAY")) {
+            throw new IOException(adbProtocolError(status));
+        }
+    }
+
+    /**
+     * Read a 4-digit hex length, followed by that many bytes.
+     * @param input {@link InputStream} instance.
+     * @return {@link String} value.
+     * @throws IOException If the stream ends early.
+     */
+    @NotNull
+    String readHexLengthString(@NotNull InputStream input) throws IOException {
+        String hex = readString(input, 4);
+
+        try {
+            return readString(input, Integer.parseInt(hex, 16));
+        } catch (NumberFormatException e) {
+            throw new IOException(adbProtocolError(hex));
+        }
+    }
+
+    /**
+     * Read exactly a number of bytes as a {@link String}.
+     * @param input {@link InputStream} instance.
+     * @param length {@link Integer} value.
+     * @return {@link String} value.
+     * @throws IOException If the stream ends early.
+     */
+    @NotNull
+    String readString(@NotNull InputStream input, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        new DataInputStream(input).readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a little-endian 32-bit integer, as used by the sync service.
+     * @param input {@link DataInputStream} instance.
+     * @return {@link Integer} value.
+     * @throws IOException If the stream ends early.
+     */
+    int readLittleEndianInt(@NotNull DataInputStream input) throws IOException {
+        byte[] bytes = new byte[4];
+        input.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    /**
+     * Write a sync packet: a 4-byte id, a little-endian length and the data.
+     * @param output {@link OutputStream} instance.
+     * @param id {@link String} value.
+     * @param data {@link Byte} array.
+     * @throws IOException If the connection is closed.
+     */
+    void writeSyncPacket(@NotNull OutputStream output,
+                         @NotNull String id,
+                         @NotNull byte[] data) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(id.getBytes(StandardCharsets.US_ASCII));
+        header.putInt(data.length);
+        output.write(header.array());
+        output.write(data);
+        output.flush();
+    }
+    //endregion
+
+    //region Builder
+    /**
+     * Builder class for {@link SocketADBTransport}.
+     */
+    public static final class Builder {
+        @NotNull private final SocketADBTransport TRANSPORT;
+
+        Builder() {
+            TRANSPORT = new SocketADBTransport();
+        }
+
+        /**
+         * Set {@link #TRANSPORT#host}.
+         * @param host {@link String} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withHost(@NotNull String host) {
+            TRANSPORT.host = host;
+            return this;
+        }
+
+        /**
+         * Set {@link #TRANSPORT#port}.
+         * @param port {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withPort(int port) {
+            TRANSPORT.port = port;
+            return this;
+        }
+
+        /**
+         * Set {@link #TRANSPORT#timeout}. This applies to connecting and
+         * to each read, so a shell command that prints nothing for longer
+         * fails with a {@link java.net.SocketTimeoutException}.
+         * @param timeout {@link Integer} value, in milliseconds.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withTimeout(int timeout) {
+            TRANSPORT.timeout = timeout;
+            return this;
+        }
+
+        @NotNull
+        public SocketADBTransport build() {
+            return TRANSPORT;
+        }
+    }
+    //endregion
+}
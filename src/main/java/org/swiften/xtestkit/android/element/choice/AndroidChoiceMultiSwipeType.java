@@ -9,6 +9,7 @@ import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.android.model.AndroidChoiceInputType;
 import org.swiften.xtestkit.base.element.choice.ChoiceHelperType;
 import org.swiften.xtestkit.base.element.locator.ByXPath;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
 import org.swiften.xtestkit.base.element.swipe.MultiSwipeComparisonType;
 import org.swiften.xtestkit.base.element.swipe.SwipeParamType;
 import org.swiften.xtestkit.base.model.ChoiceInputType;
@@ -265,4 +266,16 @@ public interface AndroidChoiceMultiSwipeType extends MultiSwipeComparisonType {
     default void swipeOnce(@NotNull SwipeParamType param) {
         choiceHelper().swipeOnce(param);
     }
+
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link ElementGeometryCache} instance.
+     * @see MultiSwipeComparisonType#elementGeometryCache()
+     * @see #choiceHelper()
+     */
+    @NotNull
+    @Override
+    default ElementGeometryCache elementGeometryCache() {
+        return choiceHelper().elementGeometryCache();
+    }
 }
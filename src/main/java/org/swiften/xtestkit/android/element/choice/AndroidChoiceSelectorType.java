@@ -5,8 +5,10 @@ import io.appium.java_client.android.AndroidElement;
 import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
 import org.openqa.selenium.WebElement;
+import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.number.HPNumbers;
 import org.swiften.xtestkit.android.model.AndroidChoiceInputType;
+import org.swiften.xtestkit.android.model.AndroidNumericPickerInputType;
 import org.swiften.xtestkit.base.element.choice.ChoiceHelperType;
 import org.swiften.xtestkit.base.element.choice.ChoiceSelectorType;
 import org.swiften.xtestkit.base.element.choice.ChoiceType;
@@ -28,7 +30,10 @@ public interface AndroidChoiceSelectorType extends
     InputHelperType
 {
     /**
-     * Override this method to provide default implementation.
+     * Override this method to provide default implementation. For
+     * {@link AndroidNumericPickerInputType}, we first try to type the
+     * selected choice into the picker, and only scroll the picker if that
+     * does not work.
      * @param param {@link ChoiceType} instance.
      * @return {@link Flowable} instance.
      * @see ChoiceSelectorType#rxa_selectGeneralChoice(ChoiceType)
@@ -40,6 +45,7 @@ public interface AndroidChoiceSelectorType extends
      * @see ChoiceHelperType#rxe_withXPath(XPath...)
      * @see HPNumbers#inverse(Number)
      * @see Platform#ANDROID
+     * @see #rxa_typeNumericChoice(AndroidNumericPickerInputType, String)
      */
     @NotNull
     @Override
@@ -49,7 +55,7 @@ public interface AndroidChoiceSelectorType extends
         final String SELECTED = param.selectedChoice();
         final double RATIO = INPUT.swipeRatio(this);
 
-        return new AndroidChoiceMultiSwipeType() {
+        final AndroidChoiceMultiSwipeType SWIPER = new AndroidChoiceMultiSwipeType() {
             /**
              * Since there are might be multiple pickers with identical id,
              * we need to get the element that corresponds to a specified
@@ -89,6 +95,73 @@ public interface AndroidChoiceSelectorType extends
             public ChoiceHelperType<?> choiceHelper() {
                 return THIS;
             }
-        }.rxa_performAction();
+        };
+
+        if (INPUT instanceof AndroidNumericPickerInputType) {
+            AndroidNumericPickerInputType input = (AndroidNumericPickerInputType)INPUT;
+
+            return rxa_typeNumericChoice(input, SELECTED)
+                .filter(HPBooleans::isTrue)
+                .switchIfEmpty(Flowable.defer(SWIPER::rxa_performAction));
+        }
+
+        return SWIPER.rxa_performAction();
+    }
+
+    /**
+     * Select a choice by typing it into the editable text field of an
+     * {@link AndroidNumericPickerInputType}, then pressing enter to commit
+     * it. This takes the same number of calls no matter how far away the
+     * choice is, whereas scrolling takes one swipe per page.
+     * @param input {@link AndroidNumericPickerInputType} instance.
+     * @param SELECTED The selected choice {@link String}.
+     * @return {@link Flowable} instance. This emits false if the picker is
+     * not editable or the typed value was not accepted.
+     * @see AndroidNumericPickerInputType#androidChoicePickerInputXP(InputHelperType)
+     * @see #click(WebElement)
+     * @see #driverCall(Runnable)
+     * @see #getText(WebElement)
+     * @see #invalidateSnapshot()
+     * @see #isNumericPickerEditable(WebElement)
+     * @see #rxe_withXPath(XPath...)
+     * @see #sendValue(WebElement, String)
+     * @see #toggleNextInput(WebElement)
+     */
+    @NotNull
+    default Flowable<Boolean> rxa_typeNumericChoice(@NotNull AndroidNumericPickerInputType input,
+                                                    @NotNull final String SELECTED) {
+        final AndroidChoiceSelectorType THIS = this;
+        final XPath XPATH = input.androidChoicePickerInputXP(this);
+
+        return rxe_withXPath(XPATH).firstElement().toFlowable()
+            .filter(THIS::isNumericPickerEditable)
+            .doOnNext(a -> {
+                THIS.click(a);
+                THIS.driverCall(a::clear);
+                THIS.sendValue(a, SELECTED);
+
+                /* The picker only commits the typed value once the input
+                 * action is triggered */
+                THIS.toggleNextInput(a);
+                THIS.invalidateSnapshot();
+            })
+            .flatMap(a -> THIS.rxe_withXPath(XPATH).firstElement().toFlowable())
+            .map(THIS::getText)
+            .map(SELECTED::equals)
+            .defaultIfEmpty(false)
+            .onErrorReturnItem(false);
+    }
+
+    /**
+     * Check if the text field of a number picker can be typed into. Some
+     * pickers disable it, e.g. when they wrap around a fixed set of values.
+     * @param element {@link WebElement} instance.
+     * @return {@link Boolean} value.
+     * @see HPBooleans#isTrue(Object)
+     * @see WebElement#getAttribute(String)
+     * @see WebElement#isEnabled()
+     */
+    default boolean isNumericPickerEditable(@NotNull WebElement element) {
+        return element.isEnabled() && HPBooleans.isTrue(element.getAttribute("focusable"));
     }
 }
@@ -17,6 +17,7 @@ import org.swiften.xtestkit.android.type.AndroidSDK;
 import org.swiften.xtestkit.android.type.AndroidSDKProviderType;
 import org.swiften.xtestkit.base.element.date.*;
 import org.swiften.xtestkit.base.element.locator.ByXPath;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
 import org.swiften.xtestkit.base.element.swipe.MultiSwipeComparisonType;
 import org.swiften.xtestkit.base.element.swipe.MultiSwipeType;
 import org.swiften.xtestkit.base.element.swipe.SwipeParamType;
@@ -27,7 +28,9 @@ import org.swiften.xtestkit.mobile.element.action.swipe.MobileSwipeType;
 import org.swiften.xtestkitcomponents.direction.Direction;
 import org.swiften.xtestkitcomponents.xpath.*;
 
-import java.text.SimpleDateFormat;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 
 /**
@@ -94,49 +97,154 @@ public interface CalendarDateActionType extends
         }
     }
 
+    /**
+     * Get the {@link YearMonth} a {@link Date} falls in.
+     * @param date {@link Date} instance.
+     * @return {@link YearMonth} instance.
+     */
+    @NotNull
+    default YearMonth yearMonth(@NotNull Date date) {
+        return YearMonth.from(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Get the {@link ByXPath} to locate a day view whose content-desc
+     * contains a {@link String}. Weirdly enough, the individual view
+     * elements that contain the day values use content description to store
+     * the day.
+     * @param value {@link String} value.
+     * @return {@link ByXPath} instance.
+     * @see AndroidXMLAttribute#CONTENT_DESC
+     */
+    @NotNull
+    default ByXPath calendarDayQuery(@NotNull String value) {
+        Attribute<String> attr = Attribute.<String>builder()
+            .addAttribute(AndroidXMLAttribute.CONTENT_DESC.value())
+            .withFormatible(Formatibles.containsString())
+            .withValue(value)
+            .withJoiner(Joiner.OR)
+            .withWrapper(Wrapper.NONE)
+            .build();
+
+        XPath xpath = XPath.builder().addAttribute(attr).build();
+        return ByXPath.builder().withXPath(xpath).withRetries(0).build();
+    }
+
     /**
      * Select a day if the app uses {@link AndroidDatePickerType#isCalendar()}.
-     * We need to define {@link Attribute} with "content-desc", and
-     * repeatedly search for the correct day until it is found. However, even
-     * if the day is found, Appium could still select the wrong element -
-     * so in this case an additional iteration is required.
-     * This is called the calibration phase because year selection should
-     * have brought the picker close to the date we want.
+     * The displayed month is read once, and the number of pages to the
+     * target month is computed upfront. The calendar is then swiped that
+     * many pages in a row and the date is only verified at the end. The
+     * year has already been selected by
+     * {@link #rxa_selectDate(DateProviderType)} at this point, so the
+     * target is usually less than a year away. If the
+     * picker did not land on the right page (e.g. a swipe snapped back),
+     * we fall back to {@link #rxa_calibrateDateStepwise(DateProviderType)}
+     * from wherever the picker is.
      * @param PARAM {@link DateProviderType} instance.
      * @return {@link Flowable} instance.
+     * @see #rxa_calibrateDateStepwise(DateProviderType)
+     * @see #rxa_seekMonth(DateProviderType)
+     */
+    @NotNull
+    default Flowable<Boolean> rxa_calibrateDate(@NotNull final DateProviderType PARAM) {
+        final CalendarDateActionType THIS = this;
+
+        return rxa_seekMonth(PARAM)
+            .flatMap(a -> THIS.rxv_hasDate(PARAM))
+            .onErrorReturnItem(false)
+            .filter(HPBooleans::isTrue)
+            .switchIfEmpty(Flowable.defer(() -> THIS.rxa_calibrateDateStepwise(PARAM)));
+    }
+
+    /**
+     * Swipe the calendar directly to the month of
+     * {@link DateProviderType#date()}, then click the target day.
+     * @param PARAM {@link DateProviderType} instance.
+     * @return {@link Flowable} instance.
+     * @see #calendarDayQuery(String)
+     * @see #calendarSwiper(DateProviderType)
+     * @see #clickFn()
+     * @see #rxe_displayedDate(DateProviderType)
+     * @see #yearMonth(Date)
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    default Flowable<Boolean> rxa_seekMonth(@NotNull final DateProviderType PARAM) {
+        final CalendarDateActionType THIS = this;
+        final YearMonth TARGET = yearMonth(PARAM.date());
+        final boolean AT_LEAST_M = androidSDK().isAtLeastM();
+        final MultiSwipeType SWIPER = calendarSwiper(PARAM);
+        final ByXPath Q = calendarDayQuery(PARAM.dateString("dd MMMM yyyy"));
+
+        return rxe_displayedDate(PARAM)
+            .map(THIS::yearMonth)
+            .map(a -> (int)a.until(TARGET, ChronoUnit.MONTHS))
+            .flatMap(a -> {
+                if (a == 0) {
+                    return Flowable.just(true);
+                }
+
+                /* The displayed date is not earlier than the target date
+                 * if we need to go back in time */
+                final Direction DIRECTION = AT_LEAST_M
+                    ? Direction.horizontal(a < 0)
+                    : Direction.vertical(a < 0);
+
+                final int PAGES = Math.abs(a);
+
+                return SWIPER.rxe_scrollableViewToSwipe()
+                    .flatMap(b -> Flowable.range(0, PAGES)
+                        .concatMap(c -> SWIPER.rxa_swipeElement(b, DIRECTION, 0.7d)))
+                    .all(HPObjects::nonNull)
+                    .toFlowable();
+            })
+            .flatMap(a -> THIS.rxe_byXPath(Q).compose(THIS.clickFn()))
+            .all(HPObjects::nonNull)
+            .toFlowable();
+    }
+
+    /**
+     * Select a day by swiping one month at a time. After every swipe, we
+     * click the first day and the target day, and check whether the date
+     * is displayed. Even if the day is found, Appium could still select the
+     * wrong element - so in this case an additional iteration is required.
+     * This is called the calibration phase because it is only used to
+     * correct {@link #rxa_seekMonth(DateProviderType)}.
+     * @param PARAM {@link DateProviderType} instance.
+     * @return {@link Flowable} instance.
+     * @see #calendarSwiper(DateProviderType)
+     */
+    @NotNull
+    default Flowable<Boolean> rxa_calibrateDateStepwise(@NotNull DateProviderType PARAM) {
+        return calendarSwiper(PARAM).rxa_performAction();
+    }
+
+    /**
+     * Get the {@link MultiSwipeType} that swipes the calendar day view one
+     * page at a time towards {@link DateProviderType#date()}.
+     * @param PARAM {@link DateProviderType} instance.
+     * @return {@link MultiSwipeType} instance.
      * @see AndroidSDK#isAtLeastM()
-     * @see AndroidXMLAttribute#CONTENT_DESC
      * @see #androidSDK()
+     * @see #calendarDayQuery(String)
      * @see #swipeOnce(SwipeParamType)
      * @see #clickFn()
+     * @see #invalidateSnapshot()
      * @see #rxe_byXPath(ByXPath...)
      * @see #rxe_displayedDate(DateProviderType)
      * @see #rxe_pickerView(DateProviderType, CalendarUnit)
      * @see #rxv_hasDate(DateProviderType)
      */
     @NotNull
-    default Flowable<Boolean> rxa_calibrateDate(@NotNull final DateProviderType PARAM) {
+    default MultiSwipeType calendarSwiper(@NotNull final DateProviderType PARAM) {
         final CalendarDateActionType THIS = this;
         final Date DATE = PARAM.date();
 
         /* dd MMMM yyyy is the format accepted by the content-desc property */
         final String DATE_STRING = PARAM.dateString("dd MMMM yyyy");
-
-        /* Weirdly enough, the individual view element that contains the day
-         * values use content description to store the day */
-        Attribute<String> attr = Attribute.<String>builder()
-            .addAttribute(AndroidXMLAttribute.CONTENT_DESC.value())
-            .withFormatible(Formatibles.containsString())
-            .withValue(DATE_STRING)
-            .withJoiner(Joiner.OR)
-            .withWrapper(Wrapper.NONE)
-            .build();
-
-        Attribute<String> defAttr = attr.withValue("01");
-        XPath xp = XPath.builder().addAttribute(attr).build();
-        XPath dxp = XPath.builder().addAttribute(defAttr).build();
-        final ByXPath Q = ByXPath.builder().withXPath(xp).withRetries(0).build();
-        final ByXPath DQ = ByXPath.builder().withXPath(dxp).withRetries(0).build();
+        final ByXPath Q = calendarDayQuery(DATE_STRING);
+        final ByXPath DQ = calendarDayQuery("01");
         final boolean AT_LEAST_M = androidSDK().isAtLeastM();
 
         return new MultiSwipeType() {
@@ -206,7 +314,18 @@ public interface CalendarDateActionType extends
             public void swipeOnce(@NotNull SwipeParamType param) {
                 THIS.swipeOnce(param);
             }
-        }.rxa_performAction();
+
+            @NotNull
+            @Override
+            public ElementGeometryCache elementGeometryCache() {
+                return THIS.elementGeometryCache();
+            }
+
+            @Override
+            public void invalidateSnapshot() {
+                THIS.invalidateSnapshot();
+            }
+        };
     }
 
     /**
@@ -232,6 +351,7 @@ public interface CalendarDateActionType extends
      * @param UNIT {@link CalendarUnit} instance.
      * @return {@link Flowable} instance.
      * @see Attributes#containsText(String)
+     * @see DateFormatterRegistry#unitValue(DatePickerType, CalendarUnit, String)
      * @see #displayString(DateProviderType, CalendarUnit)
      * @see #getText(WebElement)
      * @see #platform()
@@ -244,11 +364,10 @@ public interface CalendarDateActionType extends
         final CalendarDateActionType THIS = this;
         final String CP_STRING = displayString(PARAM, UNIT);
         final int COMPONENT = PARAM.component(UNIT);
-        String format = PARAM.datePickerType().valueStringFormat(UNIT);
-        final SimpleDateFormat FORMATTER = new SimpleDateFormat(format);
+        final DatePickerType PICKER_TYPE = PARAM.datePickerType();
         Attributes attrs = Attributes.of(this);
 
-        XPath xpath = PARAM.datePickerType().targetItemXP(UNIT)
+        XPath xpath = PICKER_TYPE.targetItemXP(UNIT)
             .addToEach(attrs.containsText(CP_STRING));
 
         /* We need a custom ByXPath because we want to limit the retry
@@ -272,11 +391,7 @@ public interface CalendarDateActionType extends
             public Flowable<Integer> rxe_initialDifference(@NotNull WebElement element) {
                 return Flowable.just(element)
                     .map(THIS::getText)
-                    .map(FORMATTER::parse)
-                    .map(a -> DateParam.builder()
-                        .withDateProvider(PARAM).withDate(a))
-                    .map(DateParam.Builder::build)
-                    .map(a -> a.component(UNIT))
+                    .map(a -> DateFormatterRegistry.unitValue(PICKER_TYPE, UNIT, a))
                     .map(a -> a - COMPONENT);
             }
 
@@ -285,11 +400,7 @@ public interface CalendarDateActionType extends
             public Flowable<?> rxa_compareFirst(@NotNull WebElement element) {
                 return Flowable.just(element)
                     .map(THIS::getText)
-                    .map(FORMATTER::parse)
-                    .map(a -> DateParam.builder()
-                        .withDateProvider(PARAM).withDate(a))
-                    .map(DateParam.Builder::build)
-                    .map(a -> a.component(UNIT))
+                    .map(a -> DateFormatterRegistry.unitValue(PICKER_TYPE, UNIT, a))
                     .filter(a -> a > COMPONENT);
             }
 
@@ -298,11 +409,7 @@ public interface CalendarDateActionType extends
             public Flowable<?> rxa_compareLast(@NotNull WebElement element) {
                 return Flowable.just(element)
                     .map(THIS::getText)
-                    .map(FORMATTER::parse)
-                    .map(a -> DateParam.builder()
-                        .withDateProvider(PARAM).withDate(a))
-                    .map(DateParam.Builder::build)
-                    .map(a -> a.component(UNIT))
+                    .map(a -> DateFormatterRegistry.unitValue(PICKER_TYPE, UNIT, a))
                     .filter(a -> a < COMPONENT);
             }
 
@@ -345,6 +452,12 @@ public interface CalendarDateActionType extends
             public void swipeOnce(@NotNull SwipeParamType param) {
                 THIS.swipeOnce(param);
             }
+
+            @NotNull
+            @Override
+            public ElementGeometryCache elementGeometryCache() {
+                return THIS.elementGeometryCache();
+            }
         }.rxa_performAction();
     }
 
@@ -7,6 +7,7 @@ import org.swiften.javautilities.object.HPObjects;
 import org.swiften.xtestkit.android.AndroidView;
 import org.swiften.xtestkit.android.model.AndroidNumericPickerInputType;
 import org.swiften.xtestkit.base.element.date.CalendarUnit;
+import org.swiften.xtestkit.base.element.date.DateFormatterRegistry;
 import org.swiften.xtestkit.base.element.date.DatePickerType;
 import org.swiften.xtestkit.base.element.date.DateProviderType;
 import org.swiften.xtestkit.base.model.ChoiceInputType;
@@ -18,10 +19,7 @@ import org.swiften.xtestkitcomponents.xpath.AttributeType;
 import org.swiften.xtestkitcomponents.xpath.CompoundAttribute;
 import org.swiften.xtestkitcomponents.xpath.XPath;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.format.DateTimeParseException;
 
 /**
  * Created by haipham on 2/6/17.
@@ -89,29 +87,20 @@ public class UnitNumberPickerWrapper implements
      * @param value {@link String} value.
      * @return {@link Double} value.
      * @see ChoiceInputType#numericValue(InputHelperType, String)
-     * @see CalendarUnit#value()
-     * @see DatePickerType#valueStringFormat(CalendarUnit)
+     * @see DateFormatterRegistry#unitValue(DatePickerType, CalendarUnit, String)
      * @see #calendarUnit()
      * @see #datePickerType()
      * @see #NOT_AVAILABLE
      */
     @Override
-    @SuppressWarnings("MagicConstant")
     public double numericValue(@NotNull InputHelperType helper,
                                @NotNull String value) {
         DatePickerType pickerType = datePickerType();
         CalendarUnit unit = calendarUnit();
-        String format = pickerType.valueStringFormat(unit);
-        SimpleDateFormat formatter = new SimpleDateFormat(format);
-        HPLog.printft("Formatting %s with %s", value, format);
 
         try {
-            Date date = formatter.parse(value);
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(date);
-            int unitValue = unit.value();
-            return calendar.get(unitValue);
-        } catch (ParseException e) {
+            return DateFormatterRegistry.unitValue(pickerType, unit, value);
+        } catch (DateTimeParseException e) {
             HPLog.printft("Error parsing %s", value);
             throw new RuntimeException(NOT_AVAILABLE);
         }
@@ -123,25 +112,16 @@ public class UnitNumberPickerWrapper implements
      * @param value {@link Double} value.
      * @return {@link String} value.
      * @see ChoiceInputType#stringValue(InputHelperType, double)
-     * @see CalendarUnit#value()
-     * @see DatePickerType#valueStringFormat(CalendarUnit)
+     * @see DateFormatterRegistry#formatUnit(DatePickerType, CalendarUnit, int)
      * @see #calendarUnit()
      * @see #datePickerType()
      */
     @NotNull
     @Override
-    @SuppressWarnings("MagicConstant")
     public String stringValue(@NotNull InputHelperType helper, double value) {
         DatePickerType pickerType = datePickerType();
         CalendarUnit unit = calendarUnit();
-        int unitValue = unit.value();
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(unitValue, (int)value);
-        Date date = calendar.getTime();
-        String format = pickerType.valueStringFormat(unit);
-        SimpleDateFormat formatter = new SimpleDateFormat(format);
-        HPLog.printft("Formatting %s with %s", value, format);
-        return formatter.format(date);
+        return DateFormatterRegistry.formatUnit(pickerType, unit, (int)value);
     }
 
     /**
@@ -27,7 +27,7 @@ public interface AndroidInputActionType extends
      */
     @Override
     default void toggleNextInput(@NotNull WebElement element) {
-        driver().pressKeyCode(KEYCODE_ENTER);
+        driverCall(() -> driver().pressKeyCode(KEYCODE_ENTER));
     }
 
     /**
@@ -36,6 +36,6 @@ public interface AndroidInputActionType extends
      */
     @Override
     default void finishInput(@NotNull WebElement element) {
-        driver().pressKeyCode(KEYCODE_ENTER);
+        driverCall(() -> driver().pressKeyCode(KEYCODE_ENTER));
     }
 }
@@ -4,8 +4,8 @@ import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.AndroidElement;
 import org.jetbrains.annotations.NotNull;
 import org.openqa.selenium.*;
-import org.openqa.selenium.Dimension;
-import org.openqa.selenium.Point;
+import org.swiften.xtestkit.base.element.property.ElementGeometry;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
 import org.swiften.xtestkit.base.element.tap.TapParamType;
 import org.swiften.xtestkit.mobile.element.action.password.MobilePasswordActionType;
 
@@ -21,16 +21,15 @@ public interface AndroidPasswordActionType extends
      * to locate the password mask toggle.
      * @param element {@link WebElement} instance.
      * @see MobilePasswordActionType#togglePasswordMask(WebElement)
-     * @see WebElement#getLocation()
-     * @see WebElement#getSize()
+     * @see ElementGeometryCache#of(WebElement)
+     * @see #elementGeometryCache()
      * @see #tap(int, int)
      */
     @Override
     default void togglePasswordMask(@NotNull WebElement element) {
-        Point point = element.getLocation();
-        Dimension dimension = element.getSize();
-        int x = point.getX(), y = point.getY();
-        int height = dimension.getHeight(), width = dimension.getWidth();
+        ElementGeometry geometry = elementGeometryCache().of(element);
+        int x = geometry.x(), y = geometry.y();
+        int height = geometry.height(), width = geometry.width();
         int maxX = x + width, maxY = y + height;
         tap(maxX - 5, maxY - height / 2);
     }
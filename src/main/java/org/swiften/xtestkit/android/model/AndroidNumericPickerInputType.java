@@ -108,4 +108,25 @@ public interface AndroidNumericPickerInputType extends AndroidChoiceInputType {
             .addAttribute(CompoundAttribute.empty())
             .build();
     }
+
+    /**
+     * Get the {@link XPath} of the editable text field embedded in the
+     * {@link AndroidView.Type#NUMBER_PICKER}, which can be used to type a
+     * value directly instead of scrolling.
+     * @param helper {@link InputHelperType} instance.
+     * @return {@link XPath} instance.
+     * @see AndroidView.Type#EDIT_TEXT
+     * @see CompoundAttribute#empty()
+     * @see CompoundAttribute#withClass(ClassNameProviderType)
+     * @see XPath.Builder#addAttribute(AttributeType)
+     * @see #androidChoicePickerXP(InputHelperType)
+     */
+    @NotNull
+    default XPath androidChoicePickerInputXP(@NotNull InputHelperType helper) {
+        return XPath.builder()
+            .withXPath(androidChoicePickerXP(helper))
+            .addAttribute(CompoundAttribute.empty()
+                .withClass(AndroidView.Type.EDIT_TEXT))
+            .build();
+    }
 }
@@ -0,0 +1,201 @@
+package org.swiften.xtestkit.android.param;
+
+import org.jetbrains.annotations.NotNull;
+import org.swiften.javautilities.protocol.RetryProviderType;
+import org.swiften.xtestkit.android.adb.ADBHandler;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+/**
+ * Parameter object for
+ * {@link ADBHandler#rxa_applySettings(DeviceSettingsBatch)}. This groups
+ * several {@link DeviceSettingParam} for the same device, so that they can
+ * be put with one shell invocation and verified with one 'settings list'
+ * per name space.
+ */
+public class DeviceSettingsBatch implements DeviceUIDProviderType, RetryProviderType {
+    /**
+     * Prefix of the line printed before each name space's 'settings list'
+     * output.
+     */
+    @NotNull private static final String NAMESPACE_MARKER = "namespace:";
+
+    /**
+     * Get {@link DeviceSettingsBatch} from {@link DeviceSettingParam}.
+     * @param settings {@link List} of {@link DeviceSettingParam}.
+     * @return {@link DeviceSettingsBatch} instance.
+     */
+    @NotNull
+    public static DeviceSettingsBatch from(@NotNull List<DeviceSettingParam> settings) {
+        return new DeviceSettingsBatch(settings);
+    }
+
+    /**
+     * Same as above, but uses varargs.
+     * @param settings {@link DeviceSettingParam} varargs.
+     * @return {@link DeviceSettingsBatch} instance.
+     * @see #from(List)
+     */
+    @NotNull
+    public static DeviceSettingsBatch of(@NotNull DeviceSettingParam...settings) {
+        return from(Arrays.asList(settings));
+    }
+
+    @NotNull private final List<DeviceSettingParam> SETTINGS;
+
+    DeviceSettingsBatch(@NotNull List<DeviceSettingParam> settings) {
+        SETTINGS = Collections.unmodifiableList(new ArrayList<>(settings));
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("Settings %s on %s", keys(), deviceUID());
+    }
+
+    /**
+     * Override this method to provide default implementation. All
+     * {@link DeviceSettingParam} in a batch should target the same device.
+     * @return {@link String} value.
+     * @see DeviceUIDProviderType#deviceUID()
+     * @see DeviceSettingParam#deviceUID()
+     */
+    @NotNull
+    @Override
+    public String deviceUID() {
+        return SETTINGS.isEmpty() ? "" : SETTINGS.get(0).deviceUID();
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Integer} value.
+     * @see RetryProviderType#retries()
+     * @see DeviceSettingParam#retries()
+     */
+    @Override
+    public int retries() {
+        return SETTINGS.stream().mapToInt(DeviceSettingParam::retries).max().orElse(0);
+    }
+
+    /**
+     * Get {@link #SETTINGS}.
+     * @return {@link List} of {@link DeviceSettingParam}.
+     */
+    @NotNull
+    public List<DeviceSettingParam> settings() {
+        return SETTINGS;
+    }
+
+    /**
+     * Check whether there is nothing to change.
+     * @return {@link Boolean} value.
+     */
+    public boolean isEmpty() {
+        return SETTINGS.isEmpty();
+    }
+
+    /**
+     * Get the keys of all settings, joined with commas.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public String keys() {
+        return SETTINGS.stream()
+            .map(DeviceSettingParam::key)
+            .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Get the distinct name spaces, in the order they first appear.
+     * @return {@link Set} of {@link String}.
+     */
+    @NotNull
+    public Set<String> nameSpaces() {
+        return SETTINGS.stream()
+            .map(DeviceSettingParam::nameSpace)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Get 'put' commands for all settings, separated by ';' so that the
+     * device shell runs them in one invocation.
+     * @return {@link String} value.
+     * @see DeviceSettingParam#cm_put()
+     */
+    @NotNull
+    public String cm_putAll() {
+        return SETTINGS.stream()
+            .map(a -> String.format("settings %s", a.cm_put()))
+            .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Get 'list' commands for all name spaces. Each list is preceded by a
+     * marker line so that {@link #parseValues(String)} can tell the name
+     * spaces apart.
+     * @return {@link String} value.
+     * @see #nameSpaces()
+     */
+    @NotNull
+    public String cm_listAll() {
+        return nameSpaces().stream()
+            .map(a -> String.format("echo %1$s%2$s; settings list %2$s", NAMESPACE_MARKER, a))
+            .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Parse the output of {@link #cm_listAll()} into values keyed by name
+     * space, then by setting key.
+     * @param output {@link String} value.
+     * @return {@link Map} instance.
+     */
+    @NotNull
+    public Map<String,Map<String,String>> parseValues(@NotNull String output) {
+        Map<String,Map<String,String>> values = new HashMap<>();
+        Map<String,String> current = new HashMap<>();
+
+        for (String line : output.split("\r?\n")) {
+            int separator = line.indexOf('=');
+
+            if (line.startsWith(NAMESPACE_MARKER)) {
+                current = new HashMap<>();
+                values.put(line.substring(NAMESPACE_MARKER.length()).trim(), current);
+            } else if (separator > 0) {
+                current.put(line.substring(0, separator), line.substring(separator + 1).trim());
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Get the settings whose listed value does not match the expected one.
+     * @param output {@link String} value, the output of {@link #cm_listAll()}.
+     * @return {@link List} of {@link DeviceSettingParam}.
+     * @see #parseValues(String)
+     */
+    @NotNull
+    public List<DeviceSettingParam> failedSettings(@NotNull String output) {
+        Map<String,Map<String,String>> values = parseValues(output);
+
+        return SETTINGS.stream()
+            .filter(a -> {
+                Map<String,String> nameSpace = values.get(a.nameSpace());
+                return nameSpace == null || !a.value().equals(nameSpace.get(a.key()));
+            })
+            .collect(Collectors.toList());
+    }
+}
@@ -37,13 +37,16 @@ public class StartEmulatorParam implements
 
     @NotNull private String deviceName;
     @NotNull private String deviceUID;
+    @NotNull private String snapshot;
 
     private int port;
     private int retries;
+    private boolean restoreSnapshot;
 
     StartEmulatorParam() {
         deviceName = "";
         deviceUID = "";
+        snapshot = "";
     }
 
     /**
@@ -78,6 +81,25 @@ public class StartEmulatorParam implements
         return port;
     }
 
+    /**
+     * Return {@link #snapshot}. If this is empty, the emulator boots
+     * without any snapshot flag.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public String snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Check whether {@link #snapshot} should be restored. If not, the
+     * emulator cold boots and {@link #snapshot} is saved afterwards.
+     * @return {@link Boolean} value.
+     */
+    public boolean restoreSnapshot() {
+        return restoreSnapshot;
+    }
+
     //region Builder.
     /**
      * Builder class for {@link StartEmulatorParam}.
@@ -133,6 +155,28 @@ public class StartEmulatorParam implements
             return this;
         }
 
+        /**
+         * Set the {@link #snapshot} value.
+         * @param snapshot {@link String} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withSnapshot(@NotNull String snapshot) {
+            PARAM.snapshot = snapshot;
+            return this;
+        }
+
+        /**
+         * Set the {@link #restoreSnapshot} value.
+         * @param restore {@link Boolean} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withRestoreSnapshot(boolean restore) {
+            PARAM.restoreSnapshot = restore;
+            return this;
+        }
+
         /**
          * Set {@link #retries}.
          * @param param {@link RetryProviderType} instance.
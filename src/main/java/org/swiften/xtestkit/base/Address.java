@@ -117,6 +117,23 @@ public class Address implements PortProviderType, MaxPortType, PortStepProviderT
         return uri;
     }
 
+    /**
+     * Get the Appium status endpoint, which responds successfully once the
+     * server is ready to accept sessions.
+     * @return {@link String} value.
+     * @see #uri()
+     */
+    @NotNull
+    public String statusUri() {
+        String uri = uri();
+
+        if (uri.endsWith("/")) {
+            return uri + "status";
+        } else {
+            return uri + "/status";
+        }
+    }
+
     /**
      * Return {@link #port).
      * @return {@link Integer} value.
@@ -0,0 +1,440 @@
+package org.swiften.xtestkit.base;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.swiften.javautilities.bool.HPBooleans;
+import org.swiften.javautilities.object.HPObjects;
+import org.swiften.javautilities.util.HPLog;
+import org.swiften.xtestkit.base.type.AppiumHandlerType;
+import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
+import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Use this class to share local Appium servers across {@link Engine} and
+ * test classes. Servers are spawned up front (or on demand), leased to
+ * {@link Engine} in {@link Engine#rxa_beforeClass(org.swiften.javautilities.protocol.RetryProviderType)},
+ * health-checked before each lease, and returned to the pool in
+ * {@link Engine#rxa_afterClass(org.swiften.javautilities.protocol.RetryProviderType)}
+ * instead of being killed. Unhealthy servers are evicted and replaced.
+ */
+public class AppiumServerPool {
+    /**
+     * Get {@link Builder} instance.
+     * @return {@link Builder} instance.
+     */
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotNull private final List<Server> SERVERS;
+    @NotNull private final AtomicInteger SPAWNED;
+    @NotNull private final AtomicInteger LEASED;
+    @NotNull private final AtomicInteger RECYCLED;
+    @NotNull private final AtomicInteger EVICTED;
+
+    @NotNull private ProcessRunner processRunner;
+    @NotNull private NetworkHandler networkHandler;
+    @NotNull private AppiumStartupCoordinator coordinator;
+    private int size;
+
+    AppiumServerPool() {
+        SERVERS = new ArrayList<>();
+        SPAWNED = new AtomicInteger();
+        LEASED = new AtomicInteger();
+        RECYCLED = new AtomicInteger();
+        EVICTED = new AtomicInteger();
+        processRunner = new ProcessRunner();
+        networkHandler = new NetworkHandler();
+        coordinator = AppiumStartupCoordinator.sharedInstance();
+        size = 1;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format(
+            "Appium pool: servers %d, spawned %d, leased %d, recycled %d, evicted %d",
+            serverCount(), spawnedCount(), leasedCount(),
+            recycledCount(), evictedCount());
+    }
+
+    //region Getters
+    /**
+     * Get {@link #processRunner}.
+     * @return {@link ProcessRunner} instance.
+     */
+    @NotNull
+    public ProcessRunner processRunner() {
+        return processRunner;
+    }
+
+    /**
+     * Get {@link #networkHandler}.
+     * @return {@link NetworkHandler} instance.
+     */
+    @NotNull
+    public NetworkHandler networkHandler() {
+        return networkHandler;
+    }
+
+    /**
+     * Get {@link #coordinator}.
+     * @return {@link AppiumStartupCoordinator} instance.
+     */
+    @NotNull
+    public AppiumStartupCoordinator coordinator() {
+        return coordinator;
+    }
+
+    /**
+     * Get {@link #size}. This is the number of servers spawned by
+     * {@link #rxa_prespawn()}.
+     * @return {@link Integer} value.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of servers currently in the pool.
+     * @return {@link Integer} value.
+     */
+    public int serverCount() {
+        synchronized (SERVERS) {
+            return SERVERS.size();
+        }
+    }
+
+    /**
+     * Get the number of servers spawned so far.
+     * @return {@link Integer} value.
+     */
+    public int spawnedCount() {
+        return SPAWNED.get();
+    }
+
+    /**
+     * Get the number of servers leased so far.
+     * @return {@link Integer} value.
+     */
+    public int leasedCount() {
+        return LEASED.get();
+    }
+
+    /**
+     * Get the number of servers reused after a health check so far.
+     * @return {@link Integer} value.
+     */
+    public int recycledCount() {
+        return RECYCLED.get();
+    }
+
+    /**
+     * Get the number of servers evicted so far.
+     * @return {@link Integer} value.
+     */
+    public int evictedCount() {
+        return EVICTED.get();
+    }
+    //endregion
+
+    //region Lifecycle
+    /**
+     * Spawn {@link #size} idle servers.
+     * @return {@link Flowable} instance.
+     * @see #rxa_spawn(boolean)
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_prespawn() {
+        final AppiumServerPool THIS = this;
+        int missing = Math.max(0, size() - serverCount());
+
+        return Flowable.range(0, missing)
+            .flatMap(a -> THIS.rxa_spawn(false))
+            .all(HPObjects::nonNull)
+            .toFlowable();
+    }
+
+    /**
+     * Lease a healthy server. An idle server is reused if it still
+     * responds on {@link Address#statusUri()}; otherwise it is evicted and
+     * the next one is tried. If there is no idle server, a new one is
+     * spawned.
+     * @return {@link Flowable} instance that emits the leased server's
+     * {@link Address}.
+     * @see AppiumStartupCoordinator#isReady(String)
+     * @see #rxa_evict(Server)
+     * @see #rxa_spawn(boolean)
+     * @see #takeIdle()
+     */
+    @NotNull
+    public Flowable<Address> rxa_lease() {
+        final AppiumServerPool THIS = this;
+        final AppiumStartupCoordinator COORDINATOR = coordinator();
+
+        return Flowable
+            .defer(() -> {
+                final Server IDLE = THIS.takeIdle();
+
+                if (IDLE == null) {
+                    return THIS.rxa_spawn(true);
+                }
+
+                final Address ADDRESS = IDLE.address();
+
+                return Flowable
+                    .fromCallable(() -> COORDINATOR.isReady(ADDRESS.statusUri()))
+                    .subscribeOn(Schedulers.io())
+                    .flatMap(a -> {
+                        if (a) {
+                            THIS.RECYCLED.incrementAndGet();
+                            return Flowable.just(ADDRESS);
+                        } else {
+                            return THIS.rxa_evict(IDLE).flatMap(b -> THIS.rxa_lease());
+                        }
+                    });
+            })
+            .doOnNext(a -> THIS.LEASED.incrementAndGet())
+            .doOnNext(a -> HPLog.printft("Leased Appium server at %s", a));
+    }
+
+    /**
+     * Return a leased server to the pool.
+     * @param address The {@link Address} emitted by {@link #rxa_lease()}.
+     * @return {@link Boolean} value, true if the server belongs to this pool.
+     */
+    public boolean release(@NotNull Address address) {
+        Server server = server(address.port());
+
+        if (server != null) {
+            server.leased = false;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Stop and remove all servers.
+     * @return {@link Flowable} instance.
+     * @see #rxa_evict(Server)
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_shutdown() {
+        final AppiumServerPool THIS = this;
+        List<Server> servers;
+
+        synchronized (SERVERS) {
+            servers = new ArrayList<>(SERVERS);
+        }
+
+        return Flowable.fromIterable(servers)
+            .flatMap(THIS::rxa_evict)
+            .all(HPObjects::nonNull)
+            .toFlowable();
+    }
+
+    /**
+     * Spawn a new server and add it to the pool.
+     * @param LEASED {@link Boolean} value. If true, the server is added as
+     *               leased so that no one else can take it.
+     * @return {@link Flowable} instance.
+     * @see Server#rxa_startLocalAppium(org.swiften.javautilities.protocol.RetryProviderType)
+     */
+    @NotNull
+    Flowable<Address> rxa_spawn(final boolean LEASED) {
+        final AppiumServerPool THIS = this;
+        final Server SERVER = new Server(this, Address.defaultInstance());
+        final Address ADDRESS = SERVER.address();
+
+        return SERVER.rxa_startLocalAppium(ADDRESS)
+            .doOnNext(a -> {
+                SERVER.leased = LEASED;
+
+                synchronized (THIS.SERVERS) {
+                    THIS.SERVERS.add(SERVER);
+                }
+
+                THIS.SPAWNED.incrementAndGet();
+            })
+            .map(a -> ADDRESS);
+    }
+
+    /**
+     * Stop a server and remove it from the pool.
+     * @param server {@link Server} instance.
+     * @return {@link Flowable} instance.
+     * @see PortLeaseAllocator#release(int, Object)
+     * @see Server#appiumPortAllocator()
+     * @see Server#rxa_stopLocalAppium()
+     */
+    @NotNull
+    Flowable<Boolean> rxa_evict(@NotNull final Server server) {
+        final AppiumServerPool THIS = this;
+        final PortLeaseAllocator ALLOCATOR = server.appiumPortAllocator();
+        final Address ADDRESS = server.address();
+
+        synchronized (SERVERS) {
+            SERVERS.remove(server);
+        }
+
+        return server.rxa_stopLocalAppium()
+            .onErrorReturnItem(true)
+            .doOnComplete(() -> {
+                ALLOCATOR.release(ADDRESS.port(), ADDRESS);
+                THIS.EVICTED.incrementAndGet();
+            })
+            .map(HPBooleans::toTrue)
+            .defaultIfEmpty(true);
+    }
+
+    /**
+     * Take the first idle server and mark it as leased.
+     * @return {@link Server} instance, or null if there is none.
+     */
+    @Nullable
+    Server takeIdle() {
+        synchronized (SERVERS) {
+            for (Server server : SERVERS) {
+                if (!server.leased) {
+                    server.leased = true;
+                    return server;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the {@link Server} running on a port.
+     * @param port {@link Integer} value.
+     * @return {@link Server} instance, or null if there is none.
+     */
+    @Nullable
+    Server server(int port) {
+        synchronized (SERVERS) {
+            for (Server server : SERVERS) {
+                if (server.address().port() == port) {
+                    return server;
+                }
+            }
+        }
+
+        return null;
+    }
+    //endregion
+
+    /**
+     * A single pooled Appium server. This reuses {@link AppiumHandlerType}
+     * to start and stop the server.
+     */
+    static final class Server implements AppiumHandlerType {
+        @NotNull private final AppiumServerPool POOL;
+        @NotNull private final Address ADDRESS;
+        volatile boolean leased;
+
+        Server(@NotNull AppiumServerPool pool, @NotNull Address address) {
+            POOL = pool;
+            ADDRESS = address;
+        }
+
+        @NotNull
+        @Override
+        public Address address() {
+            return ADDRESS;
+        }
+
+        @NotNull
+        @Override
+        public NetworkHandler networkHandler() {
+            return POOL.networkHandler();
+        }
+
+        @NotNull
+        @Override
+        public ProcessRunner processRunner() {
+            return POOL.processRunner();
+        }
+
+        @NotNull
+        @Override
+        public AppiumStartupCoordinator appiumStartupCoordinator() {
+            return POOL.coordinator();
+        }
+    }
+
+    //region Builder
+    /**
+     * Builder class for {@link AppiumServerPool}.
+     */
+    public static final class Builder {
+        @NotNull private final AppiumServerPool POOL;
+
+        Builder() {
+            POOL = new AppiumServerPool();
+        }
+
+        /**
+         * Set {@link #POOL#size}.
+         * @param size {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withSize(int size) {
+            POOL.size = Math.max(0, size);
+            return this;
+        }
+
+        /**
+         * Set {@link #POOL#processRunner}.
+         * @param runner {@link ProcessRunner} instance.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withProcessRunner(@NotNull ProcessRunner runner) {
+            POOL.processRunner = runner;
+            return this;
+        }
+
+        /**
+         * Set {@link #POOL#networkHandler}. This {@link NetworkHandler} is
+         * used to stop servers on their ports.
+         * @param handler {@link NetworkHandler} instance.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withNetworkHandler(@NotNull NetworkHandler handler) {
+            POOL.networkHandler = handler;
+            return this;
+        }
+
+        /**
+         * Set {@link #POOL#coordinator}.
+         * @param coordinator {@link AppiumStartupCoordinator} instance.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withCoordinator(@NotNull AppiumStartupCoordinator coordinator) {
+            POOL.coordinator = coordinator;
+            return this;
+        }
+
+        @NotNull
+        public AppiumServerPool build() {
+            return POOL;
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,324 @@
+package org.swiften.xtestkit.base;
+
+/**
+ * Created by haipham on 24/7/17.
+ */
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.swiften.javautilities.bool.HPBooleans;
+import org.swiften.xtestkit.base.type.AppiumHandlerErrorType;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Use this class to coordinate the startup of local Appium servers. It
+ * provides a fair (FIFO) asynchronous permit, so that servers are spawned
+ * one after another without any thread spinning, and a readiness probe that
+ * polls the server's status endpoint with exponential backoff until a
+ * deadline.
+ */
+public class AppiumStartupCoordinator implements AppiumHandlerErrorType {
+    /**
+     * Get {@link Builder} instance.
+     * @return {@link Builder} instance.
+     */
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotNull private static final AppiumStartupCoordinator SHARED;
+
+    static {
+        SHARED = builder().build();
+    }
+
+    /**
+     * Get the {@link AppiumStartupCoordinator} shared by all
+     * {@link org.swiften.xtestkit.base.type.AppiumHandlerType} by default.
+     * @return {@link AppiumStartupCoordinator} instance.
+     */
+    @NotNull
+    public static AppiumStartupCoordinator sharedInstance() {
+        return SHARED;
+    }
+
+    @NotNull private final Deque<Runnable> WAITERS;
+    private int permits;
+    private long initialBackoff;
+    private long maxBackoff;
+    private double backoffMultiplier;
+    private int probeTimeout;
+
+    AppiumStartupCoordinator() {
+        WAITERS = new ArrayDeque<>();
+        permits = 1;
+        initialBackoff = 100;
+        maxBackoff = 2000;
+        backoffMultiplier = 2;
+        probeTimeout = 1000;
+    }
+
+    //region Permit
+    /**
+     * Acquire a permit. The returned {@link Flowable} emits once the permit
+     * is granted; waiters are served in the order they subscribed. The
+     * permit must be returned with {@link #release()}.
+     * @return {@link Flowable} instance.
+     * @see #WAITERS
+     * @see #permits
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_acquire() {
+        final AppiumStartupCoordinator THIS = this;
+
+        return Flowable.create(o -> {
+            /* Whichever of the grant and the cancellation comes first wins,
+             * so that a permit handed to a waiter that has just gone away is
+             * passed on instead of being lost */
+            final AtomicBoolean SETTLED = new AtomicBoolean();
+
+            final Runnable GRANT = () -> {
+                if (SETTLED.compareAndSet(false, true)) {
+                    o.onNext(true);
+                    o.onComplete();
+                } else {
+                    THIS.release();
+                }
+            };
+
+            boolean granted;
+
+            synchronized (THIS) {
+                if (permits > 0 && WAITERS.isEmpty()) {
+                    permits -= 1;
+                    granted = true;
+                } else {
+                    WAITERS.addLast(GRANT);
+                    granted = false;
+                }
+            }
+
+            /* If the subscriber goes away while waiting, it should not be
+             * granted a permit it can never release. If release() already
+             * took it off the queue, GRANT passes the permit on */
+            o.setCancellable(() -> {
+                if (SETTLED.compareAndSet(false, true)) {
+                    synchronized (THIS) {
+                        WAITERS.remove(GRANT);
+                    }
+                }
+            });
+
+            if (granted) {
+                GRANT.run();
+            }
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    /**
+     * Release a permit, handing it to the next waiter if there is one.
+     * @see #pollWaiter()
+     */
+    public void release() {
+        Runnable next = pollWaiter();
+
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    /**
+     * Take the next waiter off the queue, or return the permit to the pool
+     * if there is none. The waiter must be run outside the lock.
+     * @return {@link Runnable} instance, or null if there is no waiter.
+     * @see #WAITERS
+     * @see #permits
+     */
+    @Nullable
+    synchronized Runnable pollWaiter() {
+        Runnable next = WAITERS.pollFirst();
+
+        if (next == null) {
+            permits += 1;
+        }
+
+        return next;
+    }
+
+    /**
+     * Perform some work while holding a permit. The permit is released
+     * when the work terminates or is cancelled.
+     * @param WORK {@link Flowable} instance.
+     * @param <T> Generics parameter.
+     * @return {@link Flowable} instance.
+     * @see #rxa_acquire()
+     * @see #release()
+     */
+    @NotNull
+    public <T> Flowable<T> rxa_withPermit(@NotNull final Flowable<T> WORK) {
+        final AppiumStartupCoordinator THIS = this;
+        return rxa_acquire().flatMap(a -> WORK.doFinally(THIS::release));
+    }
+
+    /**
+     * Get the number of subscribers waiting for a permit.
+     * @return {@link Integer} value.
+     */
+    public synchronized int waitingCount() {
+        return WAITERS.size();
+    }
+    //endregion
+
+    //region Readiness
+    /**
+     * Check once whether the status endpoint responds successfully.
+     * @param statusUri {@link String} value.
+     * @return {@link Boolean} value.
+     * @see HttpURLConnection#getResponseCode()
+     */
+    public boolean isReady(@NotNull String statusUri) {
+        HttpURLConnection connection = null;
+
+        try {
+            connection = (HttpURLConnection) new URL(statusUri).openConnection();
+            connection.setConnectTimeout(probeTimeout);
+            connection.setReadTimeout(probeTimeout);
+            connection.setRequestMethod("GET");
+            return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Poll the status endpoint with exponential backoff until it responds
+     * successfully, or emit an error once the timeout has elapsed.
+     * @param STATUS_URI {@link String} value.
+     * @param TIMEOUT {@link Long} value, in milliseconds.
+     * @return {@link Flowable} instance.
+     * @see #appiumNotReady(String, long)
+     * @see #isReady(String)
+     * @see #nextBackoff(long)
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_awaitReady(@NotNull final String STATUS_URI,
+                                            final long TIMEOUT) {
+        final AppiumStartupCoordinator THIS = this;
+        final String ERROR = appiumNotReady(STATUS_URI, TIMEOUT);
+
+        return Flowable.defer(() -> {
+            final AtomicLong BACKOFF = new AtomicLong(initialBackoff);
+
+            return Flowable
+                .fromCallable(() -> THIS.isReady(STATUS_URI))
+                .subscribeOn(Schedulers.io())
+                .filter(HPBooleans::isTrue)
+                .switchIfEmpty(Flowable.error(new Exception(ERROR)))
+                .retryWhen(a -> a.flatMap(b -> Flowable.timer(
+                    BACKOFF.getAndUpdate(THIS::nextBackoff),
+                    TimeUnit.MILLISECONDS)))
+                .timeout(TIMEOUT, TimeUnit.MILLISECONDS,
+                    Flowable.error(new Exception(ERROR)));
+        });
+    }
+
+    /**
+     * Get the next backoff duration.
+     * @param backoff {@link Long} value.
+     * @return {@link Long} value.
+     */
+    long nextBackoff(long backoff) {
+        return Math.min(maxBackoff, (long) (backoff * backoffMultiplier));
+    }
+    //endregion
+
+    //region Builder
+    /**
+     * Builder class for {@link AppiumStartupCoordinator}.
+     */
+    public static final class Builder {
+        @NotNull private final AppiumStartupCoordinator COORDINATOR;
+
+        Builder() {
+            COORDINATOR = new AppiumStartupCoordinator();
+        }
+
+        /**
+         * Set {@link #COORDINATOR#permits}. This is the number of servers
+         * that may be starting up at the same time.
+         * @param permits {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withPermits(int permits) {
+            COORDINATOR.permits = Math.max(1, permits);
+            return this;
+        }
+
+        /**
+         * Set {@link #COORDINATOR#initialBackoff}.
+         * @param backoff {@link Long} value, in milliseconds.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withInitialBackoff(long backoff) {
+            COORDINATOR.initialBackoff = backoff;
+            return this;
+        }
+
+        /**
+         * Set {@link #COORDINATOR#maxBackoff}.
+         * @param backoff {@link Long} value, in milliseconds.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withMaxBackoff(long backoff) {
+            COORDINATOR.maxBackoff = backoff;
+            return this;
+        }
+
+        /**
+         * Set {@link #COORDINATOR#backoffMultiplier}.
+         * @param multiplier {@link Double} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withBackoffMultiplier(double multiplier) {
+            COORDINATOR.backoffMultiplier = Math.max(1, multiplier);
+            return this;
+        }
+
+        /**
+         * Set {@link #COORDINATOR#probeTimeout}.
+         * @param timeout {@link Integer} value, in milliseconds.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withProbeTimeout(int timeout) {
+            COORDINATOR.probeTimeout = timeout;
+            return this;
+        }
+
+        @NotNull
+        public AppiumStartupCoordinator build() {
+            return COORDINATOR;
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,395 @@
+package org.swiften.xtestkit.base;
+
+/**
+ * Created by haipham on 23/7/17.
+ */
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Use this class to run blocking driver calls (which are HTTP requests to
+ * the Appium server) on a bounded, per-{@link Engine} I/O executor, instead
+ * of {@link Schedulers#computation()}, which is sized to the number of CPU
+ * cores and would be starved when several {@link Engine} run in parallel.
+ * The executor uses a fixed number of platform threads by default. On JDK
+ * 21+, it can instead start a virtual thread per call, in which case a
+ * {@link Semaphore} bounds how many calls hit the server at once. Queue
+ * depth and wait time are recorded so that contention can be diagnosed.
+ */
+public class DriverScheduler {
+    /**
+     * Get {@link Builder} instance.
+     * @return {@link Builder} instance.
+     */
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The default number of threads per {@link Engine}. Driver calls for a
+     * single session are mostly sequential, so a handful of threads suffice.
+     */
+    public static final int DEFAULT_THREAD_COUNT = 4;
+
+    /**
+     * Executors#newVirtualThreadPerTaskExecutor(), looked up with reflection
+     * since this project still targets Java 8. This is null if the running
+     * JVM does not support virtual threads.
+     */
+    @Nullable private static final Method NEW_VIRTUAL_EXECUTOR = newVirtualExecutorMethod();
+
+    /**
+     * Look up {@link #NEW_VIRTUAL_EXECUTOR}.
+     * @return {@link Method} instance, or null if there is none.
+     */
+    @Nullable
+    private static Method newVirtualExecutorMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @NotNull private final AtomicInteger PENDING;
+    @NotNull private final AtomicInteger ACTIVE;
+    @NotNull private final AtomicLong EXECUTED;
+    @NotNull private final AtomicLong TOTAL_WAIT;
+    @NotNull private final AtomicLong MAX_WAIT;
+
+    @Nullable private ExecutorService executor;
+    @Nullable private Semaphore permits;
+    @Nullable private Scheduler scheduler;
+    @NotNull private String name;
+    private int threadCount;
+    private boolean virtualThreads;
+
+    DriverScheduler() {
+        PENDING = new AtomicInteger();
+        ACTIVE = new AtomicInteger();
+        EXECUTED = new AtomicLong();
+        TOTAL_WAIT = new AtomicLong();
+        MAX_WAIT = new AtomicLong();
+        name = "driver";
+        threadCount = DEFAULT_THREAD_COUNT;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: threads %d, queued %d, active %d, executed %d, avg wait %dms, max wait %dms",
+            name, threadCount, queueDepth(), activeCount(), executedCount(),
+            averageWait(TimeUnit.MILLISECONDS), maxWait(TimeUnit.MILLISECONDS));
+    }
+
+    //region Getters
+    /**
+     * Get the {@link Scheduler} to be used with
+     * {@link io.reactivex.Flowable#subscribeOn(Scheduler)} for blocking
+     * driver calls. The underlying executor is lazily created.
+     * @return {@link Scheduler} instance.
+     * @see Schedulers#from(Executor)
+     * @see #execute(Runnable)
+     */
+    @NotNull
+    public synchronized Scheduler scheduler() {
+        if (scheduler == null) {
+            scheduler = Schedulers.from(this::execute);
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Get {@link #threadCount}.
+     * @return {@link Integer} value.
+     */
+    public int threadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Check whether this {@link DriverScheduler} starts a virtual thread
+     * per call.
+     * @return {@link Boolean} value.
+     * @see #NEW_VIRTUAL_EXECUTOR
+     * @see #virtualThreads
+     */
+    public boolean isVirtual() {
+        return virtualThreads && NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Get the number of tasks waiting for a thread, or for a permit if
+     * {@link #isVirtual()}.
+     * @return {@link Integer} value.
+     * @see #PENDING
+     */
+    public int queueDepth() {
+        return PENDING.get();
+    }
+
+    /**
+     * Get the number of tasks that are currently running.
+     * @return {@link Integer} value.
+     * @see #ACTIVE
+     */
+    public int activeCount() {
+        return ACTIVE.get();
+    }
+
+    /**
+     * Check whether any driver call is running or waiting for a thread,
+     * i.e. whether the test is in the middle of a command. Background
+     * pollers can use this to stay out of the way.
+     * @return {@link Boolean} value.
+     * @see #activeCount()
+     * @see #queueDepth()
+     */
+    public boolean isBusy() {
+        return activeCount() > 0 || queueDepth() > 0;
+    }
+
+    /**
+     * Get the number of tasks that have been started.
+     * @return {@link Long} value.
+     * @see #EXECUTED
+     */
+    public long executedCount() {
+        return EXECUTED.get();
+    }
+
+    /**
+     * Get the average time tasks spent in the queue.
+     * @param unit {@link TimeUnit} instance.
+     * @return {@link Long} value.
+     * @see #EXECUTED
+     * @see #TOTAL_WAIT
+     */
+    public long averageWait(@NotNull TimeUnit unit) {
+        long executed = EXECUTED.get();
+        long average = executed > 0 ? TOTAL_WAIT.get() / executed : 0;
+        return unit.convert(average, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the longest time a task spent in the queue.
+     * @param unit {@link TimeUnit} instance.
+     * @return {@link Long} value.
+     * @see #MAX_WAIT
+     */
+    public long maxWait(@NotNull TimeUnit unit) {
+        return unit.convert(MAX_WAIT.get(), TimeUnit.NANOSECONDS);
+    }
+    //endregion
+
+    /**
+     * Execute a {@link Runnable} on the underlying executor, recording
+     * queue depth and wait time. With virtual threads, the task waits for
+     * one of {@link #permits} on its own thread, which is cheap to block.
+     * @param runnable {@link Runnable} instance.
+     * @see #executor()
+     */
+    void execute(@NotNull final Runnable runnable) {
+        final long QUEUED_AT = System.nanoTime();
+        final ExecutorService EXECUTOR;
+        final Semaphore PERMITS;
+
+        synchronized (this) {
+            EXECUTOR = executor();
+            PERMITS = permits;
+        }
+
+        PENDING.incrementAndGet();
+
+        try {
+            EXECUTOR.execute(() -> {
+                if (PERMITS != null) {
+                    PERMITS.acquireUninterruptibly();
+                }
+
+                long wait = System.nanoTime() - QUEUED_AT;
+                PENDING.decrementAndGet();
+                EXECUTED.incrementAndGet();
+                TOTAL_WAIT.addAndGet(wait);
+                MAX_WAIT.accumulateAndGet(wait, Math::max);
+                ACTIVE.incrementAndGet();
+
+                try {
+                    runnable.run();
+                } finally {
+                    ACTIVE.decrementAndGet();
+
+                    if (PERMITS != null) {
+                        PERMITS.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            PENDING.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Run a blocking driver call on the current thread, counting it as
+     * active while it runs. This is for calls that are made outside
+     * {@link #scheduler()}, e.g. clicks and taps, so that {@link #isBusy()}
+     * still sees them.
+     * @param runnable {@link Runnable} instance.
+     * @see #ACTIVE
+     */
+    public void track(@NotNull Runnable runnable) {
+        ACTIVE.incrementAndGet();
+
+        try {
+            runnable.run();
+        } finally {
+            ACTIVE.decrementAndGet();
+        }
+    }
+
+    /**
+     * Shut down the underlying executor. A new one will be created if
+     * {@link #scheduler()} is used again.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+            permits = null;
+        }
+    }
+
+    /**
+     * Lazily create the underlying executor. If {@link #isVirtual()}, this
+     * starts a virtual thread per task, and {@link #permits} caps how many
+     * of them run at once, since pooling virtual threads defeats their
+     * purpose. Otherwise, this is a bounded pool whose idle threads are
+     * allowed to time out, and are daemons so that they never keep the JVM
+     * alive.
+     * @return {@link ExecutorService} instance.
+     * @see #threadFactory()
+     * @see #virtualExecutor()
+     */
+    @NotNull
+    synchronized ExecutorService executor() {
+        if (executor == null) {
+            ExecutorService virtual = isVirtual() ? virtualExecutor() : null;
+
+            if (virtual != null) {
+                executor = virtual;
+                permits = new Semaphore(threadCount, true);
+            } else {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    threadCount, threadCount,
+                    30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    threadFactory());
+
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Get a new virtual thread per task {@link ExecutorService}.
+     * @return {@link ExecutorService} instance, or null if it cannot be
+     * created.
+     * @see #NEW_VIRTUAL_EXECUTOR
+     */
+    @Nullable
+    private ExecutorService virtualExecutor() {
+        try {
+            Method method = NEW_VIRTUAL_EXECUTOR;
+            return method != null ? (ExecutorService) method.invoke(null) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the {@link ThreadFactory} for platform threads.
+     * @return {@link ThreadFactory} instance.
+     */
+    @NotNull
+    private ThreadFactory threadFactory() {
+        final String NAME = name;
+        final AtomicInteger COUNT = new AtomicInteger();
+
+        return runnable -> {
+            String threadName = String.format("%s-%d", NAME, COUNT.incrementAndGet());
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //region Builder
+    /**
+     * Builder class for {@link DriverScheduler}.
+     */
+    public static final class Builder {
+        @NotNull private final DriverScheduler SCHEDULER;
+
+        Builder() {
+            SCHEDULER = new DriverScheduler();
+        }
+
+        /**
+         * Set {@link #SCHEDULER#name}. This is used as the thread name
+         * prefix of platform threads.
+         * @param name {@link String} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withName(@NotNull String name) {
+            SCHEDULER.name = name;
+            return this;
+        }
+
+        /**
+         * Set {@link #SCHEDULER#threadCount}.
+         * @param count {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withThreadCount(int count) {
+            SCHEDULER.threadCount = Math.max(1, count);
+            return this;
+        }
+
+        /**
+         * Set {@link #SCHEDULER#virtualThreads}. If this is true, each call
+         * runs on its own virtual thread, but no more than
+         * {@link #SCHEDULER#threadCount} run at once. This is ignored if the
+         * running JVM does not support virtual threads.
+         * @param virtual {@link Boolean} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withVirtualThreads(boolean virtual) {
+            SCHEDULER.virtualThreads = virtual;
+            return this;
+        }
+
+        @NotNull
+        public DriverScheduler build() {
+            return SCHEDULER;
+        }
+    }
+    //endregion
+}
@@ -0,0 +1,127 @@
+package org.swiften.xtestkit.base;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.WebDriver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Use this class to keep a driver session alive across test classes. The
+ * session is keyed on the distilled capabilities (plus the server uri) it
+ * was created with, so that it is only reused when an identical session
+ * would otherwise be created.
+ * @param <D> Generics parameter that extends {@link WebDriver}.
+ */
+public class DriverSessionCache<D extends WebDriver> {
+    @NotNull private final AtomicInteger HITS;
+    @NotNull private final AtomicInteger MISSES;
+    @NotNull private final AtomicInteger EVICTIONS;
+
+    @Nullable private Map<String,Object> key;
+    @Nullable private D driver;
+
+    public DriverSessionCache() {
+        HITS = new AtomicInteger();
+        MISSES = new AtomicInteger();
+        EVICTIONS = new AtomicInteger();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format(
+            "Driver sessions: hits %d, misses %d, evictions %d",
+            hitCount(), missCount(), evictionCount());
+    }
+
+    /**
+     * Create a session key from the distilled capabilities and server uri.
+     * @param capabilities {@link Map} of distilled capabilities.
+     * @param serverUri {@link String} value.
+     * @return {@link Map} instance.
+     */
+    @NotNull
+    public static Map<String,Object> key(@NotNull Map<String,Object> capabilities,
+                                         @NotNull String serverUri) {
+        Map<String,Object> key = new HashMap<>(capabilities);
+        key.put("serverUri", serverUri);
+        return key;
+    }
+
+    /**
+     * Get the cached {@link D} if it was created with the same key, and
+     * record a hit or a miss accordingly.
+     * @param key {@link Map} instance.
+     * @return {@link D} instance, or null on a miss.
+     * @see #key(Map, String)
+     */
+    @Nullable
+    public synchronized D reuse(@NotNull Map<String,Object> key) {
+        if (driver != null && key.equals(this.key)) {
+            HITS.incrementAndGet();
+            return driver;
+        }
+
+        MISSES.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache {@link D} with a key.
+     * @param key {@link Map} instance.
+     * @param driver {@link D} instance.
+     */
+    public synchronized void store(@NotNull Map<String,Object> key, @NotNull D driver) {
+        this.key = key;
+        this.driver = driver;
+    }
+
+    /**
+     * Remove the cached {@link D}, which should then be quit by the caller.
+     * @return {@link D} instance, or null if there is none.
+     */
+    @Nullable
+    public synchronized D evict() {
+        D evicted = driver;
+
+        if (evicted != null) {
+            EVICTIONS.incrementAndGet();
+        }
+
+        key = null;
+        driver = null;
+        return evicted;
+    }
+
+    /**
+     * Get the number of reused sessions.
+     * @return {@link Integer} value.
+     */
+    public int hitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * Get the number of times a new session had to be created.
+     * @return {@link Integer} value.
+     */
+    public int missCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Get the number of sessions that were quit, either because they were
+     * replaced or because all tests finished.
+     * @return {@link Integer} value.
+     */
+    public int evictionCount() {
+        return EVICTIONS.get();
+    }
+}
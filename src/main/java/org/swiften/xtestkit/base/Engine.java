@@ -7,6 +7,7 @@ package org.swiften.xtestkit.base;
 import io.reactivex.BackpressureStrategy;
 import io.reactivex.Completable;
 import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
 import io.reactivex.functions.Function;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,8 +27,10 @@ import org.swiften.xtestkit.base.element.general.ActionType;
 import org.swiften.xtestkit.base.element.input.InputActionType;
 import org.swiften.xtestkit.base.element.input.KeyboardActionType;
 import org.swiften.xtestkit.base.element.locator.LocatorType;
+import org.swiften.xtestkit.base.element.locator.PageSourceSnapshot;
 import org.swiften.xtestkit.base.element.password.PasswordActionType;
 import org.swiften.xtestkit.base.element.popup.PopupActionType;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
 import org.swiften.xtestkit.base.element.property.ElementPropertyType;
 import org.swiften.xtestkit.base.element.search.SearchActionType;
 import org.swiften.xtestkit.base.element.swipe.SwipeActionType;
@@ -45,6 +48,7 @@ import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A base class for platform-specific implementations. Each Different platform
@@ -75,19 +79,31 @@ public abstract class Engine<D extends WebDriver> implements
 {
     @NotNull private final ProcessRunner PROCESS_RUNNER;
     @NotNull private final NetworkHandler NETWORK_HANDLER;
+    @NotNull private final AtomicReference<PageSourceSnapshot> SNAPSHOT;
+    @NotNull private final ElementGeometryCache GEOMETRY;
+    @NotNull private final DriverSessionCache<D> SESSION_CACHE;
 
     @Nullable private D driver;
     @Nullable EngineCapabilityType capability;
     @Nullable private LocalizerType localizer;
+    @Nullable private AppiumServerPool serverPool;
 
     @NotNull Address address;
     @NotNull TestMode testMode;
+    @NotNull DriverScheduler driverScheduler;
+
+    boolean snapshotMode;
+    boolean sessionReuse;
 
     public Engine() {
         PROCESS_RUNNER = new ProcessRunner();
         NETWORK_HANDLER = new NetworkHandler();
+        SNAPSHOT = new AtomicReference<>();
+        GEOMETRY = new ElementGeometryCache();
+        SESSION_CACHE = new DriverSessionCache<>();
         testMode = TestMode.SIMULATED;
         address = Address.defaultInstance();
+        driverScheduler = DriverScheduler.builder().build();
     }
 
     //region Getters
@@ -185,6 +201,37 @@ public abstract class Engine<D extends WebDriver> implements
         return NETWORK_HANDLER;
     }
 
+    /**
+     * Get {@link #serverPool}. If this is not null, local Appium servers are
+     * leased from it instead of being started and killed for each class.
+     * @return {@link AppiumServerPool} instance.
+     * @see #serverPool
+     */
+    @Nullable
+    public AppiumServerPool appiumServerPool() {
+        return serverPool;
+    }
+
+    /**
+     * Return {@link #sessionReuse}.
+     * @return {@link Boolean} value.
+     * @see #sessionReuse
+     */
+    public boolean sessionReuseEnabled() {
+        return sessionReuse;
+    }
+
+    /**
+     * Return {@link #SESSION_CACHE}. Its counters can be inspected to see
+     * how often sessions were reused.
+     * @return {@link DriverSessionCache} instance.
+     * @see #SESSION_CACHE
+     */
+    @NotNull
+    public DriverSessionCache<D> driverSessionCache() {
+        return SESSION_CACHE;
+    }
+
     /**
      * Get the active {@link D} {@link #driver}.
      * @return {@link D} {@link #driver}.
@@ -210,6 +257,51 @@ public abstract class Engine<D extends WebDriver> implements
         return driver().getPageSource();
     }
 
+    /**
+     * Get {@link #driverScheduler}. Its metrics can be inspected to detect
+     * contention on driver calls.
+     * @return {@link DriverScheduler} instance.
+     * @see #driverScheduler
+     */
+    @NotNull
+    public DriverScheduler driverSchedulerInstance() {
+        return driverScheduler;
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Scheduler} instance.
+     * @see DriverScheduler#scheduler()
+     * @see #driverSchedulerInstance()
+     */
+    @NotNull
+    @Override
+    public Scheduler driverScheduler() {
+        return driverSchedulerInstance().scheduler();
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Boolean} value.
+     * @see DriverScheduler#isBusy()
+     * @see #driverSchedulerInstance()
+     */
+    @Override
+    public boolean driverBusy() {
+        return driverSchedulerInstance().isBusy();
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @param action {@link Runnable} instance.
+     * @see DriverScheduler#track(Runnable)
+     * @see #driverSchedulerInstance()
+     */
+    @Override
+    public void driverCall(@NotNull Runnable action) {
+        driverSchedulerInstance().track(action);
+    }
+
     /**
      * Get the associated {@link PlatformView}.
      * @return {@link PlatformView} instance.
@@ -218,6 +310,80 @@ public abstract class Engine<D extends WebDriver> implements
     public abstract PlatformView platformView();
     //endregion
 
+    //region Page Source Snapshot
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Boolean} value.
+     * @see LocatorType#snapshotModeEnabled()
+     * @see #snapshotMode
+     */
+    @Override
+    public boolean snapshotModeEnabled() {
+        return snapshotMode;
+    }
+
+    /**
+     * Override this method to provide default implementation. The
+     * {@link PageSourceSnapshot} is cached until {@link #invalidateSnapshot()}
+     * is called, or until it is older than {@link #snapshotMaxAge()}, so
+     * that consecutive queries on the same screen only fetch page source
+     * once.
+     * @return {@link PageSourceSnapshot} instance.
+     * @see LocatorType#pageSourceSnapshot()
+     * @see PageSourceSnapshot#age()
+     * @see PageSourceSnapshot#from(String)
+     * @see #pageSource()
+     * @see #snapshotMaxAge()
+     * @see #SNAPSHOT
+     */
+    @NotNull
+    @Override
+    public PageSourceSnapshot pageSourceSnapshot() {
+        PageSourceSnapshot snapshot = SNAPSHOT.get();
+
+        if (snapshot != null && snapshot.age() > snapshotMaxAge()) {
+            SNAPSHOT.compareAndSet(snapshot, null);
+            snapshot = null;
+        }
+
+        if (snapshot == null) {
+            snapshot = PageSourceSnapshot.from(pageSource());
+
+            if (!SNAPSHOT.compareAndSet(null, snapshot)) {
+                PageSourceSnapshot current = SNAPSHOT.get();
+                snapshot = current != null ? current : snapshot;
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Override this method to provide default implementation. Geometry is
+     * cached per {@link Engine}, since each has its own driver.
+     * @return {@link ElementGeometryCache} instance.
+     * @see #GEOMETRY
+     */
+    @NotNull
+    @Override
+    public ElementGeometryCache elementGeometryCache() {
+        return GEOMETRY;
+    }
+
+    /**
+     * Override this method to provide default implementation.
+     * @see ElementGeometryCache#invalidate()
+     * @see LocatorType#invalidateSnapshot()
+     * @see #GEOMETRY
+     * @see #SNAPSHOT
+     */
+    @Override
+    public void invalidateSnapshot() {
+        SNAPSHOT.set(null);
+        GEOMETRY.invalidate();
+    }
+    //endregion
+
     //region Setters
     /**
      * Set {@link #localizer}. Usually this is set when {@link Engine} is
@@ -228,6 +394,16 @@ public abstract class Engine<D extends WebDriver> implements
     public void setLocalizer(@NotNull LocalizerType localizer) {
         this.localizer = localizer;
     }
+
+    /**
+     * Set {@link #serverPool}. Usually this is set when {@link Engine} is
+     * added to {@link org.swiften.xtestkit.kit.TestKit} with a pool.
+     * @param pool {@link AppiumServerPool} instance.
+     * @see #serverPool
+     */
+    public void setAppiumServerPool(@Nullable AppiumServerPool pool) {
+        this.serverPool = pool;
+    }
     //endregion
 
     //region DistinctiveType
@@ -262,10 +438,16 @@ public abstract class Engine<D extends WebDriver> implements
         return Flowable.just(true);
     }
 
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Flowable} instance.
+     * @see TestListenerType#rxa_onAllTestsFinished()
+     * @see #rxa_evictSession()
+     */
     @NotNull
     @Override
     public Flowable<Boolean> rxa_onAllTestsFinished() {
-        return Flowable.just(true);
+        return rxa_evictSession();
     }
     //endregion
 
@@ -276,13 +458,23 @@ public abstract class Engine<D extends WebDriver> implements
      * @return {@link Flowable} instance.
      * @see TestLifecycleType#rxa_beforeClass(RetryProviderType)
      * @see Address#isLocalInstance()
+     * @see Address#setPort(int)
+     * @see AppiumServerPool#rxa_lease()
      * @see #address()
+     * @see #appiumServerPool()
      * @see #rxa_startLocalAppium(RetryProviderType)
      */
     @NotNull
     @Override
     public Flowable<Boolean> rxa_beforeClass(@NotNull RetryProviderType param) {
-        if (address().isLocalInstance()) {
+        final Address ADDRESS = address();
+        AppiumServerPool pool = appiumServerPool();
+
+        if (ADDRESS.isLocalInstance() && pool != null) {
+            return pool.rxa_lease()
+                .doOnNext(a -> ADDRESS.setPort(a.port()))
+                .map(HPBooleans::toTrue);
+        } else if (ADDRESS.isLocalInstance()) {
             return rxa_startLocalAppium(param);
         } else {
             return Flowable.just(true);
@@ -297,24 +489,33 @@ public abstract class Engine<D extends WebDriver> implements
      * @see Address#isLocalInstance()
      * @see Address#port()
      * @see HPBooleans#toTrue(Object)
-     * @see NetworkHandler#markPortAvailable(int)
      * @see HPObjects#nonNull(Object)
+     * @see AppiumServerPool#release(Address)
+     * @see PortLeaseAllocator#release(int, Object)
      * @see #address()
-     * @see #networkHandler()
+     * @see #appiumPortAllocator()
+     * @see #appiumServerPool()
+     * @see #rxa_evictSession()
      * @see #rxa_stopLocalAppium()
      */
     @NotNull
     @SuppressWarnings("unchecked")
     public Flowable<Boolean> rxa_afterClass(@NotNull RetryProviderType param) {
         final Engine<?> THIS = this;
-        NetworkHandler HANDLER = networkHandler();
+        final PortLeaseAllocator ALLOCATOR = appiumPortAllocator();
         final Address ADDRESS = address();
         final int PORT = ADDRESS.port();
+        final AppiumServerPool POOL = appiumServerPool();
+
+        /* Pooled servers are kept alive for the next class */
+        if (ADDRESS.isLocalInstance() && POOL != null) {
+            return Flowable.fromCallable(() -> POOL.release(ADDRESS)).map(HPBooleans::toTrue);
+        }
 
         return Flowable
             .concatArray(
                 Completable
-                    .fromAction(() -> HANDLER.markPortAvailable(PORT))
+                    .fromAction(() -> ALLOCATOR.release(PORT, ADDRESS))
                     .toFlowable()
                     .map(HPBooleans::toTrue)
                     .defaultIfEmpty(true),
@@ -326,7 +527,10 @@ public abstract class Engine<D extends WebDriver> implements
 
                     obs.onComplete();
                 }, BackpressureStrategy.BUFFER
-                ).flatMap(a -> THIS.rxa_stopLocalAppium()))
+                )
+                    /* A reused session cannot outlive its server */
+                    .flatMap(a -> THIS.rxa_evictSession())
+                    .flatMap(a -> THIS.rxa_stopLocalAppium()))
             .all(HPObjects::nonNull)
             .toFlowable();
     }
@@ -378,13 +582,22 @@ public abstract class Engine<D extends WebDriver> implements
 
     /**
      * Start the Appium driver. If {@link EngineCapabilityType#isComplete(Map)}
-     * returns false, throw {@link Exception}.
+     * returns false, throw {@link Exception}. If session reuse is enabled
+     * and the previous session was created with the same distilled
+     * capabilities and server, that session is kept and only the app state
+     * is reset with {@link #rxa_resetSession()}.
      * @param PARAM {@link RetryProviderType} instance.
      * @return {@link Flowable} instance.
+     * @see DriverSessionCache#key(Map, String)
+     * @see DriverSessionCache#reuse(Map)
+     * @see DriverSessionCache#store(Map, WebDriver)
      * @see EngineCapabilityType#isComplete(Map)
      * @see EngineCapabilityType#distill(Map)
-     * @see RetryProviderType#retries()
-     * @see #driver(String, DesiredCapabilities)
+     * @see #driverSessionCache()
+     * @see #rxa_createDriver(String, DesiredCapabilities, RetryProviderType)
+     * @see #rxa_evictSession()
+     * @see #rxa_resetSession()
+     * @see #sessionReuseEnabled()
      * @see #NOT_AVAILABLE
      */
     @NotNull
@@ -393,31 +606,91 @@ public abstract class Engine<D extends WebDriver> implements
         Map<String,Object> caps = capabilities();
 
         if (capType.isComplete(caps)) {
+            final Engine<D> THIS = this;
             final Map<String,Object> distilled = capType.distill(caps);
             final DesiredCapabilities CAPS = new DesiredCapabilities(distilled);
             final String SERVER_URL = serverUri();
-            HPLog.printft("Starting driver with %s and %s", SERVER_URL, CAPS);
 
-            return Completable
-                .fromAction(() -> driver = driver(SERVER_URL, CAPS))
-                .<Boolean>toFlowable()
-                .defaultIfEmpty(true)
-                .retry(PARAM.retries());
+            if (sessionReuseEnabled()) {
+                final DriverSessionCache<D> CACHE = driverSessionCache();
+                final Map<String,Object> KEY = DriverSessionCache.key(distilled, SERVER_URL);
+                final D CACHED = CACHE.reuse(KEY);
+
+                if (CACHED != null) {
+                    HPLog.printft("Reusing driver with %s and %s", SERVER_URL, CAPS);
+
+                    return Completable
+                        .fromAction(() -> driver = CACHED)
+                        .doOnComplete(THIS::invalidateSnapshot)
+                        .<Boolean>toFlowable()
+                        .defaultIfEmpty(true)
+                        .flatMap(a -> THIS.rxa_resetSession());
+                }
+
+                return rxa_evictSession()
+                    .flatMap(a -> THIS.rxa_createDriver(SERVER_URL, CAPS, PARAM))
+                    .doOnNext(a -> CACHE.store(KEY, THIS.driver()));
+            }
+
+            return rxa_createDriver(SERVER_URL, CAPS, PARAM);
         } else {
             throw new RuntimeException(NOT_AVAILABLE);
         }
     }
 
+    /**
+     * Create a new {@link D} session.
+     * @param SERVER_URL {@link String} value.
+     * @param CAPS {@link DesiredCapabilities} instance.
+     * @param PARAM {@link RetryProviderType} instance.
+     * @return {@link Flowable} instance.
+     * @see RetryProviderType#retries()
+     * @see #driver(String, DesiredCapabilities)
+     * @see #invalidateSnapshot()
+     */
+    @NotNull
+    protected Flowable<Boolean> rxa_createDriver(@NotNull final String SERVER_URL,
+                                                 @NotNull final DesiredCapabilities CAPS,
+                                                 @NotNull final RetryProviderType PARAM) {
+        final Engine<?> THIS = this;
+        HPLog.printft("Starting driver with %s and %s", SERVER_URL, CAPS);
+
+        return Completable
+            .fromAction(() -> driver = driver(SERVER_URL, CAPS))
+            .doOnComplete(THIS::invalidateSnapshot)
+            .<Boolean>toFlowable()
+            .defaultIfEmpty(true)
+            .retry(PARAM.retries());
+    }
+
+    /**
+     * Reset the app state when a driver session is reused. Subclasses
+     * should override this to provide platform-specific reset.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_resetSession() {
+        return Flowable.just(true);
+    }
+
     /**
      * Quit the active Appium driver. If it is null, throw {@link Exception}
-     * instead.
+     * instead. If session reuse is enabled, the session is kept alive for
+     * the next class and only quit by {@link #rxa_evictSession()}.
      * @return {@link Flowable} instance.
      * @see WebDriver#quit()
      * @see #driver()
+     * @see #sessionReuseEnabled()
      */
     @NotNull
     public Flowable<Boolean> rxa_stopDriver() {
         final WebDriver DRIVER = driver();
+
+        if (sessionReuseEnabled()) {
+            HPLog.printft("Keeping driver %s for reuse", DRIVER);
+            return Flowable.just(true);
+        }
+
         HPLog.printft("Stopping driver %s", DRIVER);
 
         return Completable
@@ -425,6 +698,35 @@ public abstract class Engine<D extends WebDriver> implements
             .<Boolean>toFlowable()
             .defaultIfEmpty(true);
     }
+
+    /**
+     * Quit the cached driver session, if any. Errors are swallowed because
+     * the session may already be gone with its server.
+     * @return {@link Flowable} instance.
+     * @see DriverSessionCache#evict()
+     * @see WebDriver#quit()
+     * @see #driverSessionCache()
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_evictSession() {
+        final DriverSessionCache<D> CACHE = driverSessionCache();
+
+        return Flowable.defer(() -> {
+            final WebDriver EVICTED = CACHE.evict();
+
+            if (EVICTED == null) {
+                return Flowable.just(true);
+            }
+
+            HPLog.printft("Stopping reused driver %s", EVICTED);
+
+            return Completable
+                .fromAction(EVICTED::quit)
+                .onErrorComplete()
+                .<Boolean>toFlowable()
+                .defaultIfEmpty(true);
+        });
+    }
     //endregion
 
     //region Builder
@@ -468,6 +770,49 @@ public abstract class Engine<D extends WebDriver> implements
             return this;
         }
 
+        /**
+         * Set the {@link #ENGINE#driverScheduler} instance. Blocking driver
+         * calls will be performed on this {@link DriverScheduler}.
+         * @param scheduler {@link DriverScheduler} instance.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder<T> withDriverScheduler(@NotNull DriverScheduler scheduler) {
+            ENGINE.driverScheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Set the {@link #ENGINE#sessionReuse} value. If this is enabled,
+         * the driver session is kept alive across test classes, as long as
+         * the distilled capabilities and server do not change. This is
+         * only useful if the Appium server outlives each class, e.g. with
+         * {@link AppiumServerPool} or a remote server.
+         * @param enabled {@link Boolean} value.
+         * @return {@link Builder} instance.
+         * @see #rxa_startDriver(RetryProviderType)
+         */
+        @NotNull
+        public Builder<T> withSessionReuse(boolean enabled) {
+            ENGINE.sessionReuse = enabled;
+            return this;
+        }
+
+        /**
+         * Set the {@link #ENGINE#snapshotMode} value. If this is enabled,
+         * xpath queries will be evaluated against a cached page source
+         * before the actual {@link org.openqa.selenium.WebElement} are
+         * resolved.
+         * @param enabled {@link Boolean} value.
+         * @return {@link Builder} instance.
+         * @see LocatorType#snapshotModeEnabled()
+         */
+        @NotNull
+        public Builder<T> withSnapshotMode(boolean enabled) {
+            ENGINE.snapshotMode = enabled;
+            return this;
+        }
+
         @NotNull
         public T build() {
             ENGINE.capability = CB.build();
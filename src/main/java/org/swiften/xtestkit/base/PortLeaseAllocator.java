@@ -0,0 +1,583 @@
+package org.swiften.xtestkit.base;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.swiften.javautilities.protocol.RetryProviderType;
+import org.swiften.javautilities.rx.HPReactives;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * Use this class to hand out ports to concurrent engines without scanning.
+ * The port range is split into at most 64 slots of {@link #width} ports
+ * each, and occupancy is kept in a single {@link AtomicLong} bitset, so that
+ * a free slot is found with one bit operation and claimed with one CAS.
+ * Each claimed slot carries a {@link Lease} with an owner and an expiry.
+ * Expired leases are reclaimed once nothing listens on their ports anymore,
+ * which covers engines that crashed before releasing them.
+ */
+public class PortLeaseAllocator {
+    /**
+     * Get {@link Builder} instance.
+     * @return {@link Builder} instance.
+     */
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NotNull public static final String NO_PORT_AVAILABLE = "No port available";
+
+    /**
+     * The maximum number of slots, i.e. the number of bits in
+     * {@link #BITS}.
+     */
+    public static final int MAX_SLOTS = 64;
+
+    @NotNull private static final Object EXTERNAL = "external";
+
+    @NotNull private static final PortLeaseAllocator EMULATOR_PORTS;
+    @NotNull private static final PortLeaseAllocator APPIUM_PORTS;
+
+    static {
+        /* Each emulator uses an even console port and the adb port above */
+        EMULATOR_PORTS = builder().withBasePort(5554).withSlots(16).withWidth(2).build();
+
+        /* Leave room for the bootstrap port above each Appium port */
+        APPIUM_PORTS = builder().withBasePort(4723).withSlots(32).withWidth(2).build();
+    }
+
+    /**
+     * Get the {@link PortLeaseAllocator} shared by all emulators, covering
+     * the 16 port pairs from 5554 to 5585.
+     * @return {@link PortLeaseAllocator} instance.
+     */
+    @NotNull
+    public static PortLeaseAllocator emulatorPorts() {
+        return EMULATOR_PORTS;
+    }
+
+    /**
+     * Get the {@link PortLeaseAllocator} shared by all local Appium servers.
+     * @return {@link PortLeaseAllocator} instance.
+     */
+    @NotNull
+    public static PortLeaseAllocator appiumPorts() {
+        return APPIUM_PORTS;
+    }
+
+    /**
+     * Check whether nothing listens on a local port, by binding to it.
+     * @param port {@link Integer} value.
+     * @return {@link Boolean} value.
+     */
+    public static boolean isLocalPortFree(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(false);
+            socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @NotNull private final AtomicLong BITS;
+    @NotNull private final AtomicInteger LEASES;
+    @NotNull private final AtomicInteger RELEASES;
+    @NotNull private final AtomicInteger RECLAIMS;
+    @NotNull private final AtomicInteger CONTENTIONS;
+    @NotNull private final AtomicInteger PEAK;
+    @NotNull private final Map<Object,Lease> OWNERS;
+    @NotNull private final AtomicReferenceArray<Lease> SLOTS;
+
+    @NotNull private IntPredicate probe;
+    private int basePort;
+    private int slotCount;
+    private int width;
+    private long leaseDuration;
+
+    PortLeaseAllocator() {
+        BITS = new AtomicLong();
+        LEASES = new AtomicInteger();
+        RELEASES = new AtomicInteger();
+        RECLAIMS = new AtomicInteger();
+        CONTENTIONS = new AtomicInteger();
+        PEAK = new AtomicInteger();
+        OWNERS = new ConcurrentHashMap<>();
+
+        /* Sized for the maximum slot count, since the slot count is only
+         * known once the Builder is done */
+        SLOTS = new AtomicReferenceArray<>(MAX_SLOTS);
+        probe = PortLeaseAllocator::isLocalPortFree;
+        basePort = 0;
+        slotCount = MAX_SLOTS;
+        width = 1;
+        leaseDuration = 30 * 60 * 1000;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format(
+            "Ports %d-%d: leased %d/%d (peak %d), leases %d, releases %d, reclaims %d, contentions %d",
+            basePort, basePort + slotCount * width - 1, leasedCount(), capacity(),
+            peakLeasedCount(), leaseCount(), releaseCount(), reclaimCount(),
+            contentionCount());
+    }
+
+    //region Getters
+    /**
+     * Get the number of slots.
+     * @return {@link Integer} value.
+     */
+    public int capacity() {
+        return slotCount;
+    }
+
+    /**
+     * Get the first port of a slot.
+     * @param slot {@link Integer} value.
+     * @return {@link Integer} value.
+     */
+    public int port(int slot) {
+        return basePort + slot * width;
+    }
+
+    /**
+     * Get the slot a port belongs to.
+     * @param port {@link Integer} value.
+     * @return {@link Integer} value, or -1 if the port is out of range.
+     */
+    public int slot(int port) {
+        int offset = port - basePort;
+
+        if (offset < 0 || offset % width != 0 || offset / width >= slotCount) {
+            return -1;
+        }
+
+        return offset / width;
+    }
+
+    /**
+     * Get the {@link Lease} held on a port.
+     * @param port {@link Integer} value.
+     * @return {@link Lease} instance, or null if the port is not leased.
+     */
+    @Nullable
+    public Lease lease(int port) {
+        int slot = slot(port);
+        return slot < 0 ? null : SLOTS.get(slot);
+    }
+
+    /**
+     * Get the number of slots currently leased, including slots held for
+     * ports found in use by other processes.
+     * @return {@link Integer} value.
+     */
+    public int leasedCount() {
+        return Long.bitCount(BITS.get());
+    }
+
+    /**
+     * Get the fraction of slots currently leased.
+     * @return {@link Double} value.
+     * @see #leasedCount()
+     */
+    public double occupancy() {
+        return (double) leasedCount() / capacity();
+    }
+
+    /**
+     * Get the highest number of slots leased at the same time.
+     * @return {@link Integer} value.
+     */
+    public int peakLeasedCount() {
+        return PEAK.get();
+    }
+
+    /**
+     * Get the number of leases handed out so far.
+     * @return {@link Integer} value.
+     */
+    public int leaseCount() {
+        return LEASES.get();
+    }
+
+    /**
+     * Get the number of leases released by their owners so far.
+     * @return {@link Integer} value.
+     */
+    public int releaseCount() {
+        return RELEASES.get();
+    }
+
+    /**
+     * Get the number of expired leases reclaimed so far.
+     * @return {@link Integer} value.
+     */
+    public int reclaimCount() {
+        return RECLAIMS.get();
+    }
+
+    /**
+     * Get the number of failed CAS attempts so far, i.e. how often two
+     * callers raced for the same slot.
+     * @return {@link Integer} value.
+     */
+    public int contentionCount() {
+        return CONTENTIONS.get();
+    }
+    //endregion
+
+    //region Leases
+    /**
+     * Lease a port for an owner. Owners hold at most one lease, so if the
+     * owner already has one, it is renewed and returned again.
+     * @param owner {@link Object} instance. Owners are compared with
+     *              {@link Object#equals(Object)}.
+     * @return {@link Lease} instance, or null if all slots are taken.
+     * @see #claim(Object)
+     * @see #reclaimExpired()
+     * @see #renew(int, Object)
+     */
+    @Nullable
+    public Lease tryLease(@NotNull Object owner) {
+        Lease existing = OWNERS.get(owner);
+
+        if (existing != null && renew(existing.port(), owner)) {
+            return lease(existing.port());
+        }
+
+        Lease lease = claim(owner);
+
+        if (lease == null && reclaimExpired() > 0) {
+            lease = claim(owner);
+        }
+
+        return lease;
+    }
+
+    /**
+     * Same as above, but emits the leased port, or an error if all slots
+     * are taken.
+     * @param owner {@link Object} instance.
+     * @param param {@link RetryProviderType} instance. Each retry gets
+     *              another chance to reclaim expired leases.
+     * @return {@link Flowable} instance.
+     * @see #tryLease(Object)
+     */
+    @NotNull
+    public Flowable<Integer> rxa_lease(@NotNull final Object owner,
+                                       @NotNull RetryProviderType param) {
+        final PortLeaseAllocator THIS = this;
+
+        return Flowable
+            .defer(() -> {
+                Lease lease = THIS.tryLease(owner);
+
+                if (lease != null) {
+                    return Flowable.just(lease.port());
+                } else {
+                    return HPReactives.<Integer>error(NO_PORT_AVAILABLE);
+                }
+            })
+            .retry(param.retries());
+    }
+
+    /**
+     * Release the lease on a port.
+     * @param port {@link Integer} value.
+     * @param owner {@link Object} instance. This must be the owner that the
+     *              port was leased to.
+     * @return {@link Boolean} value, true if the lease was released.
+     */
+    public boolean release(int port, @NotNull Object owner) {
+        int slot = slot(port);
+        Lease lease = slot < 0 ? null : SLOTS.get(slot);
+
+        if (lease == null || !lease.owner().equals(owner)) {
+            return false;
+        }
+
+        if (SLOTS.compareAndSet(slot, lease, null)) {
+            OWNERS.remove(owner, lease);
+            clearBit(slot);
+            RELEASES.incrementAndGet();
+            return true;
+        }
+
+        CONTENTIONS.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Extend the lease on a port by {@link #leaseDuration}. Long-lived
+     * owners should call this periodically so that their leases are never
+     * reclaimed.
+     * @param port {@link Integer} value.
+     * @param owner {@link Object} instance.
+     * @return {@link Boolean} value, true if the lease was renewed.
+     */
+    public boolean renew(int port, @NotNull Object owner) {
+        int slot = slot(port);
+        Lease lease = slot < 0 ? null : SLOTS.get(slot);
+
+        if (lease == null || !lease.owner().equals(owner)) {
+            return false;
+        }
+
+        Lease renewed = new Lease(lease.port(), owner, expiry());
+
+        if (SLOTS.compareAndSet(slot, lease, renewed)) {
+            OWNERS.replace(owner, lease, renewed);
+            return true;
+        }
+
+        CONTENTIONS.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Free the slots of expired leases whose ports nothing listens on
+     * anymore. A slot whose port is still in use is left alone, since the
+     * process behind it (e.g. an emulator) may outlive its lease.
+     * @return {@link Integer} value, the number of reclaimed slots.
+     * @see #probe
+     */
+    public int reclaimExpired() {
+        long now = System.currentTimeMillis();
+        int reclaimed = 0;
+
+        for (int i = 0; i < slotCount; i++) {
+            Lease lease = SLOTS.get(i);
+
+            if (lease != null && lease.isExpired(now) && isSlotFree(i)) {
+                if (SLOTS.compareAndSet(i, lease, null)) {
+                    OWNERS.remove(lease.owner(), lease);
+                    clearBit(i);
+                    RECLAIMS.incrementAndGet();
+                    reclaimed += 1;
+                } else {
+                    CONTENTIONS.incrementAndGet();
+                }
+            }
+        }
+
+        return reclaimed;
+    }
+
+    /**
+     * Claim the lowest free slot whose ports are not in use. Slots whose
+     * ports turn out to be taken by other processes stay claimed by
+     * {@link #EXTERNAL} until their lease expires, so that they are not
+     * probed again by every caller.
+     * @param owner {@link Object} instance.
+     * @return {@link Lease} instance, or null if there is no free slot.
+     */
+    @Nullable
+    Lease claim(@NotNull Object owner) {
+        long mask = slotCount == MAX_SLOTS ? -1L : (1L << slotCount) - 1;
+
+        while (true) {
+            long bits = BITS.get();
+            long free = ~bits & mask;
+
+            if (free == 0) {
+                return null;
+            }
+
+            int slot = Long.numberOfTrailingZeros(free);
+
+            if (!BITS.compareAndSet(bits, bits | (1L << slot))) {
+                CONTENTIONS.incrementAndGet();
+                continue;
+            }
+
+            PEAK.accumulateAndGet(Long.bitCount(bits) + 1, Math::max);
+
+            if (isSlotFree(slot)) {
+                Lease lease = new Lease(port(slot), owner, expiry());
+                SLOTS.set(slot, lease);
+                OWNERS.put(owner, lease);
+                LEASES.incrementAndGet();
+                return lease;
+            }
+
+            SLOTS.set(slot, new Lease(port(slot), EXTERNAL, expiry()));
+        }
+    }
+
+    /**
+     * Check whether nothing listens on any port of a slot.
+     * @param slot {@link Integer} value.
+     * @return {@link Boolean} value.
+     * @see #probe
+     */
+    boolean isSlotFree(int slot) {
+        int port = port(slot);
+
+        for (int i = 0; i < width; i++) {
+            if (!probe.test(port + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void clearBit(int slot) {
+        long bit = 1L << slot;
+        BITS.getAndUpdate(a -> a & ~bit);
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + leaseDuration;
+    }
+    //endregion
+
+    /**
+     * A lease on a slot, starting at {@link #port()}.
+     */
+    public static final class Lease {
+        @NotNull private final Object OWNER;
+        private final int PORT;
+        private final long EXPIRES_AT;
+
+        Lease(int port, @NotNull Object owner, long expiresAt) {
+            PORT = port;
+            OWNER = owner;
+            EXPIRES_AT = expiresAt;
+        }
+
+        @NotNull
+        @Override
+        public String toString() {
+            return String.format("Port %d leased to %s", port(), owner());
+        }
+
+        /**
+         * Get {@link #PORT}.
+         * @return {@link Integer} value.
+         */
+        public int port() {
+            return PORT;
+        }
+
+        /**
+         * Get {@link #OWNER}.
+         * @return {@link Object} instance.
+         */
+        @NotNull
+        public Object owner() {
+            return OWNER;
+        }
+
+        /**
+         * Get {@link #EXPIRES_AT}.
+         * @return {@link Long} value, in milliseconds since epoch.
+         */
+        public long expiresAt() {
+            return EXPIRES_AT;
+        }
+
+        /**
+         * Check whether the lease has expired.
+         * @param now {@link Long} value, in milliseconds since epoch.
+         * @return {@link Boolean} value.
+         */
+        public boolean isExpired(long now) {
+            return now >= EXPIRES_AT;
+        }
+    }
+
+    //region Builder
+    /**
+     * Builder class for {@link PortLeaseAllocator}.
+     */
+    public static final class Builder {
+        @NotNull private final PortLeaseAllocator ALLOCATOR;
+
+        Builder() {
+            ALLOCATOR = new PortLeaseAllocator();
+        }
+
+        /**
+         * Set {@link #ALLOCATOR#basePort}.
+         * @param port {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withBasePort(int port) {
+            ALLOCATOR.basePort = port;
+            return this;
+        }
+
+        /**
+         * Set {@link #ALLOCATOR#slotCount}. This is capped at 64, the size
+         * of the bitset.
+         * @param slots {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withSlots(int slots) {
+            ALLOCATOR.slotCount = Math.max(1, Math.min(MAX_SLOTS, slots));
+            return this;
+        }
+
+        /**
+         * Set {@link #ALLOCATOR#width}, the number of consecutive ports in
+         * each slot.
+         * @param width {@link Integer} value.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withWidth(int width) {
+            ALLOCATOR.width = Math.max(1, width);
+            return this;
+        }
+
+        /**
+         * Set {@link #ALLOCATOR#leaseDuration}.
+         * @param duration {@link Long} value, in milliseconds.
+         * @return {@link Builder} instance.
+         */
+        @NotNull
+        public Builder withLeaseDuration(long duration) {
+            ALLOCATOR.leaseDuration = Math.max(0, duration);
+            return this;
+        }
+
+        /**
+         * Set {@link #ALLOCATOR#probe}, which checks whether nothing
+         * listens on a port.
+         * @param probe {@link IntPredicate} instance.
+         * @return {@link Builder} instance.
+         * @see #isLocalPortFree(int)
+         */
+        @NotNull
+        public Builder withProbe(@NotNull IntPredicate probe) {
+            ALLOCATOR.probe = probe;
+            return this;
+        }
+
+        @NotNull
+        public PortLeaseAllocator build() {
+            return ALLOCATOR;
+        }
+    }
+    //endregion
+}
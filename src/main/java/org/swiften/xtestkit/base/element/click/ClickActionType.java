@@ -8,8 +8,10 @@ import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.javautilities.util.HPLog;
+import org.swiften.xtestkit.base.element.locator.SnapshotInvalidatorType;
 import org.swiften.xtestkit.base.element.property.ElementPropertyType;
 import org.swiften.xtestkit.base.element.tap.TapType;
+import org.swiften.xtestkit.base.type.DriverSchedulerProviderType;
 import org.swiften.xtestkitcomponents.common.ErrorProviderType;
 import org.swiften.xtestkitcomponents.coordinate.RLPoint;
 import org.swiften.xtestkitcomponents.coordinate.RLPositionType;
@@ -23,9 +25,11 @@ import org.swiften.xtestkitcomponents.coordinate.RLPositionType;
  * @param <D> Generics parameter.
  */
 public interface ClickActionType<D extends WebDriver> extends
+    DriverSchedulerProviderType,
     ErrorProviderType,
     TapType<D>,
-    ElementPropertyType
+    ElementPropertyType,
+    SnapshotInvalidatorType
 {
     /**
      * Perform a click action for {@link WebElement}.
@@ -33,11 +37,14 @@ public interface ClickActionType<D extends WebDriver> extends
      * @see WebElement#click()
      * @see RLPoint#MID
      * @see #coordinate(WebElement, RLPositionType, RLPositionType)
+     * @see #driverCall(Runnable)
      * @see #tap(Point)
+     * @see #invalidateSnapshot()
      */
     default void click(@NotNull WebElement element) {
         HPLog.printft("Clicking on %s", element);
-        element.click();
+        driverCall(element::click);
+        invalidateSnapshot();
     }
 
     /**
@@ -8,6 +8,7 @@ import org.jetbrains.annotations.NotNull;
 import org.swiften.xtestkitcomponents.property.base.ValueType;
 import org.swiften.xtestkitcomponents.common.ErrorProviderType;
 
+import java.time.temporal.ChronoField;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
@@ -133,4 +134,41 @@ public enum CalendarUnit implements ValueType<Integer>, ErrorProviderType {
                 throw new RuntimeException(NOT_AVAILABLE);
         }
     }
+
+    /**
+     * Get the {@link ChronoField} that corresponds to this
+     * {@link CalendarUnit}. Note that {@link ChronoField#MONTH_OF_YEAR} is
+     * 1-based while {@link Calendar#MONTH} is 0-based.
+     * @return {@link ChronoField} instance.
+     * @see #value()
+     * @see #NOT_AVAILABLE
+     */
+    @NotNull
+    public ChronoField chronoField() {
+        switch (this) {
+            case DAY:
+                return ChronoField.DAY_OF_MONTH;
+
+            case MONTH:
+                return ChronoField.MONTH_OF_YEAR;
+
+            case YEAR:
+                return ChronoField.YEAR;
+
+            case HOUR_12:
+                return ChronoField.HOUR_OF_AMPM;
+
+            case HOUR_24:
+                return ChronoField.HOUR_OF_DAY;
+
+            case MINUTE:
+                return ChronoField.MINUTE_OF_HOUR;
+
+            case PERIOD:
+                return ChronoField.AMPM_OF_DAY;
+
+            default:
+                throw new RuntimeException(NOT_AVAILABLE);
+        }
+    }
 }
@@ -17,11 +17,12 @@ import org.swiften.xtestkit.base.element.click.ClickActionType;
 import org.swiften.xtestkit.base.element.swipe.SwipeActionType;
 import org.swiften.xtestkit.base.element.locator.ByXPath;
 import org.swiften.xtestkit.base.element.locator.LocatorType;
+import org.swiften.xtestkit.base.element.locator.TextParam;
 import org.swiften.xtestkit.base.element.property.ElementPropertyType;
 import org.swiften.xtestkitcomponents.common.ErrorProviderType;
+import org.swiften.xtestkitcomponents.property.base.StringProviderType;
 import org.swiften.xtestkitcomponents.xpath.XPath;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -63,11 +64,15 @@ public interface DateActionType<D extends WebDriver> extends
 
     /**
      * Check if {@link Date} is currently active. This assumes that the
-     * user is in a calendar view.
+     * user is in a calendar view. This is a read-only check, so no
+     * {@link org.openqa.selenium.WebElement} is resolved if snapshot mode
+     * is enabled.
      * @param PARAM {@link DateProviderType} instance.
      * @return {@link Flowable} instance.
-     * @see #valueString(DateProviderType, CalendarUnit)
-     * @see #rxe_containsText(String...)
+     * @see TextParam.Builder#withText(String)
+     * @see #containsTextQuery(StringProviderType)
+     * @see #displayString(DateProviderType, CalendarUnit)
+     * @see #rxv_exists(ByXPath...)
      */
     @NotNull
     @SuppressWarnings("unchecked")
@@ -77,9 +82,10 @@ public interface DateActionType<D extends WebDriver> extends
 
         return Flowable
             .fromIterable(units)
-            .map(a -> THIS.displayString(PARAM, a))
-            .flatMap(THIS::rxe_containsText)
-            .all(HPObjects::nonNull)
+            .map(a -> TextParam.builder().withText(THIS.displayString(PARAM, a)).build())
+            .map(THIS::containsTextQuery)
+            .concatMap(a -> THIS.rxv_exists(a))
+            .all(HPBooleans::isTrue)
             .toFlowable();
     }
 
@@ -147,26 +153,18 @@ public interface DateActionType<D extends WebDriver> extends
      * as displayed by the relevant {@link WebElement}.
      * @param unit {@link CalendarUnit} instance.
      * @return {@link Flowable} instance.
+     * @see DateFormatterRegistry#unitValue(DatePickerType, CalendarUnit, String)
      * @see #rxe_elementLabel(DateProviderType, CalendarUnit)
      */
     @NotNull
-    @SuppressWarnings("MagicConstant")
     default Flowable<Integer> rxe_displayedUnit(@NotNull DateProviderType param,
-                                                @NotNull CalendarUnit unit) {
+                                                @NotNull final CalendarUnit UNIT) {
         final DateActionType<?> THIS = this;
-        String format = param.datePickerType().valueStringFormat(unit);
-        final SimpleDateFormat FORMATTER = new SimpleDateFormat(format);
-        final Integer CALENDAR_CONSTANT = unit.value();
+        final DatePickerType PICKER_TYPE = param.datePickerType();
 
-        return rxe_elementLabel(param, unit)
+        return rxe_elementLabel(param, UNIT)
             .map(THIS::getText)
-            .map(FORMATTER::parse)
-            .map(a -> {
-                Calendar calendar = Calendar.getInstance();
-                calendar.setTime(a);
-                return calendar;
-            })
-            .map(a -> a.get(CALENDAR_CONSTANT));
+            .map(a -> DateFormatterRegistry.unitValue(PICKER_TYPE, UNIT, a));
     }
 
     /**
@@ -196,12 +194,11 @@ public interface DateActionType<D extends WebDriver> extends
      * @param param {@link DateProviderType} instance.
      * @param unit {@link CalendarUnit} instance.
      * @return {@link String} value.
+     * @see DateFormatterRegistry#format(DatePickerType, CalendarUnit, Date)
      */
     @NotNull
     default String valueString(@NotNull DateProviderType param, @NotNull CalendarUnit unit) {
-        Date date = param.date();
-        String format = param.datePickerType().valueStringFormat(unit);
-        return new SimpleDateFormat(format).format(date);
+        return DateFormatterRegistry.format(param.datePickerType(), unit, param.date());
     }
 
     /**
@@ -0,0 +1,365 @@
+package org.swiften.xtestkit.base.element.date;
+
+/**
+ * Created by haipham on 27/7/17.
+ */
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.ValueRange;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Use this class to format and parse {@link CalendarUnit} values without
+ * creating a new {@link java.text.SimpleDateFormat} and {@link Calendar}
+ * every time. {@link DateTimeFormatter} is immutable and thread-safe, so
+ * one instance is built lazily per {@link DatePickerType},
+ * {@link CalendarUnit} and {@link Locale}, and shared afterwards.
+ *
+ * Values are exchanged as {@link Calendar} constants (e.g. 0-based
+ * months), so that callers of {@link CalendarUnit#value()} keep working.
+ * When the format of a {@link CalendarUnit} is purely numeric (e.g. dd or
+ * yyyy), {@link #unitValue(DatePickerType, CalendarUnit, String)} reads the
+ * digits directly and does not allocate at all.
+ */
+public final class DateFormatterRegistry {
+    @NotNull private static final Map<DatePickerType,Map<Locale,Entry[]>> ENTRIES;
+    @NotNull private static final Map<Locale,Map<String,DateTimeFormatter>> PATTERNS;
+
+    static {
+        ENTRIES = new ConcurrentHashMap<>();
+        PATTERNS = new ConcurrentHashMap<>();
+    }
+
+    private DateFormatterRegistry() {}
+
+    /**
+     * Get the {@link Locale} that {@link java.text.SimpleDateFormat} uses
+     * by default.
+     * @return {@link Locale} instance.
+     */
+    @NotNull
+    public static Locale defaultLocale() {
+        return Locale.getDefault(Locale.Category.FORMAT);
+    }
+
+    /**
+     * Get the cached {@link DateTimeFormatter} for an arbitrary pattern.
+     * Parsing is case-insensitive, like {@link java.text.SimpleDateFormat}.
+     * @param pattern {@link String} value.
+     * @param locale {@link Locale} instance.
+     * @return {@link DateTimeFormatter} instance.
+     */
+    @NotNull
+    public static DateTimeFormatter formatter(@NotNull String pattern,
+                                              @NotNull Locale locale) {
+        Map<String,DateTimeFormatter> formatters = PATTERNS.get(locale);
+
+        if (formatters == null) {
+            formatters = PATTERNS.computeIfAbsent(locale, a -> new ConcurrentHashMap<>());
+        }
+
+        DateTimeFormatter formatter = formatters.get(pattern);
+
+        if (formatter == null) {
+            formatter = formatters.computeIfAbsent(pattern, a ->
+                new DateTimeFormatterBuilder()
+                    .parseCaseInsensitive()
+                    .appendPattern(a)
+                    .toFormatter(locale));
+        }
+
+        return formatter;
+    }
+
+    /**
+     * Same as above, but uses {@link #defaultLocale()}.
+     * @param pattern {@link String} value.
+     * @return {@link DateTimeFormatter} instance.
+     * @see #formatter(String, Locale)
+     */
+    @NotNull
+    public static DateTimeFormatter formatter(@NotNull String pattern) {
+        return formatter(pattern, defaultLocale());
+    }
+
+    /**
+     * Get the cached {@link DateTimeFormatter} for a {@link CalendarUnit}.
+     * @param type {@link DatePickerType} instance.
+     * @param unit {@link CalendarUnit} instance.
+     * @param locale {@link Locale} instance.
+     * @return {@link DateTimeFormatter} instance.
+     * @see #entry(DatePickerType, CalendarUnit, Locale)
+     */
+    @NotNull
+    public static DateTimeFormatter formatter(@NotNull DatePickerType type,
+                                              @NotNull CalendarUnit unit,
+                                              @NotNull Locale locale) {
+        return entry(type, unit, locale).FORMATTER;
+    }
+
+    /**
+     * Format a {@link Date} with an arbitrary pattern.
+     * @param pattern {@link String} value.
+     * @param date {@link Date} instance.
+     * @return {@link String} value.
+     * @see #formatter(String)
+     */
+    @NotNull
+    public static String format(@NotNull String pattern, @NotNull Date date) {
+        return formatter(pattern).format(zoned(date));
+    }
+
+    /**
+     * Format a {@link Date} the way a {@link CalendarUnit} is displayed.
+     * @param type {@link DatePickerType} instance.
+     * @param unit {@link CalendarUnit} instance.
+     * @param date {@link Date} instance.
+     * @return {@link String} value.
+     * @see #formatter(DatePickerType, CalendarUnit, Locale)
+     */
+    @NotNull
+    public static String format(@NotNull DatePickerType type,
+                                @NotNull CalendarUnit unit,
+                                @NotNull Date date) {
+        return formatter(type, unit, defaultLocale()).format(zoned(date));
+    }
+
+    /**
+     * Format a {@link CalendarUnit} value the way it is displayed. The other
+     * fields are taken from the current time, and values that are out of
+     * range altogether roll over like they do with a lenient
+     * {@link Calendar}.
+     * @param type {@link DatePickerType} instance.
+     * @param unit {@link CalendarUnit} instance.
+     * @param value {@link Integer} value, as a {@link Calendar} constant.
+     * @return {@link String} value.
+     * @see CalendarUnit#chronoField()
+     * @see #formatter(DatePickerType, CalendarUnit, Locale)
+     */
+    @NotNull
+    public static String formatUnit(@NotNull DatePickerType type,
+                                    @NotNull CalendarUnit unit,
+                                    int value) {
+        ChronoField field = unit.chronoField();
+        int chronoValue = unit == CalendarUnit.MONTH ? value + 1 : value;
+        LocalDateTime time = LocalDateTime.now();
+
+        /* A day that the current month does not have, e.g. 31, is still a
+         * valid picker value, so we use January instead */
+        if (!time.range(field).isValidValue(chronoValue)) {
+            time = time.withDayOfMonth(1).withMonth(1);
+        }
+
+        ValueRange range = time.range(field);
+
+        if (range.isValidValue(chronoValue)) {
+            time = time.with(field, chronoValue);
+        } else {
+            long minimum = range.getMinimum();
+            time = time.with(field, minimum).plus(chronoValue - minimum, field.getBaseUnit());
+        }
+
+        return formatter(type, unit, defaultLocale()).format(time);
+    }
+
+    /**
+     * Parse the {@link CalendarUnit} value out of a {@link String} that is
+     * displayed in the unit's format.
+     * @param type {@link DatePickerType} instance.
+     * @param unit {@link CalendarUnit} instance.
+     * @param text {@link String} value.
+     * @return {@link Integer} value, as a {@link Calendar} constant.
+     * @see #unitValue(DatePickerType, CalendarUnit, String, Locale)
+     */
+    public static int unitValue(@NotNull DatePickerType type,
+                                @NotNull CalendarUnit unit,
+                                @NotNull String text) {
+        return unitValue(type, unit, text, defaultLocale());
+    }
+
+    /**
+     * Same as above, but uses a custom {@link Locale}.
+     * @param type {@link DatePickerType} instance.
+     * @param unit {@link CalendarUnit} instance.
+     * @param text {@link String} value.
+     * @param locale {@link Locale} instance.
+     * @return {@link Integer} value, as a {@link Calendar} constant.
+     * @throws java.time.format.DateTimeParseException If the text cannot
+     * be parsed.
+     * @see CalendarUnit#chronoField()
+     * @see #digits(String)
+     */
+    public static int unitValue(@NotNull DatePickerType type,
+                                @NotNull CalendarUnit unit,
+                                @NotNull String text,
+                                @NotNull Locale locale) {
+        Entry entry = entry(type, unit, locale);
+        int value = entry.NUMERIC ? digits(text) : -1;
+
+        if (value < 0) {
+            TemporalAccessor parsed = entry.FORMATTER.parse(text.trim());
+            ChronoField field = unit.chronoField();
+
+            if (field == ChronoField.YEAR && !parsed.isSupported(field)) {
+                field = ChronoField.YEAR_OF_ERA;
+            }
+
+            value = parsed.get(field);
+        } else if (unit == CalendarUnit.HOUR_12) {
+            /* The h pattern is 1-12, whereas Calendar.HOUR is 0-11 */
+            value = value % 12;
+        }
+
+        return unit == CalendarUnit.MONTH ? value - 1 : value;
+    }
+
+    /**
+     * Read a non-negative {@link Integer} from a {@link String} that only
+     * contains digits, ignoring surrounding whitespace.
+     * @param text {@link String} value.
+     * @return {@link Integer} value, or -1 if there are other characters.
+     */
+    private static int digits(@NotNull String text) {
+        int start = 0, end = text.length();
+
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+
+        int value = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Get the cached {@link Entry} for a {@link CalendarUnit}, creating it
+     * if necessary.
+     * @param type {@link DatePickerType} instance.
+     * @param unit {@link CalendarUnit} instance.
+     * @param locale {@link Locale} instance.
+     * @return {@link Entry} instance.
+     * @see DatePickerType#valueStringFormat(CalendarUnit)
+     */
+    @NotNull
+    private static Entry entry(@NotNull DatePickerType type,
+                               @NotNull CalendarUnit unit,
+                               @NotNull Locale locale) {
+        Map<Locale,Entry[]> locales = ENTRIES.get(type);
+
+        if (locales == null) {
+            locales = ENTRIES.computeIfAbsent(type, a -> new ConcurrentHashMap<>());
+        }
+
+        Entry[] entries = locales.get(locale);
+
+        if (entries == null) {
+            entries = locales.computeIfAbsent(locale, a ->
+                new Entry[CalendarUnit.values().length]);
+        }
+
+        /* Entry is immutable, so a racy write only means that the same
+         * entry may be built twice */
+        Entry entry = entries[unit.ordinal()];
+
+        if (entry == null) {
+            String pattern = type.valueStringFormat(unit);
+            entry = new Entry(formatter(pattern, locale), isNumeric(pattern, unit));
+            entries[unit.ordinal()] = entry;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Check if a pattern formats a {@link CalendarUnit} as plain digits, so
+     * that its value can be read without parsing.
+     * @param pattern {@link String} value.
+     * @param unit {@link CalendarUnit} instance.
+     * @return {@link Boolean} value.
+     */
+    private static boolean isNumeric(@NotNull String pattern, @NotNull CalendarUnit unit) {
+        if (pattern.isEmpty()) {
+            return false;
+        }
+
+        char letter = pattern.charAt(0);
+
+        for (int i = 1, length = pattern.length(); i < length; i++) {
+            if (pattern.charAt(i) != letter) {
+                return false;
+            }
+        }
+
+        switch (unit) {
+            case DAY:
+                return letter == 'd';
+
+            case MONTH:
+                return letter == 'M' && pattern.length() <= 2;
+
+            case YEAR:
+                /* yy is a two-digit year, which needs a pivot */
+                return letter == 'y' && pattern.length() != 2;
+
+            case HOUR_12:
+                return letter == 'h';
+
+            case HOUR_24:
+                return letter == 'H';
+
+            case MINUTE:
+                return letter == 'm';
+
+            default:
+                return false;
+        }
+    }
+
+    @NotNull
+    private static TemporalAccessor zoned(@NotNull Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * Immutable holder of the {@link DateTimeFormatter} for one
+     * {@link CalendarUnit}.
+     */
+    private static final class Entry {
+        @NotNull final DateTimeFormatter FORMATTER;
+        final boolean NUMERIC;
+
+        Entry(@NotNull DateTimeFormatter formatter, boolean numeric) {
+            FORMATTER = formatter;
+            NUMERIC = numeric;
+        }
+    }
+}
@@ -4,7 +4,6 @@ import org.jetbrains.annotations.NotNull;
 import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.xtestkitcomponents.property.base.ValueType;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -97,11 +96,11 @@ public interface DateProviderType extends RetryProviderType {
      * Get {@link String} representation of {@link #date()}.
      * @param format {@link String} format.
      * @return {@link String} value.
+     * @see DateFormatterRegistry#format(String, Date)
      * @see #date()
      */
     @NotNull
     default String dateString(@NotNull String format) {
-        SimpleDateFormat formatter = new SimpleDateFormat(format);
-        return formatter.format(date());
+        return DateFormatterRegistry.format(format, date());
     }
 }
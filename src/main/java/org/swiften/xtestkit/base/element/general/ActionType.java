@@ -10,8 +10,10 @@ import org.jetbrains.annotations.NotNull;
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.WebDriver;
 import org.swiften.javautilities.protocol.RepeatProviderType;
+import org.swiften.xtestkit.base.element.locator.SnapshotInvalidatorType;
 import org.swiften.xtestkit.base.param.AlertParam;
 import org.swiften.xtestkit.base.type.DriverProviderType;
+import org.swiften.xtestkit.base.type.DriverSchedulerProviderType;
 
 import java.util.concurrent.TimeUnit;
 
@@ -19,21 +21,31 @@ import java.util.concurrent.TimeUnit;
  * This interface provides general actions, such as back/swipe navigation.
  * * @param <D> Generics parameter that extends {@link WebDriver}.
  */
-public interface ActionType<D extends WebDriver> extends ActionDelayType, DriverProviderType<D> {
+public interface ActionType<D extends WebDriver> extends
+    ActionDelayType,
+    DriverProviderType<D>,
+    DriverSchedulerProviderType,
+    SnapshotInvalidatorType
+{
     /**
      * Navigate back only once.
      * @return {@link Flowable} instance.
      * @see WebDriver#navigate()
      * @see WebDriver.Navigation#back()
      * @see #driver()
+     * @see #driverScheduler()
+     * @see #invalidateSnapshot()
      */
     @NotNull
     default Flowable<Boolean> rxa_navigateBackOnce() {
+        final ActionType<?> THIS = this;
         final WebDriver DRIVER = driver();
         final WebDriver.Navigation NAVIGATION = DRIVER.navigate();
 
         return Completable
             .fromAction(NAVIGATION::back)
+            .doOnComplete(THIS::invalidateSnapshot)
+            .subscribeOn(driverScheduler())
             .<Boolean>toFlowable()
             .defaultIfEmpty(true);
     }
@@ -68,6 +80,7 @@ public interface ActionType<D extends WebDriver> extends ActionDelayType, Driver
      * @see WebDriver.TargetLocator#alert()
      * @see #alertDismissDelay()
      * @see #driver()
+     * @see #driverScheduler()
      */
     @NotNull
     default Flowable<Boolean> rxa_dismissAlert(@NotNull final AlertParam PARAM) {
@@ -81,6 +94,7 @@ public interface ActionType<D extends WebDriver> extends ActionDelayType, Driver
                     ALERT.dismiss();
                 }
             })
+            .subscribeOn(driverScheduler())
             .onErrorComplete()
             .<Boolean>toFlowable()
             .defaultIfEmpty(true)
@@ -28,16 +28,18 @@ public interface InputActionType<D extends WebDriver> extends
      * @param element {@link WebElement} instance.
      * @param text {@link String} value.
      * @see WebElement#sendKeys(CharSequence...)
+     * @see #driverCall(Runnable)
      */
     default void sendValue(@NotNull WebElement element, @NotNull String text) {
         HPLog.printft("Sending '%s' to %s", text, element);
-        element.sendKeys(text);
+        driverCall(() -> element.sendKeys(text));
     }
 
     /**
      * Send a certain {@link String} key to {@link WebElement}.
      * @param TEXT The {@link String} to be sent.
      * @return {@link FlowableTransformer} instance.
+     * @see #invalidateSnapshot()
      * @see #sendValue(WebElement, String)
      */
     @NotNull
@@ -45,7 +47,10 @@ public interface InputActionType<D extends WebDriver> extends
         final InputActionType THIS = this;
 
         return upstream -> upstream
-            .compose(HPReactives.completableFn(a -> THIS.sendValue(a, TEXT)))
+            .compose(HPReactives.completableFn(a -> {
+                THIS.sendValue(a, TEXT);
+                THIS.invalidateSnapshot();
+            }))
             .map(HPBooleans::toTrue)
             .defaultIfEmpty(true);
     }
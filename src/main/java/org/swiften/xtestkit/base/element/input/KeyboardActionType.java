@@ -9,13 +9,16 @@ import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
 import org.openqa.selenium.WebDriver;
 import org.swiften.javautilities.util.HPLog;
+import org.swiften.xtestkit.base.type.DriverSchedulerProviderType;
 import org.swiften.xtestkitcomponents.common.ErrorProviderType;
 
 /**
  * This interface provides methods to interact with the keyboard.
  * * @param <D> Generics parameter that extends {@link WebDriver}.
  */
-public interface KeyboardActionType<D extends WebDriver> extends ErrorProviderType {
+public interface KeyboardActionType<D extends WebDriver> extends
+    DriverSchedulerProviderType, ErrorProviderType
+{
     /**
      * Hide the currently active keyboard.
      */
@@ -24,11 +27,17 @@ public interface KeyboardActionType<D extends WebDriver> extends ErrorProviderTy
     /**
      * Hide the currently active keyboard.
      * @return {@link Flowable} instance.
+     * @see #driverScheduler()
      * @see #hideKeyboard()
      */
     @NotNull
     default Flowable<Boolean> rxa_hideKeyboard() {
         HPLog.printft("Hiding keyboard for %s", this);
-        return Completable.fromAction(this::hideKeyboard).<Boolean>toFlowable().defaultIfEmpty(true);
+
+        return Completable
+            .fromAction(this::hideKeyboard)
+            .subscribeOn(driverScheduler())
+            .<Boolean>toFlowable()
+            .defaultIfEmpty(true);
     }
 }
@@ -0,0 +1,201 @@
+package org.swiften.xtestkit.base.element.locator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.swiften.javautilities.protocol.RetryProviderType;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Created by haipham on 22/7/17.
+ */
+
+/**
+ * Use this class to merge a number of {@link ByXPath} into union xpath
+ * queries (i.e. xpath1 | xpath2 | ...), so that they can be resolved with a
+ * single {@link WebDriver#findElements(By)} call, and to demultiplex the
+ * results back to each originating {@link ByXPath}.
+ */
+public final class ByXPathBatch implements RetryProviderType {
+    /**
+     * The maximum number of queries to merge into a single union xpath.
+     * Very long union expressions are slow to evaluate on some drivers, so
+     * larger batches are split into chunks.
+     */
+    public static final int MAX_UNION_SIZE = 20;
+
+    /**
+     * Get {@link ByXPathBatch} from a varargs of {@link ByXPath}.
+     * @param param A varargs of {@link ByXPath} instances.
+     * @return {@link ByXPathBatch} instance.
+     * @see #from(List)
+     */
+    @NotNull
+    public static ByXPathBatch of(@NotNull ByXPath...param) {
+        return from(Arrays.asList(param));
+    }
+
+    /**
+     * Get {@link ByXPathBatch} from {@link List} of {@link ByXPath}.
+     * @param param {@link List} of {@link ByXPath}.
+     * @return {@link ByXPathBatch} instance.
+     */
+    @NotNull
+    public static ByXPathBatch from(@NotNull List<ByXPath> param) {
+        return new ByXPathBatch(param);
+    }
+
+    /**
+     * Check if an xpath can be merged into a union query. Empty xpath
+     * {@link String} are left alone so that the driver can report the
+     * appropriate error for each.
+     * @param xpath {@link String} value.
+     * @return {@link Boolean} value.
+     */
+    public static boolean isUnionCompatible(@Nullable String xpath) {
+        return xpath != null && !xpath.trim().isEmpty();
+    }
+
+    /**
+     * Merge {@link List} of xpath {@link String} into a single union xpath.
+     * Each operand is wrapped in parentheses so that positional predicates
+     * keep their original meaning.
+     * @param xpaths {@link List} of {@link String}.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public static String union(@NotNull List<String> xpaths) {
+        if (xpaths.size() == 1) {
+            return xpaths.get(0);
+        } else {
+            return xpaths.stream()
+                .map(a -> String.format("(%s)", a))
+                .collect(Collectors.joining(" | "));
+        }
+    }
+
+    @NotNull private final List<ByXPath> QUERIES;
+
+    private ByXPathBatch(@NotNull List<ByXPath> queries) {
+        QUERIES = Collections.unmodifiableList(new ArrayList<>(queries));
+    }
+
+    /**
+     * Get {@link #QUERIES}.
+     * @return {@link List} of {@link ByXPath}.
+     */
+    @NotNull
+    public List<ByXPath> queries() {
+        return QUERIES;
+    }
+
+    /**
+     * Get the xpath of each {@link ByXPath} in {@link #QUERIES}.
+     * @return {@link List} of {@link String}.
+     * @see ByXPath#xpath()
+     */
+    @NotNull
+    public List<String> xpaths() {
+        return QUERIES.stream().map(ByXPath::xpath).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the highest retry count among {@link #QUERIES}, so that no
+     * query is retried fewer times than it would be individually.
+     * @return {@link Integer} value.
+     * @see ByXPath#retries()
+     */
+    @Override
+    public int retries() {
+        return QUERIES.stream().mapToInt(ByXPath::retries).max().orElse(0);
+    }
+
+    /**
+     * Get the aggregated error message of {@link #QUERIES}.
+     * @return {@link String} value.
+     * @see ByXPath#error()
+     */
+    @NotNull
+    public String error() {
+        return QUERIES.stream().map(ByXPath::error).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Split the union-compatible {@link #QUERIES} into chunks of at most
+     * {@link #MAX_UNION_SIZE}, each to be resolved with a single union
+     * xpath. A chunk with a single query is left out, since it gains
+     * nothing from being merged.
+     * @return {@link List} of {@link ByXPathBatch}.
+     * @see #isUnionCompatible(String)
+     * @see #union(List)
+     */
+    @NotNull
+    public List<ByXPathBatch> unionChunks() {
+        List<ByXPath> compatible = QUERIES.stream()
+            .filter(a -> isUnionCompatible(a.xpath()))
+            .collect(Collectors.toList());
+
+        List<ByXPathBatch> chunks = new ArrayList<>();
+
+        for (int i = 0, size = compatible.size(); i < size; i += MAX_UNION_SIZE) {
+            int end = Math.min(i + MAX_UNION_SIZE, size);
+
+            if (end - i > 1) {
+                chunks.add(from(compatible.subList(i, end)));
+            }
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Demultiplex the results of a union query back to each {@link ByXPath}.
+     * For each item in the union result (in document order), membership
+     * lists the indexes of {@link #QUERIES} that match it, as computed by
+     * {@link PageSourceSnapshot#unionMembership(List)}. An item matching
+     * several queries is added to each of them.
+     * @param items {@link List} of union query results.
+     * @param membership {@link List} of query indexes for each item.
+     * @param <T> Generics parameter.
+     * @return {@link Map} of {@link ByXPath} and {@link List} of {@link T},
+     * or null if the two {@link List} do not line up (e.g. the screen
+     * changed between the snapshot and the driver call).
+     */
+    @Nullable
+    public <T> Map<ByXPath,List<T>> demultiplex(@NotNull List<T> items,
+                                                @NotNull List<List<Integer>> membership) {
+        if (items.size() != membership.size()) {
+            return null;
+        }
+
+        Map<ByXPath,List<T>> groups = emptyGroups();
+
+        for (int i = 0, size = items.size(); i < size; i++) {
+            for (Integer index : membership.get(i)) {
+                groups.get(QUERIES.get(index)).add(items.get(i));
+            }
+        }
+
+        return groups;
+    }
+
+    /**
+     * Get {@link Map} with an empty {@link List} for each {@link ByXPath},
+     * in the order they were added.
+     * @param <T> Generics parameter.
+     * @return {@link Map} instance.
+     */
+    @NotNull
+    public <T> Map<ByXPath,List<T>> emptyGroups() {
+        Map<ByXPath,List<T>> groups = new LinkedHashMap<>();
+
+        for (ByXPath query : QUERIES) {
+            groups.put(query, new ArrayList<>());
+        }
+
+        return groups;
+    }
+}
@@ -5,7 +5,7 @@ package org.swiften.xtestkit.base.element.locator;
  */
 
 import io.reactivex.Flowable;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.Scheduler;
 import org.jetbrains.annotations.NotNull;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
@@ -22,6 +22,7 @@ import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.base.PlatformView;
 import org.swiften.xtestkit.base.element.property.ElementPropertyType;
 import org.swiften.xtestkit.base.type.DriverProviderType;
+import org.swiften.xtestkit.base.type.DriverSchedulerProviderType;
 import org.swiften.xtestkit.base.type.PlatformViewProviderType;
 import org.swiften.xtestkitcomponents.platform.PlatformProviderType;
 import org.swiften.xtestkitcomponents.property.base.FormatProviderType;
@@ -35,9 +36,13 @@ import org.swiften.xtestkitcomponents.xpath.AttributeType;
 import org.swiften.xtestkitcomponents.xpath.Attributes;
 import org.swiften.xtestkitcomponents.xpath.XPath;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This interface provides general locator capabilities.
@@ -45,13 +50,147 @@ import java.util.List;
  */
 public interface LocatorType<D extends WebDriver> extends
     DriverProviderType<D>,
+    DriverSchedulerProviderType,
     ElementPropertyType,
     LocalizerProviderType,
     LocatorDelayType,
     LocatorErrorType,
     PlatformProviderType,
-    PlatformViewProviderType
+    PlatformViewProviderType,
+    SnapshotInvalidatorType
 {
+    //region Page Source Snapshot
+    /**
+     * Check whether snapshot mode is enabled. If it is, xpath queries are
+     * first evaluated against {@link #pageSourceSnapshot()}, and only those
+     * that match are sent to {@link WebDriver#findElements(By)}.
+     * @return {@link Boolean} value.
+     */
+    default boolean snapshotModeEnabled() {
+        return false;
+    }
+
+    /**
+     * Get the {@link PageSourceSnapshot} for the current screen. The default
+     * implementation does not cache, so implementations that enable
+     * {@link #snapshotModeEnabled()} should override this method and
+     * {@link #invalidateSnapshot()}.
+     * @return {@link PageSourceSnapshot} instance.
+     * @see PageSourceSnapshot#from(String)
+     * @see WebDriver#getPageSource()
+     * @see #driver()
+     */
+    @NotNull
+    default PageSourceSnapshot pageSourceSnapshot() {
+        return PageSourceSnapshot.from(driver().getPageSource());
+    }
+
+    /**
+     * Check if {@link ByXPath} may match some {@link WebElement} in the
+     * current {@link PageSourceSnapshot}. If snapshot mode is disabled,
+     * always return true.
+     * @param param {@link ByXPath} instance.
+     * @return {@link Boolean} value.
+     * @see ByXPath#xpath()
+     * @see PageSourceSnapshot#mayMatch(String)
+     * @see #pageSourceSnapshot()
+     * @see #snapshotModeEnabled()
+     */
+    default boolean mayMatchInSnapshot(@NotNull ByXPath param) {
+        return !snapshotModeEnabled() || pageSourceSnapshot().mayMatch(param.xpath());
+    }
+
+    /**
+     * Get the age (in milliseconds) beyond which a cached
+     * {@link PageSourceSnapshot} is discarded, even if no action
+     * invalidated it. This bounds how long read-only checks can miss
+     * changes that happen on their own, such as popups.
+     * @return {@link Long} value.
+     * @see PageSourceSnapshot#age()
+     */
+    default long snapshotMaxAge() {
+        return 5000;
+    }
+
+    /**
+     * Check if any of a varargs of {@link ByXPath} matches some nodes in the
+     * current {@link PageSourceSnapshot}, without resolving the actual
+     * {@link WebElement}. This costs at most one page source fetch, no
+     * matter how many queries are passed. Queries that cannot be evaluated
+     * locally are resolved with {@link #rxe_byXPath(ByXPath...)} instead.
+     * @param param A varargs of {@link ByXPath} instances.
+     * @return {@link Flowable} instance.
+     * @see PageSourceSnapshot#matchCount(String)
+     * @see #driverScheduler()
+     * @see #pageSourceSnapshot()
+     * @see #rxv_existsWithDriver(ByXPath...)
+     */
+    @NotNull
+    default Flowable<Boolean> rxv_existsInSnapshot(@NotNull final ByXPath...param) {
+        final LocatorType<?> THIS = this;
+
+        return Flowable
+            .fromCallable(THIS::pageSourceSnapshot)
+            .subscribeOn(driverScheduler())
+            .flatMap(a -> {
+                List<ByXPath> unknown = new ArrayList<>();
+
+                for (ByXPath query : param) {
+                    int count = a.matchCount(query.xpath());
+
+                    if (count > 0) {
+                        return Flowable.just(true);
+                    } else if (count < 0) {
+                        unknown.add(query);
+                    }
+                }
+
+                if (unknown.isEmpty()) {
+                    return Flowable.just(false);
+                }
+
+                return THIS.rxv_existsWithDriver(unknown.toArray(new ByXPath[unknown.size()]));
+            });
+    }
+
+    /**
+     * Check if any of a varargs of {@link ByXPath} matches some
+     * {@link WebElement}, by resolving them with the driver.
+     * @param param A varargs of {@link ByXPath} instances.
+     * @return {@link Flowable} instance.
+     * @see #rxe_byXPath(ByXPath...)
+     */
+    @NotNull
+    default Flowable<Boolean> rxv_existsWithDriver(@NotNull ByXPath...param) {
+        return rxe_byXPath(param)
+            .firstElement()
+            .toFlowable()
+            .map(HPBooleans::toTrue)
+            .onErrorReturnItem(false);
+    }
+
+    /**
+     * Check if any of a varargs of {@link ByXPath} matches something
+     * on-screen. Use this for read-only checks: if snapshot mode is
+     * enabled, no {@link WebElement} handle is resolved unless the query
+     * cannot be evaluated locally. Element handles should only be resolved
+     * for actions, with {@link #rxe_byXPath(ByXPath...)}.
+     * @param param A varargs of {@link ByXPath} instances.
+     * @return {@link Flowable} instance.
+     * @see #rxv_existsInSnapshot(ByXPath...)
+     * @see #rxv_existsWithDriver(ByXPath...)
+     * @see #snapshotModeEnabled()
+     */
+    @NotNull
+    default Flowable<Boolean> rxv_exists(@NotNull ByXPath...param) {
+        if (snapshotModeEnabled()) {
+            return rxv_existsInSnapshot(param);
+        } else {
+            return rxv_existsWithDriver(param);
+        }
+    }
+    //endregion
+
     //region By XPath
     /**
      * Get an error {@link Flowable} to be used when
@@ -82,22 +221,28 @@ public interface LocatorType<D extends WebDriver> extends
      * Find all elements that satisfies a varargs of {@link ByXPath} requests.
      * This method can be used to find alternate versions of the same
      * {@link WebElement}, e.g. in case it has different texts for different
-     * platforms.
+     * platforms. Elements are emitted query by query, in the order the
+     * queries are passed, and an element that matches several queries is
+     * emitted once for each of them. If snapshot mode is enabled, the
+     * queries are resolved with union xpath to save driver calls.
      * @param param A varargs of {@link ByXPath} instances.
      * @return {@link Flowable} instance.
      * @see ByXPath#logXPath()
      * @see ByXPath#retries()
      * @see ByXPath#xpath()
      * @see HPObjects#eq(Object)
-     * @see WebDriver#findElements(By)
-     * @see #driver()
+     * @see #driverScheduler()
      * @see #elementLocateTimeout()
+     * @see #groupByXPath(ByXPathBatch)
+     * @see #invalidateSnapshot()
+     * @see #mayMatchInSnapshot(ByXPath)
      * @see #rxe_xpathQueryFailure(ByXPath...)
      */
     @NotNull
     @SuppressWarnings("unchecked")
     default Flowable<WebElement> rxe_byXPath(@NotNull ByXPath...param) {
-        final WebDriver DRIVER = driver();
+        final LocatorType<?> THIS = this;
+        final Scheduler SCHEDULER = driverScheduler();
 
         int retries = Arrays.stream(param)
             .map(ByXPath::retries)
@@ -110,14 +255,105 @@ public interface LocatorType<D extends WebDriver> extends
                 String xpath = a.xpath();
                 if (logXPath) HPLog.printft("Searching for %s", xpath);
             })
-            .observeOn(Schedulers.computation())
-            .subscribeOn(Schedulers.computation())
-            .map(ByXPath::xpath)
-            .map(By::xpath)
-            .flatMapIterable(DRIVER::<WebElement>findElements)
+            .observeOn(SCHEDULER)
+            .subscribeOn(SCHEDULER)
+            .filter(THIS::mayMatchInSnapshot)
+            .toList()
+            .map(ByXPathBatch::from)
+            .map(THIS::groupByXPath)
+            .flattenAsFlowable(Map::values)
+            .flatMapIterable(a -> a)
             .switchIfEmpty(rxe_xpathQueryFailure(param))
+            .doOnError(a -> THIS.invalidateSnapshot())
             .retry(retries);
     }
+
+    /**
+     * Resolve a {@link ByXPathBatch} with the driver on the current thread,
+     * and group the results by the {@link ByXPath} that matched them, in
+     * the order of {@link ByXPathBatch#queries()}. Each group keeps the
+     * driver's order, and an element that matches several queries is added
+     * to each of their groups, exactly as if every query were resolved
+     * individually. If snapshot mode is enabled, each chunk of compatible
+     * queries costs a single union driver call, whose results are
+     * demultiplexed with {@link PageSourceSnapshot}; otherwise, or if the
+     * screen changed in the meantime, each query costs one driver call.
+     * @param batch {@link ByXPathBatch} instance.
+     * @return {@link Map} of {@link ByXPath} and {@link List} of
+     * {@link WebElement}.
+     * @see ByXPathBatch#demultiplex(List, List)
+     * @see ByXPathBatch#unionChunks()
+     * @see PageSourceSnapshot#unionMembership(List)
+     * @see WebDriver#findElements(By)
+     * @see #driver()
+     * @see #pageSourceSnapshot()
+     * @see #snapshotModeEnabled()
+     */
+    @NotNull
+    default Map<ByXPath,List<WebElement>> groupByXPath(@NotNull ByXPathBatch batch) {
+        WebDriver driver = driver();
+        Map<ByXPath,List<WebElement>> groups = batch.emptyGroups();
+        Set<ByXPath> resolved = new HashSet<>();
+
+        if (snapshotModeEnabled()) {
+            PageSourceSnapshot snapshot = pageSourceSnapshot();
+
+            for (ByXPathBatch chunk : batch.unionChunks()) {
+                List<String> xpaths = chunk.xpaths();
+                List<List<Integer>> membership = snapshot.unionMembership(xpaths);
+
+                if (membership != null) {
+                    By union = By.xpath(ByXPathBatch.union(xpaths));
+                    List<WebElement> elements = driver.findElements(union);
+
+                    Map<ByXPath,List<WebElement>> chunkGroups
+                        = chunk.demultiplex(elements, membership);
+
+                    if (chunkGroups != null) {
+                        groups.putAll(chunkGroups);
+                        resolved.addAll(chunk.queries());
+                    }
+                }
+            }
+        }
+
+        for (ByXPath query : batch.queries()) {
+            if (!resolved.contains(query)) {
+                By by = By.xpath(query.xpath());
+                groups.get(query).addAll(driver.findElements(by));
+            }
+        }
+
+        return groups;
+    }
+
+    /**
+     * Find all elements that satisfy a varargs of {@link ByXPath} requests,
+     * and group them by the {@link ByXPath} that matched them. Queries that
+     * match nothing are mapped to an empty {@link List}, so callers can
+     * report {@link ByXPath#error()} for each. If no query matches
+     * anything, emit the aggregated error instead.
+     * @param param A varargs of {@link ByXPath} instances.
+     * @return {@link Flowable} instance.
+     * @see ByXPathBatch#retries()
+     * @see #driverScheduler()
+     * @see #groupByXPath(ByXPathBatch)
+     * @see #invalidateSnapshot()
+     * @see #rxe_xpathQueryFailure(ByXPath...)
+     */
+    @NotNull
+    default Flowable<Map<ByXPath,List<WebElement>>> rxe_groupedByXPath(@NotNull ByXPath...param) {
+        final LocatorType<?> THIS = this;
+        final ByXPathBatch BATCH = ByXPathBatch.of(param);
+
+        return Flowable
+            .fromCallable(() -> THIS.groupByXPath(BATCH))
+            .subscribeOn(driverScheduler())
+            .filter(a -> a.values().stream().anyMatch(b -> !b.isEmpty()))
+            .switchIfEmpty(rxe_xpathQueryFailure(param))
+            .doOnError(a -> THIS.invalidateSnapshot())
+            .retry(BATCH.retries());
+    }
     //endregion
 
     //region With XPath
@@ -0,0 +1,249 @@
+package org.swiften.xtestkit.base.element.locator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Created by haipham on 21/7/17.
+ */
+
+/**
+ * Use this class to evaluate xpath queries locally against a single
+ * {@link WebDriver#getPageSource()} dump, so that repeated existence checks
+ * do not require a driver round trip each. Real {@link org.openqa.selenium.WebElement}
+ * should still be resolved with {@link WebDriver#findElements(org.openqa.selenium.By)},
+ * but only for queries that are known to match.
+ */
+public final class PageSourceSnapshot {
+    /**
+     * Parse a page source {@link String} into {@link PageSourceSnapshot}.
+     * @param source {@link String} value.
+     * @return {@link PageSourceSnapshot} instance.
+     */
+    @NotNull
+    public static PageSourceSnapshot from(@NotNull String source) {
+        return new PageSourceSnapshot(source);
+    }
+
+    @NotNull private static final XPathFactory XPATH_FACTORY;
+    @NotNull private static final DocumentBuilderFactory DOCUMENT_FACTORY;
+
+    static {
+        XPATH_FACTORY = XPathFactory.newInstance();
+        DOCUMENT_FACTORY = DocumentBuilderFactory.newInstance();
+        DOCUMENT_FACTORY.setNamespaceAware(false);
+        DOCUMENT_FACTORY.setValidating(false);
+        DOCUMENT_FACTORY.setExpandEntityReferences(false);
+        DOCUMENT_FACTORY.setXIncludeAware(false);
+
+        /* Page source comes from the app under test, so DTDs and external
+         * entities must never be resolved (XXE) */
+        setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        setFeature("http://xml.org/sax/features/external-general-entities", false);
+        setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    }
+
+    /**
+     * Set a feature on {@link #DOCUMENT_FACTORY}, ignoring parsers that do
+     * not recognize it.
+     * @param feature {@link String} value.
+     * @param value {@link Boolean} value.
+     */
+    private static void setFeature(@NotNull String feature, boolean value) {
+        try {
+            DOCUMENT_FACTORY.setFeature(feature, value);
+        } catch (ParserConfigurationException e) {
+            /* Unsupported by this parser */
+        }
+    }
+
+    /**
+     * Get a new {@link javax.xml.xpath.XPath} evaluator from the shared
+     * {@link #XPATH_FACTORY}, which is not guaranteed to be thread-safe.
+     * @return {@link javax.xml.xpath.XPath} instance.
+     */
+    @NotNull
+    private static javax.xml.xpath.XPath newXPath() {
+        synchronized (XPATH_FACTORY) {
+            return XPATH_FACTORY.newXPath();
+        }
+    }
+
+    @NotNull private final String SOURCE;
+    @NotNull private final Map<String,Integer> MATCH_COUNTS;
+    private final long CREATED_AT;
+    private Document document;
+    private boolean parseFailed;
+
+    private PageSourceSnapshot(@NotNull String source) {
+        SOURCE = source;
+        MATCH_COUNTS = new HashMap<>();
+        CREATED_AT = System.currentTimeMillis();
+    }
+
+    /**
+     * Get {@link #SOURCE}.
+     * @return {@link String} value.
+     */
+    @NotNull
+    public String source() {
+        return SOURCE;
+    }
+
+    /**
+     * Get the time (in milliseconds) since this snapshot was taken.
+     * @return {@link Long} value.
+     */
+    public long age() {
+        return System.currentTimeMillis() - CREATED_AT;
+    }
+
+    /**
+     * Get the number of nodes matching an xpath query. Since
+     * {@link Document} is not thread-safe, evaluation is synchronized. If
+     * the page source cannot be parsed, or the xpath cannot be evaluated
+     * locally (e.g. it uses functions the driver supports but
+     * {@link javax.xml.xpath.XPath} does not), return -1 so that callers
+     * can defer to the driver.
+     * @param xpath {@link String} value.
+     * @return {@link Integer} value.
+     * @see #document()
+     */
+    public synchronized int matchCount(@NotNull String xpath) {
+        Integer cached = MATCH_COUNTS.get(xpath);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        Document document = document();
+        int count;
+
+        if (document == null) {
+            count = -1;
+        } else {
+            try {
+                NodeList nodes = (NodeList) newXPath()
+                    .evaluate(xpath, document, XPathConstants.NODESET);
+
+                count = nodes.getLength();
+            } catch (XPathExpressionException e) {
+                count = -1;
+            }
+        }
+
+        MATCH_COUNTS.put(xpath, count);
+        return count;
+    }
+
+    /**
+     * Check if an xpath query may match some nodes in the page source. If
+     * the query cannot be evaluated locally, conservatively return true.
+     * @param xpath {@link String} value.
+     * @return {@link Boolean} value.
+     * @see #matchCount(String)
+     */
+    public boolean mayMatch(@NotNull String xpath) {
+        return matchCount(xpath) != 0;
+    }
+
+    /**
+     * For each node matched by the union of some xpath queries (in document
+     * order, which is the same order the driver returns for a union
+     * query), get the indexes of the queries that match that node. This is
+     * used to attribute the results of a single union
+     * {@link WebDriver#findElements(org.openqa.selenium.By)} call back to
+     * each query.
+     * @param xpaths {@link List} of {@link String}.
+     * @return {@link List} of query indexes for each node, or null if the
+     * queries cannot be evaluated locally.
+     * @see ByXPathBatch#union(List)
+     * @see #document()
+     */
+    @Nullable
+    public synchronized List<List<Integer>> unionMembership(@NotNull List<String> xpaths) {
+        Document document = document();
+
+        if (document == null || xpaths.isEmpty()) {
+            return null;
+        }
+
+        try {
+            javax.xml.xpath.XPath evaluator = newXPath();
+            String union = ByXPathBatch.union(xpaths);
+            NodeList unionNodes = (NodeList) evaluator.evaluate(union, document, XPathConstants.NODESET);
+            List<Set<Node>> queryNodes = new ArrayList<>(xpaths.size());
+
+            for (String xpath : xpaths) {
+                NodeList nodes = (NodeList) evaluator.evaluate(xpath, document, XPathConstants.NODESET);
+                Set<Node> set = Collections.newSetFromMap(new IdentityHashMap<>());
+
+                for (int i = 0, length = nodes.getLength(); i < length; i++) {
+                    set.add(nodes.item(i));
+                }
+
+                queryNodes.add(set);
+            }
+
+            List<List<Integer>> membership = new ArrayList<>(unionNodes.getLength());
+
+            for (int i = 0, length = unionNodes.getLength(); i < length; i++) {
+                Node node = unionNodes.item(i);
+                List<Integer> indexes = new ArrayList<>();
+
+                for (int j = 0, size = queryNodes.size(); j < size; j++) {
+                    if (queryNodes.get(j).contains(node)) {
+                        indexes.add(j);
+                    }
+                }
+
+                membership.add(indexes);
+            }
+
+            return membership;
+        } catch (XPathExpressionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lazily parse {@link #SOURCE} into {@link Document}.
+     * @return {@link Document} instance, or null if parsing failed.
+     */
+    private Document document() {
+        if (document == null && !parseFailed) {
+            try {
+                DocumentBuilder builder;
+
+                synchronized (DOCUMENT_FACTORY) {
+                    builder = DOCUMENT_FACTORY.newDocumentBuilder();
+                }
+
+                builder.setErrorHandler(new DefaultHandler());
+                document = builder.parse(new InputSource(new StringReader(SOURCE)));
+            } catch (Exception e) {
+                parseFailed = true;
+            }
+        }
+
+        return document;
+    }
+}
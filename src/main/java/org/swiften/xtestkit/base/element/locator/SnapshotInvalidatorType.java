@@ -0,0 +1,29 @@
+package org.swiften.xtestkit.base.element.locator;
+
+import org.swiften.xtestkit.base.element.property.ElementGeometry;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
+import org.swiften.xtestkit.base.element.property.ElementGeometryProviderType;
+
+/**
+ * Created by haipham on 21/7/17.
+ */
+
+/**
+ * This interface provides a hook to invalidate the cached
+ * {@link PageSourceSnapshot}. Actions that mutate the screen (click, swipe,
+ * input, back navigation) should call {@link #invalidateSnapshot()} once
+ * they are done. Cached {@link ElementGeometry} is discarded at the same
+ * time, since the same actions may move elements around.
+ */
+public interface SnapshotInvalidatorType extends ElementGeometryProviderType {
+    /**
+     * Invalidate the cached {@link PageSourceSnapshot}, if any. The default
+     * implementation only discards cached {@link ElementGeometry} because
+     * snapshot mode is opt-in.
+     * @see ElementGeometryCache#invalidate()
+     * @see #elementGeometryCache()
+     */
+    default void invalidateSnapshot() {
+        elementGeometryCache().invalidate();
+    }
+}
@@ -5,19 +5,27 @@ package org.swiften.xtestkit.base.element.popup;
  */
 
 import io.reactivex.Flowable;
+import io.reactivex.Maybe;
 import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.base.element.click.ClickActionType;
 import org.swiften.xtestkit.base.element.locator.ByXPath;
+import org.swiften.xtestkit.base.element.locator.ByXPathBatch;
 import org.swiften.xtestkit.base.element.locator.LocatorType;
+import org.swiften.xtestkit.base.element.locator.PageSourceSnapshot;
 import org.swiften.xtestkit.base.model.InputHelperType;
 import org.swiften.xtestkitcomponents.platform.PlatformType;
 import org.swiften.xtestkitcomponents.xpath.XPath;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * This interface provides methods to handle popups.
@@ -30,11 +38,12 @@ public interface PopupActionType<D extends WebDriver> extends
 {
     /**
      * Check if a popup corresponding to {@link PopupType} is present
-     * on-screen.
+     * on-screen. This is a read-only check, so no {@link WebElement} is
+     * resolved if snapshot mode is enabled.
      * @param param {@link PopupType} instance.
      * @return {@link Flowable} instance.
      * @see ByXPath.Builder#shouldLogXPath(boolean)
-     * @see #rxe_byXPath(ByXPath...)
+     * @see #rxv_exists(ByXPath...)
      */
     @NotNull
     default Flowable<Boolean> rxv_popupPresent(@NotNull PopupType param) {
@@ -43,11 +52,7 @@ public interface PopupActionType<D extends WebDriver> extends
             .shouldLogXPath(false)
             .build();
 
-        return rxe_byXPath(query)
-            .firstElement()
-            .toFlowable()
-            .map(HPBooleans::toTrue)
-            .onErrorReturnItem(false);
+        return rxv_exists(query);
     }
 
     /**
@@ -82,45 +87,142 @@ public interface PopupActionType<D extends WebDriver> extends
     }
 
     /**
-     * Poll for a popup corresponding to {@link PopupType} with a specified
-     * duration interval, then dismiss it when it appears on-screen.
-     * @param PARAM {@link PopupType} instance.
+     * Find the first {@link PopupType} that is present on-screen, with a
+     * single union xpath query for all of them. Only when something
+     * matched do we need to attribute the match to a {@link PopupType},
+     * which is done with one {@link PageSourceSnapshot} if the xpath can be
+     * evaluated locally, or with individual queries otherwise.
+     * @param PARAM {@link List} of {@link PopupType}.
      * @return {@link Flowable} instance.
+     * @see ByXPathBatch#union(List)
+     * @see ByXPathBatch#unionXPaths()
+     * @see PageSourceSnapshot#matchCount(String)
+     * @see PopupType#presenceXP(InputHelperType)
+     * @see WebDriver#findElements(By)
+     * @see #driver()
+     * @see #driverScheduler()
+     */
+    @NotNull
+    default Flowable<PopupType> rxe_presentPopup(@NotNull final List<? extends PopupType> PARAM) {
+        final PopupActionType<?> THIS = this;
+        final WebDriver DRIVER = driver();
+
+        final List<ByXPath> QUERIES = PARAM.stream()
+            .map(a -> ByXPath.builder()
+                .withXPath(a.presenceXP(THIS))
+                .shouldLogXPath(false)
+                .build())
+            .collect(Collectors.toList());
+
+        final List<String> XPATHS = QUERIES.stream()
+            .map(ByXPath::xpath)
+            .collect(Collectors.toList());
+
+        return Maybe
+            .<PopupType>fromCallable(() -> {
+                boolean present = ByXPathBatch.from(QUERIES)
+                    .unionXPaths().stream()
+                    .map(By::xpath)
+                    .anyMatch(a -> !DRIVER.findElements(a).isEmpty());
+
+                if (!present) {
+                    return null;
+                } else if (PARAM.size() == 1) {
+                    return PARAM.get(0);
+                }
+
+                PageSourceSnapshot snapshot
+                    = PageSourceSnapshot.from(DRIVER.getPageSource());
+
+                for (int i = 0, size = PARAM.size(); i < size; i++) {
+                    String xpath = XPATHS.get(i);
+                    int count = snapshot.matchCount(xpath);
+
+                    if (count > 0 || (count < 0 &&
+                        !DRIVER.findElements(By.xpath(xpath)).isEmpty())
+                    ) {
+                        return PARAM.get(i);
+                    }
+                }
+
+                return null;
+            })
+            .subscribeOn(driverScheduler())
+            .toFlowable();
+    }
+
+    /**
+     * Watch for a {@link List} of {@link PopupType} with a single poller,
+     * and dismiss whichever appears on-screen. Each tick costs one
+     * combined presence check, no matter how many {@link PopupType} are
+     * watched. Ticks are skipped while a driver call is in progress,
+     * whether it runs on {@link #driverScheduler()} or goes through
+     * {@link #driverCall(Runnable)}, so that polling does not compete with
+     * the test's own commands. The
+     * interval doubles, up to {@link #popupMaxPollDuration()}, every time
+     * nothing is found, and is reset after a dismissal.
+     * @param PARAM {@link List} of {@link PopupType}.
+     * @return {@link Flowable} instance that emits true for every
+     * dismissal.
+     * @see #driverBusy()
+     * @see #driverCall(Runnable)
+     * @see #popupMaxPollDuration()
      * @see #popupPollDuration()
-     * @see #platform()
      * @see #rxa_dismissPopup(PopupType)
-     * @see #rxv_popupPresent(PopupType)
+     * @see #rxe_presentPopup(List)
      */
     @NotNull
-    default Flowable<Boolean> rxa_pollAndDismissPopup(@NotNull final PopupType PARAM) {
+    default Flowable<Boolean> rxa_watchPopups(@NotNull final List<? extends PopupType> PARAM) {
+        if (PARAM.isEmpty()) {
+            return Flowable.empty();
+        }
+
         final PopupActionType<?> THIS = this;
+        final long MIN_DELAY = Math.max(1, popupPollDuration());
+        final long MAX_DELAY = Math.max(MIN_DELAY, popupMaxPollDuration());
+        final AtomicLong DELAY = new AtomicLong(MIN_DELAY);
+
+        return Flowable
+            .defer(() -> Flowable.timer(DELAY.get(), TimeUnit.MILLISECONDS))
+            .filter(a -> !THIS.driverBusy())
+            .flatMap(a -> THIS.rxe_presentPopup(PARAM)
+                .flatMap(THIS::rxa_dismissPopup)
+                .defaultIfEmpty(false)
+                .onErrorReturnItem(false))
+            .doOnNext(a -> DELAY.set(a ? MIN_DELAY : Math.min(DELAY.get() * 2, MAX_DELAY)))
+            .filter(HPBooleans::isTrue)
+            .repeat();
+    }
+
+    /**
+     * Poll for a popup corresponding to {@link PopupType}, then dismiss it
+     * when it appears on-screen.
+     * @param PARAM {@link PopupType} instance.
+     * @return {@link Flowable} instance.
+     * @see PopupType#applicableTo(PlatformType)
+     * @see #platform()
+     * @see #rxa_watchPopups(List)
+     */
+    @NotNull
+    default Flowable<Boolean> rxa_pollAndDismissPopup(@NotNull final PopupType PARAM) {
         PlatformType platform = platform();
 
         if (PARAM.applicableTo(platform)) {
-            return Flowable
-                .interval(popupPollDuration(), TimeUnit.MILLISECONDS)
-                .flatMap(a -> THIS.rxv_popupPresent(PARAM))
-                .distinctUntilChanged()
-                .flatMap(a -> {
-                    if (a) {
-                        return THIS.rxa_dismissPopup(PARAM);
-                    } else {
-                        return Flowable.just(a);
-                    }
-                });
+            return rxa_watchPopups(Collections.singletonList(PARAM));
         } else {
             return Flowable.just(true);
         }
     }
 
     /**
-     * Poll and dismiss multiple popups.
+     * Poll and dismiss multiple popups. All applicable {@link PopupType}
+     * share a single poller.
      * @param params {@link PopupType} varargs.
      * @param <T> Generics parameter.
      * @return {@link Flowable} instance.
      * @see PopupType#applicableTo(PlatformType)
      * @see #platform()
-     * @see #rxa_pollAndDismissPopup(PopupType)
+     * @see #rxa_watchPopups(List)
      */
     @NotNull
     @SuppressWarnings("unchecked")
@@ -131,6 +233,8 @@ public interface PopupActionType<D extends WebDriver> extends
         return Flowable.fromArray(params)
             .filter(a -> a.applicableTo(PLATFORM))
             .doOnNext(a -> HPLog.printft("Polling for %s", a))
-            .flatMap(THIS::rxa_pollAndDismissPopup);
+            .toList()
+            .toFlowable()
+            .flatMap(THIS::rxa_watchPopups);
     }
 }
@@ -23,4 +23,14 @@ public interface PopupDelayType {
     default long popupPollDuration() {
         return 1000;
     }
+
+    /**
+     * Get the longest interval the popup watchdog backs off to when no
+     * popup has appeared for a while.
+     * @return {@link Long} value.
+     * @see #popupPollDuration()
+     */
+    default long popupMaxPollDuration() {
+        return 8000;
+    }
 }
@@ -0,0 +1,109 @@
+package org.swiften.xtestkit.base.element.property;
+
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Created by haipham on 26/7/17.
+ */
+
+/**
+ * Use this class to fetch the location and size of a {@link WebElement}
+ * with a single {@link WebElement#getRect()} call, instead of one round
+ * trip for {@link WebElement#getLocation()} and another for
+ * {@link WebElement#getSize()}. Results are cached per {@link WebElement}
+ * by {@link ElementGeometryCache} until it is invalidated, which happens
+ * whenever the cached
+ * {@link org.swiften.xtestkit.base.element.locator.PageSourceSnapshot} is
+ * invalidated, i.e. after every action that may move elements around.
+ */
+public final class ElementGeometry {
+    private final int X;
+    private final int Y;
+    private final int WIDTH;
+    private final int HEIGHT;
+
+    ElementGeometry(int x, int y, int width, int height) {
+        X = x;
+        Y = y;
+        WIDTH = width;
+        HEIGHT = height;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("(%d, %d) %dx%d", X, Y, WIDTH, HEIGHT);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ElementGeometry) {
+            ElementGeometry geometry = (ElementGeometry)obj;
+
+            return X == geometry.X
+                && Y == geometry.Y
+                && WIDTH == geometry.WIDTH
+                && HEIGHT == geometry.HEIGHT;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((X * 31 + Y) * 31 + WIDTH) * 31 + HEIGHT;
+    }
+
+    /**
+     * Get the x coordinate of the top-left corner.
+     * @return {@link Integer} value.
+     */
+    public int x() {
+        return X;
+    }
+
+    /**
+     * Get the y coordinate of the top-left corner.
+     * @return {@link Integer} value.
+     */
+    public int y() {
+        return Y;
+    }
+
+    /**
+     * Get the width.
+     * @return {@link Integer} value.
+     */
+    public int width() {
+        return WIDTH;
+    }
+
+    /**
+     * Get the height.
+     * @return {@link Integer} value.
+     */
+    public int height() {
+        return HEIGHT;
+    }
+
+    /**
+     * Get the top-left corner as a {@link Point}.
+     * @return {@link Point} instance.
+     */
+    @NotNull
+    public Point location() {
+        return new Point(X, Y);
+    }
+
+    /**
+     * Get the size as a {@link Dimension}.
+     * @return {@link Dimension} instance.
+     */
+    @NotNull
+    public Dimension size() {
+        return new Dimension(WIDTH, HEIGHT);
+    }
+}
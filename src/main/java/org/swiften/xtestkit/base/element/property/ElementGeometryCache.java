@@ -0,0 +1,122 @@
+package org.swiften.xtestkit.base.element.property;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.*;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Created by haipham on 26/7/17.
+ */
+
+/**
+ * Use this class to cache {@link ElementGeometry} per {@link WebElement}
+ * for a single driver. Each {@link org.swiften.xtestkit.base.Engine} keeps
+ * its own instance, so that invalidating one engine's geometry does not
+ * throw away another's, and so that a driver that does not support
+ * {@link WebElement#getRect()} does not force every other driver onto the
+ * slower path.
+ */
+public final class ElementGeometryCache {
+    @NotNull private final Map<WebElement,ElementGeometry> CACHE;
+    private volatile boolean rectUnsupported;
+
+    public ElementGeometryCache() {
+        CACHE = new WeakHashMap<>();
+    }
+
+    /**
+     * Get the {@link ElementGeometry} of a {@link WebElement}, fetching it
+     * from the driver if it is not cached.
+     * @param element {@link WebElement} instance.
+     * @return {@link ElementGeometry} instance, or null if the driver did
+     * not return any geometry.
+     * @see #fetch(WebElement)
+     */
+    @Nullable
+    public ElementGeometry find(@NotNull WebElement element) {
+        synchronized (CACHE) {
+            ElementGeometry geometry = CACHE.get(element);
+
+            if (geometry != null) {
+                return geometry;
+            }
+        }
+
+        ElementGeometry geometry = fetch(element);
+
+        if (geometry != null) {
+            synchronized (CACHE) {
+                CACHE.put(element, geometry);
+            }
+        }
+
+        return geometry;
+    }
+
+    /**
+     * Get the {@link ElementGeometry} of a {@link WebElement}, throwing
+     * an {@link Exception} if the driver did not return any geometry.
+     * @param element {@link WebElement} instance.
+     * @return {@link ElementGeometry} instance.
+     * @see #find(WebElement)
+     */
+    @NotNull
+    public ElementGeometry of(@NotNull WebElement element) {
+        ElementGeometry geometry = find(element);
+
+        if (geometry != null) {
+            return geometry;
+        } else {
+            throw new WebDriverException("No geometry for " + element);
+        }
+    }
+
+    /**
+     * Discard all cached {@link ElementGeometry}.
+     * @see #CACHE
+     */
+    public void invalidate() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * Fetch the geometry of a {@link WebElement} from the driver. Drivers
+     * that do not support {@link WebElement#getRect()} are detected on the
+     * first failure, after which the two separate calls are used.
+     * @param element {@link WebElement} instance.
+     * @return {@link ElementGeometry} instance, or null.
+     * @see #rectUnsupported
+     */
+    @Nullable
+    private ElementGeometry fetch(@NotNull WebElement element) {
+        if (!rectUnsupported) {
+            try {
+                Rectangle rect = element.getRect();
+
+                if (rect != null) {
+                    return new ElementGeometry(
+                        rect.getX(), rect.getY(),
+                        rect.getWidth(), rect.getHeight());
+                }
+            } catch (UnsupportedCommandException | UnsupportedOperationException e) {
+                rectUnsupported = true;
+            }
+        }
+
+        Point location = element.getLocation();
+        Dimension size = element.getSize();
+
+        if (location == null || size == null) {
+            return null;
+        }
+
+        return new ElementGeometry(
+            location.getX(), location.getY(),
+            size.getWidth(), size.getHeight());
+    }
+}
@@ -0,0 +1,25 @@
+package org.swiften.xtestkit.base.element.property;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Created by haipham on 26/7/17.
+ */
+
+/**
+ * This interface provides the {@link ElementGeometryCache} that element
+ * geometry is read through.
+ */
+public interface ElementGeometryProviderType {
+    /**
+     * Get the {@link ElementGeometryCache} for the current driver. The
+     * default implementation returns a new, empty instance every time, so
+     * nothing is cached; {@link org.swiften.xtestkit.base.Engine} overrides
+     * this to keep one per driver.
+     * @return {@link ElementGeometryCache} instance.
+     */
+    @NotNull
+    default ElementGeometryCache elementGeometryCache() {
+        return new ElementGeometryCache();
+    }
+}
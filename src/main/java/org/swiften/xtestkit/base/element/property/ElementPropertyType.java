@@ -5,7 +5,6 @@ package org.swiften.xtestkit.base.element.property;
  */
 
 import org.jetbrains.annotations.NotNull;
-import org.openqa.selenium.Dimension;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.bool.HPBooleans;
@@ -21,7 +20,9 @@ import org.swiften.xtestkitcomponents.common.ErrorProviderType;
  * but individual {@link PlatformType}
  * subclasses will need its own implementations.
  */
-public interface ElementPropertyType extends ErrorProviderType {
+public interface ElementPropertyType extends
+    ElementGeometryProviderType, ErrorProviderType
+{
     /**
      * Get text from {@link WebElement}, assuming that this {@link WebElement}
      * is capable of displaying a text.
@@ -47,21 +48,19 @@ public interface ElementPropertyType extends ErrorProviderType {
     }
 
     /**
-     * Check if two {@link WebElement} have the same {@link Point} and
-     * {@link Dimension}.
+     * Check if two {@link WebElement} have the same {@link ElementGeometry}.
      * Since we cannot directly compare two WebElement instances, we can
      * use a proxy method: by comparing their position and dimension.
      * @param element1 {@link WebElement} instance.
      * @param element2 {@link WebElement} instance.
      * @return {@link Boolean} value.
-     * @see WebElement#getLocation()
-     * @see WebElement#getSize()
+     * @see ElementGeometryCache#of(WebElement)
+     * @see #elementGeometryCache()
      */
     default boolean sameOriginAndSize(@NotNull WebElement element1,
                                       @NotNull WebElement element2) {
-        Point l1 = element1.getLocation(), l2 = element2.getLocation();
-        Dimension d1 = element1.getSize(), d2 = element2.getSize();
-        return l1.equals(l2) && d1.equals(d2);
+        ElementGeometryCache cache = elementGeometryCache();
+        return cache.of(element1).equals(cache.of(element2));
     }
 
     /**
@@ -70,20 +69,19 @@ public interface ElementPropertyType extends ErrorProviderType {
      * @param horizontalRatio {@link RLPositionType} instance.
      * @param verticalRatio {@link RLPositionType} instance.
      * @return {@link Point} instance.
-     * @see Dimension#getHeight()
-     * @see Dimension#getWidth()
+     * @see ElementGeometry#height()
+     * @see ElementGeometry#width()
      * @see RLPositionType#dimensionRatio()
-     * @see WebElement#getLocation()
-     * @see WebElement#getSize()
+     * @see ElementGeometryCache#of(WebElement)
+     * @see #elementGeometryCache()
      */
     @NotNull
     default Point coordinate(@NotNull WebElement element,
                              @NotNull RLPositionType horizontalRatio,
                              @NotNull RLPositionType verticalRatio) {
-        Point point = element.getLocation();
-        Dimension size = element.getSize();
-        int x = point.getX(), y = point.getY();
-        int width = size.getWidth(), height = size.getHeight();
+        ElementGeometry geometry = elementGeometryCache().of(element);
+        int x = geometry.x(), y = geometry.y();
+        int width = geometry.width(), height = geometry.height();
         double hRatio = horizontalRatio.dimensionRatio();
         double vRatio = verticalRatio.dimensionRatio();
         int offsetWidth = (int)(width * hRatio);
@@ -10,6 +10,8 @@ import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.util.HPLog;
 import org.swiften.javautilities.object.HPObjects;
+import org.swiften.xtestkit.base.element.property.ElementGeometry;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
 import org.swiften.xtestkitcomponents.direction.Direction;
 
 /**
@@ -199,6 +201,96 @@ public interface MultiSwipeComparisonType extends MultiSwipeType {
         ).flatMap(a -> a);
     }
 
+    /**
+     * Get the distance in pixels between two adjacent child items.
+     * @param first The first {@link WebElement}.
+     * @param second The {@link WebElement} right after the first one.
+     * @return {@link Integer} value, or 0 if it cannot be measured.
+     * @see ElementGeometryCache#find(WebElement)
+     * @see #elementGeometryCache()
+     */
+    default int itemPitch(@NotNull WebElement first, @NotNull WebElement second) {
+        ElementGeometryCache cache = elementGeometryCache();
+        ElementGeometry geometry1 = cache.find(first);
+        ElementGeometry geometry2 = cache.find(second);
+
+        if (geometry1 == null || geometry2 == null) {
+            return 0;
+        }
+
+        int dx = Math.abs(geometry2.x() - geometry1.x());
+        int dy = Math.abs(geometry2.y() - geometry1.y());
+        return Math.max(dx, dy);
+    }
+
+    /**
+     * Get the number of items to scroll by so that the target item ends up
+     * in the middle of the visible items. A positive value means scrolling
+     * towards {@link #firstElementDirection()}, and a negative value
+     * towards {@link #lastElementDirection()}.
+     * @param difference {@link Integer} value, as emitted by
+     *                   {@link #rxe_initialDifference(WebElement)}.
+     * @param visible The number of visible items.
+     * @return {@link Integer} value, or 0 if the target is already visible.
+     */
+    default int plannedItemOffset(int difference, int visible) {
+        int middle = Math.max(0, visible - 1) / 2;
+
+        if (difference <= 0 && -difference < visible) {
+            return 0;
+        }
+
+        return difference + middle;
+    }
+
+    /**
+     * Scroll to the target value with a few precise drags. The item pitch
+     * is measured once from the first two visible child items, so the
+     * exact scroll distance can be computed from
+     * {@link #rxe_initialDifference(WebElement)}. This emits nothing if
+     * the pitch cannot be measured, e.g. when fewer than two items are
+     * visible.
+     * @return {@link Flowable} instance.
+     * @see #itemPitch(WebElement, WebElement)
+     * @see #plannedItemOffset(int, int)
+     * @see #rxa_dragElement(WebElement, Direction, int)
+     * @see #rxe_initialDifference(WebElement)
+     * @see #rxe_scrollableViewToSwipe()
+     * @see #rxe_scrollViewChildItems()
+     */
+    @NotNull
+    default Flowable<Boolean> rxa_swipeAnalytically() {
+        final MultiSwipeComparisonType THIS = this;
+
+        return rxe_scrollViewChildItems()
+            .toList()
+            .toFlowable()
+            .filter(a -> a.size() > 1)
+            .flatMap(a -> {
+                final int VISIBLE = a.size();
+                final int PITCH = THIS.itemPitch(a.get(0), a.get(1));
+
+                if (PITCH <= 0) {
+                    return Flowable.empty();
+                }
+
+                return Flowable.zip(
+                    THIS.rxe_scrollableViewToSwipe(),
+                    THIS.rxe_initialDifference(a.get(0)),
+                    (view, diff) -> {
+                        int offset = THIS.plannedItemOffset(diff, VISIBLE);
+
+                        Direction direction = offset > 0
+                            ? THIS.firstElementDirection()
+                            : THIS.lastElementDirection();
+
+                        HPLog.printft("Scrolling %d items of %dpx", offset, PITCH);
+                        return THIS.rxa_dragElement(view, direction, Math.abs(offset) * PITCH);
+                    }
+                ).flatMap(b -> b);
+            });
+    }
+
     /**
      * Override this method to provide default implementation.
      * @return {@link Flowable} instance.
@@ -232,16 +324,30 @@ public interface MultiSwipeComparisonType extends MultiSwipeType {
     }
 
     /**
-     * Override this method to perform initial swipes.
+     * Override this method to perform initial swipes. We first try to
+     * scroll precisely with {@link #rxa_swipeAnalytically()}, and verify
+     * the result before falling back to {@link #rxa_swipeRecursively()}
+     * for any residual error, so that a correctly positioned list is not
+     * swiped past its target. If the item pitch cannot be measured, we
+     * estimate the number of initial swipes instead.
      * @return {@link Flowable} instance.
      * @see MultiSwipeType#rxa_performAction()
+     * @see #rxa_swipeAnalytically()
      * @see #rxa_swipeInitially()
      * @see #rxa_swipeRecursively()
+     * @see #rxv_shouldKeepSwiping()
      */
     @NotNull
     @Override
     default Flowable<Boolean> rxa_performAction() {
         final MultiSwipeComparisonType THIS = this;
-        return rxa_swipeInitially().flatMap(a -> THIS.rxa_swipeRecursively());
+
+        return rxa_swipeAnalytically()
+            .map(a -> THIS.rxv_shouldKeepSwiping()
+                .defaultIfEmpty(true)
+                .flatMap(b -> b ? THIS.rxa_swipeRecursively() : Flowable.just(true)))
+            .defaultIfEmpty(Flowable.defer(() -> THIS.rxa_swipeInitially()
+                .flatMap(a -> THIS.rxa_swipeRecursively())))
+            .flatMap(a -> a);
     }
 }
@@ -6,11 +6,11 @@ package org.swiften.xtestkit.base.element.swipe;
 
 import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
-import org.openqa.selenium.Dimension;
-import org.openqa.selenium.Point;
 import org.openqa.selenium.WebElement;
+import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.object.HPObjects;
 import org.swiften.javautilities.rx.HPReactives;
+import org.swiften.xtestkit.base.element.property.ElementGeometry;
 import org.swiften.xtestkitcomponents.direction.Direction;
 
 /**
@@ -90,39 +90,38 @@ public interface MultiSwipeType extends SwipeOnceActionType {
     default Flowable<Boolean> rxa_swipeElement(@NotNull WebElement element,
                                                @NotNull Direction direction,
                                                double scrollRatio) {
-        Dimension dimension = element.getSize();
-        Point location = element.getLocation();
-        double height = dimension.getHeight(), width = dimension.getWidth();
+        ElementGeometry geometry = elementGeometryCache().of(element);
+        double height = geometry.height(), width = geometry.width();
         int startX, startY, endX, endY;
 
         /* The direction corresponds to whether the year being searched is
          * after or before the current selected year */
         switch (direction) {
             case UP_DOWN:
-                endY = (int)(location.getY() + height);
+                endY = (int)(geometry.y() + height);
                 startY = (int)(endY - height * scrollRatio);
-                startX = (int)(location.getX() + width / 2);
+                startX = (int)(geometry.x() + width / 2);
                 endX = startX;
                 break;
 
             case DOWN_UP:
-                endY = location.getY();
+                endY = geometry.y();
                 startY = (int)(endY + height * scrollRatio);
-                startX = (int)(location.getX() + width / 2);
+                startX = (int)(geometry.x() + width / 2);
                 endX = startX;
                 break;
 
             case LEFT_RIGHT:
-                endX = (int)(location.getX() + width);
+                endX = (int)(geometry.x() + width);
                 startX = (int)(endX - width * scrollRatio);
-                startY = (int)(location.getY() + height / 2);
+                startY = (int)(geometry.y() + height / 2);
                 endY = startY;
                 break;
 
             case RIGHT_LEFT:
-                endX = location.getX();
+                endX = geometry.x();
                 startX = (int)(endX + width * scrollRatio);
-                startY = (int)(location.getY() + height / 2);
+                startY = (int)(geometry.y() + height / 2);
                 endY = startY;
                 break;
 
@@ -140,4 +139,92 @@ public interface MultiSwipeType extends SwipeOnceActionType {
             .withEndY(endY)
             .build());
     }
+
+    /**
+     * Drag the content of a scrollable view by an exact distance. Unlike
+     * {@link #rxa_swipeElement(WebElement, Direction, double)}, the drag
+     * starts near the leading edge so that the full distance can be
+     * covered, and it is split into several drags if the distance is
+     * longer than the view. Each drag takes {@link SwipeParamType#duration()}
+     * so that it does not fling.
+     * @param element The scrollable {@link WebElement}.
+     * @param direction {@link Direction} instance.
+     * @param distance The distance to drag, in pixels.
+     * @return {@link Flowable} instance.
+     * @see #rxa_swipeOnce(SwipeParamType)
+     */
+    @NotNull
+    default Flowable<Boolean> rxa_dragElement(@NotNull WebElement element,
+                                              @NotNull Direction direction,
+                                              int distance) {
+        final MultiSwipeType THIS = this;
+        ElementGeometry geometry = elementGeometryCache().of(element);
+        int height = geometry.height(), width = geometry.width();
+        final int X = geometry.x(), Y = geometry.y();
+        final int CENTER_X = X + width / 2, CENTER_Y = Y + height / 2;
+        final int MARGIN_X = width / 10, MARGIN_Y = height / 10;
+        int extent;
+
+        switch (direction) {
+            case UP_DOWN:
+            case DOWN_UP:
+                extent = height - MARGIN_Y * 2;
+                break;
+
+            case LEFT_RIGHT:
+            case RIGHT_LEFT:
+                extent = width - MARGIN_X * 2;
+                break;
+
+            case NONE:
+                return Flowable.just(true);
+
+            default:
+                throw new RuntimeException(NOT_AVAILABLE);
+        }
+
+        if (distance <= 0 || extent <= 0) {
+            return Flowable.just(true);
+        }
+
+        final int EXTENT = extent;
+        final int FULL = distance / EXTENT;
+        final int REMAINDER = distance % EXTENT;
+
+        return Flowable
+            .range(0, REMAINDER > 0 ? FULL + 1 : FULL)
+            .map(a -> a < FULL ? EXTENT : REMAINDER)
+            .map(a -> {
+                SwipeParam.Builder builder = SwipeParam.builder();
+
+                switch (direction) {
+                    case UP_DOWN:
+                        return builder
+                            .withStartX(CENTER_X).withEndX(CENTER_X)
+                            .withStartY(Y + MARGIN_Y).withEndY(Y + MARGIN_Y + a)
+                            .build();
+
+                    case DOWN_UP:
+                        return builder
+                            .withStartX(CENTER_X).withEndX(CENTER_X)
+                            .withStartY(Y + height - MARGIN_Y).withEndY(Y + height - MARGIN_Y - a)
+                            .build();
+
+                    case LEFT_RIGHT:
+                        return builder
+                            .withStartX(X + MARGIN_X).withEndX(X + MARGIN_X + a)
+                            .withStartY(CENTER_Y).withEndY(CENTER_Y)
+                            .build();
+
+                    default:
+                        return builder
+                            .withStartX(X + width - MARGIN_X).withEndX(X + width - MARGIN_X - a)
+                            .withStartY(CENTER_Y).withEndY(CENTER_Y)
+                            .build();
+                }
+            })
+            .concatMap(THIS::rxa_swipeOnce)
+            .all(HPBooleans::isTrue)
+            .toFlowable();
+    }
 }
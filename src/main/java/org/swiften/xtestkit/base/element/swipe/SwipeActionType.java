@@ -13,6 +13,8 @@ import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.util.HPLog;
 import org.swiften.javautilities.object.HPObjects;
 import org.swiften.xtestkit.base.element.locator.LocatorType;
+import org.swiften.xtestkit.base.element.property.ElementGeometry;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
 import org.swiften.xtestkit.base.param.DirectionParam;
 import org.swiften.xtestkit.base.type.DriverProviderType;
 import org.swiften.javautilities.protocol.DurationProviderType;
@@ -111,6 +113,8 @@ public interface SwipeActionType<D extends WebDriver> extends
      * @param param {@link P} instance.
      * @param <P> Generics parameter.
      * @return {@link Flowable} instance.
+     * @see ElementGeometryCache#of(WebElement)
+     * @see #elementGeometryCache()
      * @see #rxa_swipeGeneric(Point, Dimension, DirectionProviderType)
      */
     @NotNull
@@ -122,9 +126,10 @@ public interface SwipeActionType<D extends WebDriver> extends
             @NotNull final WebElement ELEMENT,
             @NotNull P param
     ) {
-        Point origin = ELEMENT.getLocation();
-        Dimension size = ELEMENT.getSize();
-        return rxa_swipeGeneric(origin, size, param).map(a -> ELEMENT);
+        ElementGeometry geometry = elementGeometryCache().of(ELEMENT);
+
+        return rxa_swipeGeneric(geometry.location(), geometry.size(), param)
+            .map(a -> ELEMENT);
     }
 
     /**
@@ -5,6 +5,8 @@ import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.protocol.RepeatProviderType;
+import org.swiften.xtestkit.base.element.locator.SnapshotInvalidatorType;
+import org.swiften.xtestkit.base.type.DriverSchedulerProviderType;
 import org.swiften.xtestkitcomponents.common.ErrorProviderType;
 
 import java.util.concurrent.TimeUnit;
@@ -16,7 +18,9 @@ import java.util.concurrent.TimeUnit;
 /**
  * This interface provides methods to perform a single swipe action.
  */
-public interface SwipeOnceActionType extends ErrorProviderType {
+public interface SwipeOnceActionType extends
+    DriverSchedulerProviderType, ErrorProviderType, SnapshotInvalidatorType
+{
     /**
      * Perform a swipe action.
      * @param param {@link SwipeParamType} instance.
@@ -27,6 +31,8 @@ public interface SwipeOnceActionType extends ErrorProviderType {
      * Perform a swipe action.
      * @param PARAM {@link SwipeParamType} instance.
      * @return {@link Flowable} instance.
+     * @see #driverScheduler()
+     * @see #invalidateSnapshot()
      * @see #swipeOnce(SwipeParamType)
      */
     @NotNull
@@ -35,6 +41,8 @@ public interface SwipeOnceActionType extends ErrorProviderType {
 
         return Completable
             .fromAction(() -> THIS.swipeOnce(PARAM))
+            .doOnComplete(THIS::invalidateSnapshot)
+            .subscribeOn(driverScheduler())
             .<Boolean>toFlowable()
             .defaultIfEmpty(true);
     }
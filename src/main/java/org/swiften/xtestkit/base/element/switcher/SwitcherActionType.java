@@ -10,12 +10,13 @@ import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.javautilities.util.HPLog;
+import org.swiften.xtestkit.base.type.DriverSchedulerProviderType;
 
 /**
  * This interface provides methods to handle switcher
  * {@link org.openqa.selenium.WebElement}.
  */
-public interface SwitcherActionType {
+public interface SwitcherActionType extends DriverSchedulerProviderType {
     /**
      * Get the switcher's current value.
      * @param element {@link WebElement} instance.
@@ -51,6 +52,7 @@ public interface SwitcherActionType {
      * set to the target value, do nothing.
      * @param element {@link WebElement} instance.
      * @param on {@link Boolean} value.
+     * @see #driverCall(Runnable)
      * @see #switcherValue(WebElement)
      * @see #switcherOffValue()
      * @see #switcherOnValue()
@@ -61,7 +63,7 @@ public interface SwitcherActionType {
         HPLog.printft("Switcher value: %s, target: %s", currentValue, target);
 
         if (!currentValue.equals(target)) {
-            element.click();
+            driverCall(element::click);
         }
     }
 
@@ -0,0 +1,21 @@
+package org.swiften.xtestkit.base.type;
+
+/**
+ * Created by haipham on 24/7/17.
+ */
+
+/**
+ * This interface provides delay durations for {@link AppiumHandlerType}.
+ */
+public interface AppiumHandlerDelayType {
+    /**
+     * Use this timeout for
+     * {@link AppiumHandlerType#rxa_startAppiumOnNewThread(String)}. If the
+     * Appium server does not report ready within this duration, the
+     * startup fails.
+     * @return {@link Long} value.
+     */
+    default long appiumStartupTimeout() {
+        return 60000;
+    }
+}
@@ -0,0 +1,13 @@
+package org.swiften.xtestkit.base.type;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Created by haipham on 24/7/17.
+ */
+public interface AppiumHandlerErrorType {
+    @NotNull
+    default String appiumNotReady(@NotNull String uri, long timeout) {
+        return String.format("Appium at %s not ready after %d ms", uri, timeout);
+    }
+}
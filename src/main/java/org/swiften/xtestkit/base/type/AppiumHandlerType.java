@@ -4,9 +4,8 @@ package org.swiften.xtestkit.base.type;
  * Created by haipham on 5/28/17.
  */
 
-import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
-import io.reactivex.schedulers.Schedulers;
+import io.reactivex.processors.AsyncProcessor;
 import org.jetbrains.annotations.NotNull;
 import org.swiften.javautilities.bool.HPBooleans;
 import org.swiften.javautilities.protocol.RetryProviderType;
@@ -15,13 +14,13 @@ import org.swiften.javautilities.string.HPStrings;
 import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.base.Address;
 import org.swiften.xtestkit.base.AppiumCommand;
+import org.swiften.xtestkit.base.AppiumStartupCoordinator;
+import org.swiften.xtestkit.base.PortLeaseAllocator;
 import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
 import org.swiften.xtestkitcomponents.system.network.type.NetworkHandlerHolderType;
-import org.swiften.xtestkitcomponents.system.network.type.PortProviderType;
 import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
 import org.swiften.xtestkitcomponents.system.process.ProcessRunnerHolderType;
 
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -32,16 +31,43 @@ import java.util.function.Predicate;
  */
 public interface AppiumHandlerType extends
     AddressProviderType,
+    AppiumHandlerDelayType,
+    AppiumHandlerErrorType,
+    DriverSchedulerProviderType,
     NetworkHandlerHolderType,
     ProcessRunnerHolderType
 {
     /**
-     * This {@link AtomicBoolean} should be used with
+     * This {@link AtomicBoolean} was used with
      * {@link #rxa_startAppiumOnNewThread(String)} to sequentially start new
      * Appium servers.
+     * @deprecated Use {@link #appiumStartupCoordinator()} instead.
      */
+    @Deprecated
     @NotNull AtomicBoolean AVAILABLE_TO_START_APPIUM = new AtomicBoolean(true);
 
+    /**
+     * Get the {@link AppiumStartupCoordinator} used to serialize Appium
+     * startup and probe for readiness.
+     * @return {@link AppiumStartupCoordinator} instance.
+     * @see AppiumStartupCoordinator#sharedInstance()
+     */
+    @NotNull
+    default AppiumStartupCoordinator appiumStartupCoordinator() {
+        return AppiumStartupCoordinator.sharedInstance();
+    }
+
+    /**
+     * Get the {@link PortLeaseAllocator} that local Appium servers lease
+     * their ports from.
+     * @return {@link PortLeaseAllocator} instance.
+     * @see PortLeaseAllocator#appiumPorts()
+     */
+    @NotNull
+    default PortLeaseAllocator appiumPortAllocator() {
+        return PortLeaseAllocator.appiumPorts();
+    }
+
     /**
      * Command to detect where appium is installed.
      * @return {@link String} value.
@@ -119,58 +145,80 @@ public interface AppiumHandlerType extends
 
     /**
      * Start a local Appium instance. This will be run on a different thread.
+     * Servers are spawned one at a time using the fair permit from
+     * {@link #appiumStartupCoordinator()}, but the permit is given back as
+     * soon as the process is spawned. The resulting {@link Flowable} emits
+     * as soon as the server responds on {@link Address#statusUri()}, or
+     * errors if the process fails or {@link #appiumStartupTimeout()} elapses
+     * first. The port is leased to {@link #address()}; if the server fails
+     * to start, whatever is left of it is killed before the port is given
+     * back.
      * @param CLI The path to Appium CLI. {@link String} value.
      * @return {@link Flowable} instance.
      * @see Address#setPort(int)
-     * @see HPBooleans#toTrue(Object)
-     * @see HPBooleans#isFalse(boolean)
-     * @see NetworkHandler#rxa_checkUntilPortAvailable(PortProviderType)
+     * @see Address#statusUri()
+     * @see AppiumStartupCoordinator#rxa_awaitReady(String, long)
+     * @see AppiumStartupCoordinator#rxa_withPermit(Flowable)
+     * @see NetworkHandler#rxa_killWithPort(RetryProviderType, Predicate)
+     * @see PortLeaseAllocator#rxa_lease(Object, RetryProviderType)
+     * @see PortLeaseAllocator#release(int, Object)
      * @see ProcessRunner#execute(String, Consumer, Consumer)
      * @see #address()
+     * @see #appiumPortAllocator()
+     * @see #appiumStartupCoordinator()
+     * @see #appiumStartupTimeout()
      * @see #networkHandler()
      * @see #processRunner()
+     * @see #isAppiumProcess(String)
      * @see #cm_startLocalAppium(String, int)
-     * @see #AVAILABLE_TO_START_APPIUM
      */
     @SuppressWarnings("unchecked")
     default Flowable<Boolean> rxa_startAppiumOnNewThread(@NotNull final String CLI) {
         final AppiumHandlerType THIS = this;
         final ProcessRunner RUNNER = processRunner();
         final Address ADDRESS = address();
-        NetworkHandler networkHandler = networkHandler();
+        final AppiumStartupCoordinator COORDINATOR = appiumStartupCoordinator();
+        final long TIMEOUT = appiumStartupTimeout();
+        final PortLeaseAllocator ALLOCATOR = appiumPortAllocator();
 
-        return networkHandler.rxa_checkUntilPortAvailable(ADDRESS)
+        return ALLOCATOR.rxa_lease(ADDRESS, ADDRESS)
             .doOnNext(ADDRESS::setPort)
-            .flatMap(a -> Flowable.<Boolean>create(o -> {
+            .flatMap(a -> {
                 final String COMMAND = THIS.cm_startLocalAppium(CLI, a);
 
-                for (;;) {
-                    if (AVAILABLE_TO_START_APPIUM.getAndSet(false)) {
-                        /* We need to start a new thread because this
-                         * operation blocks */
-                        new Thread(() -> {
-                            Consumer<String> cs = HPLog::println;
-                            RUNNER.execute(COMMAND, cs, o::onError);
-                        }).start();
-
-                        /* Sleep for a while to straddle the initialization
-                         * of Appium instances */
-                        try {
-                            TimeUnit.MILLISECONDS.sleep(5000);
-                        } catch (InterruptedException e) {
-                            o.onError(e);
-                        } finally {
-                            AVAILABLE_TO_START_APPIUM.set(true);
-                            o.onNext(true);
-                            o.onComplete();
-                        }
-
-                        break;
-                    }
-                }
-            }, BackpressureStrategy.BUFFER
-            ).subscribeOn(Schedulers.computation())
-            ).serialize();
+                /* This never emits, but fails if the process does, so that
+                 * we do not wait until the deadline for a dead server */
+                final AsyncProcessor<Boolean> PROCESS = AsyncProcessor.create();
+
+                Flowable<Boolean> spawn = Flowable.fromCallable(() -> {
+                    /* We need to start a new thread because this
+                     * operation blocks */
+                    new Thread(() -> {
+                        Consumer<String> cs = HPLog::println;
+                        RUNNER.execute(COMMAND, cs, PROCESS::onError);
+                    }).start();
+
+                    return true;
+                });
+
+                String statusUri = ADDRESS.statusUri();
+                Flowable<Boolean> ready = COORDINATOR.rxa_awaitReady(statusUri, TIMEOUT);
+
+                /* The permit only covers spawning, so that servers that are
+                 * booting do not hold up each other's readiness checks */
+                return COORDINATOR.rxa_withPermit(spawn)
+                    .flatMap(b -> Flowable.ambArray(ready, PROCESS))
+                    .onErrorResumeNext((Throwable e) -> THIS.networkHandler()
+                        /* A server that missed the deadline may still be
+                         * running, so it must die before the port is
+                         * leased again */
+                        .rxa_killWithPort(ADDRESS, THIS::isAppiumProcess)
+                        .ignoreElements()
+                        .onErrorComplete()
+                        .andThen(Flowable.<Boolean>error(e)));
+            })
+            .doOnError(e -> ALLOCATOR.release(ADDRESS.port(), ADDRESS))
+            .serialize();
     }
 
     /**
@@ -0,0 +1,48 @@
+package org.swiften.xtestkit.base.type;
+
+/**
+ * Created by haipham on 23/7/17.
+ */
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This interface provides the {@link Scheduler} on which blocking driver
+ * calls should be performed.
+ */
+public interface DriverSchedulerProviderType {
+    /**
+     * Get the {@link Scheduler} for blocking driver calls. The default
+     * implementation uses {@link Schedulers#io()};
+     * {@link org.swiften.xtestkit.base.Engine} overrides this to use its own
+     * bounded {@link org.swiften.xtestkit.base.DriverScheduler}.
+     * @return {@link Scheduler} instance.
+     */
+    @NotNull
+    default Scheduler driverScheduler() {
+        return Schedulers.io();
+    }
+
+    /**
+     * Check whether a blocking driver call is in progress. The default
+     * implementation cannot tell, so it always returns false.
+     * @return {@link Boolean} value.
+     * @see org.swiften.xtestkit.base.DriverScheduler#isBusy()
+     */
+    default boolean driverBusy() {
+        return false;
+    }
+
+    /**
+     * Perform a blocking driver call on the current thread, so that
+     * {@link #driverBusy()} reports it while it runs. The default
+     * implementation simply runs it.
+     * @param action {@link Runnable} instance.
+     * @see org.swiften.xtestkit.base.DriverScheduler#track(Runnable)
+     */
+    default void driverCall(@NotNull Runnable action) {
+        action.run();
+    }
+}
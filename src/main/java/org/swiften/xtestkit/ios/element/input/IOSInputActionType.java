@@ -21,13 +21,14 @@ public interface IOSInputActionType extends InputActionType<IOSDriver<IOSElement
      * @param element {@link WebElement} instance.
      * @param text A varargs of {@link String} values.
      * @see InputActionType#sendValue(WebElement, String)
+     * @see #driverCall(Runnable)
      */
     @Override
     default void sendValue(@NotNull WebElement element, @NotNull String text) {
         HPLog.printft("Sending '%s' to %s", text, element);
 
         if (element instanceof IOSElement) {
-            ((IOSElement) element).setValue(text);
+            driverCall(() -> ((IOSElement) element).setValue(text));
         } else {
             InputActionType.super.sendValue(element, text);
         }
@@ -10,10 +10,14 @@ import org.swiften.javautilities.localizer.Localizer;
 import org.swiften.javautilities.localizer.LocalizerProviderType;
 import org.swiften.javautilities.localizer.LocalizerType;
 import org.swiften.javautilities.object.HPObjects;
+import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.xtestkit.android.AndroidEngine;
+import org.swiften.xtestkit.android.AndroidInstance;
+import org.swiften.xtestkit.base.AppiumServerPool;
 import org.swiften.xtestkit.base.Engine;
+import org.swiften.xtestkit.base.TestMode;
 import org.swiften.xtestkit.mobile.Platform;
 import org.swiften.xtestkit.test.RepeatRunner;
 import org.swiften.xtestkit.test.TestListenerType;
@@ -44,12 +48,16 @@ public class TestKit implements
     @NotNull private final ProcessRunner PROCESS_RUNNER;
     @NotNull private final NetworkHandler NETWORK_HANDLER;
     @NotNull private final List<Engine> ENGINES;
+    @NotNull private int[] engineGroups;
     @Nullable private LocalizerType localizer;
+    @Nullable private AppiumServerPool serverPool;
+    private int emulatorBootConcurrency;
 
     TestKit() {
         PROCESS_RUNNER = new ProcessRunner();
         NETWORK_HANDLER = new NetworkHandler();
         ENGINES = new LinkedList<>();
+        engineGroups = new int[0];
     }
 
     //region RepeatRunner.ParameterConsumer
@@ -59,23 +67,62 @@ public class TestKit implements
      * {@link AndroidEngine}, we
      * return immediately because usually each {@link Platform} CLI tools do
      * not allow two different instances running at the same time.
+     *
+     * This is called for every batch, so it only looks up
+     * {@link #engineGroups} and does not allocate.
      * @param indexes An Array of {@link Integer}.
      * @return {@link Integer} value.
+     * @see #engineGroup(int)
      */
     @Override
-    @SuppressWarnings("unchecked")
     public int consumptionCount(@NotNull int[] indexes) {
-        TestSubscriber subscriber = CustomTestSubscriber.create();
+        int count = 0;
+
+        if (engineGroups.length <= Long.SIZE) {
+            long seen = 0;
+
+            for (int index : indexes) {
+                long bit = 1L << engineGroup(index);
+
+                if ((seen & bit) == 0) {
+                    seen |= bit;
+                    count += 1;
+                }
+            }
+        } else {
+            outer: for (int i = 0, length = indexes.length; i < length; i++) {
+                int group = engineGroup(indexes[i]);
+
+                for (int j = 0; j < i; j++) {
+                    if (engineGroup(indexes[j]) == group) {
+                        continue outer;
+                    }
+                }
+
+                count += 1;
+            }
+        }
 
-        Flowable
-            .fromArray(HPBoxes.box(indexes))
-            .map(this::engine)
-            .distinct(Engine::comparisonObject)
-            .count()
-            .toFlowable()
-            .subscribe(subscriber);
+        return count;
+    }
 
-        return HPReactives.<Long>firstNextEvent(subscriber).intValue();
+    /**
+     * Get the distinct group id of the {@link Engine} at an index. Two
+     * {@link Engine} share a group id if their
+     * {@link Engine#comparisonObject()} are equal.
+     * @param index {@link Integer} value.
+     * @return {@link Integer} value.
+     * @see #engineGroups
+     * @see #NOT_AVAILABLE
+     */
+    public int engineGroup(int index) {
+        int[] groups = engineGroups;
+
+        if (index > -1 && index < groups.length) {
+            return groups[index];
+        }
+
+        throw new RuntimeException(NOT_AVAILABLE);
     }
     //endregion
 
@@ -93,15 +140,78 @@ public class TestKit implements
         return Flowable.fromIterable(engines()).distinct(Engine::getClass);
     }
 
+    /**
+     * Override this method to provide default implementation. If
+     * {@link #appiumServerPool()} is available, warm Appium servers are
+     * spawned before any test starts. Emulators are also booted up front
+     * if {@link #emulatorBootConcurrency()} is positive.
+     * @return {@link Flowable} instance.
+     * @see AppiumServerPool#rxa_prespawn()
+     * @see #appiumServerPool()
+     * @see #rxa_killAllAppiumInstances()
+     * @see #rxa_provisionEmulators()
+     * @see #rxe_distinctEngines()
+     */
     @NotNull
     @Override
     @SuppressWarnings("unchecked")
     public Flowable<Boolean> rxa_onFreshStart() {
         final TestKit THIS = this;
+        final AppiumServerPool POOL = appiumServerPool();
 
         return rxa_killAllAppiumInstances()
+            .concatMap(a -> POOL != null ? POOL.rxa_prespawn() : Flowable.just(true))
             .concatMap(a -> THIS.rxe_distinctEngines())
-            .concatMap(Engine::rxa_onFreshStart);
+            .concatMap(Engine::rxa_onFreshStart)
+            .all(HPObjects::nonNull)
+            .toFlowable()
+            .concatMap(a -> THIS.rxa_provisionEmulators());
+    }
+
+    /**
+     * Boot the emulators for all simulated {@link AndroidEngine} before any
+     * test starts, at most {@link #emulatorBootConcurrency()} at a time.
+     * Ports are leased in parallel, since each lease is atomic, and every
+     * AVD starts booting as soon as its port is leased. Engines that share
+     * an AVD share its emulator: the port assigned to the first of them is
+     * given to the others as well, so each AVD is only booted once, and
+     * {@link AndroidEngine#rxa_provisionEmulator(RetryProviderType)} later
+     * skips it for every engine because it is already running.
+     * @return {@link Flowable} instance.
+     * @see AndroidEngine#rxa_assignEmulatorPort(RetryProviderType)
+     * @see AndroidEngine#rxa_bootEmulator()
+     * @see AndroidInstance#setPort(int)
+     * @see TestMode#isTestingOnSimulatedEnvironment()
+     * @see #emulatorBootConcurrency()
+     * @see #engines()
+     */
+    @NotNull
+    public Flowable<Boolean> rxa_provisionEmulators() {
+        final RetryProviderType RETRY = RetryProviderType.DEFAULT;
+        int concurrency = emulatorBootConcurrency();
+
+        if (concurrency < 1) {
+            return Flowable.just(true);
+        }
+
+        return Flowable.fromIterable(engines())
+            .ofType(AndroidEngine.class)
+            .filter(a -> a.testMode().isTestingOnSimulatedEnvironment())
+            .toMultimap(AndroidEngine::deviceName, a -> a, LinkedHashMap::new)
+            .flattenAsFlowable(Map::values)
+            .flatMap(a -> {
+                final List<AndroidEngine> ENGINES = new ArrayList<>(a);
+                final AndroidEngine FIRST = ENGINES.get(0);
+
+                return FIRST.rxa_assignEmulatorPort(RETRY)
+                    .doOnNext(b -> ENGINES.forEach(c -> c.androidInstance().setPort(b)))
+                    .map(b -> FIRST);
+            })
+
+            /* A failed boot is retried by the engine in rxa_beforeClass */
+            .flatMap(a -> a.rxa_bootEmulator().onErrorReturnItem(false), concurrency)
+            .all(HPObjects::nonNull)
+            .toFlowable();
     }
 
     /**
@@ -148,15 +258,41 @@ public class TestKit implements
             .defaultIfEmpty(true);
     }
 
+    /**
+     * Override this method to provide default implementation.
+     * @return {@link Flowable} instance.
+     * @see AndroidEngine#stopEmulators()
+     * @see AppiumServerPool#rxa_shutdown()
+     * @see #appiumServerPool()
+     * @see #rxa_killAllAppiumInstances()
+     * @see #rxe_distinctEngines()
+     */
     @NotNull
     @Override
     @SuppressWarnings("unchecked")
     public Flowable<Boolean> rxa_onAllTestsFinished() {
         final TestKit THIS = this;
+        final AppiumServerPool POOL = appiumServerPool();
+        final List<Engine> ENGINES = engines();
 
-        return rxa_killAllAppiumInstances()
+        /* Reused driver sessions must be quit while their servers are
+         * still alive */
+        return Flowable.fromIterable(ENGINES)
+            .concatMap(Engine::rxa_evictSession)
+            .all(HPObjects::nonNull)
+            .toFlowable()
+            .concatMap(a -> POOL != null ? POOL.rxa_shutdown() : Flowable.just(true))
+            .onErrorReturnItem(true)
+            .concatMap(a -> THIS.rxa_killAllAppiumInstances())
             .concatMap(a -> THIS.rxe_distinctEngines())
-            .concatMap(Engine::rxa_onAllTestsFinished);
+            .concatMap(Engine::rxa_onAllTestsFinished)
+
+            /* Engines that share an AVD are not all distinct, but any of
+             * them may have launched its emulator */
+            .doFinally(() -> ENGINES.stream()
+                .filter(AndroidEngine.class::isInstance)
+                .map(AndroidEngine.class::cast)
+                .forEach(AndroidEngine::stopEmulators));
     }
     //endregion
 
@@ -197,6 +333,27 @@ public class TestKit implements
         return NETWORK_HANDLER;
     }
 
+    /**
+     * Get {@link #serverPool}.
+     * @return {@link AppiumServerPool} instance, or null if Appium servers
+     * are not pooled.
+     * @see #serverPool
+     */
+    @Nullable
+    public AppiumServerPool appiumServerPool() {
+        return serverPool;
+    }
+
+    /**
+     * Get {@link #emulatorBootConcurrency}.
+     * @return {@link Integer} value, 0 if emulators are booted lazily by
+     * each {@link AndroidEngine}.
+     * @see #emulatorBootConcurrency
+     */
+    public int emulatorBootConcurrency() {
+        return emulatorBootConcurrency;
+    }
+
     /**
      * Get an unmodifiable {@link #ENGINES} clone.
      * @return {@link List} of {@link Engine}.
@@ -332,6 +489,41 @@ public class TestKit implements
             return this;
         }
 
+        /**
+         * Share a pool of local Appium servers among {@link #TEST_KIT#ENGINES},
+         * so that servers are reused across test classes and batches.
+         * @param size The number of servers to spawn up front.
+         * @return {@link Builder} instance.
+         * @see AppiumServerPool.Builder#withSize(int)
+         */
+        @NotNull
+        public Builder withAppiumServerPool(int size) {
+            TestKit kit = TEST_KIT;
+
+            kit.serverPool = AppiumServerPool.builder()
+                .withSize(size)
+                .withProcessRunner(kit.processRunner())
+                .withNetworkHandler(kit.networkHandler())
+                .build();
+
+            return this;
+        }
+
+        /**
+         * Boot the emulators of all simulated {@link AndroidEngine} in
+         * parallel before any test starts, instead of one by one in each
+         * test class.
+         * @param concurrency The maximum number of emulators booting at
+         *                    the same time.
+         * @return {@link Builder} instance.
+         * @see #TEST_KIT#emulatorBootConcurrency
+         */
+        @NotNull
+        public Builder withParallelEmulatorBoot(int concurrency) {
+            TEST_KIT.emulatorBootConcurrency = Math.max(0, concurrency);
+            return this;
+        }
+
         /**
          * Add a new {@link ResourceBundle} to {@link #TEST_KIT#localizer}.
          * @param name The name of the {@link ResourceBundle}.
@@ -353,9 +545,39 @@ public class TestKit implements
             final TestKit KIT = TEST_KIT;
             List<Engine> engines = KIT.engines();
             engines.forEach(a -> a.setLocalizer(localizer));
+            engines.forEach(a -> a.setAppiumServerPool(KIT.serverPool));
             KIT.localizer = localizer;
+            KIT.engineGroups = engineGroups(engines);
             return KIT;
         }
+
+        /**
+         * Assign each {@link Engine} the id of its distinct group, in the
+         * order the groups first appear. This is computed once here so that
+         * {@link TestKit#consumptionCount(int[])} does not need to compare
+         * {@link Engine#comparisonObject()} for every batch.
+         * @param engines {@link List} of {@link Engine}.
+         * @return An Array of {@link Integer}.
+         */
+        @NotNull
+        private int[] engineGroups(@NotNull List<Engine> engines) {
+            Map<Object,Integer> groups = new HashMap<>();
+            int[] indexes = new int[engines.size()];
+
+            for (int i = 0, size = indexes.length; i < size; i++) {
+                Object key = engines.get(i).comparisonObject();
+                Integer group = groups.get(key);
+
+                if (group == null) {
+                    group = groups.size();
+                    groups.put(key, group);
+                }
+
+                indexes[i] = group;
+            }
+
+            return indexes;
+        }
     }
     //endregion
 }
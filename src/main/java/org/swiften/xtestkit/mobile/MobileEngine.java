@@ -164,6 +164,19 @@ public abstract class MobileEngine<D extends MobileDriver> extends
             .all(HPObjects::nonNull)
             .toFlowable();
     }
+
+    /**
+     * Override this method to provide default implementation. A reused
+     * session keeps the app running, so close it to start from scratch.
+     * @return {@link Flowable} instance.
+     * @see Engine#rxa_resetSession()
+     * @see #rxa_resetApp()
+     */
+    @NotNull
+    @Override
+    public Flowable<Boolean> rxa_resetSession() {
+        return rxa_resetApp();
+    }
     //endregion
 
     //region Appium Setup
@@ -21,14 +21,18 @@ public interface MobileTapType<D extends MobileDriver> extends
 {
     /**
      * Override to use {@link MobileTouchActionType#tap(MobileDriver, TapParamType)}.
+     * A tap may move elements around, so cached geometry is discarded.
      * @param param {@link TapParamType} instance.
      * @param <P> Generics parameter.
      * @see #driver()
+     * @see #driverCall(Runnable)
+     * @see #invalidateSnapshot()
      * @see #touchAction()
      * @see MobileTouchActionType#tap(MobileDriver, TapParamType)
      */
     @Override
     default <P extends TapParamType & RetryProviderType> void tap(@NotNull P param) {
-        touchAction().tap(driver(), param);
+        driverCall(() -> touchAction().tap(driver(), param));
+        invalidateSnapshot();
     }
 }
@@ -0,0 +1,52 @@
+package org.swiften.xtestkit.navigation;
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Created by haipham on 5/20/17.
+ */
+
+/**
+ * This interface provides methods to save the app state once a
+ * {@link ScreenType} has been reached, and to restore it later. When
+ * {@link ScreenManagerType#navigationCheckpoint()} returns an instance,
+ * {@link ScreenManagerType#rxa_navigate(Object, ScreenType...)} restores
+ * the nearest checkpoint on the route instead of walking every
+ * {@link ScreenManagerType.Node} from the start.
+ */
+public interface NavigationCheckpointType {
+    /**
+     * Check whether a checkpoint has been saved for a {@link ScreenType}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link Boolean} value.
+     */
+    boolean hasCheckpoint(@NotNull ScreenType screen);
+
+    /**
+     * Save the current app state as the checkpoint of a
+     * {@link ScreenType}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    Flowable<Boolean> rxa_saveCheckpoint(@NotNull ScreenType screen);
+
+    /**
+     * Restore the app state saved for a {@link ScreenType}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link Flowable} instance.
+     */
+    @NotNull
+    Flowable<Boolean> rxa_restoreCheckpoint(@NotNull ScreenType screen);
+
+    /**
+     * Get the expected time it takes to restore a checkpoint. Checkpoints
+     * are only restored if walking to them would take at least as long.
+     * @return {@link Long} value, in milliseconds.
+     * @see NavigationGraph#weight(ScreenManagerType.Node)
+     */
+    default long restoreCost() {
+        return 0;
+    }
+}
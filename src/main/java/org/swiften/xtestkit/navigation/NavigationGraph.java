@@ -0,0 +1,342 @@
+package org.swiften.xtestkit.navigation;
+
+import org.jetbrains.annotations.NotNull;
+import org.swiften.xtestkit.navigation.ScreenManagerType.Node;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Created by haipham on 5/20/17.
+ */
+
+/**
+ * Use this class to index the {@link Node} registered with a
+ * {@link ScreenManagerType}, so that routes do not have to be searched for
+ * by filtering all {@link Node} on every step. Adjacency lists are built
+ * once per registration, and each origin {@link ScreenType} runs one
+ * Dijkstra search whose result answers every destination. After warm-up,
+ * {@link #route(ScreenType, ScreenType)} is a lookup.
+ *
+ * Each {@link Node} weighs its animation delay plus the average time its
+ * {@link NavigationSupplier} took so far, so routes are the fastest rather
+ * than the ones with the fewest hops. Ties are broken by hop count.
+ *
+ * The graph is rebuilt when {@link #invalidate()} is called, or when the
+ * number of registered {@link Node} changes.
+ */
+public final class NavigationGraph {
+    /**
+     * Graphs created by {@link #of(ScreenManagerType)}, so that
+     * {@link ScreenManagerType} implementations that do not keep their own
+     * {@link NavigationGraph} still get the same instance every time.
+     */
+    @NotNull private static final Map<ScreenManagerType,NavigationGraph> GRAPHS
+        = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Get the shared {@link NavigationGraph} of a {@link ScreenManagerType}.
+     * The graph only keeps a weak reference to its manager, so neither
+     * outlives the manager.
+     * @param manager {@link ScreenManagerType} instance.
+     * @return {@link NavigationGraph} instance.
+     * @see #GRAPHS
+     */
+    @NotNull
+    public static NavigationGraph of(@NotNull ScreenManagerType manager) {
+        return GRAPHS.computeIfAbsent(manager, NavigationGraph::new);
+    }
+
+    @NotNull private final WeakReference<ScreenManagerType> MANAGER;
+    @NotNull private final Map<ScreenType,List<Node>> FORWARD;
+    @NotNull private final Map<ScreenType,List<Node>> BACKWARD;
+    @NotNull private final Map<ScreenType,Map<ScreenType,List<Node>>> ROUTES;
+    @NotNull private final Map<Node,long[]> DURATIONS;
+    @NotNull private final Set<ScreenType> SCREENS;
+    private int forwardCount;
+    private int backwardCount;
+    private boolean valid;
+
+    public NavigationGraph(@NotNull ScreenManagerType manager) {
+        MANAGER = new WeakReference<>(manager);
+        FORWARD = new HashMap<>();
+        BACKWARD = new HashMap<>();
+        ROUTES = new HashMap<>();
+        DURATIONS = new HashMap<>();
+        SCREENS = new LinkedHashSet<>();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("Navigation graph with %d screens", FORWARD.size());
+    }
+
+    /**
+     * Discard the adjacency lists and all cached routes. This should be
+     * called whenever {@link Node} are added or cleared.
+     * @see ScreenManagerType#register(ScreenType)
+     * @see ScreenManagerType#clearAllNodes()
+     */
+    public synchronized void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Get all {@link ScreenType} that appear in registered {@link Node}, in
+     * the order they were registered.
+     * @return {@link List} of {@link ScreenType}.
+     * @see #SCREENS
+     */
+    @NotNull
+    public synchronized List<ScreenType> screens() {
+        sync();
+        return new ArrayList<>(SCREENS);
+    }
+
+    /**
+     * Get the forward {@link Node} that start from a {@link ScreenType}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link List} of {@link Node}.
+     * @see #FORWARD
+     */
+    @NotNull
+    public synchronized List<Node> forwardNodes(@NotNull ScreenType screen) {
+        sync();
+        return FORWARD.getOrDefault(screen, Collections.emptyList());
+    }
+
+    /**
+     * Get the backward {@link Node} that start from a {@link ScreenType}.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link List} of {@link Node}.
+     * @see #BACKWARD
+     */
+    @NotNull
+    public synchronized List<Node> backwardNodes(@NotNull ScreenType screen) {
+        sync();
+        return BACKWARD.getOrDefault(screen, Collections.emptyList());
+    }
+
+    /**
+     * Get the first non-dummy forward {@link Node} that connects two
+     * {@link ScreenType}.
+     * @param from The origin {@link ScreenType} instance.
+     * @param to The destination {@link ScreenType} instance.
+     * @return {@link Optional} instance.
+     * @see #forwardNodes(ScreenType)
+     * @see Node#connects(ScreenType, ScreenType)
+     */
+    @NotNull
+    public synchronized Optional<Node> node(@NotNull ScreenType from,
+                                            @NotNull ScreenType to) {
+        for (Node node : forwardNodes(from)) {
+            if (node.isNotDummy() && node.connects(from, to)) {
+                return Optional.of(node);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Record how long the {@link NavigationSupplier} of a {@link Node} took.
+     * Cached routes are discarded when this changes the weight of the
+     * {@link Node} noticeably, so that later routes prefer faster
+     * {@link Node}. Durations survive {@link #invalidate()}.
+     * @param node {@link Node} instance.
+     * @param millis {@link Long} value.
+     * @see #weight(Node)
+     */
+    public synchronized void recordDuration(@NotNull Node node, long millis) {
+        if (node.isDummy() || millis < 0) {
+            return;
+        }
+
+        long[] duration = DURATIONS.computeIfAbsent(node, a -> new long[2]);
+        long previous = duration[1] > 0 ? duration[0] / duration[1] : -1;
+        duration[0] += millis;
+        duration[1] += 1;
+        long current = duration[0] / duration[1];
+
+        if (previous < 0 || Math.abs(current - previous) * 10 > previous) {
+            ROUTES.clear();
+        }
+    }
+
+    /**
+     * Get the weight of a {@link Node}, i.e. its animation delay plus the
+     * average time its {@link NavigationSupplier} took.
+     * @param node {@link Node} instance.
+     * @return {@link Long} value, in milliseconds.
+     * @see #DURATIONS
+     */
+    public synchronized long weight(@NotNull Node node) {
+        long[] duration = DURATIONS.get(node);
+        long delay = node.TIME_UNIT.toMillis(node.DELAY);
+        return delay + (duration != null && duration[1] > 0 ? duration[0] / duration[1] : 0);
+    }
+
+    /**
+     * Get the fastest route from one {@link ScreenType} to another. Forward
+     * and backward {@link Node} are weighed alike, so we backtrack whenever
+     * that is faster, not just out of dead ends and loops.
+     * @param from The origin {@link ScreenType} instance.
+     * @param to The destination {@link ScreenType} instance.
+     * @return {@link List} of {@link Node}. This is a single dummy
+     * {@link Node} if both {@link ScreenType} are the same, or empty if the
+     * destination cannot be reached.
+     * @see #routes(ScreenType)
+     */
+    @NotNull
+    public synchronized List<Node> route(@NotNull ScreenType from,
+                                         @NotNull ScreenType to) {
+        if (from.equals(to)) {
+            return Collections.singletonList(Node.dummy(from));
+        }
+
+        sync();
+        return routes(from).getOrDefault(to, Collections.emptyList());
+    }
+
+    /**
+     * Get the cached routes from an origin {@link ScreenType} to every
+     * reachable {@link ScreenType}, running a Dijkstra search if
+     * necessary.
+     * @param from The origin {@link ScreenType} instance.
+     * @return {@link Map} instance.
+     * @see #edges(ScreenType)
+     * @see #weight(Node)
+     */
+    @NotNull
+    private Map<ScreenType,List<Node>> routes(@NotNull ScreenType from) {
+        Map<ScreenType,List<Node>> routes = ROUTES.get(from);
+
+        if (routes != null) {
+            return routes;
+        }
+
+        /* Each entry is {cost, hops}, compared in that order */
+        Comparator<long[]> order = Comparator
+            .<long[]>comparingLong(a -> a[0])
+            .thenComparingLong(a -> a[1]);
+
+        Map<ScreenType,long[]> costs = new HashMap<>();
+        Map<ScreenType,Node> parents = new HashMap<>();
+        Set<ScreenType> settled = new HashSet<>();
+        PriorityQueue<Map.Entry<ScreenType,long[]>> queue = new PriorityQueue<>(
+            (a, b) -> order.compare(a.getValue(), b.getValue()));
+
+        costs.put(from, new long[] { 0, 0 });
+        queue.add(new AbstractMap.SimpleImmutableEntry<>(from, costs.get(from)));
+
+        while (!queue.isEmpty()) {
+            Map.Entry<ScreenType,long[]> entry = queue.poll();
+            ScreenType current = entry.getKey();
+
+            if (!settled.add(current)) {
+                continue;
+            }
+
+            long[] cost = entry.getValue();
+
+            for (Node node : edges(current)) {
+                long[] next = new long[] { cost[0] + weight(node), cost[1] + 1 };
+                long[] known = costs.get(node.S2);
+
+                if (!settled.contains(node.S2) && (known == null || order.compare(next, known) < 0)) {
+                    costs.put(node.S2, next);
+                    parents.put(node.S2, node);
+                    queue.add(new AbstractMap.SimpleImmutableEntry<>(node.S2, next));
+                }
+            }
+        }
+
+        routes = new HashMap<>();
+
+        for (ScreenType screen : parents.keySet()) {
+            LinkedList<Node> route = new LinkedList<>();
+
+            for (Node node = parents.get(screen); node != null; node = parents.get(node.S1)) {
+                route.addFirst(node);
+            }
+
+            routes.put(screen, Collections.unmodifiableList(route));
+        }
+
+        ROUTES.put(from, routes);
+        return routes;
+    }
+
+    /**
+     * Get the {@link Node} that can be used to leave a {@link ScreenType},
+     * i.e. both its forward and backward {@link Node}. There is no need to
+     * avoid going back to where we came from, since settled
+     * {@link ScreenType} are never revisited.
+     * @param screen {@link ScreenType} instance.
+     * @return {@link List} of {@link Node}.
+     */
+    @NotNull
+    private List<Node> edges(@NotNull ScreenType screen) {
+        List<Node> forward = FORWARD.getOrDefault(screen, Collections.emptyList());
+        List<Node> backward = BACKWARD.getOrDefault(screen, Collections.emptyList());
+
+        if (backward.isEmpty()) {
+            return forward;
+        }
+
+        List<Node> edges = new ArrayList<>(forward);
+        edges.addAll(backward);
+        return edges;
+    }
+
+    /**
+     * Rebuild the adjacency lists if they are stale.
+     * @see #valid
+     * @see ScreenManagerType#registeredForwardNodes()
+     * @see ScreenManagerType#registeredBackwardNodes()
+     */
+    private void sync() {
+        ScreenManagerType manager = MANAGER.get();
+
+        if (manager == null) {
+            return;
+        }
+
+        List<Node> forward = manager.registeredForwardNodes();
+        List<Node> backward = manager.registeredBackwardNodes();
+
+        if (valid && forward.size() == forwardCount && backward.size() == backwardCount) {
+            return;
+        }
+
+        FORWARD.clear();
+        BACKWARD.clear();
+        ROUTES.clear();
+        SCREENS.clear();
+        index(forward, FORWARD);
+        index(backward, BACKWARD);
+        forwardCount = forward.size();
+        backwardCount = backward.size();
+        valid = true;
+    }
+
+    private void index(@NotNull List<Node> nodes, @NotNull Map<ScreenType,List<Node>> map) {
+        for (Node node : nodes) {
+            List<Node> list = map.get(node.S1);
+            SCREENS.add(node.S1);
+            SCREENS.add(node.S2);
+
+            if (list == null) {
+                list = new ArrayList<>();
+                map.put(node.S1, list);
+            }
+
+            if (node.isNotDummy()) {
+                list.add(node);
+            }
+        }
+
+        map.replaceAll((a, b) -> Collections.unmodifiableList(b));
+    }
+}
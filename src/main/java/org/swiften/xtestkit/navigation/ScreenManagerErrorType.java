@@ -8,6 +8,8 @@ import java.util.Arrays;
  * Created by haipham on 5/20/17.
  */
 public interface ScreenManagerErrorType {
+    String SCREEN_NOT_IDENTIFIED = "Current screen cannot be identified";
+
     /**
      * Format a non-reachable error.
      * @param screens Varargs {@link ScreenType} instances.
@@ -8,8 +8,11 @@ import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.swiften.javautilities.collection.HPIterables;
+import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.base.Engine;
+import org.swiften.xtestkit.base.element.locator.ByXPath;
+import org.swiften.xtestkit.base.element.locator.PageSourceSnapshot;
 import org.swiften.xtestkit.util.EngineProviderType;
 
 import java.util.*;
@@ -30,9 +33,11 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
      * @see ScreenType#backwardAccessible(Engine)
      * @see #addForwardNodes(List)
      * @see #addBackwardNodes(List)
+     * @see NavigationGraph#invalidate()
      */
     default void register(@NotNull final ScreenType SCREEN) {
         Engine<?> engine = engine();
+        navigationGraph().invalidate();
 
         addForwardNodes(SCREEN.forwardAccessible(engine)
             .stream().map(a -> new Node(SCREEN, a))
@@ -63,10 +68,36 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
     }
 
     /**
-     * Clear all {@link Node} from the inner caches.
+     * Clear all {@link Node} from the inner caches. Implementations should
+     * also call {@link NavigationGraph#invalidate()}.
      */
     void clearAllNodes();
 
+    /**
+     * Get the {@link NavigationCheckpointType} used to skip navigation to
+     * screens that have been reached before. The default implementation
+     * returns null, i.e. every navigation is replayed from the start.
+     * @return {@link NavigationCheckpointType} instance.
+     */
+    @Nullable
+    default NavigationCheckpointType navigationCheckpoint() {
+        return null;
+    }
+
+    /**
+     * Get the {@link NavigationGraph} that indexes the registered
+     * {@link Node}. This must return the same instance every time.
+     * Implementations may override this to keep their own instance, e.g.
+     * one created with {@link NavigationGraph#NavigationGraph(ScreenManagerType)}
+     * when the implementation is constructed.
+     * @return {@link NavigationGraph} instance.
+     * @see NavigationGraph#of(ScreenManagerType)
+     */
+    @NotNull
+    default NavigationGraph navigationGraph() {
+        return NavigationGraph.of(this);
+    }
+
     /**
      * Add forward {@link Node} to an inner cache.
      * @param nodes {@link List} of {@link Node}.
@@ -114,83 +145,91 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
     /**
      * Get {@link List} of forward {@link Node} whose {@link Node#S1}
      * equals to {@link ScreenType} instance.
-     * @param SCREEN {@link ScreenType} instance.
+     * @param screen {@link ScreenType} instance.
      * @return {@link List} of {@link Node}.
-     * @see #registeredForwardNodes()
-     * @see Node#S1
+     * @see #navigationGraph()
+     * @see NavigationGraph#forwardNodes(ScreenType)
      */
     @NotNull
-    default List<Node> forwardNodes(@NotNull final ScreenType SCREEN) {
-        return registeredForwardNodes().stream()
-            .filter(a -> a.S1.equals(SCREEN))
-            .collect(Collectors.toCollection(LinkedList::new));
+    default List<Node> forwardNodes(@NotNull ScreenType screen) {
+        return navigationGraph().forwardNodes(screen);
     }
 
     /**
      * Get {@link List} of backward {@link Node} whose {@link Node#S1}
      * equals to {@link ScreenType} instance.
-     * @param SCREEN {@link ScreenType} instance.
+     * @param screen {@link ScreenType} instance.
      * @return {@link List} of {@link Node}.
-     * @see #registeredBackwardNodes()
-     * @see Node#S1
+     * @see #navigationGraph()
+     * @see NavigationGraph#backwardNodes(ScreenType)
      */
-    default List<Node> backwardNodes(@NotNull final ScreenType SCREEN) {
-        return registeredBackwardNodes().stream()
-            .filter(a -> a.S1.equals(SCREEN))
-            .collect(Collectors.toCollection(LinkedList::new));
+    @NotNull
+    default List<Node> backwardNodes(@NotNull ScreenType screen) {
+        return navigationGraph().backwardNodes(screen);
     }
 
     /**
      * Get the {@link Node} that connects one {@link ScreenType}
      * and another.
-     * @param FROM The origin {@link ScreenType} instance.
-     * @param TO The destination {@link ScreenType} instance.
+     * @param from The origin {@link ScreenType} instance.
+     * @param to The destination {@link ScreenType} instance.
      * @return {@link Optional} instance.
-     * @see #registeredForwardNodes()
-     * @see Node#connects(ScreenType, ScreenType)
+     * @see #navigationGraph()
+     * @see NavigationGraph#node(ScreenType, ScreenType)
+     */
+    @NotNull
+    default Optional<Node> node(@NotNull ScreenType from, @NotNull ScreenType to) {
+        return navigationGraph().node(from, to);
+    }
+
+    /**
+     * Get the fastest route from one {@link ScreenType} to another.
+     * @param from The origin {@link ScreenType} instance.
+     * @param to The destination {@link ScreenType} instance.
+     * @return {@link List} of {@link Node}.
+     * @see #navigationGraph()
+     * @see NavigationGraph#route(ScreenType, ScreenType)
      */
     @NotNull
-    default Optional<Node> node(@NotNull final ScreenType FROM,
-                                @NotNull final ScreenType TO) {
-        return registeredForwardNodes().stream()
-            .filter(Node::isNotDummy)
-            .filter(a -> a.connects(FROM, TO))
-            .findFirst();
+    default List<Node> route(@NotNull ScreenType from, @NotNull ScreenType to) {
+        return navigationGraph().route(from, to);
     }
 
     /**
-     * Get the shortest route to a destination {@link ScreenType}, out of
-     * a {@link List} of {@link Node}.
+     * Get the shortest route to a destination {@link ScreenType} that
+     * starts with one of a {@link List} of {@link Node}.
      * @param origin The {@link ScreenType} marked as the point of origin.
-     *               Usually this will be the same throughout all recursive
-     *               calls, unless it is reset by a backtrack.
+     *               This is no longer used.
      * @param dest Destination {@link ScreenType} instance.
      * @param originNodes {@link List} of {@link Node}.
      * @return {@link List} of {@link Node}.
-     * @see #node(ScreenType, ScreenType)
+     * @see #route(ScreenType, ScreenType)
+     * @deprecated Use {@link #route(ScreenType, ScreenType)} instead.
      */
+    @Deprecated
     @NotNull
     default List<Node> shortest(@NotNull ScreenType origin,
                                 @NotNull ScreenType dest,
                                 @NotNull List<Node> originNodes) {
         List<Node> navigations = Collections.emptyList();
 
-        int minimum = 0;
-
         for (Node node : originNodes) {
-            List<Node> nav1 = new LinkedList<>(shortest(origin, dest, node.S2));
-            int size = nav1.size();
-
-            if ((minimum == 0 || size < minimum) && size > 0) {
-                /* If nav1 is empty (not including the originating node),
-                 * that means we cannot access the second screen from the
-                 * first screen */
-                minimum = nav1.size();
-                navigations = nav1;
+            List<Node> nav = new LinkedList<>();
+            nav.add(node);
+
+            if (!node.S2.equals(dest)) {
+                List<Node> rest = route(node.S2, dest);
+
+                if (rest.isEmpty()) {
+                    continue;
+                }
+
+                nav.addAll(rest);
             }
 
-            /* We need to add the originating node to complete the chain */
-            nav1.add(0, node);
+            if (navigations.isEmpty() || nav.size() < navigations.size()) {
+                navigations = nav;
+            }
         }
 
         return navigations;
@@ -198,57 +237,30 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
 
     /**
      * Get the shortest route from one {@link ScreenType} to another.
-     * @param ORIGIN The {@link ScreenType} marked as the point of origin.
-     *               Usually this will be the same throughout all recursive
-     *               calls, unless it is reset by a backtrack.
+     * @param origin The {@link ScreenType} marked as the point of origin.
+     *               This is no longer used.
      * @param dest The final destination {@link ScreenType} instance.
-     * @param current The current {@link ScreenType} instance, an intermediary
-     *                point between origin and destination.
+     * @param current The current {@link ScreenType} instance.
      * @return {@link List} of {@link Node}.
-     * @see #node(ScreenType, ScreenType)
-     * @see #forwardNodes(ScreenType)
+     * @see #route(ScreenType, ScreenType)
+     * @deprecated Use {@link #route(ScreenType, ScreenType)} instead.
      */
+    @Deprecated
     @NotNull
-    default List<Node> shortest(@NotNull final ScreenType ORIGIN,
+    default List<Node> shortest(@NotNull ScreenType origin,
                                 @NotNull ScreenType dest,
                                 @NotNull ScreenType current) {
-        Optional<Node> nodeOps = node(current, dest);
-
-        if (nodeOps.isPresent()) {
-            return Collections.singletonList(nodeOps.get());
-        } else if (!current.equals(dest)) {
-            /* We need to filter out nodes that lead to origin, or else a
-             * StackOverflow may happen if we backtrack even once */
-            List<Node> forwardNodes = forwardNodes(current)
-                .stream().filter(a -> !a.S2.equals(ORIGIN))
-                .collect(Collectors.toCollection(LinkedList::new));
-
-            if (forwardNodes.isEmpty()) {
-                List<Node> backwardNodes = backwardNodes(current);
-
-                /* When we backtrack even once, set the origin node to current
-                 * in order to avoid StackOverflow */
-                return shortest(current, dest, backwardNodes);
-            } else {
-                return shortest(ORIGIN, dest, forwardNodes);
-            }
-        } else {
-            /* If the current screen is the same as the destination screen,
-             * return a dummy node that does no navigation (but is still
-             * valid) */
-            return Collections.singletonList(Node.dummy(current));
-        }
+        return route(current, dest);
     }
 
     /**
      * Get {@link List} of {@link Node} to get from one
      * {@link ScreenType} to another. If {@link ScreenType} is not directly
-     * accessible from a previous instance, attempt to calculate the shortest
+     * accessible from a previous instance, attempt to calculate the fastest
      * route.
      * @param screens A varargs of {@link ScreenType}.
      * @return {@link List} of {@link Node}.
-     * @see #engine()
-     * @see #shortest(ScreenType, ScreenType, List)
+     * @see #route(ScreenType, ScreenType)
      */
     @NotNull
     default List<Node> multiNodes(@NotNull ScreenType...screens) {
@@ -258,7 +270,7 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
             if (i < length - 1) {
                 ScreenType from = screens[i];
                 ScreenType to = screens[i + 1];
-                List<Node> nodes = shortest(from, to, from);
+                List<Node> nodes = route(from, to);
 
                 /* If nodes is empty, that means the chain is cut off. We
                  * cannot navigate from start to finish */
@@ -270,20 +282,66 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
     }
 
     /**
-     * Navigate sequentially from the first {@link Node} to the last.
+     * Get the index of the first {@link Node} that still needs to be
+     * walked after restoring the deepest useful checkpoint on a route. A
+     * checkpoint is useful if walking to it is estimated to take at least as long
+     * than {@link NavigationCheckpointType#restoreCost()}.
+     * @param checkpoint {@link NavigationCheckpointType} instance.
+     * @param nodes {@link List} of {@link Node}.
+     * @return {@link Integer} value, or 0 if no checkpoint should be
+     * restored.
+     * @see NavigationCheckpointType#hasCheckpoint(ScreenType)
+     * @see NavigationGraph#weight(Node)
+     */
+    default int checkpointIndex(@NotNull NavigationCheckpointType checkpoint,
+                                @NotNull List<Node> nodes) {
+        NavigationGraph graph = navigationGraph();
+        long restoreCost = checkpoint.restoreCost();
+        long walkCost = 0;
+        int index = 0;
+
+        for (int i = 0, size = nodes.size(); i < size; i++) {
+            Node node = nodes.get(i);
+            walkCost += graph.weight(node);
+
+            if (node.isNotDummy() && walkCost >= restoreCost && checkpoint.hasCheckpoint(node.S2)) {
+                index = i + 1;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Navigate sequentially from the first {@link Node} to the last. If
+     * {@link #navigationCheckpoint()} is available, each {@link ScreenType}
+     * is checkpointed the first time it initializes, and later navigation
+     * restores the deepest checkpoint on the route before walking the
+     * rest. A failed restore falls back to walking the whole route, while
+     * a successful one discards the cached {@link PageSourceSnapshot},
+     * since the restored screen is not the one it was taken from.
      * @param initial The initial argument to pass to
      *                {@link NavigationSupplier#navigation(Object)}
      * @param screens A varargs of {@link ScreenType}.
      * @return {@link Flowable} instance.
+     * @see NavigationCheckpointType#rxa_restoreCheckpoint(ScreenType)
+     * @see NavigationCheckpointType#rxa_saveCheckpoint(ScreenType)
+     * @see Engine#invalidateSnapshot()
      * @see NavigationSupplier#navigation(Object)
+     * @see NavigationGraph#recordDuration(Node, long)
      * @see ScreenType.Direction#NAVIGATION
      * @see ScreenType#rxa_onInitialized()
+     * @see #checkpointIndex(NavigationCheckpointType, List)
      * @see #multiNodes(ScreenType...)
+     * @see #navigationCheckpoint()
      */
     @NotNull
-    default Flowable<?> rxa_navigate(@NotNull Object initial,
+    default Flowable<?> rxa_navigate(@NotNull final Object initial,
                                      @NotNull ScreenType...screens) {
         HPLog.printft("Navigating %s", Arrays.toString(screens));
+        final ScreenManagerType THIS = this;
+        final NavigationGraph GRAPH = navigationGraph();
+        final NavigationCheckpointType CHECKPOINT = navigationCheckpoint();
         final List<Node> NODES = multiNodes(screens);
         final int LENGTH = NODES.size();
 
@@ -293,19 +351,136 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
                 if (INDEX < LENGTH) {
                     final Node NODE = NODES.get(INDEX);
 
-                    return NODE.NAV_SUPPLIER.navigation(init)
+                    return Flowable
+                        .defer(() -> {
+                            final long START = System.currentTimeMillis();
+
+                            return NODE.NAV_SUPPLIER.navigation(init).doOnNext(a ->
+                                GRAPH.recordDuration(NODE, System.currentTimeMillis() - START));
+                        })
                         .delay(NODE.DELAY, NODE.TIME_UNIT)
                         .flatMap(NODE.S2.rxa_onInitialized()::navigation)
+                        .flatMap(a -> checkpoint(NODE, a))
                         .flatMap(a -> new Repeater().repeat(a, INDEX + 1));
                 } else {
                     return Flowable.just(init);
                 }
             }
+
+            @NotNull
+            private Flowable<?> checkpoint(@NotNull Node node, @NotNull Object result) {
+                if (CHECKPOINT == null || node.isDummy() || CHECKPOINT.hasCheckpoint(node.S2)) {
+                    return Flowable.just(result);
+                }
+
+                return CHECKPOINT
+                    .rxa_saveCheckpoint(node.S2)
+                    .onErrorReturnItem(false)
+                    .map(a -> result);
+            }
+        }
+
+        final int START = CHECKPOINT != null ? checkpointIndex(CHECKPOINT, NODES) : 0;
+
+        if (START > 0 && CHECKPOINT != null) {
+            ScreenType screen = NODES.get(START - 1).S2;
+            HPLog.printft("Restoring checkpoint for %s", screen);
+
+            return CHECKPOINT
+                .rxa_restoreCheckpoint(screen)
+                .onErrorReturnItem(false)
+                .doOnNext(a -> {
+                    if (a) {
+                        THIS.engine().invalidateSnapshot();
+                    }
+                })
+                .flatMap(a -> new Repeater().repeat(initial, a ? START : 0));
         }
 
         return new Repeater().repeat(initial, 0);
     }
 
+    /**
+     * Identify the {@link ScreenType} displayed in a
+     * {@link PageSourceSnapshot}. The first registered {@link ScreenType}
+     * whose {@link ScreenType#fingerprint(Engine)} matches wins, so
+     * fingerprints should be mutually exclusive. Fingerprints that cannot
+     * be evaluated locally are ignored.
+     * @param snapshot {@link PageSourceSnapshot} instance.
+     * @return {@link Optional} instance.
+     * @see NavigationGraph#screens()
+     * @see PageSourceSnapshot#matchCount(String)
+     * @see ScreenType#fingerprint(Engine)
+     * @see #engine()
+     */
+    @NotNull
+    default Optional<ScreenType> currentScreen(@NotNull PageSourceSnapshot snapshot) {
+        Engine<?> engine = engine();
+
+        for (ScreenType screen : navigationGraph().screens()) {
+            ByXPath fingerprint = screen.fingerprint(engine);
+
+            if (fingerprint != null && snapshot.matchCount(fingerprint.xpath()) > 0) {
+                return Optional.of(screen);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Identify the {@link ScreenType} the app is currently displaying, with
+     * a single page source fetch no matter how many {@link ScreenType} are
+     * registered.
+     * @return {@link Flowable} instance.
+     * @see Engine#invalidateSnapshot()
+     * @see Engine#pageSourceSnapshot()
+     * @see #currentScreen(PageSourceSnapshot)
+     * @see #SCREEN_NOT_IDENTIFIED
+     */
+    @NotNull
+    default Flowable<ScreenType> rxe_currentScreen() {
+        final ScreenManagerType THIS = this;
+        final Engine<?> ENGINE = engine();
+
+        return Flowable
+            .fromCallable(() -> {
+                /* The cached snapshot may predate the last navigation */
+                ENGINE.invalidateSnapshot();
+                return ENGINE.pageSourceSnapshot();
+            })
+            .subscribeOn(ENGINE.driverScheduler())
+            .map(THIS::currentScreen)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .switchIfEmpty(HPReactives.error(SCREEN_NOT_IDENTIFIED));
+    }
+
+    /**
+     * Navigate sequentially through a varargs of {@link ScreenType},
+     * starting from whichever {@link ScreenType} is currently displayed.
+     * This allows tests to chain without relaunching the app just to get
+     * a known origin.
+     * @param initial The initial argument to pass to
+     *                {@link NavigationSupplier#navigation(Object)}
+     * @param SCREENS A varargs of {@link ScreenType}.
+     * @return {@link Flowable} instance.
+     * @see #rxa_navigate(Object, ScreenType...)
+     * @see #rxe_currentScreen()
+     */
+    @NotNull
+    default Flowable<?> rxa_navigateFromCurrent(@NotNull final Object initial,
+                                                @NotNull final ScreenType...SCREENS) {
+        final ScreenManagerType THIS = this;
+
+        return rxe_currentScreen().flatMap(a -> {
+            ScreenType[] screens = new ScreenType[SCREENS.length + 1];
+            screens[0] = a;
+            System.arraycopy(SCREENS, 0, screens, 1, SCREENS.length);
+            return THIS.rxa_navigate(initial, screens);
+        });
+    }
+
     /**
      * Each {@link Node} represents a navigation from one {@link ScreenType}
      * to another.
@@ -370,6 +545,11 @@ public interface ScreenManagerType extends EngineProviderType, ScreenManagerErro
             }
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(S1, S2);
+        }
+
         /**
          * Check if the current {@link Node} connects two
          * {@link ScreenType}.
@@ -6,7 +6,9 @@ package org.swiften.xtestkit.navigation;
 
 import io.reactivex.Flowable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.swiften.xtestkit.base.Engine;
+import org.swiften.xtestkit.base.element.locator.ByXPath;
 import org.swiften.xtestkitcomponents.platform.PlatformType;
 import org.swiften.xtestkit.mobile.Platform;
 
@@ -40,6 +42,22 @@ public interface ScreenType {
     @NotNull
     List<Direction> backwardAccessible(@NotNull Engine<?> engine);
 
+    /**
+     * Get a cheap {@link ByXPath} that only matches when this
+     * {@link ScreenType} is displayed, e.g. its title or a unique container
+     * id. Fingerprints are evaluated locally against one page source dump,
+     * so they should be plain xpath that {@link javax.xml.xpath.XPath} can
+     * evaluate.
+     * @param engine {@link Engine} instance.
+     * @return {@link ByXPath} instance, or null if this {@link ScreenType}
+     * cannot be identified.
+     * @see ScreenManagerType#rxe_currentScreen()
+     */
+    @Nullable
+    default ByXPath fingerprint(@NotNull Engine<?> engine) {
+        return null;
+    }
+
     /**
      * This will be called when the screen has been navigated to.
      * @return {@link Flowable} instance.
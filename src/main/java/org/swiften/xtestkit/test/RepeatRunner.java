@@ -4,6 +4,7 @@ import org.swiften.xtestkit.base.Engine;
 import org.swiften.javautilities.protocol.RetryProviderType;
 import io.reactivex.Completable;
 import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subscribers.TestSubscriber;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -15,10 +16,13 @@ import org.testng.*;
 import org.testng.annotations.*;
 import org.testng.xml.XmlSuite;
 
+import java.io.File;
 import java.lang.annotation.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 /**
@@ -37,6 +41,7 @@ import java.util.stream.IntStream;
  */
 public class RepeatRunner implements
     IAnnotationTransformer2,
+    IConfigurationListener,
     ITestListener,
     ITestNGListener,
     RepeatRunnerErrorType,
@@ -46,15 +51,27 @@ public class RepeatRunner implements
         return new Builder();
     }
 
+    /**
+     * The delay (in milliseconds) before a work stealing worker that may
+     * not run yet checks again.
+     */
+    static final long JOIN_RETRY_DELAY = 100;
+
     @NotNull private final Pagination PAGINATION;
+    @NotNull private final ThreadLocal<int[]> WORKER_INDEXES;
+    @NotNull private final Map<Integer,Map<String,Long>> CLASS_DURATIONS;
     @NotNull final List<Class<?>> TEST_CLASSES;
     @NotNull final Collection<TestListenerType> LISTENERS;
 
+    @Nullable TestTimingStore timingStore;
     int verbosity;
+    boolean workStealing;
 
     RepeatRunner() {
         TEST_CLASSES = new LinkedList<>();
         PAGINATION = new Pagination();
+        WORKER_INDEXES = new InheritableThreadLocal<>();
+        CLASS_DURATIONS = new ConcurrentHashMap<>();
         LISTENERS = new HashSet<>();
     }
 
@@ -93,25 +110,155 @@ public class RepeatRunner implements
     public void onTestStart(@NotNull ITestResult result) {}
 
     @Override
-    public void onTestSuccess(@NotNull ITestResult result) {}
+    public void onTestSuccess(@NotNull ITestResult result) {
+        addDuration(result);
+    }
 
     @Override
     public void onTestFailure(@NotNull ITestResult result) {
         HPLog.println(result.getName());
         HPLog.println(result.getThrowable());
+        addDuration(result);
     }
 
     @Override
-    public void onTestSkipped(@NotNull ITestResult result) {}
+    public void onTestSkipped(@NotNull ITestResult result) {
+        addDuration(result);
+    }
 
     @Override
-    public void onTestFailedButWithinSuccessPercentage(@NotNull ITestResult result) {}
+    public void onTestFailedButWithinSuccessPercentage(@NotNull ITestResult result) {
+        addDuration(result);
+    }
 
     @Override
     public void onStart(@NotNull ITestContext context) {}
 
     @Override
-    public void onFinish(@NotNull ITestContext context) {}
+    public void onFinish(@NotNull ITestContext context) {
+        flushDurations();
+    }
+    //endregion
+
+    //region IConfigurationListener
+    @Override
+    public void onConfigurationSuccess(@NotNull ITestResult result) {
+        addConfigurationDuration(result);
+    }
+
+    @Override
+    public void onConfigurationFailure(@NotNull ITestResult result) {
+        addConfigurationDuration(result);
+    }
+
+    @Override
+    public void onConfigurationSkip(@NotNull ITestResult result) {
+        addConfigurationDuration(result);
+    }
+    //endregion
+
+    //region Timings
+    /**
+     * Get the engine index of the current work stealing worker.
+     * @return {@link Integer} value, or -1 if the current thread does not
+     * belong to a worker. Batch runs have several engine indexes per
+     * {@link TestNG} run, so their timings cannot be attributed.
+     * @see #WORKER_INDEXES
+     */
+    int workerIndex() {
+        int[] indexes = WORKER_INDEXES.get();
+        return indexes != null && indexes.length == 1 ? indexes[0] : -1;
+    }
+
+    /**
+     * Add the duration of a test method to its class' total for the current
+     * worker.
+     * @param result {@link ITestResult} instance.
+     * @see #CLASS_DURATIONS
+     * @see #workerIndex()
+     */
+    void addDuration(@NotNull ITestResult result) {
+        int index = workerIndex();
+
+        if (timingStore != null && index >= 0) {
+            String testClass = result.getTestClass().getRealClass().getName();
+            long duration = Math.max(0, result.getEndMillis() - result.getStartMillis());
+
+            CLASS_DURATIONS
+                .computeIfAbsent(index, a -> new ConcurrentHashMap<>())
+                .merge(testClass, duration, Long::sum);
+        }
+    }
+
+    /**
+     * Add the duration of a class or method configuration (e.g.
+     * {@link BeforeClass}) to its class' total, since the class cannot
+     * run without it. Suite and test level configurations are not
+     * attributed to any class.
+     * @param result {@link ITestResult} instance.
+     * @see #addDuration(ITestResult)
+     */
+    void addConfigurationDuration(@NotNull ITestResult result) {
+        ITestNGMethod method = result.getMethod();
+
+        if (method.isBeforeClassConfiguration()
+            || method.isAfterClassConfiguration()
+            || method.isBeforeMethodConfiguration()
+            || method.isAfterMethodConfiguration()
+        ) {
+            addDuration(result);
+        }
+    }
+
+    /**
+     * Persist the class totals of the current worker into
+     * {@link #timingStore}.
+     * @see TestTimingStore#record(String, int, long)
+     * @see #workerIndex()
+     */
+    void flushDurations() {
+        final TestTimingStore STORE = timingStore;
+        final int INDEX = workerIndex();
+        Map<String,Long> durations = INDEX >= 0 ? CLASS_DURATIONS.remove(INDEX) : null;
+
+        if (STORE != null && durations != null) {
+            durations.forEach((a, b) -> STORE.record(a, INDEX, b));
+        }
+    }
+
+    /**
+     * Estimate how long a work stealing worker takes to run every test class
+     * on an engine. Each class uses the timings of that engine, since the
+     * same class may be much slower on e.g. an emulator than on a
+     * simulator, and falls back to its average across all engines if it
+     * never ran there.
+     * @param engine {@link Integer} value, the engine index.
+     * @return {@link Long} value, 0 if there is no {@link #timingStore}, or
+     * {@link Long#MAX_VALUE} if a class has no history at all, since it
+     * might be the longest.
+     * @see TestTimingStore#estimate(String)
+     * @see TestTimingStore#estimate(String, int)
+     */
+    public long estimatedDuration(int engine) {
+        TestTimingStore store = timingStore;
+        long total = 0;
+
+        if (store != null) {
+            for (Class<?> cls : testClasses()) {
+                String name = cls.getName();
+                long estimate = store.estimate(name, engine);
+                estimate = estimate < 0 ? store.estimate(name) : estimate;
+
+                if (estimate < 0) {
+                    return Long.MAX_VALUE;
+                }
+
+                total += estimate;
+            }
+        }
+
+        return total;
+    }
     //endregion
 
     //region Getters
@@ -143,8 +290,18 @@ public class RepeatRunner implements
      */
     @NotNull
     public TestNG createRunner() {
+        return createRunner(testClassesArray());
+    }
+
+    /**
+     * Same as above, but only runs some test {@link Class}.
+     * @param classes An Array of {@link Class}.
+     * @return {@link TestNG} instance.
+     */
+    @NotNull
+    public TestNG createRunner(@NotNull Class[] classes) {
         TestNG testRunner = new TestNG();
-        testRunner.setTestClasses(testClassesArray());
+        testRunner.setTestClasses(classes);
         testRunner.setVerbose(verbosity);
         testRunner.setAnnotationTransformer(this);
         testRunner.addListener(this);
@@ -162,14 +319,41 @@ public class RepeatRunner implements
     }
 
     /**
-     * Return {@link #PAGINATION#dataParameters()}.
+     * Return {@link #PAGINATION#dataParameters()}. On a work stealing
+     * worker thread, return the worker's engine index instead.
      * @return {@link Iterator} of {@link Object} Array.
+     * @see #WORKER_INDEXES
      */
     @NotNull
     public Iterator<Object[]> dataParameters() {
+        int[] workerIndexes = WORKER_INDEXES.get();
+
+        if (workerIndexes != null) {
+            return Pagination.dataParameters(workerIndexes);
+        }
+
         return PAGINATION.dataParameters();
     }
 
+    /**
+     * Return {@link #timingStore}.
+     * @return {@link TestTimingStore} instance, or null if timings are not
+     * recorded.
+     */
+    @Nullable
+    public TestTimingStore timingStore() {
+        return timingStore;
+    }
+
+    /**
+     * Check whether test classes are scheduled with work stealing.
+     * @return {@link Boolean} value.
+     * @see #rxa_runWorkStealing()
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
     /**
      * Return {@link #LISTENERS}.
      * @return {@link Collection} of {@link TestListenerType}.
@@ -269,16 +453,221 @@ public class RepeatRunner implements
             }
         }
 
+        final RepeatRunner THIS = this;
+
         rxa_onFreshStart()
-            .flatMapCompletable(a -> new Run().run())
+            .flatMapCompletable(a -> {
+                if (THIS.isWorkStealing()) {
+                    return THIS.rxa_runWorkStealing();
+                }
+
+                return new Run().run();
+            })
             .toFlowable()
             .defaultIfEmpty(true)
             .flatMap(a -> rxa_onAllTestsFinished())
             .subscribe(subscriber);
 
         subscriber.awaitTerminalEvent();
+
+        if (timingStore != null) {
+            timingStore.compact();
+        }
+
         subscriber.assertNoErrors();
     }
+
+    /**
+     * Run all test classes with work stealing instead of batches. As in
+     * batch mode, every test class runs once per engine, i.e. the units of
+     * work are (class, engine) pairs. However, each engine index is a
+     * worker that works through its own units as soon as it may run,
+     * instead of waiting for the slowest engine of its batch. At most
+     * {@link Pagination#partitionSize()} workers run at the same time, and
+     * an engine that clashes with running ones according to
+     * {@link IndexConsumer#consumptionCount(int[])} waits until it no
+     * longer does.
+     *
+     * Since every engine runs every class one after another, the order of
+     * classes within a worker does not change when it finishes. What does
+     * is which workers take the free slots first, so waiting workers are
+     * admitted longest {@link #estimatedDuration(int)} first.
+     * @return {@link Completable} instance.
+     * @see #estimatedDuration(int)
+     * @see #rxa_runWorker(int, Deque, Collection, Map)
+     */
+    @NotNull
+    public Completable rxa_runWorkStealing() {
+        final RepeatRunner THIS = this;
+        final Collection<Integer> RUNNING = new HashSet<>();
+        final Map<Integer,Long> WAITING = new HashMap<>();
+        final int WORKERS = PAGINATION.retries();
+
+        if (!testClasses().isEmpty()) {
+            for (int i = 0; i < WORKERS; i++) {
+                WAITING.put(i, estimatedDuration(i));
+            }
+        }
+
+        return Flowable
+            .range(0, WORKERS)
+            .flatMap(a -> THIS
+                .rxa_runWorker(a, new ArrayDeque<>(THIS.testClasses()), RUNNING, WAITING)
+                .subscribeOn(Schedulers.io()))
+            .ignoreElements();
+    }
+
+    /**
+     * Run a work stealing worker for an engine index. If the worker may not
+     * run yet, it polls {@link #joinWorkers(int, Collection, Map)} until it
+     * may.
+     * The batch hooks are called with that index alone, before the worker
+     * takes its first test class and after its deque is empty.
+     * @param INDEX {@link Integer} value.
+     * @param QUEUE {@link Deque} of {@link Class} for this engine.
+     * @param RUNNING {@link Collection} of {@link Integer}, the indexes of
+     *                running workers.
+     * @param WAITING {@link Map} of the indexes of waiting workers to their
+     *                estimated durations.
+     * @return {@link Flowable} instance.
+     * @see #JOIN_RETRY_DELAY
+     * @see #leaveWorkers(int, Collection)
+     * @see #rxa_onBatchStarted(int[])
+     * @see #rxa_onBatchFinished(int[])
+     * @see #runTestClass(int[], Class)
+     */
+    @NotNull
+    Flowable<Boolean> rxa_runWorker(final int INDEX,
+                                    @NotNull final Deque<Class<?>> QUEUE,
+                                    @NotNull final Collection<Integer> RUNNING,
+                                    @NotNull final Map<Integer,Long> WAITING) {
+        final RepeatRunner THIS = this;
+        final int[] INDEXES = new int[] { INDEX };
+
+        if (QUEUE.isEmpty()) {
+            return Flowable.just(true);
+        }
+
+        return Flowable
+            .defer(() -> {
+                if (THIS.joinWorkers(INDEX, RUNNING, WAITING)) {
+                    return Flowable.just(true);
+                } else {
+                    return Flowable.<Boolean>empty();
+                }
+            })
+            .repeatWhen(a -> a.delay(JOIN_RETRY_DELAY, TimeUnit.MILLISECONDS))
+            .take(1)
+
+            /* The retry delay may resume on a computation thread, but test
+             * classes must be run on an io thread */
+            .observeOn(Schedulers.io())
+            .flatMap(a -> THIS.rxa_onBatchStarted(INDEXES)
+                .map(b -> {
+                    Class<?> cls;
+
+                    while ((cls = QUEUE.pollFirst()) != null) {
+                        THIS.runTestClass(INDEXES, cls);
+                    }
+
+                    return true;
+                })
+                .flatMap(b -> THIS.rxa_onBatchFinished(INDEXES))
+                .doFinally(() -> THIS.leaveWorkers(INDEX, RUNNING)));
+    }
+
+    /**
+     * Add an engine index to the running workers, unless there are already
+     * {@link Pagination#partitionSize()} of them, it clashes with any of
+     * them, or a longer waiting worker could take its place.
+     * @param index {@link Integer} value.
+     * @param running {@link Collection} of {@link Integer}.
+     * @param waiting {@link Map} of the indexes of waiting workers to their
+     *                estimated durations. Guarded by {@code running}.
+     * @return {@link Boolean} value, true if the worker may run.
+     * @see #canJoinWorkers(int, Collection)
+     */
+    boolean joinWorkers(int index,
+                        @NotNull Collection<Integer> running,
+                        @NotNull Map<Integer,Long> waiting) {
+        synchronized (running) {
+            if (!canJoinWorkers(index, running)) {
+                return false;
+            }
+
+            long estimate = waiting.getOrDefault(index, 0L);
+
+            for (Map.Entry<Integer,Long> entry : waiting.entrySet()) {
+                int other = entry.getKey();
+                long otherEstimate = entry.getValue();
+
+                boolean longer = otherEstimate > estimate
+                    || (otherEstimate == estimate && other < index);
+
+                if (other != index && longer && canJoinWorkers(other, running)) {
+                    return false;
+                }
+            }
+
+            waiting.remove(index);
+            running.add(index);
+            return true;
+        }
+    }
+
+    /**
+     * Check whether an engine index fits next to the running workers, i.e.
+     * there are fewer than {@link Pagination#partitionSize()} of them and
+     * it does not clash with any of them.
+     * @param index {@link Integer} value.
+     * @param running {@link Collection} of {@link Integer}.
+     * @return {@link Boolean} value.
+     * @see IndexConsumer#consumptionCount(int[])
+     */
+    private boolean canJoinWorkers(int index, @NotNull Collection<Integer> running) {
+        IndexConsumer consumer = PAGINATION.indexConsumer();
+        int concurrency = Math.max(1, PAGINATION.partitionSize());
+
+        if (running.size() >= concurrency) {
+            return false;
+        }
+
+        int[] indexes = IntStream
+            .concat(running.stream().mapToInt(Integer::intValue), IntStream.of(index))
+            .toArray();
+
+        return consumer.consumptionCount(indexes) >= indexes.length;
+    }
+
+    /**
+     * Remove an engine index from the running workers.
+     * @param index {@link Integer} value.
+     * @param running {@link Collection} of {@link Integer}.
+     */
+    void leaveWorkers(int index, @NotNull Collection<Integer> running) {
+        synchronized (running) {
+            running.remove(index);
+        }
+    }
+
+    /**
+     * Run one test {@link Class} for some engine indexes on the current
+     * thread. {@link #dataParameters()} returns these indexes while the
+     * class is instantiated.
+     * @param indexes An Array of {@link Integer}.
+     * @param cls {@link Class} instance.
+     * @see #createRunner(Class[])
+     * @see #WORKER_INDEXES
+     */
+    void runTestClass(@NotNull int[] indexes, @NotNull Class<?> cls) {
+        WORKER_INDEXES.set(indexes);
+
+        try {
+            createRunner(new Class[] { cls }).run();
+        } finally {
+            WORKER_INDEXES.remove();
+        }
+    }
     //endregion
 
     //region Builder
@@ -334,6 +723,35 @@ public class RepeatRunner implements
             return this;
         }
 
+        /**
+         * Set {@link #RUNNER#workStealing}. If this is true, every test
+         * class still runs on every engine, but each engine works through
+         * its classes independently, instead of batch by batch.
+         * @param enabled {@link Boolean} value.
+         * @return {@link Builder} instance.
+         * @see RepeatRunner#rxa_runWorkStealing()
+         */
+        @NotNull
+        public Builder withWorkStealing(boolean enabled) {
+            RUNNER.workStealing = enabled;
+            return this;
+        }
+
+        /**
+         * Set {@link #RUNNER#timingStore}. Work stealing runs record the
+         * duration of each test class on each engine into this file, and
+         * later runs start the engines with the longest estimated runs
+         * first.
+         * @param file {@link File} instance.
+         * @return {@link Builder} instance.
+         * @see TestTimingStore
+         */
+        @NotNull
+        public Builder withTimingStore(@NotNull File file) {
+            RUNNER.timingStore = new TestTimingStore(file);
+            return this;
+        }
+
         /**
          * Set the {@link #RUNNER#indexConsumer} instance.
          * @param consumer {@link IndexConsumer} instance.
@@ -439,8 +857,17 @@ public class RepeatRunner implements
          */
         @NotNull
         public Iterator<Object[]> dataParameters() {
+            return dataParameters(indexParameters());
+        }
+
+        /**
+         * Convert some indexes into data provider parameters.
+         * @param indexes An Array of {@link Integer}.
+         * @return {@link Iterator} of {@link Object} Array.
+         */
+        @NotNull
+        static Iterator<Object[]> dataParameters(@NotNull int[] indexes) {
             List<Object[]> params = new LinkedList<>();
-            int[] indexes = indexParameters();
             IntStream.of(indexes).forEach(a -> params.add(new Object[] { a }));
             return params.iterator();
         }
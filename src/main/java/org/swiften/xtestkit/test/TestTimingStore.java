@@ -0,0 +1,200 @@
+package org.swiften.xtestkit.test;
+
+import org.jetbrains.annotations.NotNull;
+import org.swiften.javautilities.util.HPLog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+/**
+ * Use this class to persist how long each test class takes on each engine,
+ * so that {@link RepeatRunner} can schedule the longest classes first. The
+ * store is an append-only text file with one tab-separated line per record:
+ * class name, engine index, total milliseconds and run count. Records for
+ * the same class and engine are summed up on load, and
+ * {@link #compact()} rewrites the file with one line per pair.
+ */
+public class TestTimingStore {
+    @NotNull private static final String SEPARATOR = "\t";
+
+    @NotNull private final File FILE;
+    @NotNull private final Map<String,Map<Integer,long[]>> TIMINGS;
+    private boolean loaded;
+
+    public TestTimingStore(@NotNull File file) {
+        FILE = file;
+        TIMINGS = new HashMap<>();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("Test timings at %s", file());
+    }
+
+    /**
+     * Get {@link #FILE}.
+     * @return {@link File} instance.
+     */
+    @NotNull
+    public File file() {
+        return FILE;
+    }
+
+    /**
+     * Record a run of a test class on an engine, and append it to
+     * {@link #FILE}.
+     * @param testClass {@link String} value, the class name.
+     * @param engine {@link Integer} value, the engine index.
+     * @param millis {@link Long} value, the duration.
+     * @see #add(String, int, long, long)
+     */
+    public synchronized void record(@NotNull String testClass, int engine, long millis) {
+        load();
+        add(testClass, engine, millis, 1);
+
+        try (Writer writer = new OutputStreamWriter(
+            new FileOutputStream(FILE, true), StandardCharsets.UTF_8)
+        ) {
+            writer.write(line(testClass, engine, millis, 1));
+        } catch (IOException e) {
+            HPLog.println(e);
+        }
+    }
+
+    /**
+     * Get the average duration of a test class on an engine.
+     * @param testClass {@link String} value, the class name.
+     * @param engine {@link Integer} value, the engine index.
+     * @return {@link Long} value, or -1 if the class never ran on the
+     * engine.
+     */
+    public synchronized long estimate(@NotNull String testClass, int engine) {
+        load();
+        Map<Integer,long[]> engines = TIMINGS.get(testClass);
+        long[] timing = engines != null ? engines.get(engine) : null;
+        return timing != null ? timing[0] / timing[1] : -1;
+    }
+
+    /**
+     * Get the average duration of a test class across all engines.
+     * @param testClass {@link String} value, the class name.
+     * @return {@link Long} value, or -1 if the class never ran.
+     */
+    public synchronized long estimate(@NotNull String testClass) {
+        load();
+        Map<Integer,long[]> engines = TIMINGS.get(testClass);
+
+        if (engines == null) {
+            return -1;
+        }
+
+        long total = 0, count = 0;
+
+        for (long[] timing : engines.values()) {
+            total += timing[0];
+            count += timing[1];
+        }
+
+        return total / count;
+    }
+
+    /**
+     * Rewrite {@link #FILE} with one line per test class and engine. The
+     * new content is written to a temporary file first, so that a crash
+     * never leaves a half-written store behind.
+     */
+    public synchronized void compact() {
+        load();
+        File temp = new File(FILE.getAbsolutePath() + ".tmp");
+
+        try (Writer writer = new OutputStreamWriter(
+            new FileOutputStream(temp), StandardCharsets.UTF_8)
+        ) {
+            for (Map.Entry<String,Map<Integer,long[]>> entry : TIMINGS.entrySet()) {
+                for (Map.Entry<Integer,long[]> timing : entry.getValue().entrySet()) {
+                    long[] value = timing.getValue();
+                    writer.write(line(entry.getKey(), timing.getKey(), value[0], value[1]));
+                }
+            }
+        } catch (IOException e) {
+            HPLog.println(e);
+            return;
+        }
+
+        try {
+            Files.move(temp.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            HPLog.println(e);
+        }
+    }
+
+    /**
+     * Read {@link #FILE} once. Malformed lines, e.g. one cut short by a
+     * crash, are skipped.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+
+        if (!FILE.isFile()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(FILE), StandardCharsets.UTF_8))
+        ) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR);
+
+                if (fields.length == 4) {
+                    try {
+                        add(fields[0],
+                            Integer.parseInt(fields[1]),
+                            Long.parseLong(fields[2]),
+                            Long.parseLong(fields[3]));
+                    } catch (NumberFormatException e) {
+                        /* Skip malformed line */
+                    }
+                }
+            }
+        } catch (IOException e) {
+            HPLog.println(e);
+        }
+    }
+
+    private void add(@NotNull String testClass, int engine, long millis, long count) {
+        if (count < 1) {
+            return;
+        }
+
+        long[] timing = TIMINGS
+            .computeIfAbsent(testClass, a -> new HashMap<>())
+            .computeIfAbsent(engine, a -> new long[2]);
+
+        timing[0] += millis;
+        timing[1] += count;
+    }
+
+    @NotNull
+    private String line(@NotNull String testClass, int engine, long millis, long count) {
+        return String.join(SEPARATOR,
+            testClass,
+            String.valueOf(engine),
+            String.valueOf(millis),
+            String.valueOf(count)) + "\n";
+    }
+}
@@ -0,0 +1,150 @@
+package org.swiften.xtestkit.android;
+
+import io.reactivex.subscribers.TestSubscriber;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
+import org.swiften.xtestkit.android.adb.ADBShellSession;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+/**
+ * Tests for {@link ADBShellSession}, using /bin/sh in place of adb shell.
+ */
+public final class ADBShellSessionTest {
+    @NotNull private final File FLAG;
+    private ADBShellSession session;
+
+    {
+        FLAG = new File(System.getProperty("java.io.tmpdir"), "xtestkit_shell_flag");
+    }
+
+    @BeforeMethod
+    public void beforeMethod() {
+        FLAG.delete();
+        session = new ADBShellSession("/bin/sh");
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        session.close();
+        FLAG.delete();
+    }
+
+    @Test
+    public void test_multipleCommands_shouldShareOneShell() throws IOException {
+        // Setup
+        /* Output without a trailing newline shares its line with the
+         * sentinel */
+        String first = "echo first; echo line", second = "printf second";
+
+        // When
+        ADBShellSession.Result result1 = session.execute(first);
+        ADBShellSession.Result result2 = session.execute(second);
+        ADBShellSession.Result result3 = session.execute("echo $$");
+        ADBShellSession.Result result4 = session.execute("echo $$");
+
+        // Then
+        assertEquals(result1.output(), "first\nline");
+        assertEquals(result1.exitCode(), 0);
+        assertEquals(result2.output(), "second");
+        assertEquals(result3.output(), result4.output());
+        assertEquals(session.commandCount(), 4);
+        assertEquals(session.reconnectCount(), 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_failedCommand_shouldEmitError() throws IOException {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        session.rxa_execute("ls /does/not/exist").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertError(Exception.class);
+        subscriber.assertNotComplete();
+
+        /* The failed command should not affect the next one, even if it
+         * tries to read from stdin */
+        assertEquals(session.execute("cat; echo done").output(), "done");
+    }
+
+    @Test
+    public void test_deadShell_shouldReconnect() throws IOException {
+        // Setup
+        /* The first attempt kills the shell, the retry succeeds */
+        String command = String.format(
+            "[ -f %1$s ] || { touch %1$s; kill -9 $$; }; echo survived",
+            FLAG.getAbsolutePath());
+
+        // When
+        ADBShellSession.Result result = session.execute(command, true);
+
+        // Then
+        assertEquals(result.output(), "survived");
+        assertEquals(result.exitCode(), 0);
+        assertEquals(session.reconnectCount(), 1);
+        assertTrue(session.isOpen());
+    }
+
+    @Test
+    public void test_deadShellWithoutResend_shouldThrow() throws IOException {
+        // Setup
+        String command = String.format("touch %1$s; kill -9 $$", FLAG.getAbsolutePath());
+        IOException error = null;
+
+        // When
+        try {
+            session.execute(command);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        // Then
+        assertNotNull(error);
+        assertTrue(FLAG.delete());
+        assertEquals(session.reconnectCount(), 1);
+
+        /* The command was not sent again, but the next one gets a new
+         * shell */
+        assertFalse(FLAG.exists());
+        assertEquals(session.execute("echo next").output(), "next");
+    }
+
+    @Test
+    public void test_slowCommand_shouldTimeOutAndRestart() throws IOException {
+        // Setup
+        session.close();
+        session = new ADBShellSession("/bin/sh", 500);
+        long start = System.currentTimeMillis();
+        IOException error = null;
+
+        // When
+        try {
+            session.execute("sleep 5", true);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        // Then
+        assertTrue(error instanceof InterruptedIOException);
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(session.reconnectCount(), 1);
+        assertEquals(session.commandCount(), 1);
+        assertEquals(session.execute("echo next").output(), "next");
+    }
+}
@@ -0,0 +1,189 @@
+package org.swiften.xtestkit.android;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.subscribers.TestSubscriber;
+import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.WebElement;
+import org.swiften.javautilities.bool.HPBooleans;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
+import org.swiften.javautilities.rx.HPReactives;
+import org.swiften.xtestkit.android.element.date.CalendarDateActionType;
+import org.swiften.xtestkit.android.type.AndroidSDK;
+import org.swiften.xtestkit.base.element.date.CalendarUnit;
+import org.swiften.xtestkit.base.element.date.DateProviderType;
+import org.swiften.xtestkit.base.element.swipe.MultiSwipeType;
+import org.swiften.xtestkitcomponents.direction.Direction;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+public final class CalendarDateActionTest {
+    @NotNull private final CalendarDateActionType ENGINE;
+    @NotNull private final MultiSwipeType SWIPER;
+    @NotNull private final DateProviderType PARAM;
+    @NotNull private final WebElement ELEMENT;
+
+    {
+        /* Only the collaborators of rxa_calibrateDate are stubbed, so that
+         * the month seeking logic itself is the real one */
+        ENGINE = mock(CalendarDateActionType.class, CALLS_REAL_METHODS);
+        SWIPER = mock(MultiSwipeType.class);
+        PARAM = mock(DateProviderType.class);
+        ELEMENT = mock(WebElement.class);
+    }
+
+    @BeforeMethod
+    public void beforeMethod() {
+        FlowableTransformer<WebElement,Boolean> clickFn = a -> a.map(HPBooleans::toTrue);
+
+        doReturn(AndroidSDK.SDK_23).when(ENGINE).androidSDK();
+        doReturn(SWIPER).when(ENGINE).calendarSwiper(any());
+        doReturn(Flowable.just(ELEMENT)).when(ENGINE).rxe_byXPath(any());
+        doReturn(clickFn).when(ENGINE).clickFn();
+        doReturn(Flowable.just(true)).when(ENGINE).rxv_hasDate(any());
+        doReturn(Flowable.just(true)).when(ENGINE).rxa_calibrateDateStepwise(any());
+        doReturn(Flowable.just(ELEMENT)).when(SWIPER).rxe_scrollableViewToSwipe();
+        doReturn(Flowable.just(true)).when(SWIPER).rxa_swipeElement(any(), any(), anyDouble());
+        doReturn("01 January 2017").when(PARAM).dateString(anyString());
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        reset(ENGINE, SWIPER, PARAM);
+    }
+
+    @NotNull
+    private Date date(int year, int month, int day) {
+        return Date.from(LocalDate.of(year, month, day)
+            .atStartOfDay(ZoneId.systemDefault())
+            .toInstant());
+    }
+
+    private void setDates(@NotNull Date displayed, @NotNull Date target) {
+        doReturn(target).when(PARAM).date();
+        doReturn(Flowable.just(displayed)).when(ENGINE).rxe_displayedDate(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void calibrate() {
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+        ENGINE.rxa_calibrateDate(PARAM).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValue(true);
+    }
+
+    @Test
+    public void test_seekForwardAcrossYear_shouldSwipeByMonthDelta() {
+        // Setup
+        setDates(date(2016, 11, 30), date(2017, 2, 1));
+
+        // When
+        calibrate();
+
+        // Then
+        verify(SWIPER, times(3)).rxa_swipeElement(
+            eq(ELEMENT), eq(Direction.horizontal(false)), eq(0.7d));
+
+        verify(SWIPER, never()).rxa_swipeElement(
+            any(), eq(Direction.horizontal(true)), anyDouble());
+
+        verify(ENGINE).rxe_byXPath(any());
+        verify(ENGINE, never()).rxa_calibrateDateStepwise(any());
+    }
+
+    @Test
+    public void test_seekBackwardAcrossYear_shouldSwipeBackward() {
+        // Setup
+        doReturn(AndroidSDK.SDK_22).when(ENGINE).androidSDK();
+        setDates(date(2017, 1, 1), date(2016, 12, 31));
+
+        // When
+        calibrate();
+
+        // Then
+        verify(SWIPER, times(1)).rxa_swipeElement(
+            eq(ELEMENT), eq(Direction.vertical(true)), eq(0.7d));
+
+        verify(SWIPER, never()).rxa_swipeElement(
+            any(), eq(Direction.vertical(false)), anyDouble());
+
+        verify(ENGINE, never()).rxa_calibrateDateStepwise(any());
+    }
+
+    @Test
+    public void test_seekSameMonth_shouldOnlyClickDay() {
+        // Setup
+        setDates(date(2017, 3, 1), date(2017, 3, 28));
+
+        // When
+        calibrate();
+
+        // Then
+        verify(SWIPER, never()).rxe_scrollableViewToSwipe();
+        verify(SWIPER, never()).rxa_swipeElement(any(), any(), anyDouble());
+        verify(ENGINE).rxe_byXPath(any());
+        verify(ENGINE, never()).rxa_calibrateDateStepwise(any());
+    }
+
+    @Test
+    public void test_seekDistantMonth_shouldNotSelectYearAgain() {
+        // Setup
+        setDates(date(2015, 6, 15), date(2017, 7, 15));
+
+        // When
+        calibrate();
+
+        // Then
+        /* rxa_selectDate has already selected the year */
+        verify(SWIPER, times(25)).rxa_swipeElement(
+            eq(ELEMENT), eq(Direction.horizontal(false)), eq(0.7d));
+
+        verify(ENGINE, never()).rxa_openYearPicker(any());
+        verify(ENGINE, never()).rxa_scrollAndSelect(any(), eq(CalendarUnit.YEAR));
+    }
+
+    @Test
+    public void test_seekMissingDate_shouldFallBackToStepwise() {
+        // Setup
+        setDates(date(2017, 1, 15), date(2017, 4, 15));
+        doReturn(Flowable.just(false)).when(ENGINE).rxv_hasDate(any());
+
+        // When
+        calibrate();
+
+        // Then
+        verify(SWIPER, times(3)).rxa_swipeElement(any(), any(), anyDouble());
+        verify(ENGINE).rxa_calibrateDateStepwise(PARAM);
+    }
+
+    @Test
+    public void test_seekError_shouldFallBackToStepwise() {
+        // Setup
+        setDates(date(2017, 1, 15), date(2017, 4, 15));
+        doReturn(HPReactives.error("")).when(SWIPER).rxe_scrollableViewToSwipe();
+
+        // When
+        calibrate();
+
+        // Then
+        verify(ENGINE, never()).rxv_hasDate(any());
+        verify(ENGINE).rxa_calibrateDateStepwise(PARAM);
+    }
+}
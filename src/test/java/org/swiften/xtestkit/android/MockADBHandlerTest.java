@@ -6,12 +6,18 @@ import org.jetbrains.annotations.NotNull;
 import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.javautilities.rx.HPReactives;
+import org.swiften.xtestkit.android.adb.ADBDevice;
 import org.swiften.xtestkit.android.adb.ADBErrorType;
 import org.swiften.xtestkit.android.adb.ADBHandler;
+import org.swiften.xtestkit.android.adb.ADBTransportType;
+import org.swiften.xtestkit.android.adb.EmulatorBootPhase;
+import org.swiften.xtestkit.android.adb.EmulatorBootWatcher;
+import org.swiften.xtestkit.android.adb.ProcessADBTransport;
 import org.swiften.xtestkit.android.param.ClearCacheParam;
 import org.swiften.xtestkit.android.param.StartEmulatorParam;
 import org.swiften.xtestkit.android.param.StopEmulatorParam;
 import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+import org.swiften.xtestkit.base.PortLeaseAllocator;
 import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
 import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
 import org.testng.annotations.AfterMethod;
@@ -19,8 +25,15 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
@@ -31,21 +44,30 @@ import static org.testng.Assert.*;
 @SuppressWarnings("MessageMissingOnTestNGAssertion")
 public final class MockADBHandlerTest implements ADBErrorType {
     @NotNull private final ADBHandler ADB_HANDLER;
+    @NotNull private final EmulatorBootWatcher BOOT_WATCHER;
+    @NotNull private final Process PROCESS;
     @NotNull private final ProcessRunner PROCESS_RUNNER;
     @NotNull private final NetworkHandler NETWORK_HANDLER;
     @NotNull private final StartEmulatorParam SE_PARAM;
     @NotNull private final ClearCacheParam CC_PARAM;
     @NotNull private final DeviceUIDProviderType DUID_PARAM;
     @NotNull private final RetryProviderType RETRY;
+    @NotNull private final Set<Integer> BUSY_PORTS;
     @NotNull private final String APP_PACKAGE;
     @NotNull private final String DEVICE_NAME;
     @NotNull private final String DEVICE_UID;
     private final int RETRIES_ON_ERROR;
     private final int ANIM_DISABLE_CMD_COUNT;
+    private PortLeaseAllocator portAllocator;
 
     {
         ADB_HANDLER = spy(new ADBHandler());
 
+        /* We return this watcher when calling ADB_HANDLER.bootWatcher(), so
+         * that no actual emulator process is launched */
+        BOOT_WATCHER = spy(new EmulatorBootWatcher(ADB_HANDLER));
+        PROCESS = mock(Process.class);
+
         /* We return this networkHandler when calling
          * ADB_HANDLER.networkHandler() */
         NETWORK_HANDLER = spy(new NetworkHandler());
@@ -59,11 +81,14 @@ public final class MockADBHandlerTest implements ADBErrorType {
         CC_PARAM = mock(ClearCacheParam.class);
         DUID_PARAM = mock(DeviceUIDProviderType.class);
 
+        /* Ports in this set are reported as used by other processes */
+        BUSY_PORTS = new HashSet<>();
+
         /* Return this appPackage when calling CC_PARAM#appPackage */
         APP_PACKAGE = "TestAppPackage";
 
         /* Return this deviceName when calling SE_PARAM#deviceName() */
-        DEVICE_NAME = "Nexus_4_API_23";
+        DEVICE_NAME = "Nexus_5_API_23";
 
         /* Return this deviceUID when calling DUID_PARAM#deviceUID() */
         DEVICE_UID = "emulator-5556";
@@ -72,17 +97,29 @@ public final class MockADBHandlerTest implements ADBErrorType {
          * SE_PARAM#maxRetries() */
         RETRIES_ON_ERROR = 3;
 
-        /* There should be 3 commands to disable animations */
+        /* There should be 3 settings to disable animations */
         ANIM_DISABLE_CMD_COUNT = 3;
     }
 
     @BeforeMethod
-    public void beforeMethod() {
+    public void beforeMethod() throws IOException {
         doReturn(PROCESS_RUNNER).when(ADB_HANDLER).processRunner();
+        doReturn(BOOT_WATCHER).when(ADB_HANDLER).bootWatcher();
+        doReturn(PROCESS).when(BOOT_WATCHER).launch(any(), any());
         doReturn(PROCESS_RUNNER).when(NETWORK_HANDLER).processRunner();
         doReturn(NETWORK_HANDLER).when(ADB_HANDLER).networkHandler();
         doReturn(true).when(ADB_HANDLER).isAcceptablePort(anyInt());
 
+        /* Use a fresh allocator so that leases do not leak across tests */
+        portAllocator = PortLeaseAllocator.builder()
+            .withBasePort(ADBHandler.MIN_PORT)
+            .withSlots(ADBHandler.availablePortsCount())
+            .withWidth(2)
+            .withProbe(a -> !BUSY_PORTS.contains(a))
+            .build();
+
+        doReturn(portAllocator).when(ADB_HANDLER).portAllocator();
+
         /* Shorten the delay for testing */
         doReturn(100L).when(ADB_HANDLER).emulatorBootRetryDelay();
 
@@ -90,6 +127,8 @@ public final class MockADBHandlerTest implements ADBErrorType {
          * complicated behaviors */
         doReturn(RETRIES_ON_ERROR).when(SE_PARAM).retries();
         doReturn(DEVICE_NAME).when(SE_PARAM).deviceName();
+        doReturn(DEVICE_UID).when(SE_PARAM).deviceUID();
+        doReturn("").when(SE_PARAM).snapshot();
         doReturn(RETRIES_ON_ERROR).when(RETRY).retries();
         doReturn(DEVICE_UID).when(DUID_PARAM).deviceUID();
         doReturn(APP_PACKAGE).when(CC_PARAM).appPackage();
@@ -99,7 +138,10 @@ public final class MockADBHandlerTest implements ADBErrorType {
 
     @AfterMethod
     public void afterMethod() {
-        reset(ADB_HANDLER, PROCESS_RUNNER, NETWORK_HANDLER, RETRY, SE_PARAM);
+        /* Launched emulators are shared by all boot watchers */
+        BOOT_WATCHER.stopEmulators();
+        reset(ADB_HANDLER, BOOT_WATCHER, PROCESS, PROCESS_RUNNER, NETWORK_HANDLER, RETRY, SE_PARAM);
+        BUSY_PORTS.clear();
     }
 
     //region Adb Setup
@@ -138,7 +180,7 @@ public final class MockADBHandlerTest implements ADBErrorType {
     @SuppressWarnings("unchecked")
     public void test_findPortWithNoneAvailable_shouldThrow() {
         // Setup
-        doReturn(false).when(NETWORK_HANDLER).isPortAvailable(any(), anyInt());
+        IntStream.rangeClosed(ADBHandler.MIN_PORT, ADBHandler.MAX_PORT).forEach(BUSY_PORTS::add);
         TestSubscriber subscriber = TestSubscriber.create();
 
         // When
@@ -149,20 +191,17 @@ public final class MockADBHandlerTest implements ADBErrorType {
         subscriber.assertSubscribed();
         subscriber.assertErrorMessage(NO_PORT_AVAILABLE);
         subscriber.assertNotComplete();
-        verify(ADB_HANDLER).networkHandler();
         verify(ADB_HANDLER).rxe_availablePort(any());
-        verify(ADB_HANDLER).availablePorts();
-        verify(NETWORK_HANDLER).rxa_checkUntilPortAvailable(any());
-        verify(NETWORK_HANDLER, atLeastOnce()).rxa_checkPortAvailable(any());
-        verify(NETWORK_HANDLER, never()).markPortUsed(anyInt());
+        verify(ADB_HANDLER).portAllocator();
         verifyNoMoreInteractions(ADB_HANDLER);
+        assertEquals(portAllocator.leaseCount(), 0);
     }
 
     @Test
     @SuppressWarnings("unchecked")
     public void mock_findPortWithAllUsed_shouldThrow() {
         // Setup
-        doReturn(true).when(NETWORK_HANDLER).checkPortsUsed(any());
+        IntStream.range(0, portAllocator.capacity()).forEach(portAllocator::tryLease);
         TestSubscriber subscriber = CustomTestSubscriber.create();
 
         // When
@@ -174,10 +213,9 @@ public final class MockADBHandlerTest implements ADBErrorType {
         subscriber.assertErrorMessage(NO_PORT_AVAILABLE);
         subscriber.assertNotComplete();
         verify(ADB_HANDLER).rxe_availablePort(any());
-        verify(ADB_HANDLER).networkHandler();
-        verify(ADB_HANDLER).availablePorts();
-        verify(NETWORK_HANDLER).checkPortsUsed(any());
+        verify(ADB_HANDLER).portAllocator();
         verifyNoMoreInteractions(ADB_HANDLER);
+        assertEquals(portAllocator.leasedCount(), portAllocator.capacity());
     }
 
     @Test
@@ -185,8 +223,11 @@ public final class MockADBHandlerTest implements ADBErrorType {
     public void test_findPort_shouldSucceed() {
         // Setup
         int correctPort = ADBHandler.MAX_PORT - 1;
-        doReturn(false).when(NETWORK_HANDLER).isPortAvailable(any(), anyInt());
-        doReturn(true).when(NETWORK_HANDLER).isPortAvailable(any(), eq(correctPort));
+
+        IntStream.rangeClosed(ADBHandler.MIN_PORT, ADBHandler.MAX_PORT)
+            .filter(a -> a < correctPort)
+            .forEach(BUSY_PORTS::add);
+
         TestSubscriber subscriber = TestSubscriber.create();
 
         // When
@@ -198,57 +239,53 @@ public final class MockADBHandlerTest implements ADBErrorType {
         subscriber.assertNoErrors();
         subscriber.assertComplete();
         assertEquals(HPReactives.<Integer>firstNextEvent(subscriber).intValue(), correctPort);
-        verify(ADB_HANDLER).networkHandler();
         verify(ADB_HANDLER).rxe_availablePort(any());
-        verify(ADB_HANDLER).availablePorts();
-        verify(NETWORK_HANDLER).rxa_checkUntilPortAvailable(any());
-        verify(NETWORK_HANDLER, atLeastOnce()).rxa_checkPortAvailable(any());
-        verify(NETWORK_HANDLER).markPortUsed(correctPort);
+        verify(ADB_HANDLER).portAllocator();
         verifyNoMoreInteractions(ADB_HANDLER);
-        assertFalse(NETWORK_HANDLER.isPortAvailable(correctPort));
+        assertEquals(portAllocator.lease(correctPort).owner(), ADB_HANDLER);
+        assertTrue(ADB_HANDLER.releasePort(correctPort));
+        assertNull(portAllocator.lease(correctPort));
     }
     //endregion
 
     //region Start Emulator
     @Test
     @SuppressWarnings("unchecked")
-    public void test_startEmulatorWithInvalidPort_shouldThrow() {
-        // Setup
-        doReturn(false).when(ADB_HANDLER).isAcceptablePort(anyInt());
-        TestSubscriber subscriber = CustomTestSubscriber.create();
+    public void test_startEmulatorWithEarlyExit_shouldThrow() {
+        try {
+            // Setup
+            /* The emulator process dies before adb can see it */
+            doReturn(false).when(PROCESS).isAlive();
+            doReturn(Flowable.never()).when(PROCESS_RUNNER).rxa_execute(contains("wait-for-device"));
+            TestSubscriber subscriber = CustomTestSubscriber.create();
 
-        // When
-        ADB_HANDLER.rxa_startEmulator(SE_PARAM).subscribe(subscriber);
-        subscriber.awaitTerminalEvent();
+            // When
+            ADB_HANDLER.rxa_startEmulator(SE_PARAM).subscribe(subscriber);
+            subscriber.awaitTerminalEvent();
 
-        // Then
-        subscriber.assertSubscribed();
-        subscriber.assertError(Exception.class);
-        subscriber.assertNotComplete();
-        verify(ADB_HANDLER).emulatorBootRetryDelay();
-        verify(ADB_HANDLER).emulatorBootTimeout();
-        verify(ADB_HANDLER).processRunner();
-        verify(ADB_HANDLER, atLeastOnce()).cm_AndroidHome();
-        verify(ADB_HANDLER).cm_adb();
-        verify(ADB_HANDLER).cm_adbShell(any());
-        verify(ADB_HANDLER).cm_bootAnim(any());
-        verify(ADB_HANDLER).cm_emulator();
-        verify(ADB_HANDLER).cm_startEmulator(any());
-        verify(ADB_HANDLER).rxa_startEmulator(any());
-        verifyNoMoreInteractions(ADB_HANDLER);
+            // Then
+            subscriber.assertSubscribed();
+            subscriber.assertErrorMessage(emulatorExited(DEVICE_NAME));
+            subscriber.assertNotComplete();
+            verify(BOOT_WATCHER).launch(contains("-avd"), any());
+            verify(ADB_HANDLER).cm_startEmulator(any());
+            verify(ADB_HANDLER).cm_waitForDevice(any());
+            assertTrue(BOOT_WATCHER.bootDurations(DEVICE_NAME).isEmpty());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    public void test_startEmulatorWithBootAnimError_shouldThrow() {
+    public void test_startEmulatorWithBootError_shouldThrow() {
         try {
             // Setup
-            /* We return a valid output here i.e. when startEmulator is
-             * executed, no error will be thrown. If we do not limit the
-             * number of retries, the bootanim checking process will loop
-             * indefinitely */
-            doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("-avd"));
-            doReturn(HPReactives.error()).when(PROCESS_RUNNER).rxa_execute(contains("bootanim"));
+            /* If we do not limit the number of retries, the boot polling
+             * process will loop indefinitely */
+            doReturn(true).when(PROCESS).isAlive();
+            doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("wait-for-device"));
+            doReturn(HPReactives.error()).when(PROCESS_RUNNER).rxa_execute(contains("boot_completed"));
             TestSubscriber subscriber = CustomTestSubscriber.create();
 
             // When
@@ -259,17 +296,11 @@ public final class MockADBHandlerTest implements ADBErrorType {
             subscriber.assertSubscribed();
             subscriber.assertError(RuntimeException.class);
             subscriber.assertNotComplete();
-            verify(ADB_HANDLER, atLeastOnce()).cm_AndroidHome();
-            verify(ADB_HANDLER).cm_adb();
-            verify(ADB_HANDLER).cm_adbShell(any());
-            verify(ADB_HANDLER).cm_bootAnim(any());
-            verify(ADB_HANDLER).cm_emulator();
             verify(ADB_HANDLER).cm_startEmulator(any());
-            verify(ADB_HANDLER).processRunner();
-            verify(ADB_HANDLER).emulatorBootRetryDelay();
-            verify(ADB_HANDLER).emulatorBootTimeout();
-            verify(ADB_HANDLER).rxa_startEmulator(any());
-            verifyNoMoreInteractions(ADB_HANDLER);
+            verify(ADB_HANDLER).cm_waitForDevice(any());
+            verify(ADB_HANDLER).cm_bootCompleted(any());
+            verify(ADB_HANDLER).rxa_executeShell(any(), any());
+            assertTrue(BOOT_WATCHER.bootDurations(DEVICE_NAME).isEmpty());
         } catch (Exception e) {
             fail(e.getMessage());
         }
@@ -277,36 +308,38 @@ public final class MockADBHandlerTest implements ADBErrorType {
 
     @Test
     @SuppressWarnings("unchecked")
-    public void test_startEmulatorWithError_shouldThrow() {
+    public void test_startEmulator_shouldEmitPhasesAndRecordDuration() {
         try {
             // Setup
-            /* We need to make sure that when startEmulator() throws an
-             * error, bootAnim loop will be notified. This is because the
-             * former is run on a different Thread */
-            doReturn(HPReactives.error()).when(PROCESS_RUNNER).rxa_execute(any());
+            doReturn(true).when(PROCESS).isAlive();
+            doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("wait-for-device"));
+            doReturn(Flowable.just("1")).when(PROCESS_RUNNER).rxa_execute(contains("boot_completed"));
             TestSubscriber subscriber = CustomTestSubscriber.create();
 
             // When
-            ADB_HANDLER.rxa_startEmulator(SE_PARAM).subscribe(subscriber);
+            BOOT_WATCHER.rxe_bootPhases(SE_PARAM).subscribe(subscriber);
             subscriber.awaitTerminalEvent();
 
             // Then
             subscriber.assertSubscribed();
-            subscriber.assertError(IOException.class);
-            subscriber.assertNotComplete();
-            verify(ADB_HANDLER).processRunner();
-            verify(ADB_HANDLER, atLeastOnce()).cm_AndroidHome();
-            verify(ADB_HANDLER).cm_adb();
-            verify(ADB_HANDLER).cm_adbShell(any());
-            verify(ADB_HANDLER).cm_bootAnim(any());
-            verify(ADB_HANDLER).cm_emulator();
-            verify(ADB_HANDLER).cm_startEmulator(any());
-            verify(ADB_HANDLER).isAcceptablePort(anyInt());
-            verify(ADB_HANDLER).processRunner();
-            verify(ADB_HANDLER).emulatorBootRetryDelay();
-            verify(ADB_HANDLER).emulatorBootTimeout();
-            verify(ADB_HANDLER).rxa_startEmulator(any());
-            verifyNoMoreInteractions(ADB_HANDLER);
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+
+            subscriber.assertValues(
+                EmulatorBootPhase.LAUNCHED,
+                EmulatorBootPhase.DEVICE_ONLINE,
+                EmulatorBootPhase.BOOT_COMPLETED);
+
+            assertEquals(BOOT_WATCHER.bootDurations(DEVICE_NAME).size(), 1);
+            assertEquals(BOOT_WATCHER.emulatorProcess(SE_PARAM), PROCESS);
+            assertTrue(BOOT_WATCHER.bootSummary().startsWith(DEVICE_NAME));
+
+            // When
+            BOOT_WATCHER.stopEmulators();
+
+            // Then
+            verify(PROCESS).destroy();
+            assertNull(BOOT_WATCHER.emulatorProcess(SE_PARAM));
         } catch (Exception e) {
             fail(e.getMessage());
         }
@@ -317,8 +350,9 @@ public final class MockADBHandlerTest implements ADBErrorType {
     public void test_startEmulator_shouldSucceed() {
         try {
             // Setup
-            doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("avd"));
-            doReturn(Flowable.just("stopped")).when(PROCESS_RUNNER).rxa_execute(contains("bootanim"));
+            doReturn(true).when(PROCESS).isAlive();
+            doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("wait-for-device"));
+            doReturn(Flowable.just("1")).when(PROCESS_RUNNER).rxa_execute(contains("boot_completed"));
             TestSubscriber subscriber = CustomTestSubscriber.create();
 
             // When
@@ -329,17 +363,19 @@ public final class MockADBHandlerTest implements ADBErrorType {
             subscriber.assertSubscribed();
             subscriber.assertNoErrors();
             subscriber.assertComplete();
-            verify(ADB_HANDLER).processRunner();
+            subscriber.assertValue(true);
             verify(ADB_HANDLER, atLeastOnce()).cm_AndroidHome();
-            verify(ADB_HANDLER).cm_adb();
+            verify(ADB_HANDLER, times(2)).cm_adb();
             verify(ADB_HANDLER).cm_adbShell(any());
-            verify(ADB_HANDLER).cm_bootAnim(any());
             verify(ADB_HANDLER).cm_emulator();
             verify(ADB_HANDLER).cm_startEmulator(any());
-            verify(ADB_HANDLER).isAcceptablePort(anyInt());
-            verify(ADB_HANDLER).processRunner();
-            verify(ADB_HANDLER).emulatorBootRetryDelay();
+            verify(ADB_HANDLER).cm_waitForDevice(any());
+            verify(ADB_HANDLER).cm_bootCompleted(any());
+            verify(ADB_HANDLER, times(2)).processRunner();
+            verify(ADB_HANDLER).bootWatcher();
+            verify(ADB_HANDLER, atLeastOnce()).emulatorBootRetryDelay();
             verify(ADB_HANDLER).emulatorBootTimeout();
+            verify(ADB_HANDLER).rxa_executeShell(any(), any());
             verify(ADB_HANDLER).rxa_startEmulator(any());
             verifyNoMoreInteractions(ADB_HANDLER);
         } catch (Exception e) {
@@ -687,8 +723,13 @@ public final class MockADBHandlerTest implements ADBErrorType {
     public void test_disableEmulatorAnimationsWithMismatchedValue_shouldThrow() {
         try {
             // Setup
+            String listed = "namespace:global\n" +
+                "window_animation_scale=1\n" +
+                "transition_animation_scale=0\n" +
+                "animator_duration_scale=0";
+
             doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("put"));
-            doReturn(Flowable.just("1")).when(PROCESS_RUNNER).rxa_execute(contains("get"));
+            doReturn(Flowable.just(listed)).when(PROCESS_RUNNER).rxa_execute(contains("list"));
             TestSubscriber subscriber = CustomTestSubscriber.create();
 
             // When
@@ -697,7 +738,7 @@ public final class MockADBHandlerTest implements ADBErrorType {
 
             // Then
             subscriber.assertSubscribed();
-            subscriber.assertError(Exception.class);
+            subscriber.assertErrorMessage(changeSettingsFailed("window_animation_scale"));
             subscriber.assertNoValues();
             subscriber.assertNotComplete();
         } catch (Exception e) {
@@ -707,7 +748,7 @@ public final class MockADBHandlerTest implements ADBErrorType {
 
     @Test
     @SuppressWarnings("unchecked")
-    public void test_disableEmulatorAnimationsWithError_shouldSucceed() {
+    public void test_disableEmulatorAnimationsWithError_shouldThrow() {
         try {
             // Setup
             doReturn(HPReactives.error()).when(PROCESS_RUNNER).rxa_execute(contains("put"));
@@ -721,18 +762,15 @@ public final class MockADBHandlerTest implements ADBErrorType {
             subscriber.assertSubscribed();
             subscriber.assertError(Exception.class);
             subscriber.assertNotComplete();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).cm_AndroidHome();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).cm_adb();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).cm_adbShell(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).changeSettingsFailed(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).cm_putSettings(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).processRunner();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).emulatorSettingTimeout();
-            verify(ADB_HANDLER).rxa_disableWindowAnimationScale(any());
-            verify(ADB_HANDLER).rxa_disableTransitionAnimationScale(any());
-            verify(ADB_HANDLER).rxa_disableAnimatorDurationScale(any());
+            verify(ADB_HANDLER, atLeastOnce()).cm_AndroidHome();
+            verify(ADB_HANDLER, atLeastOnce()).cm_adb();
+            verify(ADB_HANDLER, atLeastOnce()).cm_adbShell(any());
+            verify(ADB_HANDLER, atLeastOnce()).cm_putSettingsBatch(any());
+            verify(ADB_HANDLER, atLeastOnce()).processRunner();
+            verify(ADB_HANDLER).emulatorSettingTimeout();
+            verify(ADB_HANDLER).animationSettings(any());
+            verify(ADB_HANDLER).rxa_applySettings(any());
             verify(ADB_HANDLER).rxa_disableAnimations(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).rxa_changeSettings(any());
             verifyNoMoreInteractions(ADB_HANDLER);
         } catch (Exception e) {
             fail(e.getMessage());
@@ -744,8 +782,13 @@ public final class MockADBHandlerTest implements ADBErrorType {
     public void test_disableEmulatorAnimations_shouldSucceed() {
         try {
             // Setup
+            String listed = "namespace:global\n" +
+                "window_animation_scale=0\n" +
+                "transition_animation_scale=0\n" +
+                "animator_duration_scale=0";
+
             doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("put"));
-            doReturn(Flowable.just("0")).when(PROCESS_RUNNER).rxa_execute(contains("get"));
+            doReturn(Flowable.just(listed)).when(PROCESS_RUNNER).rxa_execute(contains("list"));
             TestSubscriber subscriber = CustomTestSubscriber.create();
 
             // When
@@ -756,23 +799,194 @@ public final class MockADBHandlerTest implements ADBErrorType {
             subscriber.assertSubscribed();
             subscriber.assertNoErrors();
             subscriber.assertComplete();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT * 2)).cm_AndroidHome();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT * 2)).cm_adb();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT * 2)).cm_adbShell(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).changeSettingsFailed(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).cm_putSettings(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).cm_getSettings(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).processRunner();
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).emulatorSettingTimeout();
-            verify(ADB_HANDLER).rxa_disableWindowAnimationScale(any());
-            verify(ADB_HANDLER).rxa_disableTransitionAnimationScale(any());
-            verify(ADB_HANDLER).rxa_disableAnimatorDurationScale(any());
+
+            /* One put and one list, regardless of the number of settings */
+            verify(PROCESS_RUNNER).rxa_execute(contains("put"));
+            verify(PROCESS_RUNNER).rxa_execute(contains("list"));
+            verify(ADB_HANDLER, times(2)).cm_AndroidHome();
+            verify(ADB_HANDLER, times(2)).cm_adb();
+            verify(ADB_HANDLER, times(2)).cm_adbShell(any());
+            verify(ADB_HANDLER).cm_putSettingsBatch(any());
+            verify(ADB_HANDLER).cm_listSettings(any());
+
+            /* Each command forks adb through the default transport */
+            verify(ADB_HANDLER, times(2)).processRunner();
+            verify(ADB_HANDLER).emulatorSettingTimeout();
+            verify(ADB_HANDLER).animationSettings(any());
+            verify(ADB_HANDLER).rxa_applySettings(any());
             verify(ADB_HANDLER).rxa_disableAnimations(any());
-            verify(ADB_HANDLER, times(ANIM_DISABLE_CMD_COUNT)).rxa_changeSettings(any());
             verifyNoMoreInteractions(ADB_HANDLER);
+            assertEquals(ADB_HANDLER.animationSettings(DUID_PARAM).settings().size(), ANIM_DISABLE_CMD_COUNT);
         } catch (Exception e) {
             fail(e.getMessage());
         }
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_disableEmulatorAnimationsWithPartialFailure_shouldRetryFailedKeys() {
+        try {
+            // Setup
+            String failed = "namespace:global\n" +
+                "window_animation_scale=1\n" +
+                "transition_animation_scale=0\n" +
+                "animator_duration_scale=0";
+
+            String succeeded = failed.replace("window_animation_scale=1", "window_animation_scale=0");
+            doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("put"));
+
+            doReturn(Flowable.just(failed), Flowable.just(succeeded))
+                .when(PROCESS_RUNNER).rxa_execute(contains("list"));
+
+            TestSubscriber subscriber = CustomTestSubscriber.create();
+
+            // When
+            ADB_HANDLER.rxa_disableAnimations(DUID_PARAM).subscribe(subscriber);
+            subscriber.awaitTerminalEvent();
+
+            // Then
+            subscriber.assertSubscribed();
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+            verify(PROCESS_RUNNER, times(2)).rxa_execute(contains("put"));
+            verify(PROCESS_RUNNER, times(2)).rxa_execute(contains("list"));
+
+            verify(PROCESS_RUNNER).rxa_execute(argThat(a ->
+                a.contains("put global window_animation_scale") &&
+                !a.contains("transition_animation_scale")));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+    //endregion
+
+    //region Shell Transport
+    @Test
+    public void test_defaultTransport_shouldForkAdb() {
+        // Setup
+        ADBTransportType transport = mock(ADBTransportType.class);
+
+        // When
+        ADBTransportType defaultTransport = ADB_HANDLER.transport();
+        ADB_HANDLER.setTransport(transport);
+        ADBTransportType setTransport = ADB_HANDLER.transport();
+        ADB_HANDLER.setTransport(null);
+
+        // Then
+        assertTrue(defaultTransport instanceof ProcessADBTransport);
+        assertEquals(setTransport, transport);
+        assertEquals(ADB_HANDLER.transport(), defaultTransport);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_devicesWithDefaultTransport_shouldForkAdb() {
+        // Setup
+        String output = "List of devices attached\n" +
+            "emulator-5556          device product:sdk model:Nexus_5 transport_id:2\n";
+
+        doReturn(Flowable.just(output)).when(PROCESS_RUNNER).rxa_execute(contains("devices -l"));
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ADB_HANDLER.rxe_devices().subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        List<ADBDevice> devices = (List<ADBDevice>) subscriber.values().get(0);
+        assertEquals(devices.size(), 1);
+        assertEquals(devices.get(0).deviceUID(), DEVICE_UID);
+        verify(ADB_HANDLER).cm_adbDevices();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_pullWithUnreachableTransport_shouldFallBack() {
+        // Setup
+        ADBTransportType transport = mock(ADBTransportType.class);
+        doReturn(Flowable.error(new ConnectException())).when(transport).rxe_pull(any(), any());
+        doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("pull"));
+        ADB_HANDLER.setTransport(transport);
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        try {
+            // When
+            ADB_HANDLER.rxe_pull(DUID_PARAM, "/data/local/tmp/state").subscribe(subscriber);
+            subscriber.awaitTerminalEvent();
+
+            // Then
+            /* The fake pull leaves the temporary file empty */
+            subscriber.assertSubscribed();
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+            assertEquals(((byte[]) subscriber.values().get(0)).length, 0);
+            verify(transport).rxe_pull(DUID_PARAM, "/data/local/tmp/state");
+            verify(PROCESS_RUNNER).rxa_execute(contains("-s emulator-5556 pull /data/local/tmp/state"));
+        } finally {
+            ADB_HANDLER.setTransport(null);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_shellWithUnreachableTransport_shouldFallBack() {
+        // Setup
+        ADBTransportType transport = mock(ADBTransportType.class);
+        doReturn(Flowable.error(new ConnectException())).when(transport).rxa_shell(any(), any());
+        doReturn(Flowable.just("1")).when(PROCESS_RUNNER).rxa_execute(contains("boot_completed"));
+        ADB_HANDLER.setTransport(transport);
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        try {
+            // When
+            ADB_HANDLER
+                .rxa_executeShell(DUID_PARAM, ADB_HANDLER.cm_bootCompleted(DUID_PARAM))
+                .subscribe(subscriber);
+
+            subscriber.awaitTerminalEvent();
+
+            // Then
+            subscriber.assertSubscribed();
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+            subscriber.assertValue("1");
+            verify(transport).rxa_shell(DUID_PARAM, "getprop sys.boot_completed");
+            verify(PROCESS_RUNNER).rxa_execute(contains("boot_completed"));
+        } finally {
+            ADB_HANDLER.setTransport(null);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_shellWithReadTimeout_shouldNotRunAgain() {
+        // Setup
+        ADBTransportType transport = mock(ADBTransportType.class);
+        doReturn(Flowable.error(new SocketTimeoutException())).when(transport).rxa_shell(any(), any());
+        ADB_HANDLER.setTransport(transport);
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        try {
+            // When
+            ADB_HANDLER
+                .rxa_executeShell(DUID_PARAM, ADB_HANDLER.cm_bootCompleted(DUID_PARAM))
+                .subscribe(subscriber);
+
+            subscriber.awaitTerminalEvent();
+
+            // Then
+            /* The command may have already run on the device */
+            subscriber.assertSubscribed();
+            subscriber.assertError(SocketTimeoutException.class);
+            subscriber.assertNotComplete();
+            verify(transport).rxa_shell(any(), any());
+            verify(PROCESS_RUNNER, never()).rxa_execute(any());
+        } finally {
+            ADB_HANDLER.setTransport(null);
+        }
+    }
     //endregion
 }
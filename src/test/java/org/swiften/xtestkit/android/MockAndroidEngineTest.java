@@ -4,10 +4,14 @@ import io.reactivex.Flowable;
 import io.reactivex.subscribers.TestSubscriber;
 import org.jetbrains.annotations.NotNull;
 import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.xtestkit.android.adb.ADBHandler;
+import org.swiften.xtestkit.android.element.date.AndroidDatePickerType;
+import org.swiften.xtestkit.android.element.date.UnitNumberPickerWrapper;
 import org.swiften.xtestkit.android.param.StartEmulatorParam;
+import org.swiften.xtestkit.base.element.date.CalendarUnit;
 import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -85,13 +89,14 @@ public final class MockAndroidEngineTest {
         subscriber.assertSubscribed();
         subscriber.assertNoErrors();
         subscriber.assertComplete();
-        verify(ENGINE).adbHandler();
-        verify(ENGINE).androidInstance();
+        verify(ENGINE, times(4)).adbHandler();
+        verify(ENGINE, times(4)).androidInstance();
         verify(ENGINE).testMode();
-        verify(ENGINE).deviceName();
+        verify(ENGINE, times(2)).deviceName();
+        verify(ENGINE).emulatorSnapshot();
         verify(ENGINE, atLeastOnce()).address();
         verify(ENGINE, atLeastOnce()).processRunner();
-        verify(ENGINE).networkHandler();
+        verify(ENGINE).appiumPortAllocator();
         verify(ENGINE).cm_whichAppium();
         verify(ENGINE).cm_fallBackAppium();
         verify(ENGINE).cm_startLocalAppium(anyString(), anyInt());
@@ -99,6 +104,9 @@ public final class MockAndroidEngineTest {
         verify(ENGINE).rxa_startDriver(any());
         verify(ENGINE).rxa_startLocalAppium(any());
         verify(ENGINE).rxa_beforeClass(any());
+        verify(ENGINE).rxa_provisionEmulator(any());
+        verify(ENGINE).rxa_assignEmulatorPort(any());
+        verify(ENGINE).rxa_bootEmulator();
         verify(ADB_HANDLER).rxe_availablePort(any());
         verify(ADB_HANDLER).rxa_startEmulator(SE_CAPTOR.capture());
         verify(ADB_HANDLER).rxa_disableAnimations(any());
@@ -125,7 +133,8 @@ public final class MockAndroidEngineTest {
         subscriber.assertSubscribed();
         subscriber.assertNoErrors();
         subscriber.assertComplete();
-        verify(ENGINE, times(3)).networkHandler();
+        verify(ENGINE).networkHandler();
+        verify(ENGINE).appiumPortAllocator();
         verify(ENGINE).androidInstance();
         verify(ENGINE).adbHandler();
         verify(ENGINE, atLeastOnce()).address();
@@ -134,7 +143,8 @@ public final class MockAndroidEngineTest {
         verify(ENGINE).rxa_afterClass(any());
         verify(ENGINE).rxa_stopLocalAppium();
         verify(ADB_HANDLER).rxa_stopEmulator(any());
-        verify(NETWORK_HANDLER, times(2)).markPortAvailable(anyInt());
+        verify(ADB_HANDLER).releasePort(anyInt());
+        verify(NETWORK_HANDLER, never()).markPortAvailable(anyInt());
         verifyNoMoreInteractions(ENGINE);
     }
     //endregion
@@ -167,4 +177,67 @@ public final class MockAndroidEngineTest {
         verifyNoMoreInteractions(ENGINE);
     }
     //endregion
+
+    //region Number Picker
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_typeNumericChoice_shouldSendValueOnce() {
+        // Setup
+        WebElement element = mock(WebElement.class);
+        doReturn(true).when(element).isEnabled();
+        doReturn("true").when(element).getAttribute("focusable");
+        doReturn(Flowable.just(element)).when(ENGINE).rxe_withXPath(any());
+        doReturn("2017").when(ENGINE).getText(element);
+        doNothing().when(ENGINE).click(any());
+        doNothing().when(ENGINE).sendValue(any(), any());
+        doNothing().when(ENGINE).toggleNextInput(any());
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        UnitNumberPickerWrapper input = UnitNumberPickerWrapper.builder()
+            .withDatePicker(AndroidDatePickerType.DATE_NUMBER_PICKER_MMM_dd_yyyy)
+            .withCalendarUnit(CalendarUnit.YEAR)
+            .build();
+
+        // When
+        ENGINE.rxa_typeNumericChoice(input, "2017").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValue(true);
+        verify(ENGINE).click(element);
+        verify(ENGINE).sendValue(element, "2017");
+        verify(ENGINE).toggleNextInput(element);
+        verify(ENGINE, never()).rxa_swipeOnce(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_typeNumericChoiceWithDisabledInput_shouldNotSendValue() {
+        // Setup
+        WebElement element = mock(WebElement.class);
+        doReturn(true).when(element).isEnabled();
+        doReturn("false").when(element).getAttribute("focusable");
+        doReturn(Flowable.just(element)).when(ENGINE).rxe_withXPath(any());
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        UnitNumberPickerWrapper input = UnitNumberPickerWrapper.builder()
+            .withDatePicker(AndroidDatePickerType.DATE_NUMBER_PICKER_MMM_dd_yyyy)
+            .withCalendarUnit(CalendarUnit.YEAR)
+            .build();
+
+        // When
+        ENGINE.rxa_typeNumericChoice(input, "2017").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValue(false);
+        verify(ENGINE, never()).sendValue(any(), any());
+    }
+    //endregion
 }
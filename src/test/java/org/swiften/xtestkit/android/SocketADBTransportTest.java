@@ -0,0 +1,267 @@
+package org.swiften.xtestkit.android;
+
+import io.reactivex.subscribers.TestSubscriber;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
+import org.swiften.xtestkit.android.adb.ADBDevice;
+import org.swiften.xtestkit.android.adb.SocketADBTransport;
+import org.swiften.xtestkit.android.type.DeviceUIDProviderType;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+/**
+ * Tests for {@link SocketADBTransport}, using a small in-JVM fake adb server
+ * that knows a single device.
+ */
+public final class SocketADBTransportTest {
+    @NotNull private static final String SERIAL = "emulator-5554";
+    @NotNull private static final String HANG = "hang";
+    @NotNull private static final String FILE_CONTENT = "persisted-state";
+
+    @NotNull private final DeviceUIDProviderType DEVICE;
+    @NotNull private final DeviceUIDProviderType UNKNOWN;
+    private ServerSocket server;
+    private SocketADBTransport transport;
+
+    {
+        DEVICE = () -> SERIAL;
+        UNKNOWN = () -> "emulator-9999";
+    }
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException {
+        server = new ServerSocket(0);
+        Thread thread = new Thread(this::serve);
+        thread.setDaemon(true);
+        thread.start();
+
+        transport = SocketADBTransport.builder()
+            .withPort(server.getLocalPort())
+            .withTimeout(1000)
+            .build();
+    }
+
+    @AfterMethod
+    public void afterMethod() throws IOException {
+        server.close();
+    }
+
+    //region Fake adb server
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                handle(socket);
+            } catch (IOException e) {
+                /* Server closed */
+            }
+        }
+    }
+
+    private void handle(@NotNull Socket socket) throws IOException {
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        OutputStream output = socket.getOutputStream();
+        String request = readRequest(input);
+
+        if (request.equals("host:devices-l")) {
+            String devices = SERIAL + "          device product:sdk model:Nexus_4 transport_id:1\n";
+            output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            writeHexLength(output, devices);
+        } else if (request.equals("host:transport:" + SERIAL)) {
+            output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            String service = readRequest(input);
+
+            if (service.startsWith("shell:")) {
+                output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+                String command = service.substring("shell:".length());
+
+                if (command.equals(HANG)) {
+                    /* Never reply, and wait for the client to give up */
+                    output.flush();
+                    while (input.read() >= 0) {}
+                    return;
+                }
+
+                output.write(String.format("%s\r\ndone\r\n", command).getBytes(StandardCharsets.UTF_8));
+            } else if (service.equals("sync:")) {
+                output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+                handleSync(input, output);
+            }
+        } else {
+            output.write("FAIL".getBytes(StandardCharsets.US_ASCII));
+            writeHexLength(output, "device not found");
+        }
+
+        output.flush();
+    }
+
+    private void handleSync(@NotNull DataInputStream input,
+                            @NotNull OutputStream output) throws IOException {
+        byte[] header = new byte[8];
+        input.readFully(header);
+        ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] id = new byte[4];
+        buffer.get(id);
+        byte[] path = new byte[buffer.getInt()];
+        input.readFully(path);
+        assertEquals(new String(id, StandardCharsets.US_ASCII), "RECV");
+
+        /* Send the content in two chunks */
+        byte[] content = FILE_CONTENT.getBytes(StandardCharsets.UTF_8);
+        int half = content.length / 2;
+        writeSyncPacket(output, "DATA", Arrays.copyOfRange(content, 0, half));
+        writeSyncPacket(output, "DATA", Arrays.copyOfRange(content, half, content.length));
+        writeSyncPacket(output, "DONE", new byte[0]);
+    }
+
+    @NotNull
+    private String readRequest(@NotNull DataInputStream input) throws IOException {
+        byte[] length = new byte[4];
+        input.readFully(length);
+        byte[] payload = new byte[Integer.parseInt(new String(length, StandardCharsets.US_ASCII), 16)];
+        input.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private void writeHexLength(@NotNull OutputStream output,
+                                @NotNull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.write(String.format("%04x", bytes.length).getBytes(StandardCharsets.US_ASCII));
+        output.write(bytes);
+    }
+
+    private void writeSyncPacket(@NotNull OutputStream output,
+                                 @NotNull String id,
+                                 @NotNull byte[] data) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(id.getBytes(StandardCharsets.US_ASCII));
+        header.putInt(data.length);
+        output.write(header.array());
+        output.write(data);
+    }
+    //endregion
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_devices_shouldParseDeviceList() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        transport.rxe_devices().subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        List<ADBDevice> devices = (List<ADBDevice>) subscriber.values().get(0);
+        assertEquals(devices.size(), 1);
+        assertEquals(devices.get(0).deviceUID(), SERIAL);
+        assertEquals(devices.get(0).property("model"), "Nexus_4");
+        assertTrue(devices.get(0).isOnline());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_shell_shouldStreamLines() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        transport.rxe_shellLines(DEVICE, "getprop sys.boot_completed").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValues("getprop sys.boot_completed", "done");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_shellOnUnknownDevice_shouldThrow() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        transport.rxa_shell(UNKNOWN, "ls").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertErrorMessage("device not found");
+        subscriber.assertNotComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_pull_shouldReassembleChunks() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        transport.rxe_pull(DEVICE, "/data/local/tmp/state").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        byte[] content = (byte[]) subscriber.values().get(0);
+        assertEquals(new String(content, StandardCharsets.UTF_8), FILE_CONTENT);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_shellWithoutResponse_shouldTimeOut() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        transport.rxe_shellLines(DEVICE, HANG).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertError(SocketTimeoutException.class);
+        subscriber.assertNotComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_shellWithoutServer_shouldThrowConnectException() throws IOException {
+        // Setup
+        server.close();
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        transport.rxe_shellLines(DEVICE, "ls").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertError(ConnectException.class);
+        subscriber.assertNotComplete();
+    }
+}
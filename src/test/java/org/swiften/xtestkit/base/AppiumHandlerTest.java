@@ -16,9 +16,10 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
@@ -31,6 +32,7 @@ public class AppiumHandlerTest implements AppiumHandlerType, TestMessageType {
     @NotNull private final AppiumHandlerType ENGINE;
     @NotNull private final ProcessRunner PROCESS_RUNNER;
     @NotNull private final NetworkHandler NETWORK_HANDLER;
+    @NotNull private final PortLeaseAllocator PORT_ALLOCATOR;
     @NotNull private final RetryProviderType RETRY;
     private final int TRIES;
 
@@ -43,6 +45,14 @@ public class AppiumHandlerTest implements AppiumHandlerType, TestMessageType {
          * NETWORK_HANDLER.processRunner() */
         NETWORK_HANDLER = spy(new NetworkHandler());
 
+        /* Return this allocator when we call ENGINE.appiumPortAllocator(), so
+         * that leases do not leak into other tests */
+        PORT_ALLOCATOR = PortLeaseAllocator.builder()
+            .withBasePort(4723)
+            .withSlots(32)
+            .withWidth(2)
+            .build();
+
         /* Use this parameter when a RetryProviderType is needed */
         RETRY = mock(RetryProviderType.class);
 
@@ -83,6 +93,12 @@ public class AppiumHandlerTest implements AppiumHandlerType, TestMessageType {
         return NETWORK_HANDLER;
     }
 
+    @NotNull
+    @Override
+    public PortLeaseAllocator appiumPortAllocator() {
+        return PORT_ALLOCATOR;
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void test_startAppiumServerWithoutCLI_shouldEmitFallback() {
@@ -132,12 +148,45 @@ public class AppiumHandlerTest implements AppiumHandlerType, TestMessageType {
         subscriber.awaitTerminalEvent();
 
         // Then
-        Collection<Integer> usedPorts = ENGINE.networkHandler().usedPorts();
-        HPLog.println(usedPorts);
+        HPLog.println(PORT_ALLOCATOR);
         subscriber.assertSubscribed();
         subscriber.assertNoErrors();
         subscriber.assertComplete();
-        assertEquals(usedPorts.size(), tries);
+        assertEquals(PORT_ALLOCATOR.leaseCount(), tries);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_startAppiumPastDeadline_shouldKillServerBeforeRelease() {
+        // Setup
+        final AtomicInteger LEASED_ON_KILL = new AtomicInteger(-1);
+        int leased = PORT_ALLOCATOR.leasedCount();
+        doReturn(200L).when(ENGINE).appiumStartupTimeout();
+
+        /* The process stays up but never answers on its status endpoint */
+        doNothing().when(PROCESS_RUNNER).execute(anyString(), any(), any());
+
+        doAnswer(a -> {
+            LEASED_ON_KILL.set(PORT_ALLOCATOR.leasedCount());
+            return Flowable.just(true);
+        }).when(NETWORK_HANDLER).rxa_killWithPort(any(), any());
+
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxa_startAppiumOnNewThread("appium").subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertError(Exception.class);
+        subscriber.assertNotComplete();
+        verify(NETWORK_HANDLER).rxa_killWithPort(any(), any());
+
+        /* The port is still leased while the server is being killed */
+        assertEquals(LEASED_ON_KILL.get(), leased + 1);
+        assertEquals(PORT_ALLOCATOR.leasedCount(), leased);
+        assertEquals(ENGINE.appiumStartupCoordinator().waitingCount(), 0);
     }
 
     @Test
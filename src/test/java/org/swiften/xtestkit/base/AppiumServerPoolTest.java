@@ -0,0 +1,196 @@
+package org.swiften.xtestkit.base;
+
+import com.sun.net.httpserver.HttpServer;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
+import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
+import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+
+/**
+ * Tests for {@link AppiumServerPool}. Starting an Appium server starts a
+ * tiny local HTTP server on the leased port instead, which stands in for
+ * Appium's status endpoint until it is killed.
+ */
+public final class AppiumServerPoolTest {
+    @NotNull private static final Pattern PORT = Pattern.compile("-p (\\d+)");
+
+    @NotNull private final ProcessRunner PROCESS_RUNNER;
+    @NotNull private final NetworkHandler NETWORK_HANDLER;
+    @NotNull private final AppiumStartupCoordinator COORDINATOR;
+    @NotNull private final Map<Integer,HttpServer> STUB_SERVERS;
+    private AppiumServerPool pool;
+
+    {
+        PROCESS_RUNNER = mock(ProcessRunner.class);
+        NETWORK_HANDLER = mock(NetworkHandler.class);
+        STUB_SERVERS = new ConcurrentHashMap<>();
+
+        COORDINATOR = AppiumStartupCoordinator.builder()
+            .withInitialBackoff(10)
+            .withMaxBackoff(50)
+            .withProbeTimeout(500)
+            .build();
+    }
+
+    @BeforeMethod
+    public void beforeMethod() {
+        final AppiumServerPoolTest THIS = this;
+
+        doReturn(Flowable.just("/usr/local/bin/appium"))
+            .when(PROCESS_RUNNER).rxa_execute(anyString());
+
+        doAnswer(a -> {
+            Matcher matcher = PORT.matcher(a.getArgument(0));
+            assertTrue(matcher.find());
+            THIS.startStubServer(Integer.parseInt(matcher.group(1)));
+            return null;
+        }).when(PROCESS_RUNNER).execute(anyString(), any(), any());
+
+        doAnswer(a -> {
+            Address address = a.getArgument(0);
+            THIS.stopStubServer(address.port());
+            return Flowable.just(true);
+        }).when(NETWORK_HANDLER).rxa_killWithPort(any(), any());
+
+        pool = AppiumServerPool.builder()
+            .withSize(1)
+            .withProcessRunner(PROCESS_RUNNER)
+            .withNetworkHandler(NETWORK_HANDLER)
+            .withCoordinator(COORDINATOR)
+            .build();
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        pool.rxa_shutdown().blockingSubscribe();
+        new ArrayList<>(STUB_SERVERS.keySet()).forEach(this::stopStubServer);
+        reset(PROCESS_RUNNER, NETWORK_HANDLER);
+    }
+
+    private void startStubServer(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+
+        server.createContext("/wd/hub/status", exchange -> {
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+
+        server.start();
+        STUB_SERVERS.put(port, server);
+    }
+
+    private void stopStubServer(int port) {
+        HttpServer server = STUB_SERVERS.remove(port);
+
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private Address lease() {
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+        pool.rxa_lease().subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+        subscriber.assertNoErrors();
+        subscriber.assertValueCount(1);
+        return (Address) subscriber.values().get(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_leaseAndRelease_shouldReuseServer() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+        pool.rxa_prespawn().subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // When
+        Address address1 = lease();
+        boolean released = pool.release(address1);
+        Address address2 = lease();
+
+        // Then
+        subscriber.assertNoErrors();
+        subscriber.assertValue(true);
+        assertTrue(released);
+        assertEquals(address2.port(), address1.port());
+        assertEquals(pool.serverCount(), 1);
+        assertEquals(pool.spawnedCount(), 1);
+        assertEquals(pool.leasedCount(), 2);
+        assertEquals(pool.recycledCount(), 2);
+        assertEquals(pool.evictedCount(), 0);
+        assertFalse(pool.release(Address.builder().withPort(1).build()));
+    }
+
+    @Test
+    public void test_unhealthyServer_shouldBeEvictedAndReplaced() {
+        // Setup
+        Address address1 = lease();
+        pool.release(address1);
+
+        /* The server dies while it is idle */
+        stopStubServer(address1.port());
+
+        // When
+        Address address2 = lease();
+
+        // Then
+        assertTrue(COORDINATOR.isReady(address2.statusUri()));
+        assertEquals(pool.serverCount(), 1);
+        assertEquals(pool.spawnedCount(), 2);
+        assertEquals(pool.recycledCount(), 0);
+        assertEquals(pool.evictedCount(), 1);
+        verify(NETWORK_HANDLER, times(1)).rxa_killWithPort(any(), any());
+    }
+
+    @Test
+    public void test_exhaustedPool_shouldSpawnServer() {
+        // Setup
+        Address address1 = lease();
+
+        // When
+        /* The only server is leased, so a new one must be spawned */
+        Address address2 = lease();
+        pool.release(address1);
+        pool.release(address2);
+        Address address3 = lease();
+
+        // Then
+        assertNotEquals(address2.port(), address1.port());
+        assertEquals(address3.port(), address1.port());
+        assertEquals(pool.serverCount(), 2);
+        assertEquals(pool.spawnedCount(), 2);
+        assertEquals(pool.recycledCount(), 1);
+        assertEquals(pool.evictedCount(), 0);
+        assertTrue(COORDINATOR.isReady(address2.statusUri()));
+    }
+}
@@ -0,0 +1,166 @@
+package org.swiften.xtestkit.base;
+
+import com.sun.net.httpserver.HttpServer;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.jetbrains.annotations.NotNull;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 24/7/17.
+ */
+
+/**
+ * Tests for {@link AppiumStartupCoordinator}, using a tiny local HTTP server
+ * to stand in for Appium's status endpoint.
+ */
+public final class AppiumStartupCoordinatorTest {
+    @NotNull private final AppiumStartupCoordinator COORDINATOR;
+    @NotNull private final AtomicInteger REQUESTS;
+    private HttpServer server;
+    private int readyAfter;
+
+    {
+        COORDINATOR = AppiumStartupCoordinator.builder()
+            .withInitialBackoff(10)
+            .withMaxBackoff(50)
+            .withProbeTimeout(500)
+            .build();
+
+        REQUESTS = new AtomicInteger();
+    }
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException {
+        REQUESTS.set(0);
+        readyAfter = 3;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+        server.createContext("/wd/hub/status", exchange -> {
+            int count = REQUESTS.incrementAndGet();
+            int code = count >= readyAfter ? 200 : 503;
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(code, body.length);
+
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+
+        server.start();
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        server.stop(0);
+    }
+
+    @NotNull
+    private String statusUri() {
+        int port = server.getAddress().getPort();
+        return Address.builder().withPort(port).build().statusUri();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_awaitReady_shouldPollUntilReady() {
+        // Setup
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        COORDINATOR.rxa_awaitReady(statusUri(), 5000).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValue(true);
+        assertEquals(REQUESTS.get(), readyAfter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_awaitReadyPastDeadline_shouldThrow() {
+        // Setup
+        readyAfter = Integer.MAX_VALUE;
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        COORDINATOR.rxa_awaitReady(statusUri(), 300).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertError(Exception.class);
+        subscriber.assertNotComplete();
+        assertTrue(REQUESTS.get() > 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_permits_shouldBeGrantedInOrder() {
+        // Setup
+        final AppiumStartupCoordinatorTest THIS = this;
+        final List<Integer> ORDER = new CopyOnWriteArrayList<>();
+        int tries = 5;
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        Flowable.range(0, tries)
+            .concatMapEager(a -> THIS.COORDINATOR.rxa_withPermit(Flowable
+                .timer(20, TimeUnit.MILLISECONDS)
+                .doOnNext(b -> ORDER.add(a))
+                .map(b -> a)))
+            .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValueCount(tries);
+        assertEquals(ORDER, subscriber.values());
+        assertEquals(COORDINATOR.waitingCount(), 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_cancelDuringRelease_shouldPassPermitOn() {
+        // Setup
+        AppiumStartupCoordinator coordinator = AppiumStartupCoordinator.builder().build();
+        TestSubscriber holder = CustomTestSubscriber.create();
+        TestSubscriber waiter = CustomTestSubscriber.create();
+        TestSubscriber next = CustomTestSubscriber.create();
+        coordinator.rxa_acquire().subscribe(holder);
+        coordinator.rxa_acquire().subscribe(waiter);
+
+        // When
+        Runnable grant = coordinator.pollWaiter();
+        waiter.cancel();
+        assertNotNull(grant);
+        grant.run();
+        coordinator.rxa_acquire().subscribe(next);
+
+        // Then
+        holder.assertValue(true);
+        waiter.assertNoValues();
+        next.assertValue(true);
+        next.assertComplete();
+        assertEquals(coordinator.waitingCount(), 0);
+    }
+}
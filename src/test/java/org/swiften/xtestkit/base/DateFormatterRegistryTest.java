@@ -0,0 +1,70 @@
+package org.swiften.xtestkit.base;
+
+import org.swiften.xtestkit.android.element.date.AndroidDatePickerType;
+import org.swiften.xtestkit.base.element.date.CalendarUnit;
+import org.swiften.xtestkit.base.element.date.DateFormatterRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Created by haipham on 27/7/17.
+ */
+public final class DateFormatterRegistryTest {
+    @Test
+    @SuppressWarnings("MagicConstant")
+    public void test_registry_shouldMatchSimpleDateFormat() throws Exception {
+        // Setup
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2017, Calendar.JANUARY, 1, 0, 0);
+
+        for (int i = 0; i < 365; i++) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            calendar.add(Calendar.MINUTE, 7);
+            Date date = calendar.getTime();
+
+            for (AndroidDatePickerType type : AndroidDatePickerType.values()) {
+                for (CalendarUnit unit : CalendarUnit.values()) {
+                    String format;
+
+                    try {
+                        format = type.valueStringFormat(unit);
+                    } catch (Exception e) {
+                        continue;
+                    }
+
+                    SimpleDateFormat formatter = new SimpleDateFormat(format);
+                    String expected = formatter.format(date);
+                    Calendar parsed = Calendar.getInstance();
+                    parsed.setTime(formatter.parse(expected));
+
+                    // When
+                    String text = DateFormatterRegistry.format(type, unit, date);
+                    int value = DateFormatterRegistry.unitValue(type, unit, text);
+                    String string = DateFormatterRegistry.formatUnit(type, unit, value);
+
+                    // Then
+                    Assert.assertEquals(text, expected);
+                    Assert.assertEquals(value, parsed.get(unit.value()));
+                    Assert.assertEquals(DateFormatterRegistry.unitValue(type, unit, string), value);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_numericValue_shouldIgnoreWidthAndWhitespace() {
+        // Setup
+        AndroidDatePickerType type = AndroidDatePickerType.DATE_NUMBER_PICKER_MMM_dd_yyyy;
+
+        // When & Then
+        Assert.assertEquals(DateFormatterRegistry.unitValue(type, CalendarUnit.DAY, "7"), 7);
+        Assert.assertEquals(DateFormatterRegistry.unitValue(type, CalendarUnit.DAY, " 07 "), 7);
+        Assert.assertEquals(DateFormatterRegistry.unitValue(type, CalendarUnit.YEAR, "2017"), 2017);
+        Assert.assertEquals(DateFormatterRegistry.unitValue(type, CalendarUnit.MONTH, "jul", Locale.US), 6);
+    }
+}
@@ -0,0 +1,154 @@
+package org.swiften.xtestkit.base;
+
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 23/7/17.
+ */
+public final class DriverSchedulerTest {
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_boundedScheduler_shouldQueueAndRecordMetrics() {
+        // Setup
+        int threadCount = 2, tasks = 6;
+
+        DriverScheduler scheduler = DriverScheduler.builder()
+            .withName("test-driver")
+            .withThreadCount(threadCount)
+            .build();
+
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        Flowable.range(0, tasks)
+            .flatMap(a -> Flowable
+                .fromCallable(() -> {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                    return Thread.currentThread().getName();
+                })
+                .subscribeOn(scheduler.scheduler()))
+            .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValueCount(tasks);
+        assertEquals(scheduler.queueDepth(), 0);
+        assertEquals(scheduler.executedCount(), tasks);
+        assertTrue(scheduler.maxWait(TimeUnit.MILLISECONDS) >= 100);
+
+        for (Object name : subscriber.values()) {
+            assertTrue(String.valueOf(name).startsWith("test-driver"));
+        }
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_virtualScheduler_shouldCapConcurrency() {
+        // Setup
+        int threadCount = 2, tasks = 6;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        /* On JVMs without virtual threads, this falls back to the pool */
+        DriverScheduler scheduler = DriverScheduler.builder()
+            .withThreadCount(threadCount)
+            .withVirtualThreads(true)
+            .build();
+
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        Flowable.range(0, tasks)
+            .flatMap(a -> Flowable
+                .fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    TimeUnit.MILLISECONDS.sleep(100);
+                    running.decrementAndGet();
+                    return true;
+                })
+                .subscribeOn(scheduler.scheduler()))
+            .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValueCount(tasks);
+        assertEquals(maxRunning.get(), threadCount);
+        assertEquals(scheduler.queueDepth(), 0);
+        assertEquals(scheduler.executedCount(), tasks);
+        assertTrue(scheduler.maxWait(TimeUnit.MILLISECONDS) >= 100);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void test_runningTask_shouldMarkSchedulerBusy() throws Exception {
+        // Setup
+        DriverScheduler scheduler = DriverScheduler.builder().build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        scheduler.execute(() -> {
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        started.await();
+
+        // Then
+        assertTrue(scheduler.isBusy());
+        assertEquals(scheduler.activeCount(), 1);
+        release.countDown();
+
+        for (int i = 0; i < 100 && scheduler.isBusy(); i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertFalse(scheduler.isBusy());
+        assertEquals(scheduler.activeCount(), 0);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void test_trackedCall_shouldMarkSchedulerBusy() {
+        // Setup
+        DriverScheduler scheduler = DriverScheduler.builder().build();
+        AtomicInteger busy = new AtomicInteger();
+
+        // When
+        /* Calls made outside the scheduler, e.g. clicks, run in place */
+        scheduler.track(() -> {
+            busy.set(scheduler.isBusy() ? 1 : 0);
+            assertEquals(scheduler.queueDepth(), 0);
+        });
+
+        // Then
+        assertEquals(busy.get(), 1);
+        assertFalse(scheduler.isBusy());
+        assertEquals(scheduler.activeCount(), 0);
+        assertEquals(scheduler.executedCount(), 0);
+    }
+}
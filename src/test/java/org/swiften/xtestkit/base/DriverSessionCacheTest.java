@@ -0,0 +1,37 @@
+package org.swiften.xtestkit.base;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+public final class DriverSessionCacheTest {
+    @Test
+    public void test_sessionCache_shouldReuseOnMatchingCapabilities() {
+        // Setup
+        DriverSessionCache<WebDriver> cache = new DriverSessionCache<>();
+        WebDriver driver = mock(WebDriver.class);
+        Map<String,Object> caps = new HashMap<>();
+        caps.put("deviceName", "Nexus_4_API_23");
+        Map<String,Object> key = DriverSessionCache.key(caps, "http://localhost:4723/wd/hub");
+        Map<String,Object> otherKey = DriverSessionCache.key(caps, "http://localhost:4725/wd/hub");
+
+        // When & Then
+        assertNull(cache.reuse(key));
+        cache.store(key, driver);
+        assertEquals(cache.reuse(DriverSessionCache.key(caps, "http://localhost:4723/wd/hub")), driver);
+        assertNull(cache.reuse(otherKey));
+        assertEquals(cache.evict(), driver);
+        assertNull(cache.evict());
+        assertEquals(cache.hitCount(), 1);
+        assertEquals(cache.missCount(), 2);
+        assertEquals(cache.evictionCount(), 1);
+    }
+}
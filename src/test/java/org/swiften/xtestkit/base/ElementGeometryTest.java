@@ -0,0 +1,95 @@
+package org.swiften.xtestkit.base;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebElement;
+import org.swiften.xtestkit.base.element.property.ElementGeometry;
+import org.swiften.xtestkit.base.element.property.ElementGeometryCache;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by haipham on 26/7/17.
+ */
+public final class ElementGeometryTest {
+    private ElementGeometryCache cache;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        cache = new ElementGeometryCache();
+    }
+
+    @Test
+    public void test_geometry_shouldBeFetchedOnceUntilInvalidated() {
+        // Setup
+        WebElement element = mock(WebElement.class);
+        /* Rectangle's int constructor takes height before width, so use the
+         * Point/Dimension one to avoid mixing them up */
+        Rectangle rect = new Rectangle(new Point(10, 20), new Dimension(30, 40));
+        doReturn(rect).when(element).getRect();
+
+        // When
+        ElementGeometry geometry1 = cache.of(element);
+        ElementGeometry geometry2 = cache.of(element);
+        cache.invalidate();
+        ElementGeometry geometry3 = cache.of(element);
+
+        // Then
+        verify(element, times(2)).getRect();
+        verify(element, never()).getLocation();
+        verify(element, never()).getSize();
+        Assert.assertEquals(geometry1.location(), new Point(10, 20));
+        Assert.assertEquals(geometry1.width(), 30);
+        Assert.assertEquals(geometry1.height(), 40);
+        Assert.assertSame(geometry1, geometry2);
+        Assert.assertEquals(geometry1, geometry3);
+    }
+
+    @Test
+    public void test_missingGeometry_shouldNotBeCached() {
+        // Setup
+        WebElement element = mock(WebElement.class);
+
+        // When
+        ElementGeometry geometry1 = cache.find(element);
+        ElementGeometry geometry2 = cache.find(element);
+
+        // Then
+        verify(element, times(2)).getRect();
+        Assert.assertNull(geometry1);
+        Assert.assertNull(geometry2);
+    }
+
+    @Test
+    public void test_separateCaches_shouldNotShareState() {
+        // Setup
+        ElementGeometryCache other = new ElementGeometryCache();
+        WebElement element1 = mock(WebElement.class);
+        WebElement element2 = mock(WebElement.class);
+        Rectangle rect = new Rectangle(new Point(10, 20), new Dimension(30, 40));
+        doThrow(new UnsupportedCommandException()).when(element1).getRect();
+        doReturn(new Point(10, 20)).when(element1).getLocation();
+        doReturn(new Dimension(30, 40)).when(element1).getSize();
+        doReturn(rect).when(element2).getRect();
+
+        // When
+        /* One driver lacking getRect must not affect another */
+        ElementGeometry geometry1 = cache.of(element1);
+        ElementGeometry geometry2 = other.of(element2);
+        other.invalidate();
+        ElementGeometry geometry3 = cache.of(element1);
+
+        // Then
+        verify(element1, times(1)).getRect();
+        verify(element1, times(1)).getLocation();
+        verify(element2, times(1)).getRect();
+        verify(element2, never()).getLocation();
+        Assert.assertEquals(geometry1, geometry2);
+        Assert.assertSame(geometry1, geometry3);
+    }
+}
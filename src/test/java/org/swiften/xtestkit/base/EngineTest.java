@@ -3,22 +3,29 @@ package org.swiften.xtestkit.base;
 import io.reactivex.Flowable;
 import io.reactivex.subscribers.TestSubscriber;
 import org.jetbrains.annotations.NotNull;
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.xtestkit.base.capability.EngineCapability;
 import org.swiften.xtestkit.base.capability.EngineCapabilityType;
+import org.swiften.xtestkit.base.element.popup.PopupType;
 import org.swiften.xtestkit.base.element.swipe.SwipeParamType;
 import org.swiften.xtestkit.util.TestMessageType;
 import org.swiften.xtestkitcomponents.common.ErrorProviderType;
 import org.swiften.xtestkitcomponents.platform.PlatformType;
 import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
 import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
+import org.swiften.xtestkitcomponents.xpath.XPath;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertTrue;
 
@@ -175,6 +182,66 @@ public final class EngineTest implements ErrorProviderType, TestMessageType {
     }
     //endregion
 
+    //region Popup
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_presentPopup_shouldQueryAllPopupsOnce() {
+        // Setup
+        XPath xpath1 = mock(XPath.class);
+        XPath xpath2 = mock(XPath.class);
+        PopupType popup1 = mock(PopupType.class);
+        PopupType popup2 = mock(PopupType.class);
+        doReturn("//popup[@name='one']").when(xpath1).attribute();
+        doReturn("//popup[@name='two']").when(xpath2).attribute();
+        doReturn(xpath1).when(popup1).presenceXP(any());
+        doReturn(xpath2).when(popup2).presenceXP(any());
+        doReturn("<hierarchy><popup name='two'/></hierarchy>").when(DRIVER).getPageSource();
+
+        doReturn(Collections.singletonList(mock(WebElement.class)))
+            .when(DRIVER).findElements(any(By.class));
+
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxe_presentPopup(Arrays.asList(popup1, popup2)).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValue(popup2);
+        verify(DRIVER, times(1)).findElements(any(By.class));
+        verify(DRIVER, times(1)).getPageSource();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_noPopupPresent_shouldNotFetchPageSource() {
+        // Setup
+        XPath xpath = mock(XPath.class);
+        PopupType popup1 = mock(PopupType.class);
+        PopupType popup2 = mock(PopupType.class);
+        doReturn("//popup").when(xpath).attribute();
+        doReturn(xpath).when(popup1).presenceXP(any());
+        doReturn(xpath).when(popup2).presenceXP(any());
+        doReturn(Collections.emptyList()).when(DRIVER).findElements(any(By.class));
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxe_presentPopup(Arrays.asList(popup1, popup2)).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertNoValues();
+        verify(DRIVER, times(1)).findElements(any(By.class));
+        verify(DRIVER, never()).getPageSource();
+    }
+    //endregion
+
     static class MockEngine extends Engine<WebDriver> implements
         TestTypes.TestChoiceSelectorType,
         TestTypes.TestDateActionType,
@@ -11,6 +11,8 @@ import org.swiften.javautilities.localizer.LocalizerType;
 import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.xtestkit.base.element.locator.ByXPath;
+import org.swiften.xtestkit.base.element.locator.ByXPathBatch;
+import org.swiften.xtestkit.base.element.locator.PageSourceSnapshot;
 import org.swiften.xtestkit.base.element.locator.TextParam;
 import org.swiften.xtestkitcomponents.platform.PlatformType;
 import org.swiften.xtestkitcomponents.view.ViewType;
@@ -21,10 +23,12 @@ import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
 
 /**
  * Created by haipham on 5/8/17.
@@ -181,6 +185,203 @@ public class LocatorTest implements TestTypes.TestLocatorType {
     }
     //endregion
 
+    //region Page Source Snapshot
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_snapshotWithNoMatch_shouldNotQueryDriver() {
+        // Setup
+        String source = "<hierarchy><android.widget.Button text='OK'/></hierarchy>";
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+        doReturn(true).when(ENGINE).snapshotModeEnabled();
+        doReturn(snapshot).when(ENGINE).pageSourceSnapshot();
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxe_byXPath(mockXPath("//android.widget.EditText")).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertError(Exception.class);
+        subscriber.assertNotComplete();
+        verify(DRIVER, never()).findElements(any());
+        verify(ENGINE, atLeastOnce()).invalidateSnapshot();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_snapshotWithMatch_shouldQueryDriver() {
+        // Setup
+        String source = "<hierarchy><android.widget.Button text='OK'/></hierarchy>";
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+        doReturn(true).when(ENGINE).snapshotModeEnabled();
+        doReturn(snapshot).when(ENGINE).pageSourceSnapshot();
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxe_byXPath(mockXPath("//android.widget.Button[@text='OK']")).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        subscriber.assertValueCount(ELEMENT_COUNT);
+        verify(DRIVER).findElements(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_existsInSnapshotMode_shouldNotResolveElements() {
+        // Setup
+        String source = "<hierarchy><android.widget.Button text='OK'/></hierarchy>";
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+        doReturn(true).when(ENGINE).snapshotModeEnabled();
+        doReturn(snapshot).when(ENGINE).pageSourceSnapshot();
+        TestSubscriber subscriber1 = CustomTestSubscriber.create();
+        TestSubscriber subscriber2 = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxv_exists(mockXPath("//android.widget.Button[@text='OK']")).subscribe(subscriber1);
+        ENGINE.rxv_exists(mockXPath("//android.widget.EditText")).subscribe(subscriber2);
+        subscriber1.awaitTerminalEvent();
+        subscriber2.awaitTerminalEvent();
+
+        // Then
+        subscriber1.assertNoErrors();
+        subscriber1.assertValue(true);
+        subscriber2.assertNoErrors();
+        subscriber2.assertValue(false);
+        verify(DRIVER, never()).findElements(any());
+    }
+
+    @Test
+    public void test_snapshotWithExternalEntity_shouldNotBeParsed() {
+        // Setup
+        String source = "<?xml version='1.0'?>"
+            + "<!DOCTYPE a [<!ENTITY e SYSTEM 'file:///etc/passwd'>]>"
+            + "<a>&e;</a>";
+
+        // When
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+
+        // Then
+        assertEquals(snapshot.matchCount("//a"), -1);
+    }
+
+    @Test
+    public void test_snapshotMatchCount_shouldBeCorrect() {
+        // Setup
+        String source = "<hierarchy><a id='1'/><a id='2'/><b/></hierarchy>";
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+
+        // When & Then
+        assertEquals(snapshot.matchCount("//a"), 2);
+        assertEquals(snapshot.matchCount("//b"), 1);
+        assertEquals(snapshot.matchCount("//c"), 0);
+        assertEquals(snapshot.matchCount("//a[contains(@id,"), -1);
+        assertTrue(snapshot.mayMatch("//a[contains(@id,"));
+        assertTrue(PageSourceSnapshot.from("<invalid").mayMatch("//c"));
+    }
+
+    @Test
+    public void test_unionChunks_shouldMergeCompatibleQueries() {
+        // Setup
+        ByXPath query1 = mockXPath("//a");
+        ByXPath query2 = mockXPath("//b");
+        ByXPath query3 = mockXPath("");
+        ByXPathBatch batch = ByXPathBatch.of(query1, query2, query3);
+
+        // When
+        List<ByXPathBatch> chunks = batch.unionChunks();
+
+        // Then
+        assertEquals(chunks.size(), 1);
+        assertEquals(chunks.get(0).queries(), Arrays.asList(query1, query2));
+        assertEquals(ByXPathBatch.union(chunks.get(0).xpaths()), "(//a) | (//b)");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_byXPathInSnapshotMode_shouldKeepQueryOrder() {
+        // Setup
+        String source = "<hierarchy><a/><b/><a id='1'/></hierarchy>";
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+        doReturn(true).when(ENGINE).snapshotModeEnabled();
+        doReturn(snapshot).when(ENGINE).pageSourceSnapshot();
+        ByXPath query1 = mockXPath("//b");
+        ByXPath query2 = mockXPath("//a");
+        ByXPath query3 = mockXPath("//a[@id='1']");
+        List<WebElement> elements = Arrays.asList(
+            mock(WebElement.class),
+            mock(WebElement.class),
+            mock(WebElement.class)
+        );
+
+        /* The union result is in document order */
+        doReturn(elements).when(DRIVER).findElements(any());
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxe_byXPath(query1, query2, query3).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        verify(DRIVER, times(1)).findElements(any());
+
+        /* Each query's results come in turn, and the element matching two
+         * queries is emitted for each of them */
+        subscriber.assertValues(elements.get(1), elements.get(0), elements.get(2), elements.get(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_groupedByXPathInSnapshotMode_shouldDemultiplex() {
+        // Setup
+        String source = "<hierarchy><a/><b/><a id='1'/></hierarchy>";
+        PageSourceSnapshot snapshot = PageSourceSnapshot.from(source);
+        doReturn(true).when(ENGINE).snapshotModeEnabled();
+        doReturn(snapshot).when(ENGINE).pageSourceSnapshot();
+        ByXPath query1 = mockXPath("//a");
+        ByXPath query2 = mockXPath("//b");
+        ByXPath query3 = mockXPath("//c");
+        List<WebElement> elements = Arrays.asList(
+            mock(WebElement.class),
+            mock(WebElement.class),
+            mock(WebElement.class)
+        );
+
+        doReturn(elements).when(DRIVER).findElements(any());
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        ENGINE.rxe_groupedByXPath(query1, query2, query3).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        verify(DRIVER, times(1)).findElements(any());
+        Map<ByXPath,List<WebElement>> groups = (Map<ByXPath,List<WebElement>>) subscriber.values().get(0);
+        assertEquals(groups.get(query1), Arrays.asList(elements.get(0), elements.get(2)));
+        assertEquals(groups.get(query2), Collections.singletonList(elements.get(1)));
+        assertTrue(groups.get(query3).isEmpty());
+    }
+
+    @NotNull
+    private ByXPath mockXPath(@NotNull String xpath) {
+        ByXPath param = mock(ByXPath.class);
+        doReturn(xpath).when(param).xpath();
+        doReturn("").when(param).error();
+        doReturn(0).when(param).retries();
+        return param;
+    }
+    //endregion
+
     //region Element With Text
     @Test
     @SuppressWarnings("unchecked")
@@ -14,6 +14,7 @@ import org.testng.annotations.Test;
 import java.util.Random;
 
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
 
 /**
  * Created by haipham on 5/12/17.
@@ -93,6 +94,18 @@ public class MultiSwipeComparisonTest implements MultiSwipeComparisonType {
         return Flowable.just(true);
     }
 
+    @Test
+    public void test_plannedItemOffset_shouldCenterTarget() {
+        // Setup
+        int visible = 5;
+
+        // When & Then
+        assertEquals(plannedItemOffset(10, visible), 12);
+        assertEquals(plannedItemOffset(0, visible), 0);
+        assertEquals(plannedItemOffset(-4, visible), 0);
+        assertEquals(plannedItemOffset(-10, visible), -8);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void test_swipeRepeatedly_shouldWork() {
@@ -112,6 +125,7 @@ public class MultiSwipeComparisonTest implements MultiSwipeComparisonType {
         verify(ENGINE, times(TOTAL_SWIPE)).firstElementDirection();
 //        verify(ENGINE, times(TOTAL_SWIPE)).lastElementDirection();
         verify(ENGINE).rxa_performAction();
+        verify(ENGINE).rxa_swipeAnalytically();
         verify(ENGINE).rxa_swipeInitially();
         verify(ENGINE).rxa_swipeInitially(any(), any(), anyInt());
         verify(ENGINE).rxe_initialSwipesCount();
@@ -122,7 +136,7 @@ public class MultiSwipeComparisonTest implements MultiSwipeComparisonType {
         verify(ENGINE, times(TOTAL_SWIPE + 2)).rxe_firstVisibleChild();
         verify(ENGINE, times(TOTAL_SWIPE + 1)).rxe_lastVisibleChild();
 
-        verify(ENGINE, times(TOTAL_SWIPE * 2 + INITIAL_SWIPE - 1))
+        verify(ENGINE, times(TOTAL_SWIPE * 2 + INITIAL_SWIPE))
             .rxe_scrollViewChildItems();
 
         verify(ENGINE, times(TOTAL_SWIPE + INITIAL_SWIPE - 1))
@@ -3,18 +3,25 @@ package org.swiften.xtestkit.base;
 import io.reactivex.Flowable;
 import io.reactivex.subscribers.TestSubscriber;
 import org.jetbrains.annotations.NotNull;
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.WebElement;
 import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.xtestkitcomponents.direction.Direction;
 import org.swiften.xtestkit.base.element.swipe.MultiSwipeType;
 import org.swiften.xtestkit.base.element.swipe.SwipeParamType;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
 import java.util.Random;
 
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
 
 /**
  * Created by haipham on 5/12/17.
@@ -37,6 +44,11 @@ public class MultiSwipeTest implements MultiSwipeType {
         currentSwipeCount = 0;
     }
 
+    @AfterMethod
+    public void afterMethod() {
+        reset(ENGINE);
+    }
+
     @NotNull
     @Override
     public Flowable<Double> rxe_elementSwipeRatio() {
@@ -103,4 +115,90 @@ public class MultiSwipeTest implements MultiSwipeType {
         verify(ENGINE, times(TOTAL_SWIPE - 1)).rxa_swipeElement(any(), any(), anyDouble());
         verifyNoMoreInteractions(ENGINE);
     }
+
+    @NotNull
+    private WebElement element(int x, int y, int width, int height) {
+        WebElement element = mock(WebElement.class);
+        Rectangle rect = new Rectangle(new Point(x, y), new Dimension(width, height));
+        doReturn(rect).when(element).getRect();
+        return element;
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private List<SwipeParamType> drag(@NotNull WebElement element,
+                                      @NotNull Direction direction,
+                                      int distance) {
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+        ArgumentCaptor<SwipeParamType> captor = ArgumentCaptor.forClass(SwipeParamType.class);
+
+        ENGINE.rxa_dragElement(element, direction, distance).subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+        subscriber.assertNoErrors();
+        subscriber.assertValue(true);
+        verify(ENGINE, atLeast(0)).rxa_swipeOnce(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private void assertSwipe(@NotNull SwipeParamType param,
+                             int startX, int startY,
+                             int endX, int endY) {
+        assertEquals(param.startX(), startX);
+        assertEquals(param.startY(), startY);
+        assertEquals(param.endX(), endX);
+        assertEquals(param.endY(), endY);
+    }
+
+    @Test
+    public void test_dragLongerThanView_shouldSplitIntoSwipes() {
+        // Setup
+        /* The drag extent is the height minus a 10% margin on each end,
+         * i.e. 320, so 700 is two full drags and a remainder of 60 */
+        WebElement element = element(0, 100, 200, 400);
+
+        // When
+        List<SwipeParamType> params = drag(element, Direction.UP_DOWN, 700);
+
+        // Then
+        assertEquals(params.size(), 3);
+        assertSwipe(params.get(0), 100, 140, 100, 460);
+        assertSwipe(params.get(1), 100, 140, 100, 460);
+        assertSwipe(params.get(2), 100, 140, 100, 200);
+    }
+
+    @Test
+    public void test_dragEachDirection_shouldStartNearLeadingEdge() {
+        // Setup
+        WebElement element = element(0, 100, 200, 400);
+
+        // When
+        List<SwipeParamType> downUp = drag(element, Direction.DOWN_UP, 100);
+        reset(ENGINE);
+        List<SwipeParamType> leftRight = drag(element, Direction.LEFT_RIGHT, 160);
+        reset(ENGINE);
+        List<SwipeParamType> rightLeft = drag(element, Direction.RIGHT_LEFT, 50);
+
+        // Then
+        assertEquals(downUp.size(), 1);
+        assertSwipe(downUp.get(0), 100, 460, 100, 360);
+        assertEquals(leftRight.size(), 1);
+        assertSwipe(leftRight.get(0), 20, 300, 180, 300);
+        assertEquals(rightLeft.size(), 1);
+        assertSwipe(rightLeft.get(0), 180, 300, 130, 300);
+    }
+
+    @Test
+    public void test_dragNoDistance_shouldNotSwipe() {
+        // Setup
+        WebElement element = element(0, 100, 200, 400);
+
+        // When
+        List<SwipeParamType> params = drag(element, Direction.UP_DOWN, 0);
+        List<SwipeParamType> none = drag(element, Direction.NONE, 100);
+
+        // Then
+        assertEquals(params.size(), 0);
+        assertEquals(none.size(), 0);
+        verify(ENGINE, never()).rxa_swipeOnce(any());
+    }
 }
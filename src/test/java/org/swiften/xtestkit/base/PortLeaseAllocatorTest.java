@@ -0,0 +1,127 @@
+package org.swiften.xtestkit.base;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+public final class PortLeaseAllocatorTest {
+    @NotNull private final Set<Integer> BUSY_PORTS;
+
+    {
+        /* Ports in this set are reported as used by other processes */
+        BUSY_PORTS = ConcurrentHashMap.newKeySet();
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        BUSY_PORTS.clear();
+    }
+
+    @NotNull
+    private PortLeaseAllocator allocator(long leaseDuration) {
+        return PortLeaseAllocator.builder()
+            .withBasePort(5554)
+            .withSlots(16)
+            .withWidth(2)
+            .withLeaseDuration(leaseDuration)
+            .withProbe(a -> !BUSY_PORTS.contains(a))
+            .build();
+    }
+
+    @Test
+    public void test_concurrentLeases_shouldNotShare() throws Exception {
+        // Setup
+        PortLeaseAllocator allocator = allocator(60000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<PortLeaseAllocator.Lease>> futures = new ArrayList<>();
+        Set<Integer> ports = new HashSet<>();
+        int owners = 20;
+
+        // When
+        for (int i = 0; i < owners; i++) {
+            final Object OWNER = i;
+            futures.add(executor.submit(() -> allocator.tryLease(OWNER)));
+        }
+
+        executor.shutdown();
+
+        // Then
+        for (Future<PortLeaseAllocator.Lease> future : futures) {
+            PortLeaseAllocator.Lease lease = future.get();
+
+            if (lease != null) {
+                assertTrue(ports.add(lease.port()));
+            }
+        }
+
+        assertEquals(ports.size(), allocator.capacity());
+        assertEquals(allocator.leasedCount(), allocator.capacity());
+        assertEquals(allocator.occupancy(), 1d);
+    }
+
+    @Test
+    public void test_busyPort_shouldBeSkipped() {
+        // Setup
+        PortLeaseAllocator allocator = allocator(60000);
+
+        /* This is the adb port of the first emulator */
+        BUSY_PORTS.add(5555);
+
+        // When
+        PortLeaseAllocator.Lease lease = allocator.tryLease("owner");
+
+        // Then
+        assertNotNull(lease);
+        assertEquals(lease.port(), 5556);
+        assertEquals(allocator.leasedCount(), 2);
+        assertEquals(allocator.leaseCount(), 1);
+    }
+
+    @Test
+    public void test_sameOwner_shouldKeepOneLease() {
+        // Setup
+        PortLeaseAllocator allocator = allocator(60000);
+
+        // When
+        PortLeaseAllocator.Lease lease1 = allocator.tryLease("owner");
+        PortLeaseAllocator.Lease lease2 = allocator.tryLease("owner");
+
+        // Then
+        assertNotNull(lease1);
+        assertNotNull(lease2);
+        assertEquals(lease1.port(), lease2.port());
+        assertEquals(allocator.leasedCount(), 1);
+        assertFalse(allocator.release(lease1.port(), "other"));
+        assertTrue(allocator.release(lease1.port(), "owner"));
+        assertEquals(allocator.leasedCount(), 0);
+    }
+
+    @Test
+    public void test_expiredLease_shouldBeReclaimedOncePortIsFree() {
+        // Setup
+        PortLeaseAllocator allocator = allocator(0);
+        IntStream.range(0, allocator.capacity()).forEach(allocator::tryLease);
+
+        /* The first emulator is still running, so its lease must survive */
+        BUSY_PORTS.add(5554);
+
+        // When
+        PortLeaseAllocator.Lease lease = allocator.tryLease("owner");
+
+        // Then
+        assertNotNull(lease);
+        assertEquals(lease.port(), 5556);
+        assertEquals(allocator.reclaimCount(), allocator.capacity() - 1);
+        assertNotNull(allocator.lease(5554));
+        assertEquals(allocator.lease(5554).owner(), 0);
+    }
+}
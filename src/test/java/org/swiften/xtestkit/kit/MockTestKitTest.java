@@ -1,8 +1,14 @@
 package org.swiften.xtestkit.kit;
 
+import org.swiften.javautilities.protocol.RetryProviderType;
 import org.swiften.javautilities.rx.HPReactives;
 import org.swiften.xtestkit.base.Engine;
 import org.swiften.xtestkit.android.AndroidEngine;
+import org.swiften.xtestkit.android.AndroidInstance;
+import org.swiften.xtestkit.android.adb.ADBHandler;
+import org.swiften.xtestkit.android.adb.EmulatorBootWatcher;
+import org.swiften.xtestkit.base.PortLeaseAllocator;
+import org.swiften.xtestkit.base.TestMode;
 import org.swiften.xtestkit.ios.IOSEngine;
 import org.swiften.xtestkitcomponents.system.network.NetworkHandler;
 import org.swiften.xtestkitcomponents.system.process.ProcessRunner;
@@ -16,12 +22,15 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
 
 /**
  * Created by haipham on 3/24/17.
@@ -71,6 +80,35 @@ public final class MockTestKitTest {
         reset(ENGINE, TEST_KIT, NETWORK_HANDLER, PROCESS_RUNNER);
     }
 
+    //region RepeatRunner.IndexConsumer
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_consumptionCount_shouldCountDistinctEngines() {
+        // Setup
+        Engine engine1 = mock(AndroidEngine.class);
+        Engine engine2 = mock(AndroidEngine.class);
+        Engine engine3 = mock(IOSEngine.class);
+        Engine engine4 = mock(IOSEngine.class);
+        doReturn("Nexus_4").when(engine1).comparisonObject();
+        doReturn("Nexus_5").when(engine2).comparisonObject();
+        doReturn(IOSEngine.class).when(engine3).comparisonObject();
+        doReturn(IOSEngine.class).when(engine4).comparisonObject();
+
+        // When
+        TestKit testKit = TestKit.builder()
+            .withEngines(Arrays.asList(engine1, engine2, engine3, engine4))
+            .build();
+
+        // Then
+        assertEquals(testKit.engineGroup(2), testKit.engineGroup(3));
+        assertNotEquals(testKit.engineGroup(0), testKit.engineGroup(1));
+        assertEquals(testKit.consumptionCount(new int[] { 0, 1 }), 2);
+        assertEquals(testKit.consumptionCount(new int[] { 2, 3 }), 1);
+        assertEquals(testKit.consumptionCount(new int[] { 0, 2, 3, 1 }), 3);
+        assertEquals(testKit.consumptionCount(new int[0]), 0);
+    }
+    //endregion
+
     //region TestListenerType
     @Test
     @SuppressWarnings("unchecked")
@@ -124,6 +162,9 @@ public final class MockTestKitTest {
             verify(TEST_KIT).networkHandler();
             verify(TEST_KIT).engines();
             verify(TEST_KIT).rxe_distinctEngines();
+            verify(TEST_KIT).appiumServerPool();
+            verify(TEST_KIT).rxa_provisionEmulators();
+            verify(TEST_KIT).emulatorBootConcurrency();
             verify(NETWORK_HANDLER).rxa_killAll(any());
             verifyNoMoreInteractions(TEST_KIT);;
         } catch (Exception e) {
@@ -154,6 +195,9 @@ public final class MockTestKitTest {
             verify(TEST_KIT).networkHandler();
             verify(TEST_KIT).engines();
             verify(TEST_KIT).rxe_distinctEngines();
+            verify(TEST_KIT).appiumServerPool();
+            verify(TEST_KIT).rxa_provisionEmulators();
+            verify(TEST_KIT).emulatorBootConcurrency();
             verify(NETWORK_HANDLER).rxa_killAll(any());
             verifyNoMoreInteractions(TEST_KIT);
         } catch (Exception e) {
@@ -179,8 +223,9 @@ public final class MockTestKitTest {
             subscriber.assertComplete();
             verify(ENGINE).rxa_onAllTestsFinished();
             verify(TEST_KIT).rxa_onAllTestsFinished();
+            verify(TEST_KIT).appiumServerPool();
             verify(TEST_KIT).networkHandler();
-            verify(TEST_KIT).engines();
+            verify(TEST_KIT, times(2)).engines();
             verify(TEST_KIT).cmKillAllAppiumInstances();
             verify(TEST_KIT).rxa_killAllAppiumInstances();
             verify(TEST_KIT).rxe_distinctEngines();
@@ -209,8 +254,9 @@ public final class MockTestKitTest {
             subscriber.assertComplete();
             verify(ENGINE).rxa_onAllTestsFinished();
             verify(TEST_KIT).rxa_onAllTestsFinished();
+            verify(TEST_KIT).appiumServerPool();
             verify(TEST_KIT).networkHandler();
-            verify(TEST_KIT).engines();
+            verify(TEST_KIT, times(2)).engines();
             verify(TEST_KIT).cmKillAllAppiumInstances();
             verify(TEST_KIT).rxe_distinctEngines();
             verify(TEST_KIT).rxa_killAllAppiumInstances();
@@ -271,4 +317,107 @@ public final class MockTestKitTest {
         }
     }
     //endregion
+
+    //region Emulator Provisioning
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_enginesSharingAVD_shouldBootItOnce() throws Exception {
+        // Setup
+        String deviceName = "Shared_AVD_API_23";
+        Process process = mock(Process.class);
+        List<AndroidEngine> engines = new ArrayList<>();
+        List<EmulatorBootWatcher> watchers = new ArrayList<>();
+
+        PortLeaseAllocator allocator = PortLeaseAllocator.builder()
+            .withBasePort(ADBHandler.MIN_PORT)
+            .withSlots(ADBHandler.availablePortsCount())
+            .withWidth(2)
+            .withProbe(a -> true)
+            .build();
+
+        doReturn(true).when(process).isAlive();
+        doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(contains("wait-for-device"));
+        doReturn(Flowable.just("1")).when(PROCESS_RUNNER).rxa_execute(contains("boot_completed"));
+
+        for (int i = 0; i < 2; i++) {
+            AndroidEngine engine = spy(AndroidEngine.builder()
+                .withDeviceName(deviceName)
+                .withTestMode(TestMode.SIMULATED)
+                .build());
+
+            /* Each engine keeps its own handler and boot watcher, and only
+             * the emulator process itself is faked */
+            ADBHandler handler = spy(engine.adbHandler());
+            EmulatorBootWatcher watcher = spy(new EmulatorBootWatcher(handler));
+            doReturn(handler).when(engine).adbHandler();
+            doReturn(watcher).when(handler).bootWatcher();
+            doReturn(process).when(watcher).launch(any(), any());
+            doReturn(PROCESS_RUNNER).when(handler).processRunner();
+            doReturn(allocator).when(handler).portAllocator();
+            doReturn(100L).when(handler).emulatorBootRetryDelay();
+            engines.add(engine);
+            watchers.add(watcher);
+        }
+
+        doReturn(engines).when(TEST_KIT).engines();
+        doReturn(2).when(TEST_KIT).emulatorBootConcurrency();
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        try {
+            // When
+            /* Each engine provisions its emulator again before a class */
+            TEST_KIT.rxa_provisionEmulators()
+                .concatMap(a -> Flowable.fromIterable(engines))
+                .concatMap(a -> a.rxa_provisionEmulator(RetryProviderType.DEFAULT))
+                .subscribe(subscriber);
+
+            subscriber.awaitTerminalEvent();
+
+            // Then
+            subscriber.assertSubscribed();
+            subscriber.assertNoErrors();
+            subscriber.assertComplete();
+            verify(watchers.get(0)).launch(any(), any());
+            verify(watchers.get(1), never()).launch(any(), any());
+            assertEquals(allocator.leasedCount(), 1);
+
+            AndroidInstance instance1 = engines.get(0).androidInstance();
+            AndroidInstance instance2 = engines.get(1).androidInstance();
+            assertEquals(instance2.port(), instance1.port());
+
+            /* The second engine must keep the shared port after a class */
+            assertTrue(watchers.get(1).isRunning(instance2));
+        } finally {
+            watchers.forEach(EmulatorBootWatcher::stopEmulators);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_afterAllTests_shouldStopEmulatorsOfAllAndroidEngines() {
+        // Setup
+        AndroidEngine engine1 = mock(AndroidEngine.class);
+        AndroidEngine engine2 = mock(AndroidEngine.class);
+        doReturn(Flowable.just("")).when(PROCESS_RUNNER).rxa_execute(any());
+
+        for (AndroidEngine engine : Arrays.asList(engine1, engine2)) {
+            doReturn(Flowable.just(true)).when(engine).rxa_evictSession();
+            doReturn(Flowable.just(true)).when(engine).rxa_onAllTestsFinished();
+        }
+
+        doReturn(Arrays.asList(engine1, engine2)).when(TEST_KIT).engines();
+        TestSubscriber subscriber = CustomTestSubscriber.create();
+
+        // When
+        TEST_KIT.rxa_onAllTestsFinished().subscribe(subscriber);
+        subscriber.awaitTerminalEvent();
+
+        // Then
+        subscriber.assertSubscribed();
+        subscriber.assertNoErrors();
+        subscriber.assertComplete();
+        verify(engine1).stopEmulators();
+        verify(engine2).stopEmulators();
+    }
+    //endregion
 }
@@ -1,12 +1,17 @@
 package org.swiften.xtestkit.navigation;
 
 import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import static org.mockito.Mockito.*;
 
 import org.swiften.javautilities.collection.HPIterables;
+import org.swiften.javautilities.rx.CustomTestSubscriber;
 import org.swiften.javautilities.util.HPLog;
 import org.swiften.xtestkit.base.Engine;
+import org.swiften.xtestkit.base.element.locator.ByXPath;
+import org.swiften.xtestkit.base.element.locator.PageSourceSnapshot;
 import static org.testng.Assert.*;
 
 import org.swiften.xtestkitcomponents.platform.PlatformType;
@@ -16,6 +21,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -26,12 +32,15 @@ public class NavigationTest implements ScreenManagerType {
     @NotNull private final ScreenManagerType MANAGER;
     @NotNull private final List<Node> FORWARD_NODES;
     @NotNull private final List<Node> BACKWARD_NODES;
+    @NotNull private final NavigationGraph NAVIGATION_GRAPH;
     @NotNull private final Engine<?> ENGINE;
+    @Nullable private NavigationCheckpointType checkpoint;
     private final int TRIES = 100;
 
     {
         FORWARD_NODES = new LinkedList<>();
         BACKWARD_NODES = new LinkedList<>();
+        NAVIGATION_GRAPH = new NavigationGraph(this);
         ENGINE = mock(Engine.class);
         MANAGER = spy(this);
     }
@@ -54,6 +63,8 @@ public class NavigationTest implements ScreenManagerType {
     @AfterMethod
     public void afterMethod() {
         FORWARD_NODES.clear();
+        checkpoint = null;
+        reset(ENGINE);
     }
 
     @NotNull
@@ -84,10 +95,233 @@ public class NavigationTest implements ScreenManagerType {
         return BACKWARD_NODES;
     }
 
+    @NotNull
+    @Override
+    public NavigationGraph navigationGraph() {
+        return NAVIGATION_GRAPH;
+    }
+
+    @Nullable
+    @Override
+    public NavigationCheckpointType navigationCheckpoint() {
+        return checkpoint;
+    }
+
     @Override
     public void clearAllNodes() {
         FORWARD_NODES.clear();
         BACKWARD_NODES.clear();
+        NAVIGATION_GRAPH.invalidate();
+    }
+
+    @NotNull
+    private Node node(@NotNull Screen from, @NotNull Screen to, long delay) {
+        return new Node(from, to, Flowable::just, TimeUnit.MILLISECONDS, delay);
+    }
+
+    @NotNull
+    private Node node(@NotNull Screen from, @NotNull Screen to) {
+        return node(from, to, 0);
+    }
+
+    @Test
+    public void test_currentScreen_shouldMatchFingerprint() {
+        // Setup
+        clearAllNodes();
+
+        addForwardNodes(
+            node(Screen.SCREEN_1, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_3)
+        );
+
+        PageSourceSnapshot snapshot1 = PageSourceSnapshot
+            .from("<hierarchy><screen name='SCREEN_3'/></hierarchy>");
+
+        PageSourceSnapshot snapshot2 = PageSourceSnapshot
+            .from("<hierarchy><screen name='SCREEN_9'/></hierarchy>");
+
+        // When
+        Optional<ScreenType> screen1 = currentScreen(snapshot1);
+        Optional<ScreenType> screen2 = currentScreen(snapshot2);
+
+        // Then
+        assertEquals(screen1, Optional.of(Screen.SCREEN_3));
+        assertFalse(screen2.isPresent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_navigateWithCheckpoint_shouldRestoreNearest() {
+        // Setup
+        clearAllNodes();
+        final List<ScreenType> VISITED = new LinkedList<>();
+        final Set<ScreenType> SAVED = new HashSet<>();
+        final List<ScreenType> RESTORED = new LinkedList<>();
+
+        for (Screen[] pair : new Screen[][] {
+            { Screen.SCREEN_1, Screen.SCREEN_2 },
+            { Screen.SCREEN_2, Screen.SCREEN_3 },
+            { Screen.SCREEN_3, Screen.SCREEN_4 }
+        }) {
+            final Screen TARGET = pair[1];
+
+            addForwardNodes(new Node(pair[0], TARGET, a -> {
+                VISITED.add(TARGET);
+                return Flowable.just(a);
+            }, TimeUnit.MILLISECONDS, 0));
+        }
+
+        checkpoint = new NavigationCheckpointType() {
+            @Override
+            public boolean hasCheckpoint(@NotNull ScreenType screen) {
+                return SAVED.contains(screen);
+            }
+
+            @NotNull
+            @Override
+            public Flowable<Boolean> rxa_saveCheckpoint(@NotNull ScreenType screen) {
+                SAVED.add(screen);
+                return Flowable.just(true);
+            }
+
+            @NotNull
+            @Override
+            public Flowable<Boolean> rxa_restoreCheckpoint(@NotNull ScreenType screen) {
+                RESTORED.add(screen);
+                return Flowable.just(true);
+            }
+        };
+
+        TestSubscriber subscriber1 = CustomTestSubscriber.create();
+        TestSubscriber subscriber2 = CustomTestSubscriber.create();
+
+        // When
+        rxa_navigate(true, Screen.SCREEN_1, Screen.SCREEN_3).subscribe(subscriber1);
+        subscriber1.awaitTerminalEvent();
+        rxa_navigate(true, Screen.SCREEN_1, Screen.SCREEN_4).subscribe(subscriber2);
+        subscriber2.awaitTerminalEvent();
+
+        // Then
+        subscriber1.assertNoErrors();
+        subscriber2.assertNoErrors();
+        assertEquals(RESTORED, Collections.singletonList(Screen.SCREEN_3));
+        assertEquals(VISITED, Arrays.asList(Screen.SCREEN_2, Screen.SCREEN_3, Screen.SCREEN_4));
+        assertEquals(SAVED, new HashSet<>(VISITED));
+        verify(ENGINE).invalidateSnapshot();
+    }
+
+    @Test
+    public void test_route_shouldBeFastest() {
+        // Setup
+        clearAllNodes();
+
+        addForwardNodes(
+            node(Screen.SCREEN_1, Screen.SCREEN_2, 100),
+            node(Screen.SCREEN_2, Screen.SCREEN_3, 100),
+            node(Screen.SCREEN_1, Screen.SCREEN_3, 2000)
+        );
+
+        // When
+        List<Node> route1 = route(Screen.SCREEN_1, Screen.SCREEN_3);
+        navigationGraph().recordDuration(node(Screen.SCREEN_2, Screen.SCREEN_3), 5000);
+        List<Node> route2 = route(Screen.SCREEN_1, Screen.SCREEN_3);
+
+        // Then
+        assertEquals(route1, Arrays.asList(
+            node(Screen.SCREEN_1, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_3)));
+
+        assertEquals(route2, Collections.singletonList(node(Screen.SCREEN_1, Screen.SCREEN_3)));
+        assertEquals(navigationGraph().weight(route1.get(1)), 5100);
+    }
+
+    @Test
+    public void test_route_shouldBeShortestAndUpdated() {
+        // Setup
+        clearAllNodes();
+
+        addForwardNodes(
+            node(Screen.SCREEN_1, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_3),
+            node(Screen.SCREEN_3, Screen.SCREEN_4),
+            node(Screen.SCREEN_1, Screen.SCREEN_3)
+        );
+
+        /* SCREEN_4 is a dead end, so we need to backtrack */
+        addBackwardNodes(node(Screen.SCREEN_4, Screen.SCREEN_2));
+
+        // When
+        List<Node> route1 = route(Screen.SCREEN_1, Screen.SCREEN_4);
+        List<Node> route2 = route(Screen.SCREEN_4, Screen.SCREEN_3);
+        List<Node> route3 = route(Screen.SCREEN_3, Screen.SCREEN_1);
+        addForwardNodes(node(Screen.SCREEN_3, Screen.SCREEN_1));
+        List<Node> route4 = route(Screen.SCREEN_3, Screen.SCREEN_1);
+
+        // Then
+        assertEquals(route1, Arrays.asList(
+            node(Screen.SCREEN_1, Screen.SCREEN_3),
+            node(Screen.SCREEN_3, Screen.SCREEN_4)));
+
+        assertEquals(route2, Arrays.asList(
+            node(Screen.SCREEN_4, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_3)));
+
+        assertTrue(route3.isEmpty());
+        assertEquals(route4, Collections.singletonList(node(Screen.SCREEN_3, Screen.SCREEN_1)));
+        assertEquals(route(Screen.SCREEN_2, Screen.SCREEN_2).get(0).S2, Screen.SCREEN_2);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void test_routeThroughLoop_shouldBacktrack() {
+        // Setup
+        clearAllNodes();
+
+        addForwardNodes(
+            node(Screen.SCREEN_1, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_1)
+        );
+
+        /* SCREEN_2 only leads forward to SCREEN_1, which we came from, so
+         * we need to backtrack even though it is not a dead end */
+        addBackwardNodes(node(Screen.SCREEN_2, Screen.SCREEN_3));
+
+        // When
+        List<Node> route1 = route(Screen.SCREEN_1, Screen.SCREEN_3);
+        List<Node> route2 = shortest(Screen.SCREEN_1, Screen.SCREEN_3, Screen.SCREEN_1);
+        List<Node> route3 = shortest(Screen.SCREEN_1, Screen.SCREEN_3, forwardNodes(Screen.SCREEN_1));
+
+        // Then
+        assertEquals(route1, Arrays.asList(
+            node(Screen.SCREEN_1, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_3)));
+
+        assertEquals(route2, route1);
+        assertEquals(route3, route1);
+    }
+
+    @Test
+    public void test_routeWithFasterBackwardNode_shouldBacktrack() {
+        // Setup
+        clearAllNodes();
+
+        addForwardNodes(
+            node(Screen.SCREEN_1, Screen.SCREEN_2, 100),
+            node(Screen.SCREEN_2, Screen.SCREEN_4, 100),
+            node(Screen.SCREEN_4, Screen.SCREEN_3, 5000)
+        );
+
+        /* SCREEN_2 still leads forward somewhere new, but going back is
+         * faster */
+        addBackwardNodes(node(Screen.SCREEN_2, Screen.SCREEN_3, 100));
+
+        // When
+        List<Node> route = route(Screen.SCREEN_1, Screen.SCREEN_3);
+
+        // Then
+        assertEquals(route, Arrays.asList(
+            node(Screen.SCREEN_1, Screen.SCREEN_2),
+            node(Screen.SCREEN_2, Screen.SCREEN_3)));
     }
 
     @SuppressWarnings("EmptyCatchBlock")
@@ -142,6 +376,14 @@ public class NavigationTest implements ScreenManagerType {
             return 0;
         }
 
+        @NotNull
+        @Override
+        public ByXPath fingerprint(@NotNull Engine<?> engine) {
+            ByXPath fingerprint = mock(ByXPath.class);
+            doReturn(String.format("//screen[@name='%s']", name())).when(fingerprint).xpath();
+            return fingerprint;
+        }
+
         @NotNull
         @Override
         public List<Direction> forwardAccessible(@NotNull final Engine<?> ENGINE) {
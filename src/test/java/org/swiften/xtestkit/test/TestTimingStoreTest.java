@@ -0,0 +1,182 @@
+package org.swiften.xtestkit.test;
+
+import org.jetbrains.annotations.NotNull;
+import org.testng.IClass;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+public final class TestTimingStoreTest {
+    @NotNull private static final String CLASS_1 = "org.swiften.Test1";
+    @NotNull private static final String CLASS_2 = "org.swiften.Test2";
+
+    private File file;
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException {
+        file = File.createTempFile("timings", ".tsv");
+        assertTrue(file.delete());
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        file.delete();
+    }
+
+    @Test
+    public void test_record_shouldPersistAcrossInstances() {
+        // Setup
+        TestTimingStore store = new TestTimingStore(file);
+
+        // When
+        store.record(CLASS_1, 0, 1000);
+        store.record(CLASS_1, 0, 3000);
+        store.record(CLASS_1, 1, 8000);
+
+        // Then
+        TestTimingStore reloaded = new TestTimingStore(file);
+        assertEquals(reloaded.estimate(CLASS_1, 0), 2000);
+        assertEquals(reloaded.estimate(CLASS_1, 1), 8000);
+        assertEquals(reloaded.estimate(CLASS_1), 4000);
+        assertEquals(reloaded.estimate(CLASS_1, 2), -1);
+        assertEquals(reloaded.estimate(CLASS_2), -1);
+    }
+
+    @Test
+    public void test_compact_shouldKeepOneLinePerEngine() throws IOException {
+        // Setup
+        TestTimingStore store = new TestTimingStore(file);
+        store.record(CLASS_1, 0, 1000);
+        store.record(CLASS_1, 0, 3000);
+        store.record(CLASS_2, 0, 500);
+
+        /* A line cut short by a crash must be skipped */
+        Files.write(file.toPath(), "org.swiften.Test3\t0".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        // When
+        new TestTimingStore(file).compact();
+
+        // Then
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(lines.size(), 2);
+        assertTrue(lines.contains(CLASS_1 + "\t0\t4000\t2"));
+        assertEquals(new TestTimingStore(file).estimate(CLASS_1, 0), 2000);
+        assertEquals(new TestTimingStore(file).estimate(CLASS_2, 0), 500);
+    }
+
+    @NotNull
+    private ITestResult result(@NotNull Class<?> cls, long millis,
+                               boolean classConfig, boolean suiteConfig) {
+        ITestResult result = mock(ITestResult.class);
+        ITestNGMethod method = mock(ITestNGMethod.class);
+        IClass testClass = mock(IClass.class);
+        doReturn(cls).when(testClass).getRealClass();
+        doReturn(classConfig).when(method).isBeforeClassConfiguration();
+        doReturn(suiteConfig).when(method).isBeforeSuiteConfiguration();
+        doReturn(method).when(result).getMethod();
+        doReturn(testClass).when(result).getTestClass();
+        doReturn(0L).when(result).getStartMillis();
+        doReturn(millis).when(result).getEndMillis();
+        return result;
+    }
+
+    @Test
+    public void test_estimatedDuration_shouldUseEngineEstimates() {
+        // Setup
+        TestTimingStore store = new TestTimingStore(file);
+        store.record(String.class.getName(), 0, 1000);
+        store.record(String.class.getName(), 1, 9000);
+        store.record(Integer.class.getName(), 0, 5000);
+        store.record(Integer.class.getName(), 1, 2000);
+        store.record(Long.class.getName(), 0, 3000);
+
+        RepeatRunner runner = RepeatRunner.builder()
+            .addTestClass(String.class)
+            .addTestClass(Integer.class)
+            .addTestClass(Long.class)
+            .withTimingStore(file)
+            .build();
+
+        // When
+        long engine0 = runner.estimatedDuration(0);
+        long engine1 = runner.estimatedDuration(1);
+        long engine2 = runner.estimatedDuration(2);
+        runner.TEST_CLASSES.add(Double.class);
+
+        // Then
+        /* An engine without history for a class falls back to its average
+         * across engines, and a class without any history at all might be
+         * the longest */
+        assertEquals(engine0, 9000);
+        assertEquals(engine1, 14000);
+        assertEquals(engine2, 11500);
+        assertEquals(runner.estimatedDuration(0), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void test_joinWorkers_shouldAdmitLongestFirst() {
+        // Setup
+        RepeatRunner runner = RepeatRunner.builder()
+            .withPartitionSize(1)
+            .withParameterConsumer(new RepeatRunner.IndexConsumer() {})
+            .build();
+
+        Collection<Integer> running = new HashSet<>();
+        Map<Integer,Long> waiting = new HashMap<>();
+        waiting.put(0, 1000L);
+        waiting.put(1, 5000L);
+        waiting.put(2, 5000L);
+
+        // When
+        boolean join0 = runner.joinWorkers(0, running, waiting);
+        boolean join2 = runner.joinWorkers(2, running, waiting);
+        boolean join1 = runner.joinWorkers(1, running, waiting);
+        boolean join2Full = runner.joinWorkers(2, running, waiting);
+        runner.leaveWorkers(1, running);
+        boolean join0Again = runner.joinWorkers(0, running, waiting);
+        boolean join2Free = runner.joinWorkers(2, running, waiting);
+
+        // Then
+        /* Ties are broken by the lower engine index */
+        assertFalse(join0);
+        assertFalse(join2);
+        assertTrue(join1);
+        assertFalse(join2Full);
+        assertFalse(join0Again);
+        assertTrue(join2Free);
+        assertEquals(waiting.keySet(), Collections.singleton(0));
+    }
+
+    @Test
+    public void test_configurationDurations_shouldCountTowardsClass() {
+        // Setup
+        RepeatRunner runner = spy(RepeatRunner.builder().withTimingStore(file).build());
+        doReturn(0).when(runner).workerIndex();
+
+        // When
+        runner.onConfigurationSuccess(result(String.class, 500, true, false));
+        runner.onTestSuccess(result(String.class, 1000, false, false));
+        runner.onConfigurationSuccess(result(String.class, 4000, false, true));
+        runner.flushDurations();
+
+        // Then
+        /* Suite configurations are not attributed to the class */
+        assertEquals(new TestTimingStore(file).estimate(String.class.getName(), 0), 1500);
+    }
+}
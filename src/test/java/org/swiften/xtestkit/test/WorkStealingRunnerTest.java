@@ -0,0 +1,24 @@
+package org.swiften.xtestkit.test;
+
+import org.swiften.javautilities.util.HPLog;
+import org.testng.annotations.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+public final class WorkStealingRunnerTest {
+    private final int INDEX;
+
+    @Factory(
+        dataProviderClass = WorkStealingTestRunner.class,
+        dataProvider = "dataProvider"
+    )
+    public WorkStealingRunnerTest(int index) {
+        HPLog.printft("Starting test %d", index);
+        WorkStealingTestRunner.INSTANCES.add(index);
+        INDEX = index;
+    }
+
+    @Test
+    public void test_runTest_shouldRunOnce() {}
+}
@@ -0,0 +1,97 @@
+package org.swiften.xtestkit.test;
+
+import io.reactivex.Flowable;
+import org.jetbrains.annotations.NotNull;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Created by haipham on 25/7/17.
+ */
+public final class WorkStealingTestRunner implements RepeatRunner.TestRunner {
+    @NotNull private static final RepeatRunner RUNNER;
+    @NotNull private static final TestListenerType LISTENER;
+    @NotNull static final Collection<Integer> INSTANCES;
+
+    private static final int RETRY;
+    private static final int CLASS_COUNT;
+
+    static {
+        RETRY = 3;
+        CLASS_COUNT = 2;
+        INSTANCES = new ConcurrentLinkedQueue<>();
+        LISTENER = mock(TestListenerType.class);
+
+        /* The same class is added twice to get two units of work */
+        RUNNER = RepeatRunner.builder()
+            .addTestClass(WorkStealingRunnerTest.class)
+            .addTestClass(WorkStealingRunnerTest.class)
+            .withVerboseLevel(0)
+            .withRetries(RETRY)
+            .withPartitionSize(RETRY)
+            .withParameterConsumer(new RepeatRunner.IndexConsumer() {})
+            .withWorkStealing(true)
+            .addListener(LISTENER)
+            .build();
+    }
+
+    @NotNull
+    @DataProvider(parallel = false)
+    public static Iterator<Object[]> dataProvider() {
+        return RUNNER.dataParameters();
+    }
+
+    @BeforeClass
+    public static void beforeClass() {
+        doReturn(Flowable.just(true)).when(LISTENER).rxa_onFreshStart();
+        doReturn(Flowable.just(true)).when(LISTENER).rxa_onBatchStarted(any());
+        doReturn(Flowable.just(true)).when(LISTENER).rxa_onBatchFinished(any());
+        doReturn(Flowable.just(true)).when(LISTENER).rxa_onAllTestsFinished();
+    }
+
+    @AfterClass
+    public void afterClass() {
+        reset(LISTENER);
+    }
+
+    //region RepeatRunner.TestRunner
+    @Test
+    @Override
+    public void runTests() {
+        // Setup
+        ArgumentCaptor<int[]> captor = ArgumentCaptor.forClass(int[].class);
+        INSTANCES.clear();
+
+        // When
+        RUNNER.run();
+
+        // Then
+        verify(LISTENER).rxa_onFreshStart();
+        verify(LISTENER, times(RETRY)).rxa_onBatchStarted(captor.capture());
+        verify(LISTENER, times(RETRY)).rxa_onBatchFinished(any());
+        verify(LISTENER).rxa_onAllTestsFinished();
+        captor.getAllValues().forEach(a -> assertEquals(a.length, 1));
+
+        assertEquals(
+            captor.getAllValues().stream().map(a -> a[0]).collect(Collectors.toSet()),
+            IntStream.range(0, RETRY).boxed().collect(Collectors.toSet()));
+
+        /* Each class runs once per engine */
+        assertEquals(INSTANCES.size(), RETRY * CLASS_COUNT);
+
+        for (int i = 0; i < RETRY; i++) {
+            assertEquals(Collections.frequency(INSTANCES, i), CLASS_COUNT);
+        }
+    }
+    //endregion
+}